@@ -3,14 +3,19 @@ package com.cleanup.todoc.db;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import androidx.annotation.NonNull;
 import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
 import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.test.InstrumentationRegistry;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.cleanup.todoc.database.TodocDatabase;
 import com.cleanup.todoc.db.utils.LiveDataTestUtil;
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectStats;
+import com.cleanup.todoc.model.Task;
 
 import org.junit.After;
 import org.junit.Before;
@@ -18,6 +23,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -41,6 +47,13 @@ public class ProjectDaoTest {
                         TodocDatabase.class)
                 // Allow main thread queries, just for testing
                 .allowMainThreadQueries()
+                // Les statistiques des projets sont tenues à jour par des déclencheurs que Room ne crée pas
+                .addCallback(new RoomDatabase.Callback() {
+                    @Override
+                    public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        TodocDatabase.createProjectStatsTriggers(db);
+                    }
+                })
                 // Construire la base de données
                 .build();
     }
@@ -76,5 +89,33 @@ public class ProjectDaoTest {
         assertEquals(projects.get(2).getColor(), this.projects[2].getColor());
     }
 
+    @Test
+    public void projectStatsFollowTasks() throws InterruptedException {
+        this.database.projectDao().insertProjects(this.projects);
+        // Un projet créé a des statistiques vides
+        List<ProjectStats> stats = LiveDataTestUtil.getOrAwaitValue(this.database.projectDao().getProjectStats());
+        assertEquals(3, stats.size());
+        assertEquals(0, stats.get(0).getTaskCount());
 
+        this.database.taskDao().insertTasks(Arrays.asList(
+                new Task(this.projects[0].getId(), "aaa", 100),
+                new Task(this.projects[0].getId(), "bbb", 300),
+                new Task(this.projects[1].getId(), "ccc", 200)));
+        ProjectStats first = LiveDataTestUtil.getOrAwaitValue(
+                this.database.projectDao().getProjectStatsById(this.projects[0].getId()));
+        assertEquals(2, first.getTaskCount());
+        assertEquals(300, first.getLastTaskTimestamp());
+
+        // La suppression de la tâche la plus récente met à jour le nombre et la date
+        List<Task> tasks = this.database.taskDao().getTaskList();
+        for (Task task : tasks) {
+            if (task.getCreationTimestamp() == 300) {
+                this.database.taskDao().deleteTask(task);
+            }
+        }
+        first = LiveDataTestUtil.getOrAwaitValue(
+                this.database.projectDao().getProjectStatsById(this.projects[0].getId()));
+        assertEquals(1, first.getTaskCount());
+        assertEquals(100, first.getLastTaskTimestamp());
+    }
 }
@@ -2,13 +2,25 @@ package com.cleanup.todoc.db;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import androidx.room.Room;
-
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import com.cleanup.todoc.database.QueryMonitor;
+import com.cleanup.todoc.database.QueryStats;
+import com.cleanup.todoc.database.SlowQuery;
+import com.cleanup.todoc.database.TaskBackup;
+import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.database.TimingOpenHelperFactory;
 import com.cleanup.todoc.database.TodocDatabase;
 import com.cleanup.todoc.db.utils.LiveDataTestUtil;
+import com.cleanup.todoc.executor.AppExecutors;
 import com.cleanup.todoc.model.Project;
 import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.repository.TaskMaintenance;
+import com.cleanup.todoc.search.TaskSearchQuery;
 
 import org.junit.After;
 import org.junit.Before;
@@ -16,8 +28,16 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(androidx.test.ext.junit.runners.AndroidJUnit4.class)
 public class TaskDaoTest {
@@ -155,4 +175,272 @@ public class TaskDaoTest {
         assertEquals(task3.getName(), tasks.get(1).getName());
         assertEquals(task3.getCreationTimestamp(), tasks.get(1).getCreationTimestamp());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test qui vérifie que les requêtes paginées reprennent exactement après la dernière tâche chargée,
+     * y compris lorsque plusieurs tâches partagent le même horodatage ou le même nom.
+     */
+    @Test
+    public void pageTasksByKeyset() {
+        this.database.taskDao().insertTask(new Task(projects[0].getId(), "bbb", 100));
+        this.database.taskDao().insertTask(new Task(projects[0].getId(), "aaa", 100));
+        this.database.taskDao().insertTask(new Task(projects[1].getId(), "ccc", 50));
+        this.database.taskDao().insertTask(new Task(projects[2].getId(), "aaa", 200));
+
+        // Du plus ancien au plus récent : première page de 2 tâches, puis la suite après la dernière clé
+        List<Task> page = this.database.taskDao().getTasksByTimestampAsc(2);
+        assertEquals(2, page.size());
+        assertEquals("ccc", page.get(0).getName());
+        assertEquals("bbb", page.get(1).getName());
+        Task last = page.get(1);
+        page = this.database.taskDao().getTasksByTimestampAscAfter(last.getCreationTimestamp(), last.getId(), 2);
+        assertEquals(2, page.size());
+        assertEquals("aaa", page.get(0).getName());
+        assertEquals(200, page.get(1).getCreationTimestamp());
+
+        // De Z à A : les deux tâches "aaa" sont départagées par leur identifiant
+        page = this.database.taskDao().getTasksByNameDesc(3);
+        assertEquals("ccc", page.get(0).getName());
+        assertEquals("bbb", page.get(1).getName());
+        assertEquals("aaa", page.get(2).getName());
+        last = page.get(2);
+        page = this.database.taskDao().getTasksByNameDescAfter(last.getName(), last.getId(), 10);
+        assertEquals(1, page.size());
+        assertEquals("aaa", page.get(0).getName());
+        assertTrue(page.get(0).getId() < last.getId());
+    }
+
+    /**
+     * Test qui vérifie que les requêtes paginées filtrées ne renvoient que les tâches des projets sélectionnés,
+     * dans l'ordre de la clé, pour un ou plusieurs projets.
+     */
+    @Test
+    public void pageTasksInProjects() {
+        this.database.taskDao().insertTask(new Task(projects[0].getId(), "bbb", 100));
+        this.database.taskDao().insertTask(new Task(projects[1].getId(), "ccc", 50));
+        this.database.taskDao().insertTask(new Task(projects[2].getId(), "aaa", 200));
+        this.database.taskDao().insertTask(new Task(projects[0].getId(), "ddd", 300));
+
+        final long[] single = {projects[0].getId()};
+        List<Task> page = this.database.taskDao().getTasksByTimestampDescInProjects(single, 1);
+        assertEquals(1, page.size());
+        assertEquals("ddd", page.get(0).getName());
+        final Task last = page.get(0);
+        page = this.database.taskDao().getTasksByTimestampDescAfterInProjects(single, last.getCreationTimestamp(),
+                last.getId(), 10);
+        assertEquals(1, page.size());
+        assertEquals("bbb", page.get(0).getName());
+
+        // Deux projets : les tâches des deux sont fusionnées dans l'ordre alphabétique
+        final long[] both = {projects[0].getId(), projects[2].getId()};
+        page = this.database.taskDao().getTasksByNameAscInProjects(both, 10);
+        assertEquals(3, page.size());
+        assertEquals("aaa", page.get(0).getName());
+        assertEquals("bbb", page.get(1).getName());
+        assertEquals("ddd", page.get(2).getName());
+        page = this.database.taskDao().getTasksByNameAscAfterInProjects(both, "bbb", page.get(1).getId(), 10);
+        assertEquals(1, page.size());
+        assertEquals("ddd", page.get(0).getName());
+    }
+
+    /**
+     * Test qui vérifie l'insertion, le déplacement et la suppression par lots, y compris au-delà
+     * du nombre maximal d'identifiants par requête lorsque les écritures sont regroupées dans une transaction.
+     */
+    @Test
+    public void batchInsertMoveAndDelete() throws InterruptedException {
+        final List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            batch.add(new Task(projects[0].getId(), "Tache " + i, i));
+        }
+        this.database.taskDao().insertTasks(batch);
+
+        List<Task> tasks = LiveDataTestUtil.getOrAwaitValue(this.database.taskDao().getTasks());
+        assertEquals(1200, tasks.size());
+
+        final long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.get(i).getId();
+        }
+        assertEquals(2, this.database.taskDao().moveTasksToProject(new long[]{ids[0], ids[1]}, projects[1].getId()));
+
+        // Suppression de toutes les tâches sauf la première, par tranches, dans une seule transaction
+        this.database.taskDao().runInTransaction(() -> {
+            for (int from = 1; from < ids.length; from += TaskDao.MAX_IDS_PER_QUERY) {
+                this.database.taskDao().deleteTasksByIds(
+                        Arrays.copyOfRange(ids, from, Math.min(ids.length, from + TaskDao.MAX_IDS_PER_QUERY)));
+            }
+        });
+
+        tasks = LiveDataTestUtil.getOrAwaitValue(this.database.taskDao().getTasks());
+        assertEquals(1, tasks.size());
+        assertEquals(ids[0], tasks.get(0).getId());
+        assertEquals(projects[1].getId(), tasks.get(0).getProjectId());
+    }
+
+    /**
+     * Test qui vérifie que la recherche plein texte suit les insertions, modifications et suppressions de tâches.
+     */
+    @Test
+    public void searchTasks() {
+        this.database.taskDao().insertTask(new Task(projects[0].getId(), "Écrire le rapport", 1));
+        this.database.taskDao().insertTask(new Task(projects[1].getId(), "Relire le cours", 2));
+
+        List<Task> found = this.database.taskDao().search(TaskSearchQuery.toMatchQuery("ecr"), 10);
+        assertEquals(1, found.size());
+        assertEquals("Écrire le rapport", found.get(0).getName());
+
+        this.database.taskDao().moveTasksToProject(new long[]{found.get(0).getId()}, projects[2].getId());
+        assertEquals(projects[2].getId(), this.database.taskDao().search("\"rapport*\"", 10).get(0).getProjectId());
+
+        this.database.taskDao().deleteTask(found.get(0));
+        assertTrue(this.database.taskDao().search("\"rapport*\"", 10).isEmpty());
+        assertEquals(1, this.database.taskDao().search(TaskSearchQuery.toMatchQuery("cou"), 10).size());
+    }
+
+    /**
+     * Test qui vérifie l'import d'un fichier par lots : les projets existants sont retrouvés par leur nom,
+     * les autres sont créés avec leur couleur, et les enregistrements incomplets sont ignorés.
+     */
+    @Test
+    public void importTasksInBatches() throws IOException, InterruptedException {
+        final String json = "{\"data\":["
+                + "{\"backgroundTint\":\"#EADAD1\",\"taskName\":\"Tache 1\",\"projectName\":\"Projet Tartampion\"},"
+                + "{\"backgroundTint\":\"#112233\",\"taskName\":\"Tache 2\",\"projectName\":\"Projet Nouveau\"},"
+                + "{\"taskName\":\"Sans projet\"},"
+                + "{\"backgroundTint\":\"#445566\",\"taskName\":\"Tache 3\",\"projectName\":\"Projet Nouveau\","
+                + "\"creationTimestamp\":42}"
+                + "]}";
+        final TaskImporter.Result result = new TaskImporter(this.database, 2)
+                .importAll(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(result.isComplete());
+        assertEquals(3, result.getRows());
+        assertEquals(1, result.getSkippedRows());
+        assertEquals(1, result.getProjectsCreated());
+
+        final List<Project> storedProjects = LiveDataTestUtil.getOrAwaitValue(this.database.projectDao().getProjects());
+        assertEquals(this.projects.length + 1, storedProjects.size());
+        final Project created = storedProjects.get(storedProjects.size() - 1);
+        assertEquals("Projet Nouveau", created.getName());
+        assertEquals(0xFF112233, created.getColor());
+
+        final List<Task> tasks = this.database.taskDao().getTaskList();
+        assertEquals(3, tasks.size());
+        assertEquals(this.projects[0].getId(), tasks.get(0).getProjectId());
+        assertEquals(created.getId(), tasks.get(2).getProjectId());
+        assertEquals(42, tasks.get(2).getCreationTimestamp());
+    }
+
+    /**
+     * Test qui vérifie qu'une restauration remet la base dans l'état sauvegardé, identifiants compris,
+     * et qu'une sauvegarde invalide ne modifie rien.
+     */
+    @Test
+    public void exportThenRestore() throws IOException {
+        this.database.taskDao().insertTask(this.task1);
+        this.database.taskDao().insertTask(this.task4);
+        final List<Task> saved = this.database.taskDao().getTaskList();
+        final TaskBackup backup = new TaskBackup(this.database);
+        for (TaskBackup.Format format : TaskBackup.Format.values()) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final TaskBackup.Result exported = backup.exportTo(Channels.newChannel(output), format, true);
+            assertEquals(this.projects.length, exported.getProjects());
+            assertEquals(2, exported.getTasks());
+
+            this.database.taskDao().insertTask(this.task5);
+            this.database.taskDao().deleteTasksByIds(new long[]{saved.get(0).getId()});
+            final TaskBackup.Result restored = backup.restoreFrom(new ByteArrayInputStream(output.toByteArray()));
+            assertEquals(2, restored.getTasks());
+
+            final List<Task> tasks = this.database.taskDao().getTaskList();
+            assertEquals(saved.size(), tasks.size());
+            for (int i = 0; i < saved.size(); i++) {
+                assertEquals(saved.get(i).getId(), tasks.get(i).getId());
+                assertEquals(saved.get(i).getProjectId(), tasks.get(i).getProjectId());
+                assertEquals(saved.get(i).getName(), tasks.get(i).getName());
+                assertEquals(saved.get(i).getCreationTimestamp(), tasks.get(i).getCreationTimestamp());
+            }
+        }
+
+        try {
+            backup.restoreFrom(new ByteArrayInputStream(
+                    "{\"type\":\"task\",\"id\":1,\"projectId\":99,\"name\":\"x\",\"creationTimestamp\":0}"
+                            .getBytes(StandardCharsets.UTF_8)));
+            fail("the foreign key constraint was expected to fail");
+        } catch (RuntimeException expected) {
+            // le projet 99 n'existe pas : la clé étrangère fait échouer la transaction
+        }
+        assertEquals(saved.size(), this.database.taskDao().getTaskList().size());
+    }
+
+    /**
+     * Test qui vérifie que la maintenance déplace les anciennes tâches dans l'archive, par lots,
+     * que la liste courante ne les contient plus et que l'historique les renvoie dans l'ordre, page par page.
+     */
+    @Test
+    public void archiveOldTasks() {
+        for (int i = 1; i <= 5; i++) {
+            this.database.taskDao().insertTask(new Task(projects[0].getId(), "Tache " + i, i * 10));
+        }
+        final TaskMaintenance maintenance = new TaskMaintenance(this.database, this.database.taskDao(),
+                new AppExecutors(1), () -> true, 0, 2);
+        maintenance.start(35);
+        //noinspection StatementWithEmptyBody
+        while (maintenance.runStep()) {
+        }
+        assertEquals(3, this.database.taskDao().getArchivedTaskCount());
+        final List<Task> current = this.database.taskDao().getTaskList();
+        assertEquals(2, current.size());
+        for (Task task : current) {
+            assertTrue(task.getCreationTimestamp() >= 35);
+        }
+
+        assertEquals(2, this.database.taskDao().getTasksByTimestampDesc(10, false).size());
+        final List<Task> firstPage = this.database.taskDao().getTasksByTimestampDesc(3, true);
+        assertEquals(Arrays.asList(50L, 40L, 30L), timestamps(firstPage));
+        final Task last = firstPage.get(firstPage.size() - 1);
+        final List<Task> nextPage = this.database.taskDao()
+                .getTaskHistoryDescAfter(last.getCreationTimestamp(), last.getId(), 3);
+        assertEquals(Arrays.asList(20L, 10L), timestamps(nextPage));
+    }
+
+    /**
+     * Test qui vérifie que la fabrique de connexions mesurée relève les requêtes du DAO et leurs transactions,
+     * et qu'une requête lente est conservée avec son plan d'exécution.
+     */
+    @Test
+    public void timingOpenHelperRecordsQueriesAndPlans() {
+        final QueryMonitor monitor = new QueryMonitor();
+        monitor.setSlowQueryThreshold(0, TimeUnit.NANOSECONDS);
+        final TodocDatabase timed = Room.inMemoryDatabaseBuilder(androidx.test.InstrumentationRegistry.getContext(),
+                        TodocDatabase.class)
+                .allowMainThreadQueries()
+                .openHelperFactory(new TimingOpenHelperFactory(new FrameworkSQLiteOpenHelperFactory(), monitor))
+                .build();
+        try {
+            timed.projectDao().insertProjects(this.projects);
+            timed.taskDao().insertTask(this.task1);
+            timed.taskDao().getTasksByTimestampDesc(10);
+
+            final QueryStats transactions = monitor.getQueryStats(QueryMonitor.TRANSACTION);
+            assertTrue(transactions != null && transactions.getCount() >= 2);
+            boolean planned = false;
+            for (SlowQuery query : monitor.getSlowQueries()) {
+                planned |= query.getSql().contains("ORDER BY") && query.getPlan() != null
+                        && query.getPlan().contains("index_task_creationTimestamp");
+            }
+            assertTrue(planned);
+        } finally {
+            timed.close();
+        }
+    }
+
+    private static List<Long> timestamps(List<Task> tasks) {
+        final List<Long> timestamps = new ArrayList<>();
+        for (Task task : tasks) {
+            timestamps.add(task.getCreationTimestamp());
+        }
+        return timestamps;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cleanup.todoc;
+
+import android.app.Application;
+
+import com.cleanup.todoc.injection.Injection;
+
+/**
+ * Application de Todoc : dès le démarrage du processus, avant la création de l'activité, elle lance en arrière-plan
+ * l'ouverture de la base de données et la création des sources de données (voir {@link Injection#prewarm}).
+ * Elle note aussi l'instant de son démarrage, origine de la mesure du temps jusqu'à la première image.
+ */
+public class TodocApplication extends Application {
+
+    /**
+     * Instant (System.nanoTime()) du début de onCreate()
+     */
+    private long mStartNanos;
+
+    @Override
+    public void onCreate() {
+        mStartNanos = System.nanoTime();
+        super.onCreate();
+        Injection.prewarm(this);
+    }
+
+    /**
+     * Renvoie l'instant (System.nanoTime()) du démarrage de l'application.
+     */
+    public long getStartNanos() {
+        return mStartNanos;
+    }
+}
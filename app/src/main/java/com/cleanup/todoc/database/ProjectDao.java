@@ -6,6 +6,7 @@ import androidx.room.Insert;
 import androidx.room.Query;
 
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectStats;
 
 import java.util.List;
 
@@ -24,6 +25,23 @@ public interface ProjectDao {
     @Query("SELECT * FROM project") // Requête de sélection
     LiveData<List<Project>> getProjects();
 
+    /**
+     * Obtenir les statistiques de tous les projets : nombre de tâches et date de la plus récente.
+     * La table est tenue à jour par des déclencheurs (voir TodocDatabase.createProjectStatsTriggers) :
+     * sa lecture coûte une ligne par projet, quel que soit le nombre de tâches.
+     * @return les statistiques de chaque projet, par identifiant de projet
+     */
+    @Query("SELECT * FROM project_stats ORDER BY project_id")
+    LiveData<List<ProjectStats>> getProjectStats();
+
+    /**
+     * Obtenir les statistiques d'un projet
+     * @param projectId l'identifiant du projet
+     * @return les statistiques du projet, null si le projet n'existe pas
+     */
+    @Query("SELECT * FROM project_stats WHERE project_id = :projectId")
+    LiveData<ProjectStats> getProjectStatsById(long projectId);
+
     /**
      * Insérer un projet dans la base de données
      * @param projects les projets à insérer
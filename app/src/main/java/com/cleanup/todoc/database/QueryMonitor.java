@@ -0,0 +1,324 @@
+package com.cleanup.todoc.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cette classe recueille les durées des requêtes et des transactions mesurées par {@link TimingOpenHelperFactory} :
+ * <ul>
+ *     <li>un histogramme des durées par forme de requête ({@link #shapeOf(String)}), relevé par {@link #getQueryStats()} ;</li>
+ *     <li>les dernières exécutions lentes ({@link #SLOW_QUERY_CAPACITY} au plus), avec leur plan d'exécution,
+ *     relevées par {@link #getSlowQueries()}.</li>
+ * </ul>
+ * Le plan d'une forme de requête n'est demandé à SQLite qu'à sa première exécution lente, puis réutilisé.
+ * Les méthodes peuvent être appelées depuis n'importe quel thread.
+ */
+public final class QueryMonitor {
+
+    /**
+     * Forme des transactions, mesurées du début de la transaction la plus externe à sa fin
+     */
+    public static final String TRANSACTION = "TRANSACTION";
+
+    /**
+     * Durée, en millisecondes, à partir de laquelle une exécution est lente par défaut : une image à 60 Hz
+     */
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 16;
+
+    /**
+     * Nombre d'exécutions lentes conservées
+     */
+    public static final int SLOW_QUERY_CAPACITY = 32;
+
+    /**
+     * Nombre maximal de formes suivies ; les suivantes sont regroupées sous {@link #OTHER_SHAPES}
+     */
+    static final int MAX_SHAPES = 256;
+
+    /**
+     * Forme des requêtes au-delà de {@link #MAX_SHAPES}
+     */
+    static final String OTHER_SHAPES = "<other>";
+
+    // Nombre maximal de textes de requêtes dont la forme est gardée en cache
+    private static final int MAX_CACHED_SQL = 1024;
+
+    // Longueur maximale d'une requête lente conservée
+    private static final int MAX_SQL_LENGTH = 1000;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w`.])-?\\d+(?:\\.\\d+)?(?![\\w`])");
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(?:SELECT|WITH|INSERT|REPLACE|UPDATE|DELETE)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Instance partagée par toute l'application
+     */
+    @Nullable
+    private static volatile QueryMonitor sInstance;
+
+    /**
+     * Les mesures d'une forme de requête, et son plan une fois obtenu
+     */
+    private static final class Recorder {
+        final String shape;
+        long count;
+        long totalNanos;
+        long maxNanos;
+        final long[] buckets = new long[QueryStats.BUCKETS];
+        // Plan d'exécution, obtenu à la première exécution lente
+        volatile String plan;
+
+        Recorder(String shape) {
+            this.shape = shape;
+        }
+
+        synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            buckets[QueryStats.bucketOf(nanos)]++;
+        }
+
+        synchronized QueryStats snapshot() {
+            return new QueryStats(shape, count, totalNanos, maxNanos, buckets.clone());
+        }
+    }
+
+    // Mesures par forme, et cache des formes par texte de requête (les textes de Room sont des constantes)
+    private final ConcurrentHashMap<String, Recorder> mByShape = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Recorder> mBySql = new ConcurrentHashMap<>();
+
+    private volatile long mSlowQueryNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_MILLIS);
+
+    // Tampon circulaire des exécutions lentes, protégé par son propre verrou
+    private final SlowQuery[] mSlowQueries = new SlowQuery[SLOW_QUERY_CAPACITY];
+    private int mNextSlowQuery;
+    private long mSlowQueryCount;
+
+    /**
+     * Renvoie l'instance partagée, installée sur la base de l'application.
+     */
+    @NonNull
+    public static QueryMonitor getInstance() {
+        if (sInstance == null) {
+            synchronized (QueryMonitor.class) {
+                if (sInstance == null) {
+                    sInstance = new QueryMonitor();
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * Renvoie la forme d'une requête : les espaces sont réduits, les littéraux (chaînes et nombres) remplacés par ?
+     * et les listes de paramètres (IN (?,?,?)) réduites à "?, ...". Les exécutions d'une même requête Room
+     * ont ainsi la même forme, quel que soit le nombre d'identifiants passés.
+     * @param sql la requête
+     * @return la forme de la requête
+     */
+    @NonNull
+    public static String shapeOf(@NonNull String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        return PLACEHOLDER_LIST.matcher(shape).replaceAll("?, ...");
+    }
+
+    /**
+     * Modifie la durée à partir de laquelle une exécution est conservée comme lente.
+     * @param duration la durée ; 0 pour conserver toutes les exécutions
+     * @param unit l'unité de la durée
+     */
+    public void setSlowQueryThreshold(long duration, @NonNull TimeUnit unit) {
+        mSlowQueryNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * Enregistre la durée d'une exécution.
+     * @param sql la requête exécutée, ou {@link #TRANSACTION}
+     * @param elapsedNanos la durée de l'exécution, en nanosecondes
+     * @param planSource la base sur laquelle demander le plan d'une exécution lente, sans passer par la mesure ;
+     *                   null pour ne pas le demander
+     */
+    public void record(@NonNull String sql, long elapsedNanos, @Nullable SupportSQLiteDatabase planSource) {
+        final Recorder recorder = recorderFor(sql);
+        recorder.record(elapsedNanos);
+        if (elapsedNanos >= mSlowQueryNanos) {
+            String plan = recorder.plan;
+            if (plan == null && planSource != null && EXPLAINABLE.matcher(sql).find()) {
+                plan = explain(planSource, sql);
+                // Les requêtes regroupées sous OTHER_SHAPES n'ont pas toutes le même plan
+                if (!OTHER_SHAPES.equals(recorder.shape)) {
+                    recorder.plan = plan;
+                }
+            }
+            addSlowQuery(new SlowQuery(sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) + "…" : sql,
+                    elapsedNanos, System.currentTimeMillis(), Thread.currentThread().getName(), plan));
+        }
+    }
+
+    @NonNull
+    private Recorder recorderFor(@NonNull String sql) {
+        Recorder recorder = mBySql.get(sql);
+        if (recorder != null) {
+            return recorder;
+        }
+        String shape = shapeOf(sql);
+        recorder = mByShape.get(shape);
+        if (recorder == null) {
+            if (mByShape.size() >= MAX_SHAPES) {
+                shape = OTHER_SHAPES;
+            }
+            final Recorder created = new Recorder(shape);
+            recorder = mByShape.putIfAbsent(shape, created);
+            if (recorder == null) {
+                recorder = created;
+            }
+        }
+        if (mBySql.size() < MAX_CACHED_SQL) {
+            mBySql.put(sql, recorder);
+        }
+        return recorder;
+    }
+
+    /**
+     * Demande le plan d'exécution d'une requête ; ses paramètres valent NULL, ce qui ne change pas les index choisis.
+     * @return une ligne par étape du plan, indentée selon sa profondeur, ou la cause de l'échec
+     */
+    @NonNull
+    private static String explain(@NonNull SupportSQLiteDatabase database, @NonNull String sql) {
+        final StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = database.query("EXPLAIN QUERY PLAN " + sql)) {
+            // Colonnes : id, parent, notused, detail ; la profondeur est déduite des parents
+            final List<Long> ids = new ArrayList<>();
+            final List<Integer> depths = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                final long id = cursor.getLong(0);
+                final int parentIndex = ids.indexOf(cursor.getLong(1));
+                final int depth = parentIndex < 0 ? 0 : depths.get(parentIndex) + 1;
+                ids.add(id);
+                depths.add(depth);
+                if (plan.length() > 0) {
+                    plan.append('\n');
+                }
+                for (int i = 0; i < depth; i++) {
+                    plan.append("  ");
+                }
+                plan.append(cursor.getString(3));
+            }
+        } catch (RuntimeException e) {
+            return "plan unavailable: " + e.getMessage();
+        }
+        return plan.toString();
+    }
+
+    private void addSlowQuery(@NonNull SlowQuery query) {
+        synchronized (mSlowQueries) {
+            mSlowQueries[mNextSlowQuery] = query;
+            mNextSlowQuery = (mNextSlowQuery + 1) % SLOW_QUERY_CAPACITY;
+            mSlowQueryCount++;
+        }
+    }
+
+    /**
+     * Renvoie le relevé des durées de chaque forme de requête, de la plus grande durée cumulée à la plus petite.
+     */
+    @NonNull
+    public List<QueryStats> getQueryStats() {
+        final List<QueryStats> stats = new ArrayList<>(mByShape.size());
+        for (Recorder recorder : mByShape.values()) {
+            stats.add(recorder.snapshot());
+        }
+        Collections.sort(stats, (a, b) -> Long.compare(b.getTotalMicros(), a.getTotalMicros()));
+        return stats;
+    }
+
+    /**
+     * Renvoie le relevé des durées de la forme de la requête donnée.
+     * @param sql la requête, ou {@link #TRANSACTION}
+     * @return le relevé, ou null si aucune exécution de cette forme n'a été mesurée
+     */
+    @Nullable
+    public QueryStats getQueryStats(@NonNull String sql) {
+        final Recorder recorder = mByShape.get(shapeOf(sql));
+        return recorder == null ? null : recorder.snapshot();
+    }
+
+    /**
+     * Renvoie les dernières exécutions lentes, de la plus ancienne à la plus récente.
+     */
+    @NonNull
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (mSlowQueries) {
+            final List<SlowQuery> queries = new ArrayList<>(SLOW_QUERY_CAPACITY);
+            for (int i = 0; i < SLOW_QUERY_CAPACITY; i++) {
+                final SlowQuery query = mSlowQueries[(mNextSlowQuery + i) % SLOW_QUERY_CAPACITY];
+                if (query != null) {
+                    queries.add(query);
+                }
+            }
+            return queries;
+        }
+    }
+
+    /**
+     * Efface toutes les mesures et les exécutions lentes.
+     */
+    @VisibleForTesting
+    public void reset() {
+        mByShape.clear();
+        mBySql.clear();
+        synchronized (mSlowQueries) {
+            Arrays.fill(mSlowQueries, null);
+            mNextSlowQuery = 0;
+            mSlowQueryCount = 0;
+        }
+    }
+
+    /**
+     * Écrit les mesures et les exécutions lentes, par exemple dans le dump d'une activité (adb shell dumpsys activity).
+     * @param prefix le préfixe de chaque ligne
+     * @param writer la destination
+     */
+    public void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        final long slowQueryCount;
+        synchronized (mSlowQueries) {
+            slowQueryCount = mSlowQueryCount;
+        }
+        writer.print(prefix);
+        writer.println(String.format(Locale.ROOT, "QueryMonitor: %d shapes, %d slow (>= %dms)",
+                mByShape.size(), slowQueryCount, TimeUnit.NANOSECONDS.toMillis(mSlowQueryNanos)));
+        for (QueryStats stats : getQueryStats()) {
+            writer.print(prefix);
+            writer.print("  ");
+            writer.println(stats);
+        }
+        writer.print(prefix);
+        writer.println("  Slow queries:");
+        for (SlowQuery query : getSlowQueries()) {
+            for (String line : query.toString().split("\n")) {
+                writer.print(prefix);
+                writer.print("    ");
+                writer.println(line);
+            }
+        }
+    }
+}
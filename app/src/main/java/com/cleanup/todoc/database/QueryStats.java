@@ -0,0 +1,121 @@
+package com.cleanup.todoc.database;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Cette classe est un relevé des durées d'exécution d'une forme de requête (voir {@link QueryMonitor#shapeOf(String)})
+ * à un instant donné : nombre d'exécutions, durée moyenne et maximale, et histogramme des durées.
+ * L'histogramme a des classes en puissances de deux de microsecondes : la classe i compte les durées
+ * comprises entre 2^i et 2^(i+1) µs, la première comptant aussi les durées inférieures à 1 µs.
+ * Une instance est immuable.
+ */
+public final class QueryStats {
+
+    /**
+     * Nombre de classes de l'histogramme : la dernière compte les durées de plus de 2^(BUCKETS-1) µs (environ 17 s)
+     */
+    public static final int BUCKETS = 25;
+
+    private final String shape;
+
+    private final long count;
+
+    private final long totalNanos;
+
+    private final long maxNanos;
+
+    private final long[] buckets;
+
+    QueryStats(String shape, long count, long totalNanos, long maxNanos, long[] buckets) {
+        this.shape = shape;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Renvoie la classe de l'histogramme d'une durée.
+     * @param nanos la durée, en nanosecondes
+     */
+    static int bucketOf(long nanos) {
+        final long micros = nanos / 1000;
+        final int bucket = 63 - Long.numberOfLeadingZeros(micros | 1);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * Renvoie la forme de la requête.
+     */
+    @NonNull
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * Renvoie le nombre d'exécutions.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Renvoie la durée cumulée des exécutions, en microsecondes.
+     */
+    public long getTotalMicros() {
+        return totalNanos / 1000;
+    }
+
+    /**
+     * Renvoie la durée moyenne d'une exécution, en microsecondes.
+     */
+    public long getMeanMicros() {
+        return count == 0 ? 0 : totalNanos / count / 1000;
+    }
+
+    /**
+     * Renvoie la plus longue durée d'exécution, en microsecondes.
+     */
+    public long getMaxMicros() {
+        return maxNanos / 1000;
+    }
+
+    /**
+     * Renvoie le nombre d'exécutions de la classe donnée de l'histogramme.
+     * @param bucket la classe, entre 0 et {@link #BUCKETS} - 1
+     */
+    public long getBucketCount(int bucket) {
+        return buckets[bucket];
+    }
+
+    /**
+     * Renvoie une borne supérieure du centile donné des durées : la borne haute de la classe de l'histogramme
+     * qui le contient, sans dépasser la durée maximale.
+     * @param percentile le centile, entre 0 et 100
+     * @return la borne, en microsecondes
+     */
+    public long getPercentileMicros(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS - 1; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) {
+                return Math.min(1L << (bucket + 1), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count=%d total=%dus mean=%dus p50<=%dus p95<=%dus p99<=%dus max=%dus  %s",
+                count, getTotalMicros(), getMeanMicros(), getPercentileMicros(50), getPercentileMicros(95),
+                getPercentileMicros(99), getMaxMicros(), shape);
+    }
+}
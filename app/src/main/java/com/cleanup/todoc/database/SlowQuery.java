@@ -0,0 +1,85 @@
+package com.cleanup.todoc.database;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Cette classe décrit une exécution lente relevée par le {@link QueryMonitor} : la requête, sa durée,
+ * le thread qui l'a exécutée et son plan d'exécution (EXPLAIN QUERY PLAN), lorsqu'il a pu être obtenu.
+ * Une instance est immuable.
+ */
+public final class SlowQuery {
+
+    private final String sql;
+
+    private final long elapsedNanos;
+
+    private final long timestampMillis;
+
+    private final String threadName;
+
+    @Nullable
+    private final String plan;
+
+    SlowQuery(String sql, long elapsedNanos, long timestampMillis, String threadName, @Nullable String plan) {
+        this.sql = sql;
+        this.elapsedNanos = elapsedNanos;
+        this.timestampMillis = timestampMillis;
+        this.threadName = threadName;
+        this.plan = plan;
+    }
+
+    /**
+     * Renvoie la requête exécutée, telle que reçue par la base de données.
+     */
+    @NonNull
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Renvoie la durée de l'exécution, en microsecondes.
+     */
+    public long getElapsedMicros() {
+        return elapsedNanos / 1000;
+    }
+
+    /**
+     * Renvoie l'heure de la fin de l'exécution (System.currentTimeMillis()).
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Renvoie le nom du thread qui a exécuté la requête.
+     */
+    @NonNull
+    public String getThreadName() {
+        return threadName;
+    }
+
+    /**
+     * Renvoie le plan d'exécution de la requête, une ligne par étape, ou null pour une requête sans plan
+     * (transaction, PRAGMA, création de table) ou dont le plan n'a pas pu être obtenu.
+     */
+    @Nullable
+    public String getPlan() {
+        return plan;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder(String.format(Locale.ROOT, "%dus [%s] %s",
+                getElapsedMicros(), threadName, sql));
+        if (plan != null) {
+            for (String line : plan.split("\n")) {
+                text.append("\n  ").append(line);
+            }
+        }
+        return text.toString();
+    }
+}
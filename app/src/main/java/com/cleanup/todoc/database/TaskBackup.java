@@ -0,0 +1,339 @@
+package com.cleanup.todoc.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cette classe sauvegarde les projets et les tâches dans un fichier, et les restaure à partir de celui-ci,
+ * sans copier le fichier de la base pendant une écriture.
+ * <p>
+ * La sauvegarde lit les projets puis les tâches, archivées comprises, par une seule requête dont une colonne donne
+ * la nature de chaque ligne : sans transaction, elle ne prend pas le verrou des écritures et, en mode WAL,
+ * s'exécute sur une connexion de lecture qui voit un même état de la base du début à la fin de la requête.
+ * Les lignes sont écrites une à une depuis le curseur, dont seule la fenêtre courante est en mémoire :
+ * aucune liste de tâches n'est construite, quelle que soit la taille des tables.
+ * <p>
+ * La restauration avance lot par lot ({@link Session#restoreBatch()}), un lot par transaction, avec des requêtes
+ * compilées une seule fois pour toute la session : les autres écritures passent entre deux lots.
+ * Le premier lot vide les tables avant ses insertions : une sauvegarde refusée dès le premier lot ne modifie rien.
+ * Une erreur dans un lot suivant conserve les lots déjà restaurés ; la base est remise en état en restaurant
+ * de nouveau une sauvegarde complète.
+ */
+public class TaskBackup {
+
+    /**
+     * Nombre d'enregistrements restaurés par transaction
+     */
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    /**
+     * Le format des lignes d'une sauvegarde
+     */
+    public enum Format {
+        /**
+         * Un objet JSON par ligne
+         */
+        JSON_LINES,
+        /**
+         * Une ligne CSV par enregistrement, après une ligne d'en-tête
+         */
+        CSV
+    }
+
+    // Nature des lignes lues par la sauvegarde, dans leur ordre d'écriture
+    private static final int TYPE_PROJECT = 0;
+    private static final int TYPE_TASK = 1;
+
+    // Les tâches archivées sont sauvegardées avec les autres : la restauration les remet dans la table "task",
+    // la maintenance les archivera de nouveau
+    private static final String SELECT_BACKUP =
+            "SELECT " + TYPE_PROJECT + " AS `type`, `id`, 0 AS `project_id`, `name`, `color`, "
+                    + "0 AS `creationTimestamp` FROM `project` "
+                    + "UNION ALL SELECT " + TYPE_TASK + ", `id`, `project_id`, `name`, 0, `creationTimestamp` "
+                    + "FROM `task` "
+                    + "UNION ALL SELECT " + TYPE_TASK + ", `id`, `project_id`, `name`, 0, `creationTimestamp` "
+                    + "FROM `task_archive` "
+                    + "ORDER BY `type`, `id`";
+
+    private final RoomDatabase mDatabase;
+
+    private final int mBatchSize;
+
+    public TaskBackup(@NonNull RoomDatabase database) {
+        this(database, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param database la base de données
+     * @param batchSize le nombre d'enregistrements restaurés par transaction
+     */
+    public TaskBackup(@NonNull RoomDatabase database, int batchSize) {
+        mDatabase = database;
+        mBatchSize = batchSize;
+    }
+
+    /**
+     * Écrit la sauvegarde de tous les projets puis de toutes les tâches, dans l'ordre de leur identifiant.
+     * La base est lue sans transaction : l'appel peut se faire sur un thread de lecture.
+     * @param channel le canal de destination, fermé à la fin de la sauvegarde
+     * @param format le format des lignes
+     * @param gzip true pour compresser la sauvegarde
+     * @return le bilan de la sauvegarde
+     * @throws IOException si le canal ne peut être écrit
+     */
+    @NonNull
+    @WorkerThread
+    public Result exportTo(@NonNull WritableByteChannel channel, @NonNull Format format, boolean gzip)
+            throws IOException {
+        final long start = System.nanoTime();
+        long projects = 0;
+        long tasks = 0;
+        try (TaskBackupWriter writer = new TaskBackupWriter(channel, format, gzip);
+             Cursor cursor = mDatabase.query(SELECT_BACKUP, null)) {
+            while (cursor.moveToNext()) {
+                if (cursor.getInt(0) == TYPE_PROJECT) {
+                    writer.writeProject(cursor.getLong(1), cursor.getString(3), cursor.getInt(4));
+                    projects++;
+                } else {
+                    writer.writeTask(cursor.getLong(1), cursor.getLong(2), cursor.getString(3), cursor.getLong(5));
+                    tasks++;
+                }
+            }
+        }
+        return new Result(projects, tasks, System.nanoTime() - start);
+    }
+
+    /**
+     * Ouvre une session de restauration de la sauvegarde donnée. Le fichier et la base ne sont lus qu'au premier lot :
+     * l'appel peut se faire sur le thread principal.
+     * @param input le contenu de la sauvegarde, fermé avec la session
+     * @return la session, à fermer après le dernier lot
+     */
+    @NonNull
+    public Session open(@NonNull InputStream input) {
+        return new Session(input);
+    }
+
+    /**
+     * Remplace tous les projets et toutes les tâches par ceux de la sauvegarde donnée, lot par lot.
+     * La compression et le format sont reconnus au début du fichier.
+     * @param input le contenu de la sauvegarde, fermé à la fin de la restauration
+     * @return le bilan de la restauration
+     * @throws IOException si la sauvegarde ne peut être lue ou est invalide
+     */
+    @NonNull
+    @WorkerThread
+    public Result restoreFrom(@NonNull InputStream input) throws IOException {
+        try (Session session = open(input)) {
+            //noinspection StatementWithEmptyBody
+            while (session.restoreBatch()) {
+            }
+            return session.getResult();
+        }
+    }
+
+    /**
+     * Une restauration en cours, à faire avancer lot par lot depuis un même thread de travail.
+     */
+    public final class Session implements Closeable {
+
+        private final InputStream mInput;
+
+        // Lecteur ouvert au premier lot, la compression et le format étant reconnus en lisant le début du fichier
+        private TaskBackupReader mReader;
+
+        // Requêtes compilées au premier lot et réutilisées pour toutes les lignes
+        private SupportSQLiteStatement mInsertProject;
+        private SupportSQLiteStatement mInsertTask;
+
+        private long mStartNanos;
+        private long mEndNanos;
+
+        // Bilan des lots validés
+        private long mProjects;
+        private long mTasks;
+
+        // Vrai lorsque le premier lot, qui vide les tables, a été validé
+        private boolean mCleared;
+
+        private boolean mFinished;
+
+        private Session(@NonNull InputStream input) {
+            mInput = input;
+        }
+
+        /**
+         * Restaure le lot suivant dans une transaction ; le premier vide d'abord les tables.
+         * @return true s'il reste des enregistrements à restaurer
+         * @throws IOException si la sauvegarde ne peut être lue ou est invalide ; la session est alors terminée
+         */
+        @WorkerThread
+        @SuppressWarnings("deprecation")
+        public boolean restoreBatch() throws IOException {
+            if (mFinished) {
+                return false;
+            }
+            if (mReader == null) {
+                prepare();
+            }
+            long projects = 0;
+            long tasks = 0;
+            boolean last = false;
+            boolean committed = false;
+            // Transaction de Room, pour que les observateurs des tables soient prévenus au commit
+            mDatabase.beginTransaction();
+            try {
+                if (!mCleared) {
+                    final SupportSQLiteDatabase database = mDatabase.getOpenHelper().getWritableDatabase();
+                    database.execSQL("DELETE FROM `task`");
+                    database.execSQL("DELETE FROM `task_archive`");
+                    database.execSQL("DELETE FROM `project`");
+                }
+                for (int read = 0; read < mBatchSize; read++) {
+                    final TaskBackupReader.Record record = mReader.next();
+                    if (record == null) {
+                        last = true;
+                        break;
+                    }
+                    if (record == TaskBackupReader.Record.PROJECT) {
+                        mInsertProject.bindLong(1, mReader.getId());
+                        mInsertProject.bindString(2, mReader.getName());
+                        mInsertProject.bindLong(3, mReader.getColor());
+                        mInsertProject.executeInsert();
+                        projects++;
+                    } else {
+                        mInsertTask.bindLong(1, mReader.getId());
+                        mInsertTask.bindLong(2, mReader.getProjectId());
+                        mInsertTask.bindString(3, mReader.getName());
+                        mInsertTask.bindLong(4, mReader.getCreationTimestamp());
+                        mInsertTask.executeInsert();
+                        tasks++;
+                    }
+                }
+                mDatabase.setTransactionSuccessful();
+                committed = true;
+            } finally {
+                mDatabase.endTransaction();
+                mEndNanos = System.nanoTime();
+                mFinished = last || !committed;
+            }
+            mCleared = true;
+            mProjects += projects;
+            mTasks += tasks;
+            if (last) {
+                // Les derniers lots restés dans le journal, sous le seuil du report automatique
+                TodocDatabase.checkpoint(mDatabase.getOpenHelper().getWritableDatabase(),
+                        TodocDatabase.CHECKPOINT_PASSIVE);
+            }
+            return !mFinished;
+        }
+
+        private void prepare() throws IOException {
+            mStartNanos = System.nanoTime();
+            try {
+                mReader = new TaskBackupReader(mInput);
+            } catch (IOException | RuntimeException e) {
+                mFinished = true;
+                throw e;
+            }
+            mInsertProject = mDatabase.compileStatement(
+                    "INSERT INTO `project` (`id`, `name`, `color`) VALUES (?, ?, ?)");
+            mInsertTask = mDatabase.compileStatement(
+                    "INSERT INTO `task` (`id`, `project_id`, `name`, `creationTimestamp`) VALUES (?, ?, ?, ?)");
+        }
+
+        /**
+         * Renvoie le bilan des lots validés jusqu'ici.
+         */
+        @NonNull
+        public Result getResult() {
+            return new Result(mProjects, mTasks, mEndNanos - mStartNanos);
+        }
+
+        /**
+         * Ferme la sauvegarde et libère les requêtes compilées.
+         */
+        @Override
+        public void close() {
+            mFinished = true;
+            closeQuietly(mInsertProject);
+            closeQuietly(mInsertTask);
+            closeQuietly(mReader != null ? mReader : mInput);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Rien à faire : les données sont déjà validées ou annulées
+            }
+        }
+    }
+
+    /**
+     * Le bilan d'une sauvegarde ou d'une restauration : nombre de projets et de tâches, et débit.
+     */
+    public static final class Result {
+
+        private final long projects;
+
+        private final long tasks;
+
+        private final long elapsedNanos;
+
+        public Result(long projects, long tasks, long elapsedNanos) {
+            this.projects = projects;
+            this.tasks = tasks;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Renvoie le nombre de projets sauvegardés ou restaurés.
+         */
+        public long getProjects() {
+            return projects;
+        }
+
+        /**
+         * Renvoie le nombre de tâches sauvegardées ou restaurées.
+         */
+        public long getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Renvoie la durée de l'opération, en millisecondes.
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        /**
+         * Renvoie le débit de l'opération, en lignes (projets et tâches) par seconde.
+         */
+        public long getRowsPerSecond() {
+            return elapsedNanos > 0 ? (projects + tasks) * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d projects, %d tasks in %d ms (%d rows/s)",
+                    projects, tasks, getElapsedMillis(), getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.cleanup.todoc.database;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Cette classe relit, un enregistrement à la fois, une sauvegarde écrite par {@link TaskBackupWriter}.
+ * La compression gzip et le format (JSON Lines ou CSV) sont reconnus aux premiers octets du fichier.
+ * Les champs de l'enregistrement courant sont remplacés à chaque appel de {@link #next()}.
+ */
+public class TaskBackupReader implements Closeable {
+
+    /**
+     * La nature d'un enregistrement
+     */
+    public enum Record {
+        PROJECT,
+        TASK
+    }
+
+    private final Reader mText;
+
+    private final TaskBackup.Format mFormat;
+
+    // Lecteur JSON de tout le fichier, les objets de premier niveau se suivant (mode permissif) ; null en CSV
+    @Nullable
+    private final JsonReader mJsonReader;
+
+    // Cellules de la ligne CSV courante
+    private final List<String> mFields = new ArrayList<>(6);
+    private final StringBuilder mField = new StringBuilder();
+
+    private long mId;
+    private long mProjectId;
+    @Nullable
+    private String mName;
+    private int mColor;
+    private long mCreationTimestamp;
+
+    /**
+     * @param input le contenu de la sauvegarde, fermé avec le lecteur
+     * @throws IOException si la sauvegarde ne peut être lue ou n'est pas dans un format reconnu
+     */
+    public TaskBackupReader(@NonNull InputStream input) throws IOException {
+        InputStream bytes = new BufferedInputStream(input, 64 * 1024);
+        bytes.mark(2);
+        final boolean gzip = bytes.read() == 0x1f && bytes.read() == 0x8b;
+        bytes.reset();
+        if (gzip) {
+            bytes = new BufferedInputStream(new GZIPInputStream(bytes, 64 * 1024), 64 * 1024);
+        }
+        bytes.mark(1);
+        final int first = bytes.read();
+        bytes.reset();
+        mText = new BufferedReader(new InputStreamReader(bytes, StandardCharsets.UTF_8));
+        if (first == '{') {
+            mFormat = TaskBackup.Format.JSON_LINES;
+            mJsonReader = new JsonReader(mText);
+            mJsonReader.setLenient(true);
+        } else {
+            mFormat = TaskBackup.Format.CSV;
+            mJsonReader = null;
+            if (!readCsvRecord() || !Arrays.asList(TaskBackupWriter.CSV_HEADER.split(",")).equals(mFields)) {
+                throw new IOException("not a task backup");
+            }
+        }
+    }
+
+    /**
+     * Renvoie le format reconnu de la sauvegarde.
+     */
+    @NonNull
+    public TaskBackup.Format getFormat() {
+        return mFormat;
+    }
+
+    /**
+     * Lit l'enregistrement suivant.
+     * @return la nature de l'enregistrement lu, ou null à la fin de la sauvegarde
+     * @throws IOException si la sauvegarde ne peut être lue ou contient un enregistrement invalide
+     */
+    @Nullable
+    public Record next() throws IOException {
+        try {
+            return mJsonReader != null ? nextJson(mJsonReader) : nextCsv();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("invalid backup record: " + e.getMessage(), e);
+        }
+    }
+
+    @Nullable
+    private Record nextJson(@NonNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.END_DOCUMENT) {
+            return null;
+        }
+        String type = null;
+        mName = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "type":
+                    type = reader.nextString();
+                    break;
+                case "id":
+                    mId = reader.nextLong();
+                    break;
+                case "projectId":
+                    mProjectId = reader.nextLong();
+                    break;
+                case "name":
+                    mName = reader.nextString();
+                    break;
+                case "color":
+                    mColor = reader.nextInt();
+                    break;
+                case "creationTimestamp":
+                    mCreationTimestamp = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        return toRecord(type);
+    }
+
+    @Nullable
+    private Record nextCsv() throws IOException {
+        if (!readCsvRecord()) {
+            return null;
+        }
+        if (mFields.size() != 6) {
+            throw new IOException("invalid backup record: " + mFields.size() + " fields");
+        }
+        mName = mFields.get(3);
+        final Record record = toRecord(mFields.get(0));
+        mId = Long.parseLong(mFields.get(1));
+        if (record == Record.PROJECT) {
+            mColor = Integer.parseInt(mFields.get(4));
+        } else {
+            mProjectId = Long.parseLong(mFields.get(2));
+            mCreationTimestamp = Long.parseLong(mFields.get(5));
+        }
+        return record;
+    }
+
+    @NonNull
+    private Record toRecord(@Nullable String type) throws IOException {
+        if (mName == null) {
+            throw new IOException("invalid backup record: missing name");
+        }
+        if ("project".equals(type)) {
+            return Record.PROJECT;
+        } else if ("task".equals(type)) {
+            return Record.TASK;
+        }
+        throw new IOException("invalid backup record type: " + type);
+    }
+
+    /**
+     * Lit une ligne CSV (RFC 4180) dans mFields ; une cellule entre guillemets peut contenir des retours à la ligne.
+     * @return false à la fin du fichier
+     */
+    private boolean readCsvRecord() throws IOException {
+        mFields.clear();
+        mField.setLength(0);
+        int c = mText.read();
+        if (c == -1) {
+            return false;
+        }
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = mText.read();
+                    if (c != '"') {
+                        // Guillemet fermant : le caractère suivant est traité hors guillemets
+                        quoted = false;
+                        continue;
+                    }
+                }
+                mField.append((char) c);
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+            } else if (c == ',') {
+                mFields.add(mField.toString());
+                mField.setLength(0);
+                fieldStart = true;
+            } else if (c == '\n' || c == -1) {
+                mFields.add(mField.toString());
+                return true;
+            } else if (c != '\r') {
+                mField.append((char) c);
+                fieldStart = false;
+            }
+            c = mText.read();
+        }
+    }
+
+    public long getId() {
+        return mId;
+    }
+
+    /**
+     * Renvoie le projet de la tâche courante.
+     */
+    public long getProjectId() {
+        return mProjectId;
+    }
+
+    @NonNull
+    public String getName() {
+        //noinspection ConstantConditions : vérifié par toRecord()
+        return mName;
+    }
+
+    /**
+     * Renvoie la couleur du projet courant.
+     */
+    public int getColor() {
+        return mColor;
+    }
+
+    /**
+     * Renvoie l'horodatage de création de la tâche courante.
+     */
+    public long getCreationTimestamp() {
+        return mCreationTimestamp;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mText.close();
+    }
+}
@@ -0,0 +1,195 @@
+package com.cleanup.todoc.database;
+
+import androidx.annotation.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cette classe écrit une sauvegarde des projets et des tâches sur un canal NIO, une ligne par enregistrement,
+ * au format JSON Lines ou CSV, éventuellement compressée en gzip. Chaque ligne est construite dans un même
+ * StringBuilder puis encodée en UTF-8 dans un même tampon, vidé sur le canal lorsqu'il est plein :
+ * la mémoire utilisée ne dépend pas du nombre d'enregistrements.
+ * <p>
+ * JSON Lines : {"type":"project","id":1,"name":"...","color":-1384751}
+ * puis {"type":"task","id":1,"projectId":1,"name":"...","creationTimestamp":0}.
+ * CSV (RFC 4180) : l'en-tête {@link #CSV_HEADER}, puis une ligne par enregistrement, les cellules sans objet étant vides.
+ */
+public class TaskBackupWriter implements Closeable {
+
+    /**
+     * En-tête des sauvegardes au format CSV
+     */
+    public static final String CSV_HEADER = "type,id,project_id,name,color,creationTimestamp";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final WritableByteChannel mChannel;
+
+    private final TaskBackup.Format mFormat;
+
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    // Une chaîne mal formée (surrogate isolé) est remplacée plutôt que de faire échouer toute la sauvegarde
+    private final CharsetEncoder mEncoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final StringBuilder mLine = new StringBuilder(256);
+
+    /**
+     * @param channel le canal de destination, fermé avec l'écrivain
+     * @param format le format des lignes
+     * @param gzip true pour compresser la sauvegarde
+     */
+    public TaskBackupWriter(@NonNull WritableByteChannel channel, @NonNull TaskBackup.Format format, boolean gzip)
+            throws IOException {
+        mChannel = gzip
+                ? Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))
+                : channel;
+        mFormat = format;
+        if (format == TaskBackup.Format.CSV) {
+            mLine.append(CSV_HEADER);
+            endLine();
+        }
+    }
+
+    /**
+     * Écrit un projet.
+     */
+    public void writeProject(long id, @NonNull String name, int color) throws IOException {
+        if (mFormat == TaskBackup.Format.JSON_LINES) {
+            mLine.append("{\"type\":\"project\",\"id\":").append(id).append(",\"name\":");
+            appendJsonString(name);
+            mLine.append(",\"color\":").append(color).append('}');
+        } else {
+            mLine.append("project,").append(id).append(",,");
+            appendCsvField(name);
+            mLine.append(',').append(color).append(',');
+        }
+        endLine();
+    }
+
+    /**
+     * Écrit une tâche.
+     */
+    public void writeTask(long id, long projectId, @NonNull String name, long creationTimestamp) throws IOException {
+        if (mFormat == TaskBackup.Format.JSON_LINES) {
+            mLine.append("{\"type\":\"task\",\"id\":").append(id)
+                    .append(",\"projectId\":").append(projectId)
+                    .append(",\"name\":");
+            appendJsonString(name);
+            mLine.append(",\"creationTimestamp\":").append(creationTimestamp).append('}');
+        } else {
+            mLine.append("task,").append(id).append(',').append(projectId).append(',');
+            appendCsvField(name);
+            mLine.append(",,").append(creationTimestamp);
+        }
+        endLine();
+    }
+
+    private void appendJsonString(@NonNull String value) {
+        mLine.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    mLine.append("\\\"");
+                    break;
+                case '\\':
+                    mLine.append("\\\\");
+                    break;
+                case '\n':
+                    mLine.append("\\n");
+                    break;
+                case '\r':
+                    mLine.append("\\r");
+                    break;
+                case '\t':
+                    mLine.append("\\t");
+                    break;
+                default:
+                    // Les séparateurs de ligne Unicode sont échappés pour que chaque enregistrement reste sur une ligne
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        mLine.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        mLine.append(c);
+                    }
+                    break;
+            }
+        }
+        mLine.append('"');
+    }
+
+    private void appendCsvField(@NonNull String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            final char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            mLine.append(value);
+            return;
+        }
+        mLine.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                mLine.append('"');
+            }
+            mLine.append(c);
+        }
+        mLine.append('"');
+    }
+
+    // Encode la ligne construite dans le tampon, en vidant celui-ci sur le canal autant que nécessaire
+    private void endLine() throws IOException {
+        mLine.append('\n');
+        final CharBuffer chars = CharBuffer.wrap(mLine);
+        CoderResult result;
+        do {
+            result = mEncoder.encode(chars, mBuffer, true);
+            if (result.isOverflow()) {
+                drain();
+            }
+        } while (result.isOverflow());
+        do {
+            result = mEncoder.flush(mBuffer);
+            if (result.isOverflow()) {
+                drain();
+            }
+        } while (result.isOverflow());
+        mEncoder.reset();
+        mLine.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        mBuffer.flip();
+        while (mBuffer.hasRemaining()) {
+            mChannel.write(mBuffer);
+        }
+        mBuffer.clear();
+    }
+
+    /**
+     * Écrit la fin du tampon, termine la compression éventuelle et ferme le canal.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            mChannel.close();
+        }
+    }
+}
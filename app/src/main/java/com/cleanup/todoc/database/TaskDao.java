@@ -5,6 +5,7 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.cleanup.todoc.model.Task;
 
@@ -13,12 +14,23 @@ import java.util.List;
 /**
  *  Cette interface définit les méthodes pour récupérer toutes les tâches de la base de données, insérer
  *  nouvelle, et supprimer une existante.
+ *  Les requêtes paginées utilisent une clé composite (creationTimestamp, id) ou (name, id) :
+ *  chaque page reprend après la dernière tâche chargée, sans OFFSET, quel que soit le nombre de tâches.
+ *  Leurs variantes "InProjects" ne lisent que les tâches des projets sélectionnés par le filtre (project_id IN (...)).
+ *  Les méthodes par lots traitent plusieurs tâches en une seule requête ; runInTransaction() permet
+ *  de regrouper plusieurs écritures dans une seule transaction (un seul commit).
  *  Elle utilise des annotations Room pour définir les requêtes SQL correspondantes.
  *  Le DAO permet d'abstraire les détails de l'accès aux données et de fournir une interface simple pour interagir avec la table "task" de la base de données.
  */
 @Dao // Objet d'accès aux données.
 public interface TaskDao {
 
+    /**
+     * Nombre maximal d'identifiants par requête IN (...) : les versions de SQLite livrées avec
+     * les anciennes versions d'Android limitent une requête à 999 paramètres.
+     */
+    int MAX_IDS_PER_QUERY = 500;
+
     /**
      * Obtenir toutes les tâches de la base de données
      * @return Toutes les tâches
@@ -26,6 +38,192 @@ public interface TaskDao {
     @Query("SELECT * FROM task") // Méthode de requête
     LiveData<List<Task>> getTasks();
 
+    /**
+     * Obtenir la première page des tâches, de la plus ancienne à la plus récente
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches selon la clé (creationTimestamp, id)
+     */
+    @Query("SELECT * FROM task ORDER BY creationTimestamp ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByTimestampAsc(int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée, de la plus ancienne à la plus récente
+     * @param timestamp l'horodatage de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches situées strictement après la clé (timestamp, id)
+     */
+    @Query("SELECT * FROM task WHERE creationTimestamp >= :timestamp AND (creationTimestamp > :timestamp OR id > :id) "
+            + "ORDER BY creationTimestamp ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByTimestampAscAfter(long timestamp, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches, de la plus récente à la plus ancienne
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches selon la clé (creationTimestamp, id) décroissante
+     */
+    @Query("SELECT * FROM task ORDER BY creationTimestamp DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByTimestampDesc(int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée, de la plus récente à la plus ancienne
+     * @param timestamp l'horodatage de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches situées strictement avant la clé (timestamp, id)
+     */
+    @Query("SELECT * FROM task WHERE creationTimestamp <= :timestamp AND (creationTimestamp < :timestamp OR id < :id) "
+            + "ORDER BY creationTimestamp DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByTimestampDescAfter(long timestamp, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches, de A à Z
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches selon la clé (name, id)
+     */
+    @Query("SELECT * FROM task ORDER BY name ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByNameAsc(int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée, de A à Z
+     * @param name le nom de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches situées strictement après la clé (name, id)
+     */
+    @Query("SELECT * FROM task WHERE name >= :name AND (name > :name OR id > :id) "
+            + "ORDER BY name ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByNameAscAfter(String name, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches, de Z à A
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches selon la clé (name, id) décroissante
+     */
+    @Query("SELECT * FROM task ORDER BY name DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByNameDesc(int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée, de Z à A
+     * @param name le nom de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches situées strictement avant la clé (name, id)
+     */
+    @Query("SELECT * FROM task WHERE name <= :name AND (name < :name OR id < :id) "
+            + "ORDER BY name DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByNameDescAfter(String name, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches des projets donnés, de la plus ancienne à la plus récente
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches de ces projets selon la clé (creationTimestamp, id)
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "ORDER BY creationTimestamp ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByTimestampAscInProjects(long[] projectIds, int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée parmi les tâches des projets donnés, de la plus ancienne à la plus récente
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param timestamp l'horodatage de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches de ces projets situées strictement après la clé (timestamp, id)
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "AND creationTimestamp >= :timestamp AND (creationTimestamp > :timestamp OR id > :id) "
+            + "ORDER BY creationTimestamp ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByTimestampAscAfterInProjects(long[] projectIds, long timestamp, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches des projets donnés, de la plus récente à la plus ancienne
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches de ces projets selon la clé (creationTimestamp, id) décroissante
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "ORDER BY creationTimestamp DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByTimestampDescInProjects(long[] projectIds, int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée parmi les tâches des projets donnés, de la plus récente à la plus ancienne
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param timestamp l'horodatage de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches de ces projets situées strictement avant la clé (timestamp, id)
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "AND creationTimestamp <= :timestamp AND (creationTimestamp < :timestamp OR id < :id) "
+            + "ORDER BY creationTimestamp DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByTimestampDescAfterInProjects(long[] projectIds, long timestamp, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches des projets donnés, de A à Z
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches de ces projets selon la clé (name, id)
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "ORDER BY name ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByNameAscInProjects(long[] projectIds, int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée parmi les tâches des projets donnés, de A à Z
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param name le nom de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches de ces projets situées strictement après la clé (name, id)
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "AND name >= :name AND (name > :name OR id > :id) "
+            + "ORDER BY name ASC, id ASC LIMIT :limit")
+    List<Task> getTasksByNameAscAfterInProjects(long[] projectIds, String name, long id, int limit);
+
+    /**
+     * Obtenir la première page des tâches des projets donnés, de Z à A
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les premières tâches de ces projets selon la clé (name, id) décroissante
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "ORDER BY name DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByNameDescInProjects(long[] projectIds, int limit);
+
+    /**
+     * Obtenir la page suivant la clé donnée parmi les tâches des projets donnés, de Z à A
+     * @param projectIds les identifiants des projets sélectionnés (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param name le nom de la dernière tâche chargée
+     * @param id l'identifiant de la dernière tâche chargée
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches de ces projets situées strictement avant la clé (name, id)
+     */
+    @Query("SELECT * FROM task WHERE project_id IN (:projectIds) "
+            + "AND name <= :name AND (name < :name OR id < :id) "
+            + "ORDER BY name DESC, id DESC LIMIT :limit")
+    List<Task> getTasksByNameDescAfterInProjects(long[] projectIds, String name, long id, int limit);
+
+    /**
+     * Rechercher les tâches dont le nom correspond à une expression plein texte, à l'aide de l'index FTS
+     * (par exemple "cour*" pour les noms contenant un mot commençant par "cour")
+     * @param query l'expression MATCH de FTS4
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches trouvées, dans l'ordre de leur identifiant
+     */
+    @Query("SELECT task.* FROM task_fts JOIN task ON task.id = task_fts.rowid "
+            + "WHERE task_fts MATCH :query LIMIT :limit")
+    List<Task> search(String query, int limit);
+
+    /**
+     * Obtenir toutes les tâches de la base de données, en une seule lecture
+     * @return toutes les tâches, dans l'ordre de leur identifiant
+     */
+    @Query("SELECT * FROM task ORDER BY id")
+    List<Task> getTaskList();
+
     /**
      * Insérer une tâche dans la base de données
      * @param task la tâche à insérer
@@ -39,4 +237,112 @@ public interface TaskDao {
      */
     @Delete // Méthode de suppression.
     void deleteTask(Task task);
+
+    /**
+     * Insérer plusieurs tâches dans la base de données, en une seule transaction
+     * @param tasks les tâches à insérer
+     */
+    @Insert // Méthode d'insertion.
+    void insertTasks(List<Task> tasks);
+
+    /**
+     * Supprimer plusieurs tâches de la base de données
+     * @param ids les identifiants des tâches à supprimer (au plus {@link #MAX_IDS_PER_QUERY})
+     * @return le nombre de tâches supprimées
+     */
+    @Query("DELETE FROM task WHERE id IN (:ids)")
+    int deleteTasksByIds(long[] ids);
+
+    /**
+     * Déplacer plusieurs tâches vers un autre projet
+     * @param ids les identifiants des tâches à déplacer (au plus {@link #MAX_IDS_PER_QUERY})
+     * @param projectId l'identifiant du projet de destination
+     * @return le nombre de tâches déplacées
+     */
+    @Query("UPDATE task SET project_id = :projectId WHERE id IN (:ids)")
+    int moveTasksToProject(long[] ids, long projectId);
+
+    /**
+     * Copier dans l'archive les tâches les plus anciennes créées avant un instant, par ordre de création
+     * @param before l'horodatage de création limite (exclu)
+     * @param limit le nombre maximal de tâches à copier
+     */
+    @Query("INSERT INTO task_archive (id, project_id, name, creationTimestamp) "
+            + "SELECT id, project_id, name, creationTimestamp FROM task WHERE creationTimestamp < :before "
+            + "ORDER BY creationTimestamp, id LIMIT :limit")
+    void copyTasksToArchive(long before, int limit);
+
+    /**
+     * Supprimer les tâches les plus anciennes créées avant un instant : les mêmes que {@link #copyTasksToArchive}
+     * @param before l'horodatage de création limite (exclu)
+     * @param limit le nombre maximal de tâches à supprimer
+     * @return le nombre de tâches supprimées
+     */
+    @Query("DELETE FROM task WHERE id IN (SELECT id FROM task WHERE creationTimestamp < :before "
+            + "ORDER BY creationTimestamp, id LIMIT :limit)")
+    int deleteTasksCreatedBefore(long before, int limit);
+
+    /**
+     * Déplacer dans l'archive, en une transaction, les tâches les plus anciennes créées avant un instant
+     * @param before l'horodatage de création limite (exclu)
+     * @param limit le nombre maximal de tâches à déplacer
+     * @return le nombre de tâches déplacées ; inférieur à limit lorsqu'il n'en reste plus à archiver
+     */
+    @Transaction
+    default int archiveTasksCreatedBefore(long before, int limit) {
+        copyTasksToArchive(before, limit);
+        return deleteTasksCreatedBefore(before, limit);
+    }
+
+    /**
+     * Obtenir le nombre de tâches archivées
+     * @return le nombre de tâches archivées
+     */
+    @Query("SELECT COUNT(*) FROM task_archive")
+    long getArchivedTaskCount();
+
+    /**
+     * Obtenir la première page de l'historique : les tâches courantes et archivées, des plus récentes aux plus anciennes.
+     * Chaque côté de l'union est lu dans l'ordre de son index de création, puis les deux sont fusionnés.
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches les plus récentes, archivées comprises
+     */
+    @Query("SELECT id, project_id, name, creationTimestamp FROM task "
+            + "UNION ALL SELECT id, project_id, name, creationTimestamp FROM task_archive "
+            + "ORDER BY creationTimestamp DESC, id DESC LIMIT :limit")
+    List<Task> getTaskHistoryDesc(int limit);
+
+    /**
+     * Obtenir la page suivante de l'historique, après la clé (creationTimestamp, id) de la dernière tâche lue
+     * @param timestamp l'horodatage de création de la dernière tâche lue
+     * @param id l'identifiant de la dernière tâche lue
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches suivantes, archivées comprises
+     */
+    @Query("SELECT id, project_id, name, creationTimestamp FROM task "
+            + "WHERE creationTimestamp <= :timestamp AND (creationTimestamp < :timestamp OR id < :id) "
+            + "UNION ALL SELECT id, project_id, name, creationTimestamp FROM task_archive "
+            + "WHERE creationTimestamp <= :timestamp AND (creationTimestamp < :timestamp OR id < :id) "
+            + "ORDER BY creationTimestamp DESC, id DESC LIMIT :limit")
+    List<Task> getTaskHistoryDescAfter(long timestamp, long id, int limit);
+
+    /**
+     * Obtenir les tâches les plus récentes, en incluant ou non l'archive : la liste courante ne lit que la table
+     * "task", un écran d'historique y ajoute les tâches archivées.
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @param includeArchive true pour inclure les tâches archivées
+     * @return les tâches les plus récentes
+     */
+    default List<Task> getTasksByTimestampDesc(int limit, boolean includeArchive) {
+        return includeArchive ? getTaskHistoryDesc(limit) : getTasksByTimestampDesc(limit);
+    }
+
+    /**
+     * Exécuter les écritures données dans une seule transaction
+     * @param writes les écritures, qui appellent les méthodes de ce DAO
+     */
+    @Transaction
+    default void runInTransaction(Runnable writes) {
+        writes.run();
+    }
 }
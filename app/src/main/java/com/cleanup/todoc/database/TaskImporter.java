@@ -0,0 +1,309 @@
+package com.cleanup.todoc.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cette classe importe dans la base de données un fichier de tâches lu par {@link TaskJsonReader}, sans le charger
+ * en mémoire. Chaque projet est retrouvé par son nom, ou créé avec la couleur du champ backgroundTint.
+ * Les tâches sont insérées par lots, un lot par transaction, avec des requêtes compilées une seule fois
+ * pour toute la session : la mémoire utilisée ne dépend que du nombre de projets, pas de la taille du fichier.
+ * <p>
+ * L'import avance lot par lot ({@link Session#importBatch()}), ce qui laisse passer les autres transactions entre deux lots.
+ * En cas d'erreur, les lots déjà importés sont conservés et le lot en cours est annulé.
+ * Après le dernier lot, le journal WAL est reporté dans la base, sans attendre les lectures en cours.
+ */
+public class TaskImporter {
+
+    /**
+     * Nombre d'enregistrements lus par transaction
+     */
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+
+    private final RoomDatabase mDatabase;
+
+    private final int mBatchSize;
+
+    public TaskImporter(@NonNull RoomDatabase database) {
+        this(database, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param database la base de données
+     * @param batchSize le nombre d'enregistrements lus par transaction
+     */
+    public TaskImporter(@NonNull RoomDatabase database, int batchSize) {
+        mDatabase = database;
+        mBatchSize = batchSize;
+    }
+
+    /**
+     * Ouvre une session d'import sur le fichier donné, en UTF-8. La base n'est lue qu'au premier lot :
+     * l'appel peut se faire sur le thread principal.
+     * @param input le contenu du fichier, fermé avec la session
+     * @return la session, à fermer après le dernier lot
+     */
+    @NonNull
+    public Session open(@NonNull InputStream input) {
+        return new Session(new TaskJsonReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Importe tout le fichier donné, lot par lot, puis le ferme.
+     * @param input le contenu du fichier
+     * @return le bilan de l'import
+     * @throws IOException si le fichier ne peut être lu ou n'a pas le format attendu
+     */
+    @NonNull
+    @WorkerThread
+    public Result importAll(@NonNull InputStream input) throws IOException {
+        try (Session session = open(input)) {
+            //noinspection StatementWithEmptyBody
+            while (session.importBatch()) {
+            }
+            return session.getResult();
+        }
+    }
+
+    /**
+     * Un import en cours, à faire avancer lot par lot depuis un même thread de travail.
+     */
+    public final class Session implements Closeable {
+
+        private final TaskJsonReader mReader;
+
+        // Identifiants des projets par nom : ceux de la base, puis ceux créés par l'import
+        private final Map<String, Long> mProjectIds = new HashMap<>();
+
+        private long mNextProjectId;
+
+        // Requêtes compilées au premier lot et réutilisées pour toutes les lignes
+        private SupportSQLiteStatement mInsertTask;
+        private SupportSQLiteStatement mInsertProject;
+
+        // Horodatage des tâches qui n'en ont pas : l'ordre du fichier est conservé par leur identifiant
+        private long mImportTimestamp;
+
+        private long mStartNanos;
+        private long mEndNanos;
+
+        // Bilan des lots validés
+        private long mRows;
+        private long mSkippedRows;
+        private int mProjectsCreated;
+
+        private boolean mFinished;
+
+        // Vrai lorsque le dernier lot a été validé
+        private boolean mComplete;
+
+        private Session(@NonNull TaskJsonReader reader) {
+            mReader = reader;
+        }
+
+        /**
+         * Importe le lot suivant dans une transaction.
+         * @return true s'il reste des enregistrements à importer
+         * @throws IOException si le fichier ne peut être lu ou n'a pas le format attendu ; la session est alors terminée
+         */
+        @WorkerThread
+        @SuppressWarnings("deprecation")
+        public boolean importBatch() throws IOException {
+            if (mFinished) {
+                return false;
+            }
+            if (mInsertTask == null) {
+                prepare();
+            }
+            long rows = 0;
+            long skippedRows = 0;
+            int projectsCreated = 0;
+            boolean last = false;
+            boolean committed = false;
+            // Transaction de Room plutôt que de SupportSQLiteDatabase, pour que les observateurs des tables soient
+            // prévenus au commit ; runInTransaction ne laisserait pas passer l'IOException du fichier
+            mDatabase.beginTransaction();
+            try {
+                for (int read = 0; read < mBatchSize; read++) {
+                    if (!mReader.next()) {
+                        last = true;
+                        break;
+                    }
+                    final String taskName = mReader.getTaskName();
+                    final String projectName = mReader.getProjectName();
+                    if (taskName == null || projectName == null || projectName.isEmpty()) {
+                        skippedRows++;
+                        continue;
+                    }
+                    Long projectId = mProjectIds.get(projectName);
+                    if (projectId == null) {
+                        projectId = mNextProjectId++;
+                        mInsertProject.bindLong(1, projectId);
+                        mInsertProject.bindString(2, projectName);
+                        mInsertProject.bindLong(3, mReader.getProjectColor());
+                        mInsertProject.executeInsert();
+                        mProjectIds.put(projectName, projectId);
+                        projectsCreated++;
+                    }
+                    mInsertTask.bindLong(1, projectId);
+                    mInsertTask.bindString(2, taskName);
+                    mInsertTask.bindLong(3, mReader.hasCreationTimestamp()
+                            ? mReader.getCreationTimestamp() : mImportTimestamp);
+                    mInsertTask.executeInsert();
+                    rows++;
+                }
+                mDatabase.setTransactionSuccessful();
+                committed = true;
+            } finally {
+                mDatabase.endTransaction();
+                mEndNanos = System.nanoTime();
+                // Un lot annulé termine la session : les projets qu'il a créés n'existent plus
+                mFinished = last || !committed;
+            }
+            mRows += rows;
+            mSkippedRows += skippedRows;
+            mProjectsCreated += projectsCreated;
+            mComplete = last;
+            if (last) {
+                // Les derniers lots restés dans le journal, sous le seuil du report automatique
+                TodocDatabase.checkpoint(mDatabase.getOpenHelper().getWritableDatabase(),
+                        TodocDatabase.CHECKPOINT_PASSIVE);
+            }
+            return !mFinished;
+        }
+
+        private void prepare() {
+            mStartNanos = System.nanoTime();
+            mImportTimestamp = System.currentTimeMillis();
+            long maxProjectId = 0;
+            try (Cursor cursor = mDatabase.query("SELECT `id`, `name` FROM `project`", null)) {
+                while (cursor.moveToNext()) {
+                    mProjectIds.put(cursor.getString(1), cursor.getLong(0));
+                    maxProjectId = Math.max(maxProjectId, cursor.getLong(0));
+                }
+            }
+            mNextProjectId = maxProjectId + 1;
+            mInsertTask = mDatabase.compileStatement(
+                    "INSERT INTO `task` (`project_id`, `name`, `creationTimestamp`) VALUES (?, ?, ?)");
+            mInsertProject = mDatabase.compileStatement(
+                    "INSERT INTO `project` (`id`, `name`, `color`) VALUES (?, ?, ?)");
+        }
+
+        /**
+         * Renvoie le bilan des lots validés jusqu'ici.
+         */
+        @NonNull
+        public Result getResult() {
+            return new Result(mRows, mSkippedRows, mProjectsCreated, mEndNanos - mStartNanos, mComplete);
+        }
+
+        /**
+         * Ferme le fichier et libère les requêtes compilées.
+         */
+        @Override
+        public void close() {
+            mFinished = true;
+            closeQuietly(mInsertTask);
+            closeQuietly(mInsertProject);
+            closeQuietly(mReader);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // Rien à faire : les données sont déjà validées ou annulées
+            }
+        }
+    }
+
+    /**
+     * Le bilan d'un import : lignes importées, ignorées, projets créés et débit.
+     */
+    public static final class Result {
+
+        private final long rows;
+
+        private final long skippedRows;
+
+        private final int projectsCreated;
+
+        private final long elapsedNanos;
+
+        private final boolean complete;
+
+        public Result(long rows, long skippedRows, int projectsCreated, long elapsedNanos, boolean complete) {
+            this.rows = rows;
+            this.skippedRows = skippedRows;
+            this.projectsCreated = projectsCreated;
+            this.elapsedNanos = elapsedNanos;
+            this.complete = complete;
+        }
+
+        /**
+         * Renvoie true si le fichier a été importé en entier, false si l'import a été interrompu.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Renvoie le nombre de tâches importées.
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * Renvoie le nombre d'enregistrements ignorés, faute de nom de tâche ou de projet.
+         */
+        public long getSkippedRows() {
+            return skippedRows;
+        }
+
+        /**
+         * Renvoie le nombre de projets créés.
+         */
+        public int getProjectsCreated() {
+            return projectsCreated;
+        }
+
+        /**
+         * Renvoie la durée de l'import, du premier lot à la fin du dernier, en millisecondes.
+         */
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        /**
+         * Renvoie le débit de l'import, en tâches par seconde.
+         */
+        public long getRowsPerSecond() {
+            return elapsedNanos > 0 ? rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d rows, %d skipped, %d projects created in %d ms (%d rows/s)%s",
+                    rows, skippedRows, projectsCreated, getElapsedMillis(), getRowsPerSecond(),
+                    complete ? "" : ", interrupted");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.cleanup.todoc.database;
+
+import android.graphics.Color;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Cette classe lit un fichier de tâches au format de sampledata/tasks.json, un enregistrement à la fois,
+ * avec un {@link JsonReader} : le document n'est jamais construit en mémoire, qui ne dépend donc pas de la taille
+ * du fichier. Les champs inconnus sont ignorés, ainsi que les clés placées avant ou après le tableau "data".
+ * <p>
+ * Format : {"data":[{"taskName":"...","projectName":"...","backgroundTint":"#EADAD1","creationTimestamp":0},...]},
+ * le champ creationTimestamp étant facultatif.
+ */
+public class TaskJsonReader implements Closeable {
+
+    /**
+     * Couleur des projets créés sans couleur valide (gris clair)
+     */
+    @ColorInt
+    public static final int DEFAULT_COLOR = 0xFFDDDDDD;
+
+    private final JsonReader mReader;
+
+    // Vrai lorsque le lecteur est positionné dans le tableau "data"
+    private boolean mInData;
+
+    // Vrai lorsque le document a été lu jusqu'au bout
+    private boolean mFinished;
+
+    // Champs de l'enregistrement courant, remplacés à chaque appel de next()
+    @Nullable
+    private String mTaskName;
+    @Nullable
+    private String mProjectName;
+    @Nullable
+    private String mBackgroundTint;
+    private boolean mHasCreationTimestamp;
+    private long mCreationTimestamp;
+
+    /**
+     * @param reader le texte du fichier, lu au fur et à mesure
+     */
+    public TaskJsonReader(@NonNull Reader reader) {
+        mReader = new JsonReader(reader);
+    }
+
+    /**
+     * Lit l'enregistrement suivant.
+     * @return true si un enregistrement a été lu, false à la fin du tableau "data" ou du document
+     * @throws IOException si le fichier ne peut être lu ou n'a pas le format attendu
+     */
+    public boolean next() throws IOException {
+        try {
+            return readNext();
+        } catch (IllegalStateException | NumberFormatException e) {
+            // JsonReader signale ainsi un jeton inattendu, par exemple un tableau à la place d'un objet
+            throw new IOException("invalid task file: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean readNext() throws IOException {
+        if (!mInData && (mFinished || !seekData())) {
+            return false;
+        }
+        if (!mReader.hasNext()) {
+            mReader.endArray();
+            mInData = false;
+            skipRemainingFields();
+            return false;
+        }
+        readRecord();
+        return true;
+    }
+
+    /**
+     * Avance jusqu'au début du tableau "data".
+     * @return false si le document n'en contient pas
+     */
+    private boolean seekData() throws IOException {
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            if ("data".equals(mReader.nextName())) {
+                mReader.beginArray();
+                mInData = true;
+                return true;
+            }
+            mReader.skipValue();
+        }
+        mReader.endObject();
+        mFinished = true;
+        return false;
+    }
+
+    private void skipRemainingFields() throws IOException {
+        while (mReader.hasNext()) {
+            mReader.nextName();
+            mReader.skipValue();
+        }
+        mReader.endObject();
+        mFinished = true;
+    }
+
+    private void readRecord() throws IOException {
+        mTaskName = null;
+        mProjectName = null;
+        mBackgroundTint = null;
+        mHasCreationTimestamp = false;
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            switch (mReader.nextName()) {
+                case "taskName":
+                    mTaskName = nextStringOrNull();
+                    break;
+                case "projectName":
+                    mProjectName = nextStringOrNull();
+                    break;
+                case "backgroundTint":
+                    mBackgroundTint = nextStringOrNull();
+                    break;
+                case "creationTimestamp":
+                    if (mReader.peek() == JsonToken.NULL) {
+                        mReader.nextNull();
+                    } else {
+                        mCreationTimestamp = mReader.nextLong();
+                        mHasCreationTimestamp = true;
+                    }
+                    break;
+                default:
+                    mReader.skipValue();
+                    break;
+            }
+        }
+        mReader.endObject();
+    }
+
+    @Nullable
+    private String nextStringOrNull() throws IOException {
+        if (mReader.peek() == JsonToken.NULL) {
+            mReader.nextNull();
+            return null;
+        }
+        return mReader.nextString();
+    }
+
+    /**
+     * Renvoie le nom de la tâche de l'enregistrement courant, ou null s'il est absent.
+     */
+    @Nullable
+    public String getTaskName() {
+        return mTaskName;
+    }
+
+    /**
+     * Renvoie le nom du projet de l'enregistrement courant, ou null s'il est absent.
+     */
+    @Nullable
+    public String getProjectName() {
+        return mProjectName;
+    }
+
+    /**
+     * Renvoie la couleur du projet de l'enregistrement courant, ou {@link #DEFAULT_COLOR} si elle est absente ou invalide.
+     */
+    @ColorInt
+    public int getProjectColor() {
+        return parseColor(mBackgroundTint);
+    }
+
+    /**
+     * Renvoie true si l'enregistrement courant a un horodatage de création.
+     */
+    public boolean hasCreationTimestamp() {
+        return mHasCreationTimestamp;
+    }
+
+    /**
+     * Renvoie l'horodatage de création de l'enregistrement courant, à n'utiliser que si {@link #hasCreationTimestamp()}.
+     */
+    public long getCreationTimestamp() {
+        return mCreationTimestamp;
+    }
+
+    /**
+     * Convertit une couleur au format #RRGGBB ou #AARRGGBB (ou un nom de couleur reconnu par Android).
+     * @param tint la couleur, éventuellement null
+     * @return la couleur ARGB, ou {@link #DEFAULT_COLOR} si elle est absente ou invalide
+     */
+    @ColorInt
+    public static int parseColor(@Nullable String tint) {
+        if (tint == null || tint.isEmpty()) {
+            return DEFAULT_COLOR;
+        }
+        try {
+            return Color.parseColor(tint);
+        } catch (IllegalArgumentException e) {
+            return DEFAULT_COLOR;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        mReader.close();
+    }
+}
@@ -0,0 +1,501 @@
+package com.cleanup.todoc.database;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Cette classe enveloppe une base SQLite pour mesurer ses requêtes, ses instructions compilées et ses transactions,
+ * voir {@link TimingOpenHelperFactory}. Les autres méthodes sont transmises telles quelles à la base enveloppée.
+ */
+class TimingDatabase implements SupportSQLiteDatabase {
+
+    private final SupportSQLiteDatabase mDelegate;
+
+    private final QueryMonitor mMonitor;
+
+    // Profondeur et début de la transaction en cours, par thread : { profondeur, System.nanoTime() du début }
+    private final ThreadLocal<long[]> mTransaction = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[2];
+        }
+    };
+
+    TimingDatabase(@NonNull SupportSQLiteDatabase delegate, @NonNull QueryMonitor monitor) {
+        mDelegate = delegate;
+        mMonitor = monitor;
+    }
+
+    /**
+     * Renvoie true si cette enveloppe est celle de la base donnée.
+     */
+    boolean wraps(@NonNull SupportSQLiteDatabase database) {
+        return mDelegate == database;
+    }
+
+    private void record(@NonNull String sql, long startNanos) {
+        mMonitor.record(sql, System.nanoTime() - startNanos, mDelegate);
+    }
+
+    @Override
+    public SupportSQLiteStatement compileStatement(String sql) {
+        return new TimingStatement(mDelegate.compileStatement(sql), sql);
+    }
+
+    // Transactions : seule la plus externe est mesurée, de son début à sa fin
+
+    private void transactionStarted() {
+        final long[] transaction = mTransaction.get();
+        if (transaction[0]++ == 0) {
+            transaction[1] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void beginTransaction() {
+        mDelegate.beginTransaction();
+        transactionStarted();
+    }
+
+    @Override
+    public void beginTransactionNonExclusive() {
+        mDelegate.beginTransactionNonExclusive();
+        transactionStarted();
+    }
+
+    @Override
+    public void beginTransactionWithListener(SQLiteTransactionListener transactionListener) {
+        mDelegate.beginTransactionWithListener(transactionListener);
+        transactionStarted();
+    }
+
+    @Override
+    public void beginTransactionWithListenerNonExclusive(SQLiteTransactionListener transactionListener) {
+        mDelegate.beginTransactionWithListenerNonExclusive(transactionListener);
+        transactionStarted();
+    }
+
+    @Override
+    public void endTransaction() {
+        try {
+            mDelegate.endTransaction();
+        } finally {
+            final long[] transaction = mTransaction.get();
+            if (transaction[0] > 0 && --transaction[0] == 0) {
+                mMonitor.record(QueryMonitor.TRANSACTION, System.nanoTime() - transaction[1], null);
+            }
+        }
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        mDelegate.setTransactionSuccessful();
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return mDelegate.inTransaction();
+    }
+
+    @Override
+    public boolean isDbLockedByCurrentThread() {
+        return mDelegate.isDbLockedByCurrentThread();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely() {
+        return mDelegate.yieldIfContendedSafely();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely(long sleepAfterYieldDelay) {
+        return mDelegate.yieldIfContendedSafely(sleepAfterYieldDelay);
+    }
+
+    @Override
+    public int getVersion() {
+        return mDelegate.getVersion();
+    }
+
+    @Override
+    public void setVersion(int version) {
+        mDelegate.setVersion(version);
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return mDelegate.getMaximumSize();
+    }
+
+    @Override
+    public long setMaximumSize(long numBytes) {
+        return mDelegate.setMaximumSize(numBytes);
+    }
+
+    @Override
+    public long getPageSize() {
+        return mDelegate.getPageSize();
+    }
+
+    @Override
+    public void setPageSize(long numBytes) {
+        mDelegate.setPageSize(numBytes);
+    }
+
+    // Lectures : la durée comprend l'exécution et les déplacements du curseur, jusqu'à sa fermeture
+
+    @Override
+    public Cursor query(String query) {
+        return query(new SimpleSQLiteQuery(query));
+    }
+
+    @Override
+    public Cursor query(String query, Object[] bindArgs) {
+        return query(new SimpleSQLiteQuery(query, bindArgs));
+    }
+
+    @Override
+    public Cursor query(SupportSQLiteQuery query) {
+        final long start = System.nanoTime();
+        final Cursor cursor = mDelegate.query(query);
+        return new TimingCursor(cursor, query.getSql(), System.nanoTime() - start);
+    }
+
+    @Override
+    public Cursor query(SupportSQLiteQuery query, CancellationSignal cancellationSignal) {
+        final long start = System.nanoTime();
+        final Cursor cursor = mDelegate.query(query, cancellationSignal);
+        return new TimingCursor(cursor, query.getSql(), System.nanoTime() - start);
+    }
+
+    // Écritures par table : leur forme ne dépend que de la table et de l'opération
+
+    @Override
+    public long insert(String table, int conflictAlgorithm, ContentValues values) throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            return mDelegate.insert(table, conflictAlgorithm, values);
+        } finally {
+            record(String.format(Locale.ROOT, "insert(%s)", table), start);
+        }
+    }
+
+    @Override
+    public int delete(String table, String whereClause, Object[] whereArgs) {
+        final long start = System.nanoTime();
+        try {
+            return mDelegate.delete(table, whereClause, whereArgs);
+        } finally {
+            record(String.format(Locale.ROOT, "delete(%s) WHERE %s", table, whereClause), start);
+        }
+    }
+
+    @Override
+    public int update(String table, int conflictAlgorithm, ContentValues values, String whereClause,
+                      Object[] whereArgs) {
+        final long start = System.nanoTime();
+        try {
+            return mDelegate.update(table, conflictAlgorithm, values, whereClause, whereArgs);
+        } finally {
+            record(String.format(Locale.ROOT, "update(%s) WHERE %s", table, whereClause), start);
+        }
+    }
+
+    @Override
+    public void execSQL(String sql) throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            mDelegate.execSQL(sql);
+        } finally {
+            record(sql, start);
+        }
+    }
+
+    @Override
+    public void execSQL(String sql, Object[] bindArgs) throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            mDelegate.execSQL(sql, bindArgs);
+        } finally {
+            record(sql, start);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return mDelegate.isReadOnly();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mDelegate.isOpen();
+    }
+
+    @Override
+    public boolean needUpgrade(int newVersion) {
+        return mDelegate.needUpgrade(newVersion);
+    }
+
+    @Override
+    public String getPath() {
+        return mDelegate.getPath();
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        mDelegate.setLocale(locale);
+    }
+
+    @Override
+    public void setMaxSqlCacheSize(int cacheSize) {
+        mDelegate.setMaxSqlCacheSize(cacheSize);
+    }
+
+    @Override
+    public void setForeignKeyConstraintsEnabled(boolean enable) {
+        mDelegate.setForeignKeyConstraintsEnabled(enable);
+    }
+
+    @Override
+    public boolean enableWriteAheadLogging() {
+        return mDelegate.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void disableWriteAheadLogging() {
+        mDelegate.disableWriteAheadLogging();
+    }
+
+    @Override
+    public boolean isWriteAheadLoggingEnabled() {
+        return mDelegate.isWriteAheadLoggingEnabled();
+    }
+
+    @Override
+    public List<Pair<String, String>> getAttachedDbs() {
+        return mDelegate.getAttachedDbs();
+    }
+
+    @Override
+    public boolean isDatabaseIntegrityOk() {
+        return mDelegate.isDatabaseIntegrityOk();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mDelegate.close();
+    }
+
+    /**
+     * Une instruction compilée, dont chaque exécution est mesurée
+     */
+    private final class TimingStatement implements SupportSQLiteStatement {
+
+        private final SupportSQLiteStatement mStatement;
+
+        private final String mSql;
+
+        TimingStatement(SupportSQLiteStatement statement, String sql) {
+            mStatement = statement;
+            mSql = sql;
+        }
+
+        @Override
+        public void execute() {
+            final long start = System.nanoTime();
+            try {
+                mStatement.execute();
+            } finally {
+                record(mSql, start);
+            }
+        }
+
+        @Override
+        public int executeUpdateDelete() {
+            final long start = System.nanoTime();
+            try {
+                return mStatement.executeUpdateDelete();
+            } finally {
+                record(mSql, start);
+            }
+        }
+
+        @Override
+        public long executeInsert() {
+            final long start = System.nanoTime();
+            try {
+                return mStatement.executeInsert();
+            } finally {
+                record(mSql, start);
+            }
+        }
+
+        @Override
+        public long simpleQueryForLong() {
+            final long start = System.nanoTime();
+            try {
+                return mStatement.simpleQueryForLong();
+            } finally {
+                record(mSql, start);
+            }
+        }
+
+        @Override
+        public String simpleQueryForString() {
+            final long start = System.nanoTime();
+            try {
+                return mStatement.simpleQueryForString();
+            } finally {
+                record(mSql, start);
+            }
+        }
+
+        @Override
+        public void bindNull(int index) {
+            mStatement.bindNull(index);
+        }
+
+        @Override
+        public void bindLong(int index, long value) {
+            mStatement.bindLong(index, value);
+        }
+
+        @Override
+        public void bindDouble(int index, double value) {
+            mStatement.bindDouble(index, value);
+        }
+
+        @Override
+        public void bindString(int index, String value) {
+            mStatement.bindString(index, value);
+        }
+
+        @Override
+        public void bindBlob(int index, byte[] value) {
+            mStatement.bindBlob(index, value);
+        }
+
+        @Override
+        public void clearBindings() {
+            mStatement.clearBindings();
+        }
+
+        @Override
+        public void close() throws IOException {
+            mStatement.close();
+        }
+    }
+
+    /**
+     * Un curseur qui cumule la durée de ses déplacements (chacun pouvant remplir une fenêtre de lignes)
+     * et l'enregistre à sa fermeture
+     */
+    private final class TimingCursor extends CursorWrapper {
+
+        private final String mSql;
+
+        private long mElapsedNanos;
+
+        private boolean mRecorded;
+
+        TimingCursor(Cursor cursor, String sql, long queryNanos) {
+            super(cursor);
+            mSql = sql;
+            mElapsedNanos = queryNanos;
+        }
+
+        @Override
+        public int getCount() {
+            final long start = System.nanoTime();
+            try {
+                return super.getCount();
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean move(int offset) {
+            final long start = System.nanoTime();
+            try {
+                return super.move(offset);
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToPosition(int position) {
+            final long start = System.nanoTime();
+            try {
+                return super.moveToPosition(position);
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            final long start = System.nanoTime();
+            try {
+                return super.moveToFirst();
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToLast() {
+            final long start = System.nanoTime();
+            try {
+                return super.moveToLast();
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToNext() {
+            final long start = System.nanoTime();
+            try {
+                return super.moveToNext();
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean moveToPrevious() {
+            final long start = System.nanoTime();
+            try {
+                return super.moveToPrevious();
+            } finally {
+                mElapsedNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (!mRecorded) {
+                mRecorded = true;
+                mMonitor.record(mSql, mElapsedNanos, mDelegate);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.cleanup.todoc.database;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+
+/**
+ * Cette classe enveloppe la fabrique des connexions SQLite de Room pour mesurer la durée de chaque requête,
+ * de chaque instruction compilée et de chaque transaction, et la transmettre à un {@link QueryMonitor}.
+ * Elle s'installe avec RoomDatabase.Builder.openHelperFactory(), autour de la fabrique par défaut.
+ * <p>
+ * La durée d'une lecture comprend l'exécution de la requête et les déplacements du curseur, mais pas le traitement
+ * des lignes par l'appelant. Les rappels de création et de migration, appelés par la fabrique enveloppée
+ * avec sa propre connexion, ne sont pas mesurés.
+ */
+public class TimingOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+
+    private final SupportSQLiteOpenHelper.Factory mDelegate;
+
+    private final QueryMonitor mMonitor;
+
+    /**
+     * @param delegate la fabrique enveloppée
+     * @param monitor le destinataire des mesures
+     */
+    public TimingOpenHelperFactory(@NonNull SupportSQLiteOpenHelper.Factory delegate, @NonNull QueryMonitor monitor) {
+        mDelegate = delegate;
+        mMonitor = monitor;
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(@NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new TimingOpenHelper(mDelegate.create(configuration), mMonitor);
+    }
+
+    /**
+     * Le gestionnaire de connexion enveloppé : la base qu'il ouvre est enveloppée une seule fois, Room la demandant
+     * avant chaque requête.
+     */
+    private static final class TimingOpenHelper implements SupportSQLiteOpenHelper {
+
+        private final SupportSQLiteOpenHelper mDelegate;
+
+        private final QueryMonitor mMonitor;
+
+        private TimingDatabase mDatabase;
+
+        TimingOpenHelper(SupportSQLiteOpenHelper delegate, QueryMonitor monitor) {
+            mDelegate = delegate;
+            mMonitor = monitor;
+        }
+
+        private synchronized SupportSQLiteDatabase wrap(SupportSQLiteDatabase database) {
+            if (mDatabase == null || !mDatabase.wraps(database)) {
+                mDatabase = new TimingDatabase(database, mMonitor);
+            }
+            return mDatabase;
+        }
+
+        @Override
+        public String getDatabaseName() {
+            return mDelegate.getDatabaseName();
+        }
+
+        @Override
+        public void setWriteAheadLoggingEnabled(boolean enabled) {
+            mDelegate.setWriteAheadLoggingEnabled(enabled);
+        }
+
+        @Override
+        public SupportSQLiteDatabase getWritableDatabase() {
+            return wrap(mDelegate.getWritableDatabase());
+        }
+
+        @Override
+        public SupportSQLiteDatabase getReadableDatabase() {
+            return wrap(mDelegate.getReadableDatabase());
+        }
+
+        @Override
+        public void close() {
+            mDelegate.close();
+        }
+    }
+}
@@ -2,59 +2,262 @@ package com.cleanup.todoc.database;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
 import androidx.room.Database;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 
+import com.cleanup.todoc.BuildConfig;
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.executor.Priority;
+import com.cleanup.todoc.model.ArchivedTask;
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectStats;
 import com.cleanup.todoc.model.Task;
-
-import java.util.concurrent.atomic.AtomicBoolean;
+import com.cleanup.todoc.model.TaskFts;
 
 /**
  * Cette classe représente la base de données Room de l'application, elle gère la création et l'instance singleton de la base de données,
- * pré-remplit la table "project" avec des données prédéfinies, et fournit les DAO pour accéder aux données.
+ * copiée au premier lancement depuis une base préconstruite contenant les projets prédéfinis, et fournit les DAO pour accéder aux données.
+ * <p>
+ * La base fichier est toujours ouverte en journal WAL : les lectures de la file des lectures, chacune sur sa connexion,
+ * lisent le dernier état validé sans attendre la transaction en cours de la file des écritures, seule à écrire.
  */
-@Database(entities={Project.class, Task.class}, version=1, exportSchema=false)
+@Database(entities={Project.class, Task.class, TaskFts.class, ArchivedTask.class, ProjectStats.class},
+        version=TodocDatabase.VERSION, exportSchema=false)
 public abstract class TodocDatabase extends RoomDatabase {
 
     /**
-     * Instance singleton de la base de données
+     * Version du schéma, aussi celle de la base préconstruite
      */
-    public static volatile TodocDatabase INSTANCE;
+    public static final int VERSION = 9;
 
     /**
-     * Permet de déterminer si le programme s'exécute dans un environnement de test
-     * en vérifiant la présence de la classe androidx.test.espresso.Espresso
+     * Migration de la version 1 à la version 2 : ajout des index sur le nom et l'horodatage de création des tâches,
+     * utilisés par les requêtes triées du TaskDao.
      */
-    private static AtomicBoolean isRunningTest;
-    public static synchronized boolean isRunningTest() {
-        // faire un peu de cache pour éviter de vérifier à chaque fois
-        if (null == isRunningTest) {
-            boolean istest;
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_name` ON `task` (`name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_creationTimestamp` ON `task` (`creationTimestamp`)");
+        }
+    };
 
-            try {
-                // androidx uniquement
-                Class.forName ("androidx.test.espresso.Espresso");
-                istest = true;
-            } catch (ClassNotFoundException e) {
-                istest = false;
-            }
+    /**
+     * Migration de la version 2 à la version 3 : ajout de l'index plein texte des noms de tâches.
+     * La table et les déclencheurs sont identiques à ceux que Room crée pour {@link TaskFts} sur une nouvelle base ;
+     * l'index est ensuite reconstruit à partir des tâches existantes.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `task_fts` USING FTS4(`name` TEXT NOT NULL, tokenize=unicode61, content=`task`)");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_task_fts_BEFORE_UPDATE BEFORE UPDATE ON `task` "
+                    + "BEGIN DELETE FROM `task_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_task_fts_BEFORE_DELETE BEFORE DELETE ON `task` "
+                    + "BEGIN DELETE FROM `task_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_task_fts_AFTER_UPDATE AFTER UPDATE ON `task` "
+                    + "BEGIN INSERT INTO `task_fts`(`docid`, `name`) VALUES (NEW.`rowid`, NEW.`name`); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_task_fts_AFTER_INSERT AFTER INSERT ON `task` "
+                    + "BEGIN INSERT INTO `task_fts`(`docid`, `name`) VALUES (NEW.`rowid`, NEW.`name`); END");
+            database.execSQL("INSERT INTO `task_fts`(`task_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    /**
+     * Migration de la version 3 à la version 4 : sans effet. Elle ajoutait le journal des modifications des tâches,
+     * supprimé par la migration 8 → 9 : une base qui passe par cette version n'a pas à le créer.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+        }
+    };
+
+    /**
+     * Migration de la version 4 à la version 5 : ajout de la table des tâches archivées, identique à celle que Room
+     * crée pour {@link ArchivedTask} sur une nouvelle base. L'archive commence vide : la maintenance la remplit.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `task_archive` (`id` INTEGER NOT NULL, `project_id` INTEGER NOT NULL, "
+                    + "`name` TEXT NOT NULL, `creationTimestamp` INTEGER NOT NULL, PRIMARY KEY(`id`), "
+                    + "FOREIGN KEY(`project_id`) REFERENCES `project`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_archive_project_id` ON `task_archive` (`project_id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_archive_creationTimestamp` ON `task_archive` (`creationTimestamp`)");
+        }
+    };
+
+    /**
+     * Migration de la version 5 à la version 6 : ajout des statistiques par projet et de leurs déclencheurs.
+     * L'index du projet des tâches est remplacé par l'index (project_id, creationTimestamp), qui permet aux déclencheurs
+     * de retrouver la tâche la plus récente d'un projet sans parcourir ses tâches. Les statistiques sont calculées
+     * une fois à partir des tâches existantes, puis tenues à jour par les déclencheurs.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("DROP INDEX IF EXISTS `index_task_project_id`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_project_id_creationTimestamp` "
+                    + "ON `task` (`project_id`, `creationTimestamp`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `project_stats` (`project_id` INTEGER NOT NULL, "
+                    + "`task_count` INTEGER NOT NULL, `last_task_timestamp` INTEGER NOT NULL, PRIMARY KEY(`project_id`), "
+                    + "FOREIGN KEY(`project_id`) REFERENCES `project`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("INSERT INTO `project_stats` (`project_id`, `task_count`, `last_task_timestamp`) "
+                    + "SELECT `project`.`id`, COUNT(`task`.`id`), IFNULL(MAX(`task`.`creationTimestamp`), 0) "
+                    + "FROM `project` LEFT JOIN `task` ON `task`.`project_id` = `project`.`id` GROUP BY `project`.`id`");
+            createProjectStatsTriggers(database);
+        }
+    };
+
+    /**
+     * Migration de la version 6 à la version 7 : ajout de l'index (project_id, name), qui permet au filtre par projet
+     * de lire les tâches d'un projet dans l'ordre alphabétique, comme l'index (project_id, creationTimestamp)
+     * le fait pour l'ordre de création.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_task_project_id_name` ON `task` (`project_id`, `name`)");
+        }
+    };
 
-            isRunningTest = new AtomicBoolean(istest);
+    /**
+     * Migration de la version 7 à la version 8 : sans effet. Elle conditionnait l'écriture du journal des modifications
+     * à la table "task_changelog_state", supprimés l'un et l'autre par la migration 8 → 9.
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+        }
+    };
+
+    /**
+     * Migration de la version 8 à la version 9 : suppression du journal des modifications des tâches, de sa table d'état
+     * et de ses déclencheurs. La liste des tâches est paginée : une écriture ne fait relire que les pages chargées,
+     * le journal n'avait pas de lecteur. Les tables et déclencheurs peuvent manquer, selon la version d'origine.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("DROP TRIGGER IF EXISTS task_changelog_AFTER_INSERT");
+            database.execSQL("DROP TRIGGER IF EXISTS task_changelog_AFTER_UPDATE");
+            database.execSQL("DROP TRIGGER IF EXISTS task_changelog_AFTER_DELETE");
+            database.execSQL("DROP TABLE IF EXISTS `task_changelog`");
+            database.execSQL("DROP TABLE IF EXISTS `task_changelog_state`");
         }
+    };
+
+    /**
+     * Toutes les migrations du schéma, dans l'ordre des versions
+     */
+    public static final Migration[] MIGRATIONS = {
+            MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8,
+            MIGRATION_8_9};
+
+    /**
+     * Crée les déclencheurs qui tiennent à jour la table "project_stats" : une ligne vide à la création d'un projet,
+     * puis le nombre de tâches et la date de la plus récente à chaque insertion, suppression ou déplacement d'une tâche.
+     * La tâche la plus récente n'est recherchée, par l'index (project_id, creationTimestamp), que si la tâche retirée
+     * d'un projet était la plus récente. Les lignes d'un projet supprimé disparaissent par la clé étrangère.
+     * Room ne gère pas ces déclencheurs : ils sont créés à la création de la base et par la migration 5 → 6.
+     * @param database la base de données
+     */
+    public static void createProjectStatsTriggers(@NonNull SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS project_stats_AFTER_INSERT_project AFTER INSERT ON `project` "
+                + "BEGIN INSERT OR IGNORE INTO `project_stats`(`project_id`, `task_count`, `last_task_timestamp`) "
+                + "VALUES (NEW.`id`, 0, 0); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS project_stats_AFTER_INSERT AFTER INSERT ON `task` "
+                + "BEGIN " + addTaskToStats("NEW") + " END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS project_stats_AFTER_DELETE AFTER DELETE ON `task` "
+                + "BEGIN " + removeTaskFromStats("OLD") + " END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS project_stats_AFTER_UPDATE "
+                + "AFTER UPDATE OF `project_id`, `creationTimestamp` ON `task` "
+                + "WHEN OLD.`project_id` != NEW.`project_id` OR OLD.`creationTimestamp` != NEW.`creationTimestamp` "
+                + "BEGIN " + removeTaskFromStats("OLD") + " " + addTaskToStats("NEW") + " END");
+    }
+
+    /**
+     * Instruction qui compte la tâche donnée (NEW ou OLD) dans les statistiques de son projet
+     */
+    private static String addTaskToStats(String row) {
+        return "UPDATE `project_stats` SET `task_count` = `task_count` + 1, "
+                + "`last_task_timestamp` = MAX(`last_task_timestamp`, " + row + ".`creationTimestamp`) "
+                + "WHERE `project_id` = " + row + ".`project_id`;";
+    }
 
-        return isRunningTest.get();
+    /**
+     * Instruction qui retire la tâche donnée (NEW ou OLD) des statistiques de son projet, la tâche n'étant plus
+     * dans la table
+     */
+    private static String removeTaskFromStats(String row) {
+        return "UPDATE `project_stats` SET `task_count` = `task_count` - 1, "
+                + "`last_task_timestamp` = CASE WHEN " + row + ".`creationTimestamp` < `last_task_timestamp` "
+                + "THEN `last_task_timestamp` "
+                + "ELSE IFNULL((SELECT MAX(`creationTimestamp`) FROM `task` "
+                + "WHERE `project_id` = " + row + ".`project_id`), 0) END "
+                + "WHERE `project_id` = " + row + ".`project_id`;";
     }
 
+    /**
+     * Instance singleton de la base de données
+     */
+    public static volatile TodocDatabase INSTANCE;
+
+    /**
+     * Nom du fichier de base de données SQLite, stocké dans le répertoire de données privées de l'application
+     */
+    public static final String DATABASE_NAME = "TodocDatabase.db";
+
+    /**
+     * Base préconstruite livrée dans les assets : schéma de la version courante, index, déclencheurs et projets.
+     * Elle est générée par PrepackagedDatabaseTest à partir des migrations, qui vérifie aussi qu'elle est à jour.
+     */
+    public static final String DATABASE_ASSET = "database/todoc.db";
+
+    /**
+     * Taille du journal WAL, en pages, au-delà de laquelle un commit le reporte dans la base (PRAGMA wal_autocheckpoint).
+     * Android en fixe 100 par défaut : un import de plusieurs milliers de lignes par transaction déclencherait
+     * alors un report à presque chaque lot, sur le thread des écritures.
+     */
+    public static final int WAL_AUTOCHECKPOINT_PAGES = 1000;
+
+    /**
+     * Taille, en octets, à laquelle le fichier du journal WAL est ramené après un report complet
+     * (PRAGMA journal_size_limit) : le journal grossi par un import ne garde pas sa taille sur le disque.
+     */
+    public static final long JOURNAL_SIZE_LIMIT_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * Report passif : les pages que des lectures en cours utilisent encore restent dans le journal
+     */
+    public static final String CHECKPOINT_PASSIVE = "PASSIVE";
+
+    /**
+     * Report complet suivi de la remise à zéro du journal : attend la fin des lectures en cours
+     */
+    public static final String CHECKPOINT_TRUNCATE = "TRUNCATE";
+
+    /**
+     * Valeur de PRAGMA auto_vacuum pour le mode incrémental, celui de la base préconstruite : les pages libérées
+     * sont rendues au système par PRAGMA incremental_vacuum, sans VACUUM complet
+     */
+    public static final int AUTO_VACUUM_INCREMENTAL = 2;
+
     /**
      * Cette classe permet d'obtenir une instance de la classe TodocDatabase en utilisant une approche singleton.
-     * Elle vérifie si l'instance existe déjà, si non, elle crée une instance de la bd en fonction du contexte d'exécution
-     * (test ou application réelle)
+     * Elle vérifie si l'instance existe déjà, si non, elle crée une instance de la bd selon le choix fait à la
+     * compilation (BuildConfig.IN_MEMORY_DATABASE) : une base en mémoire pour les tests d'instrumentation,
+     * ou un fichier, créé au premier lancement par simple copie de la base préconstruite.
      * @param context le contexte
      * @return l'instance singleton de la base de données pour un contexte donné
      */
@@ -62,26 +265,43 @@ public abstract class TodocDatabase extends RoomDatabase {
         if (INSTANCE == null) {
             synchronized (TodocDatabase.class) {
                 if (INSTANCE == null) {
-                    // Le test d'instrumentation est-il en cours ?
-                    if( isRunningTest() ) {
-                        // Utiliser une base de données en mémoire
+                    if (BuildConfig.IN_MEMORY_DATABASE) {
+                        // Utiliser une base de données en mémoire, qui ne peut pas être copiée depuis un asset
                         INSTANCE = Room.inMemoryDatabaseBuilder(context.getApplicationContext(),
                                         TodocDatabase.class)
                                 // Autoriser les requêtes de thread principal, juste pour les tests
                                 .allowMainThreadQueries()
                                 // Faire un rappel pour pré-remplir la base de données
                                 .addCallback(prepopulateDatabase())
+                                // Compactage incrémental, comme la base fichier copiée depuis la base préconstruite
+                                .addCallback(incrementalVacuum())
+                                .addMigrations(MIGRATIONS)
+                                // Partager les exécuteurs de l'application
+                                .setQueryExecutor(AppExecutors.getInstance().read().withPriority(Priority.DEFAULT))
+                                .setTransactionExecutor(AppExecutors.getInstance().write().withPriority(Priority.DEFAULT))
+                                // Mesurer les requêtes et les transactions
+                                .openHelperFactory(timingOpenHelperFactory())
                                 // Construire la base de données
                                 .build();
                     } else {
                         // Utiliser une vraie base de données
                         INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
-                                        TodocDatabase.class,
-                                        // Nom du fichier de base de données SQLite stocké dans le répertoire de données privées de l'application
-                                        "TodocDatabase.db")
-
-                                //Faire un rappel pour pré-remplir la base de données
-                                .addCallback(prepopulateDatabase())
+                                        TodocDatabase.class, DATABASE_NAME)
+                                // Au premier lancement, copier la base préconstruite plutôt que de créer le schéma
+                                // et d'insérer les projets ligne par ligne
+                                .createFromAsset(DATABASE_ASSET)
+                                // Journal WAL, même sur les appareils à faible mémoire où Room choisirait TRUNCATE
+                                // et une seule connexion, partagée par les lectures et les écritures
+                                .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                                .addCallback(checkpointPolicy())
+                                // Mettre à jour le schéma des bases de données existantes
+                                .addMigrations(MIGRATIONS)
+                                // Exécuter les requêtes observées sur la file des lectures et les transactions sur celle
+                                // des écritures, plutôt que sur les exécuteurs propres à Room
+                                .setQueryExecutor(AppExecutors.getInstance().read().withPriority(Priority.DEFAULT))
+                                .setTransactionExecutor(AppExecutors.getInstance().write().withPriority(Priority.DEFAULT))
+                                // Mesurer la durée de chaque requête et de chaque transaction (voir QueryMonitor)
+                                .openHelperFactory(timingOpenHelperFactory())
                                 .build();
                     }
                 }
@@ -91,7 +311,71 @@ public abstract class TodocDatabase extends RoomDatabase {
     }
 
     /**
-     * On crée un rappel (Callback) pour pré-remplir la table "project" de la base de données lors de sa création.
+     * Crée la fabrique des connexions SQLite par défaut, enveloppée pour transmettre la durée des requêtes
+     * et des transactions au {@link QueryMonitor} de l'application.
+     * @return la fabrique des connexions
+     */
+    private static TimingOpenHelperFactory timingOpenHelperFactory() {
+        return new TimingOpenHelperFactory(new FrameworkSQLiteOpenHelperFactory(), QueryMonitor.getInstance());
+    }
+
+    /**
+     * Crée le rappel qui règle les reports du journal WAL à l'ouverture de la base. Seule la connexion des écritures
+     * reporte le journal : les réglages, propres à chaque connexion, ne concernent qu'elle.
+     * @return le rappel qui règle les reports du journal
+     */
+    private static Callback checkpointPolicy() {
+        return new Callback() {
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                super.onOpen(db);
+                // Ces PRAGMA renvoient une ligne, refusée par execSQL()
+                db.query("PRAGMA wal_autocheckpoint = " + WAL_AUTOCHECKPOINT_PAGES).close();
+                db.query("PRAGMA journal_size_limit = " + JOURNAL_SIZE_LIMIT_BYTES).close();
+            }
+        };
+    }
+
+    /**
+     * Crée le rappel qui passe la base en mémoire en compactage incrémental, à sa création. Room crée les tables
+     * avant d'appeler onCreate(), dans une transaction : le mode ne s'applique qu'après un VACUUM, fait à l'ouverture
+     * qui suit, hors transaction, sur une base qui ne contient encore que les projets.
+     * @return le rappel qui règle le compactage
+     */
+    private static Callback incrementalVacuum() {
+        return new Callback() {
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                super.onOpen(db);
+                try (Cursor cursor = db.query("PRAGMA auto_vacuum")) {
+                    if (cursor.moveToFirst() && cursor.getInt(0) == AUTO_VACUUM_INCREMENTAL) {
+                        return;
+                    }
+                }
+                db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+                db.execSQL("VACUUM");
+            }
+        };
+    }
+
+    /**
+     * Reporte le journal WAL dans la base. Sans effet sur une base qui n'est pas en journal WAL.
+     * @param database la connexion des écritures
+     * @param mode {@link #CHECKPOINT_PASSIVE} ou {@link #CHECKPOINT_TRUNCATE}
+     * @return true si tout le journal a été reporté
+     */
+    @WorkerThread
+    public static boolean checkpoint(@NonNull SupportSQLiteDatabase database, @NonNull String mode) {
+        // Colonnes : busy, nombre de pages du journal, nombre de pages reportées (-1 hors journal WAL)
+        try (Cursor cursor = database.query("PRAGMA wal_checkpoint(" + mode + ")")) {
+            return cursor.moveToFirst() && cursor.getInt(0) == 0 && cursor.getLong(1) == cursor.getLong(2);
+        }
+    }
+
+    /**
+     * On crée un rappel (Callback) pour pré-remplir la table "project" de la base de données en mémoire lors de sa création,
+     * et créer les déclencheurs des statistiques des projets.
+     * La base fichier n'en a pas besoin : elle est copiée depuis la base préconstruite, qui contient déjà les uns et les autres.
      * On utilise un tableau de projets qu'on convertit en objets ContentValues, puis les insère dans la base de données en utilisant la stratégie de conflit "IGNORE".
      * @return le rappel pour pré-remplir la base de données
      */
@@ -99,6 +383,9 @@ public abstract class TodocDatabase extends RoomDatabase {
         return new Callback() {
             public void onCreate(@NonNull SupportSQLiteDatabase db) {
                 super.onCreate(db);
+                // Les déclencheurs des statistiques ne sont pas créés par Room ; ils doivent exister
+                // avant l'insertion des projets
+                createProjectStatsTriggers(db);
                 // Insérer la liste des projets dans la base de données
                 Project[] projects = Project.getAllProjects();
                 for (Project project : projects) {
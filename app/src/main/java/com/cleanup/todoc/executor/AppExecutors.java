@@ -0,0 +1,147 @@
+package com.cleanup.todoc.executor;
+
+import android.app.Activity;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.cleanup.todoc.BuildConfig;
+
+import java.io.PrintWriter;
+
+/**
+ * Cette classe regroupe les exécuteurs de l'application, partagés par Room, la pagination et les repositories :
+ * <ul>
+ *     <li>une file de lectures, à plusieurs threads, pour les requêtes de Room, les pages de la liste et les recherches ;</li>
+ *     <li>une file d'écritures, à un seul thread, pour les transactions de Room et les commits regroupés.</li>
+ * </ul>
+ * Les deux files étant séparées, une lecture demandée par l'écran n'attend pas la fin d'un import ; dans chaque file,
+ * les tâches {@link Priority#UI} passent devant les traitements de masse.
+ * Les threads vivent tant qu'un cycle de vie lié par {@link #bindTo(LifecycleOwner)} n'est pas détruit.
+ */
+public final class AppExecutors {
+
+    /**
+     * Instance partagée par toute l'application
+     */
+    @Nullable
+    private static volatile AppExecutors sInstance;
+
+    private final ExecutorLane mRead;
+
+    private final ExecutorLane mWrite;
+
+    // Nombre de cycles de vie liés et pas encore détruits
+    private int mOwners;
+
+    /**
+     * @param readThreads le nombre de threads de la file de lectures
+     */
+    public AppExecutors(int readThreads) {
+        mRead = new ExecutorLane("todoc-read", readThreads, Thread.NORM_PRIORITY);
+        // Les écritures ne sont pas attendues par l'écran : leurs threads cèdent la place aux lectures
+        mWrite = new ExecutorLane("todoc-write", 1, Thread.NORM_PRIORITY - 1);
+    }
+
+    /**
+     * Renvoie l'instance partagée. Sa file de lectures a autant de threads que de lecteurs simultanés de la base
+     * choisis à la compilation (BuildConfig.DATABASE_READERS), ou par défaut un thread par cœur (entre 2 et 4).
+     */
+    @NonNull
+    public static AppExecutors getInstance() {
+        if (sInstance == null) {
+            synchronized (AppExecutors.class) {
+                if (sInstance == null) {
+                    sInstance = new AppExecutors(readThreads(BuildConfig.DATABASE_READERS));
+                }
+            }
+        }
+        return sInstance;
+    }
+
+    /**
+     * Renvoie le nombre de threads de la file de lectures : en journal WAL, chacun lit la base sur sa propre
+     * connexion, sans attendre les écritures.
+     * @param readers le nombre de lecteurs demandé, 0 pour un thread par cœur (entre 2 et 4)
+     */
+    static int readThreads(int readers) {
+        if (readers > 0) {
+            return readers;
+        }
+        final int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(2, Math.min(4, cores));
+    }
+
+    /**
+     * Renvoie la file des lectures.
+     */
+    @NonNull
+    public ExecutorLane read() {
+        return mRead;
+    }
+
+    /**
+     * Renvoie la file des écritures, à un seul thread : ses tâches ne se chevauchent jamais.
+     */
+    @NonNull
+    public ExecutorLane write() {
+        return mWrite;
+    }
+
+    /**
+     * Lie les threads au cycle de vie donné : ils sont arrêtés à la destruction du dernier cycle de vie lié,
+     * sauf lors d'un changement de configuration de l'activité, qui est aussitôt recréée.
+     */
+    public void bindTo(@NonNull LifecycleOwner owner) {
+        synchronized (this) {
+            mOwners++;
+        }
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event != Lifecycle.Event.ON_DESTROY) {
+                    return;
+                }
+                source.getLifecycle().removeObserver(this);
+                // L'activité recréée après un changement de configuration se lie à nouveau
+                release(source instanceof Activity && ((Activity) source).isChangingConfigurations());
+            }
+        });
+    }
+
+    private synchronized void release(boolean recreated) {
+        mOwners--;
+        if (mOwners == 0 && !recreated) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Arrête les threads des deux files une fois les tâches déjà soumises terminées.
+     * Les files restent utilisables : une tâche soumise ensuite démarre de nouveaux threads.
+     */
+    public void shutdown() {
+        mRead.shutdown();
+        mWrite.shutdown();
+    }
+
+    /**
+     * Écrit les mesures des deux files, par exemple dans le dump d'une activité (adb shell dumpsys activity).
+     * @param prefix le préfixe de chaque ligne
+     * @param writer la destination
+     */
+    public void dump(@NonNull String prefix, @NonNull PrintWriter writer) {
+        writer.print(prefix);
+        writer.println("AppExecutors:");
+        for (ExecutorLane lane : new ExecutorLane[]{mRead, mWrite}) {
+            for (String line : lane.getMetrics().toString().split("\\R")) {
+                writer.print(prefix);
+                writer.print("  ");
+                writer.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.cleanup.todoc.executor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cette classe est une file d'exécution (lane) : un nombre fixe de threads qui prennent les tâches en attente
+ * par ordre de {@link Priority}, puis par ordre de soumission. Une tâche différée rejoint la file à l'expiration de son délai.
+ * La file mesure sa profondeur et les temps d'attente et d'exécution de ses tâches ({@link #getMetrics()}).
+ * Les threads sont démarrés à la première tâche et s'arrêtent après une période d'inactivité ; {@link #shutdown()}
+ * les arrête dès que les tâches déjà soumises sont terminées, et une tâche soumise ensuite démarre de nouveaux threads.
+ */
+public final class ExecutorLane implements Executor {
+
+    /**
+     * Durée d'inactivité après laquelle un thread s'arrête
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Une tâche en attente, ordonnée par priorité puis par numéro de soumission
+     */
+    private final class LaneTask implements Runnable, Comparable<LaneTask> {
+        private final Runnable command;
+        private final Priority priority;
+        private final long sequence;
+        private final long enqueuedNanos;
+
+        LaneTask(Runnable command, Priority priority) {
+            this.command = command;
+            this.priority = priority;
+            this.sequence = mSequence.getAndIncrement();
+            this.enqueuedNanos = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            final long startNanos = System.nanoTime();
+            try {
+                command.run();
+            } finally {
+                record(priority, startNanos - enqueuedNanos, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public int compareTo(LaneTask other) {
+            if (priority != other.priority) {
+                return priority.compareTo(other.priority);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Les threads de la file et son minuteur : le minuteur transmet les tâches différées au pool,
+     * et n'arrête le pool qu'une fois ses propres tâches transmises.
+     */
+    private static final class Workers {
+        final ThreadPoolExecutor pool;
+        final ScheduledThreadPoolExecutor timer;
+
+        Workers(String name, int threads, int threadPriority) {
+            pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), threadFactory(name, threadPriority));
+            pool.allowCoreThreadTimeOut(true);
+            timer = new ScheduledThreadPoolExecutor(1, threadFactory(name + "-timer", threadPriority)) {
+                @Override
+                protected void terminated() {
+                    pool.shutdown();
+                }
+            };
+            timer.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+            timer.allowCoreThreadTimeOut(true);
+            // Une recherche annulée ne doit pas retarder l'arrêt jusqu'à l'expiration de son délai
+            timer.setRemoveOnCancelPolicy(true);
+        }
+    }
+
+    private final String mName;
+
+    private final int mThreads;
+
+    private final int mThreadPriority;
+
+    // Threads courants, null avant la première tâche et après un arrêt
+    @Nullable
+    private Workers mWorkers;
+
+    // Threads en cours d'arrêt, attendus par awaitTermination()
+    @Nullable
+    private Workers mStopping;
+
+    private final AtomicLong mSequence = new AtomicLong();
+
+    // Mesures, protégées par leur propre verrou pour ne pas bloquer les soumissions
+    private final Object mMetricsLock = new Object();
+    private final AtomicInteger mMaxQueueDepth = new AtomicInteger();
+    private final long[] mCompleted = new long[Priority.values().length];
+    private final long[] mTotalWaitNanos = new long[Priority.values().length];
+    private final long[] mMaxWaitNanos = new long[Priority.values().length];
+    private long mTotalRunNanos;
+    private long mMaxRunNanos;
+
+    /**
+     * @param name le nom de la file, utilisé pour nommer ses threads et dans les mesures
+     * @param threads le nombre de threads
+     * @param threadPriority la priorité des threads ({@link Thread#setPriority(int)})
+     */
+    public ExecutorLane(@NonNull String name, int threads, int threadPriority) {
+        mName = name;
+        mThreads = threads;
+        mThreadPriority = threadPriority;
+    }
+
+    /**
+     * Renvoie le nom de la file.
+     */
+    @NonNull
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * Soumet une tâche avec la priorité {@link Priority#DEFAULT}.
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        execute(command, Priority.DEFAULT);
+    }
+
+    /**
+     * Soumet une tâche avec la priorité donnée.
+     */
+    public void execute(@NonNull Runnable command, @NonNull Priority priority) {
+        final ThreadPoolExecutor pool;
+        // Soumise sous le verrou de la file : un shutdown() concurrent ne peut arrêter le pool entre sa lecture
+        // et la soumission, qui serait alors refusée au lieu de démarrer de nouveaux threads
+        synchronized (this) {
+            pool = workers().pool;
+            pool.execute(new LaneTask(command, priority));
+        }
+        updateMaxQueueDepth(pool.getQueue().size());
+    }
+
+    /**
+     * Soumet une tâche après un délai : elle rejoint la file, avec la priorité donnée, à l'expiration du délai.
+     * @return de quoi annuler la tâche tant que son délai n'est pas écoulé
+     */
+    @NonNull
+    public Future<?> schedule(@NonNull Runnable command, long delay, @NonNull TimeUnit unit, @NonNull Priority priority) {
+        // La tâche rejoint le pool en vigueur lors de sa planification, même si la file a été arrêtée entre-temps ;
+        // elle est planifiée sous le verrou de la file, avant qu'un shutdown() ne puisse arrêter le minuteur
+        synchronized (this) {
+            final Workers workers = workers();
+            return workers.timer.schedule(() -> {
+                workers.pool.execute(new LaneTask(command, priority));
+                updateMaxQueueDepth(workers.pool.getQueue().size());
+            }, delay, unit);
+        }
+    }
+
+    /**
+     * Renvoie un {@link Executor} qui soumet ses tâches à cette file avec la priorité donnée,
+     * pour les composants qui n'acceptent qu'un Executor (Room, pagination).
+     */
+    @NonNull
+    public Executor withPriority(@NonNull Priority priority) {
+        return command -> execute(command, priority);
+    }
+
+    /**
+     * Arrête les threads de la file : les tâches déjà soumises, y compris les tâches différées non annulées,
+     * sont exécutées avant l'arrêt. Une tâche soumise ensuite démarre de nouveaux threads.
+     */
+    public synchronized void shutdown() {
+        if (mWorkers != null) {
+            mStopping = mWorkers;
+            mWorkers = null;
+            // Le minuteur arrête le pool une fois ses tâches différées transmises
+            mStopping.timer.shutdown();
+        }
+    }
+
+    /**
+     * Attend la fin de l'arrêt demandé par {@link #shutdown()}.
+     * @return true si les threads sont arrêtés, false si le délai a expiré avant
+     */
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        final Workers stopping;
+        synchronized (this) {
+            stopping = mStopping;
+        }
+        if (stopping == null) {
+            return true;
+        }
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        return stopping.timer.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                && stopping.pool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Renvoie un relevé des mesures de la file.
+     */
+    @NonNull
+    public LaneMetrics getMetrics() {
+        final Workers workers;
+        synchronized (this) {
+            workers = mWorkers;
+        }
+        final int queueDepth = workers == null ? 0 : workers.pool.getQueue().size();
+        final int delayedCount = workers == null ? 0 : workers.timer.getQueue().size();
+        synchronized (mMetricsLock) {
+            return new LaneMetrics(mName, queueDepth, mMaxQueueDepth.get(), delayedCount, mCompleted.clone(),
+                    mTotalWaitNanos.clone(), mMaxWaitNanos.clone(), mTotalRunNanos, mMaxRunNanos);
+        }
+    }
+
+    private synchronized Workers workers() {
+        if (mWorkers == null) {
+            mWorkers = new Workers(mName, mThreads, mThreadPriority);
+        }
+        return mWorkers;
+    }
+
+    private void updateMaxQueueDepth(int depth) {
+        int max = mMaxQueueDepth.get();
+        while (depth > max && !mMaxQueueDepth.compareAndSet(max, depth)) {
+            max = mMaxQueueDepth.get();
+        }
+    }
+
+    private void record(Priority priority, long waitNanos, long runNanos) {
+        synchronized (mMetricsLock) {
+            final int index = priority.ordinal();
+            mCompleted[index]++;
+            mTotalWaitNanos[index] += waitNanos;
+            mMaxWaitNanos[index] = Math.max(mMaxWaitNanos[index], waitNanos);
+            mTotalRunNanos += runNanos;
+            mMaxRunNanos = Math.max(mMaxRunNanos, runNanos);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name, int threadPriority) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setPriority(threadPriority);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package com.cleanup.todoc.executor;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * Cette classe est un relevé des mesures d'un {@link ExecutorLane} à un instant donné :
+ * profondeur de la file d'attente, nombre de tâches, et temps d'attente (par priorité) et d'exécution.
+ * Une instance est immuable.
+ */
+public final class LaneMetrics {
+
+    private final String name;
+
+    private final int queueDepth;
+
+    private final int maxQueueDepth;
+
+    private final int delayedCount;
+
+    private final long[] completed;
+
+    private final long[] totalWaitNanos;
+
+    private final long[] maxWaitNanos;
+
+    private final long totalRunNanos;
+
+    private final long maxRunNanos;
+
+    LaneMetrics(String name, int queueDepth, int maxQueueDepth, int delayedCount, long[] completed,
+                long[] totalWaitNanos, long[] maxWaitNanos, long totalRunNanos, long maxRunNanos) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.delayedCount = delayedCount;
+        this.completed = completed;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.totalRunNanos = totalRunNanos;
+        this.maxRunNanos = maxRunNanos;
+    }
+
+    /**
+     * Renvoie le nom de la file.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Renvoie le nombre de tâches en attente d'un thread.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Renvoie le plus grand nombre de tâches en attente observé.
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Renvoie le nombre de tâches différées dont le délai n'est pas encore écoulé.
+     */
+    public int getDelayedCount() {
+        return delayedCount;
+    }
+
+    /**
+     * Renvoie le nombre de tâches terminées.
+     */
+    public long getCompletedCount() {
+        long count = 0;
+        for (long value : completed) {
+            count += value;
+        }
+        return count;
+    }
+
+    /**
+     * Renvoie le nombre de tâches terminées de la priorité donnée.
+     */
+    public long getCompletedCount(@NonNull Priority priority) {
+        return completed[priority.ordinal()];
+    }
+
+    /**
+     * Renvoie le temps d'attente moyen dans la file des tâches de la priorité donnée, en microsecondes.
+     */
+    public long getMeanWaitMicros(@NonNull Priority priority) {
+        final long count = completed[priority.ordinal()];
+        return count == 0 ? 0 : totalWaitNanos[priority.ordinal()] / count / 1000;
+    }
+
+    /**
+     * Renvoie le plus long temps d'attente dans la file des tâches de la priorité donnée, en microsecondes.
+     */
+    public long getMaxWaitMicros(@NonNull Priority priority) {
+        return maxWaitNanos[priority.ordinal()] / 1000;
+    }
+
+    /**
+     * Renvoie le temps d'exécution moyen des tâches, en microsecondes.
+     */
+    public long getMeanRunMicros() {
+        final long count = getCompletedCount();
+        return count == 0 ? 0 : totalRunNanos / count / 1000;
+    }
+
+    /**
+     * Renvoie le plus long temps d'exécution d'une tâche, en microsecondes.
+     */
+    public long getMaxRunMicros() {
+        return maxRunNanos / 1000;
+    }
+
+    /**
+     * Renvoie le relevé sous forme de texte, une ligne pour la file puis une par priorité.
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder(String.format(Locale.ROOT,
+                "%s: queue=%d (max %d) delayed=%d completed=%d run mean=%dus max=%dus",
+                name, queueDepth, maxQueueDepth, delayedCount, getCompletedCount(), getMeanRunMicros(), getMaxRunMicros()));
+        for (Priority priority : Priority.values()) {
+            text.append(String.format(Locale.ROOT, "%n  %s: completed=%d wait mean=%dus max=%dus",
+                    priority, getCompletedCount(priority), getMeanWaitMicros(priority), getMaxWaitMicros(priority)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.cleanup.todoc.executor;
+
+/**
+ * Priorité d'une tâche soumise à un {@link ExecutorLane} : une tâche en attente passe devant toutes celles
+ * de priorité inférieure, et les tâches de même priorité sont exécutées dans leur ordre de soumission.
+ */
+public enum Priority {
+
+    /**
+     * Tâche attendue par l'utilisateur (page de la liste affichée, recherche, écriture demandée depuis l'écran)
+     */
+    UI,
+
+    /**
+     * Tâche sans contrainte particulière (requêtes observées de Room)
+     */
+    DEFAULT,
+
+    /**
+     * Traitement de masse (import, export, archivage), exécuté lorsque rien d'autre n'attend
+     */
+    BULK
+}
@@ -1,21 +1,42 @@
 package com.cleanup.todoc.injection;
 
 import android.content.Context;
+import android.os.Build;
 
+import com.cleanup.todoc.database.QueryMonitor;
+import com.cleanup.todoc.database.TaskBackup;
+import com.cleanup.todoc.database.TaskImporter;
 import com.cleanup.todoc.database.TodocDatabase;
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.executor.Priority;
+import com.cleanup.todoc.model.ProjectRegistry;
+import com.cleanup.todoc.repository.DeviceMaintenanceConditions;
 import com.cleanup.todoc.repository.ProjectDataRepository;
 import com.cleanup.todoc.repository.TaskDataRepository;
+import com.cleanup.todoc.repository.TaskMaintenance;
+import com.cleanup.todoc.repository.TaskSnapshotFile;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.io.File;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 /**
  * Cette classe fournit des méthodes pour créer et fournir les dépendances nécessaires aux modèles de vue de l'application,
- * en utilisant les instances de ProjectDataRepository, TaskDataRepository et Executor.
+ * en utilisant les instances de ProjectDataRepository et TaskDataRepository.
  * L'utilisation de cet injecteur de dépendances facilite la gestion des dépendances et favorise la modularité et la réutilisabilité du code.
  */
 public class Injection {
 
+    /**
+     * Instance partagée de la maintenance de la base de données
+     */
+    private static volatile TaskMaintenance sTaskMaintenance;
+
+    /**
+     * Création en arrière-plan de la base de données et des sources de données, lancée par {@link #prewarm}
+     */
+    private static volatile FutureTask<Repositories> sRepositories;
+
     /**
      * Crée une instance de {@link ProjectDataRepository} basé sur la base de données Project DAO.
      * @param context le contexte
@@ -27,7 +48,7 @@ public class Injection {
 
         // Obtient DAO à partir de la base de données
         // Renvoie une nouvelle instance de ProjectDataRepository avec son DAO
-        return new ProjectDataRepository(database.projectDao());
+        return new ProjectDataRepository(database.projectDao(), ProjectRegistry.getInstance());
     }
 
     /**
@@ -40,33 +61,100 @@ public class Injection {
         TodocDatabase database = TodocDatabase.getInstance(context);
 
         // Obtient DAO à partir de la base de données
-        // Renvoie une nouvelle instance de ProjectDataRepository avec son DAO
-        return new TaskDataRepository(database.taskDao());
+        // Renvoie une nouvelle instance de TaskDataRepository avec son DAO
+        // et le suivi des modifications utilisé pour invalider les pages chargées
+        // et les exécuteurs partagés de l'application, ainsi que le fichier de la liste affichée au démarrage
+        // et l'import, la sauvegarde et la restauration des fichiers de tâches
+        return new TaskDataRepository(database.taskDao(), database.getInvalidationTracker(),
+                provideExecutors(), provideTaskSnapshotFile(context), new TaskImporter(database),
+                new TaskBackup(database));
+    }
+
+    /**
+     * Crée une instance de {@link TaskSnapshotFile}, dans le stockage privé de l'application.
+     * @param context le contexte
+     * @return l'instance de {@link TaskSnapshotFile}
+     */
+    private static TaskSnapshotFile provideTaskSnapshotFile(Context context) {
+        return new TaskSnapshotFile(new File(context.getFilesDir(), "task_snapshot.bin"));
+    }
+
+    /**
+     * Fournit les exécuteurs de l'application, partagés avec Room : une seule instance, quel que soit le nombre d'appels.
+     * @return l'instance de {@link AppExecutors}
+     */
+    public static AppExecutors provideExecutors() {
+        return AppExecutors.getInstance();
+    }
+
+    /**
+     * Fournit les mesures des requêtes de la base de données, installées par {@link TodocDatabase}.
+     * @return l'instance de {@link QueryMonitor}
+     */
+    public static QueryMonitor provideQueryMonitor() {
+        return QueryMonitor.getInstance();
     }
 
     /**
-     * Crée une instance de {@link Executor}
-     * @return l'instance de {@link Executor}
+     * Fournit la maintenance de la base de données : archivage des anciennes tâches, analyse et compactage.
+     * Une seule instance, pour qu'une maintenance en cours ne soit pas relancée par une nouvelle activité.
+     * @param context le contexte
+     * @return l'instance de {@link TaskMaintenance}
      */
-    private static Executor provideExecutor() {
-        // Renvoie une nouvelle instance d'un seul exécuteur de thread
-        return Executors.newSingleThreadExecutor();
+    public static TaskMaintenance provideTaskMaintenance(Context context) {
+        if (sTaskMaintenance == null) {
+            synchronized (Injection.class) {
+                if (sTaskMaintenance == null) {
+                    TodocDatabase database = TodocDatabase.getInstance(context);
+                    sTaskMaintenance = new TaskMaintenance(database, database.taskDao(), provideExecutors(),
+                            new DeviceMaintenanceConditions(context));
+                }
+            }
+        }
+        return sTaskMaintenance;
+    }
+
+    /**
+     * Lance, une seule fois, deux tâches sur la file des lectures : la création des sources de données
+     * (le singleton TodocDatabase est construit, sans connexion, puis les deux repositories créés), et l'ouverture
+     * de la connexion SQLite (copie de la base préconstruite ou migrations comprises). Appelée au démarrage
+     * du processus, avant la création de l'activité. La factory des ViewModels n'attend que la première :
+     * la liste enregistrée s'affiche sans attendre SQLite, et la première requête attend, elle, l'ouverture.
+     * @param context le contexte
+     * @return la création en cours ou terminée des sources de données
+     */
+    public static Future<?> prewarm(Context context) {
+        return repositories(context);
+    }
+
+    private static FutureTask<Repositories> repositories(Context context) {
+        if (sRepositories == null) {
+            synchronized (Injection.class) {
+                if (sRepositories == null) {
+                    final Context applicationContext = context.getApplicationContext();
+                    sRepositories = new FutureTask<>(() -> new Repositories(
+                            provideProjectDataSource(applicationContext), provideTaskDataSource(applicationContext)));
+                    provideExecutors().read().execute(sRepositories, Priority.UI);
+                    // Ouvre la connexion dès maintenant, plutôt qu'à la première requête, sur un autre thread
+                    // de lecture : la création des sources de données ne l'attend pas
+                    provideExecutors().read().execute(() -> TodocDatabase.getInstance(applicationContext)
+                            .getOpenHelper().getWritableDatabase(), Priority.UI);
+                }
+            }
+        }
+        return sRepositories;
     }
 
     /**
      * Fournit le {@link ViewModelFactory} afin que le modèle puisse accéder aux sources de données.
+     * Les sources de données sont celles créées en arrière-plan par {@link #prewarm} : la factory n'attend
+     * leur création que si elle n'est pas encore terminée lorsque le ViewModel est demandé.
      * @param context the context
      * @return the {@link ViewModelFactory}
      */
     public static ViewModelFactory provideViewModelFactory(Context context) {
-        // Obtient des instances de ProjectDataRepository et TaskDataRepository
-        ProjectDataRepository projectDataSource = provideProjectDataSource(context);
-        TaskDataRepository taskDataSource = provideTaskDataSource(context);
-
-        // Obtient l'instance de l'exécuteur
-        Executor executor = provideExecutor();
-
-        // Renvoie une nouvelle instance de ViewModelFactory avec ProjectDataRepository, TaskDataRepository et Executor
-        return new ViewModelFactory(projectDataSource, taskDataSource, executor);
+        // Renvoie une nouvelle instance de ViewModelFactory avec la création des sources de données
+        // et la file d'exécution des recherches
+        return new ViewModelFactory(repositories(context), provideExecutors().read());
     }
 }
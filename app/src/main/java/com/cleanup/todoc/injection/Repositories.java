@@ -0,0 +1,34 @@
+package com.cleanup.todoc.injection;
+
+import androidx.annotation.NonNull;
+
+import com.cleanup.todoc.repository.ProjectDataRepository;
+import com.cleanup.todoc.repository.TaskDataRepository;
+
+/**
+ * Les sources de données des projets et des tâches, créées ensemble en arrière-plan au démarrage de l'application
+ * (voir {@link Injection#prewarm}) et transmises au {@link ViewModelFactory}, sans attendre l'ouverture de la base.
+ */
+final class Repositories {
+
+    @NonNull
+    private final ProjectDataRepository mProjectDataSource;
+
+    @NonNull
+    private final TaskDataRepository mTaskDataSource;
+
+    Repositories(@NonNull ProjectDataRepository projectDataSource, @NonNull TaskDataRepository taskDataSource) {
+        mProjectDataSource = projectDataSource;
+        mTaskDataSource = taskDataSource;
+    }
+
+    @NonNull
+    ProjectDataRepository getProjectDataSource() {
+        return mProjectDataSource;
+    }
+
+    @NonNull
+    TaskDataRepository getTaskDataSource() {
+        return mTaskDataSource;
+    }
+}
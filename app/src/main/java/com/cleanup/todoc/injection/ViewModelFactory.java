@@ -5,45 +5,40 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
 
-import com.cleanup.todoc.repository.ProjectDataRepository;
-import com.cleanup.todoc.repository.TaskDataRepository;
+import com.cleanup.todoc.executor.ExecutorLane;
 import com.cleanup.todoc.viewmodel.TaskViewModel;
 
-import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Cette classe est une factory qui crée des instances de ViewModels en utilisant
- * les sources de données appropriées et l'exécuteur.
+ * les sources de données appropriées et la file d'exécution des recherches.
  * Elle facilite la création des ViewModels en encapsulant les détails d'implémentation et d'instanciation,
  * en fournissant une interface simple pour créer les ViewModels nécessaires à partir des sources de données spécifiées.
+ * Les sources de données sont créées en arrière-plan : la factory attend la fin de leur création à la demande
+ * d'un ViewModel, ce qui ne bloque le thread principal que si elle n'est pas encore terminée.
  */
 public class ViewModelFactory implements ViewModelProvider.Factory {
 
     /**
-     * La source de données du projet
+     * Les sources de données des projets et des tâches, en cours de création ou créées
      */
-    private final ProjectDataRepository mProjectDataSource;
+    private final Future<Repositories> mRepositories;
 
     /**
-     * La source de données de la tâche
+     * La file d'exécution des recherches
      */
-    private final TaskDataRepository mTaskDataSource;
-
-    /**
-     * L'exécuteur
-     */
-    private final Executor mExecutor;
+    private final ExecutorLane mSearchExecutor;
 
     /**
      * Constructeur
-     * @param projectDataSource la source de données du projet
-     * @param taskDataSource la source de données de la tâche
-     * @param executor l'exécuteur testamentaire
+     * @param repositories la création des sources de données des projets et des tâches
+     * @param searchExecutor la file d'exécution des recherches
      */
-    public ViewModelFactory(ProjectDataRepository projectDataSource, TaskDataRepository taskDataSource, Executor executor) {
-        mProjectDataSource = projectDataSource;
-        mTaskDataSource = taskDataSource;
-        mExecutor = executor;
+    ViewModelFactory(Future<Repositories> repositories, ExecutorLane searchExecutor) {
+        mRepositories = repositories;
+        mSearchExecutor = searchExecutor;
     }
 
     /**
@@ -58,10 +53,29 @@ public class ViewModelFactory implements ViewModelProvider.Factory {
 
         // Créer un ViewModel pour la classe TaskViewModel
         if (modelClass.isAssignableFrom(TaskViewModel.class)) {
-            return (T) new TaskViewModel(mProjectDataSource, mTaskDataSource, mExecutor);
+            final Repositories repositories = awaitRepositories();
+            return (T) new TaskViewModel(repositories.getProjectDataSource(), repositories.getTaskDataSource(),
+                    mSearchExecutor);
         }
 
         // Si la classe ViewModel est inconnue, lancez une exception
         throw new IllegalArgumentException("Unknown ViewModel class");
     }
+
+    /**
+     * Attend la fin de la création des sources de données, déjà terminée dans le cas habituel.
+     * Une erreur survenue en arrière-plan est relancée ici ; celles de l'ouverture ou de la migration de la base
+     * le sont par la première requête.
+     */
+    @NonNull
+    private Repositories awaitRepositories() {
+        try {
+            return mRepositories.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("cannot create the data sources", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while creating the data sources", e);
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package com.cleanup.todoc.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.cleanup.todoc.database.TaskBackup;
+
+/**
+ * Cette interface est informée de l'issue d'une sauvegarde ou d'une restauration confiée à un repository.
+ * Ses méthodes sont appelées sur le thread des écritures, après la fin de la transaction.
+ */
+public interface BackupCallback {
+
+    /**
+     * L'opération est terminée.
+     * @param result le bilan de l'opération
+     */
+    @WorkerThread
+    void onCompleted(@NonNull TaskBackup.Result result);
+
+    /**
+     * L'opération a échoué : une sauvegarde est incomplète ; une restauration a conservé les lots déjà validés,
+     * ou n'a rien modifié si son premier lot a échoué.
+     * @param error l'erreur de lecture ou d'écriture du fichier, ou de la base
+     */
+    @WorkerThread
+    void onFailed(@NonNull Exception error);
+}
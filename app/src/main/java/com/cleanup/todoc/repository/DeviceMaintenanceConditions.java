@@ -0,0 +1,35 @@
+package com.cleanup.todoc.repository;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Cette classe lit l'état de l'appareil pour la maintenance : l'appareil est inactif lorsque l'écran est éteint,
+ * et en charge lorsqu'il est branché, d'après la dernière diffusion de l'état de la batterie.
+ */
+public class DeviceMaintenanceConditions implements MaintenanceConditions {
+
+    private final Context mContext;
+
+    public DeviceMaintenanceConditions(@NonNull Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    @Override
+    @WorkerThread
+    public boolean isIdleAndCharging() {
+        final PowerManager powerManager = (PowerManager) mContext.getSystemService(Context.POWER_SERVICE);
+        if (powerManager == null || powerManager.isInteractive()) {
+            return false;
+        }
+        // Diffusion persistante : aucun récepteur n'est enregistré, la dernière valeur est renvoyée
+        final Intent battery = mContext.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        return battery != null && battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+    }
+}
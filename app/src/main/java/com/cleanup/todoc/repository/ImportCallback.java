@@ -0,0 +1,28 @@
+package com.cleanup.todoc.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.cleanup.todoc.database.TaskImporter;
+
+/**
+ * Cette interface est informée de l'issue d'un import de tâches confié à un repository.
+ * Ses méthodes sont appelées sur le thread des écritures, après la transaction du dernier lot.
+ */
+public interface ImportCallback {
+
+    /**
+     * Le fichier a été importé en entier.
+     * @param result le bilan de l'import
+     */
+    @WorkerThread
+    void onImported(@NonNull TaskImporter.Result result);
+
+    /**
+     * L'import a été interrompu : les lots validés avant l'erreur sont conservés.
+     * @param error l'erreur de lecture du fichier ou d'écriture dans la base
+     * @param result le bilan des lots validés
+     */
+    @WorkerThread
+    void onFailed(@NonNull Exception error, @NonNull TaskImporter.Result result);
+}
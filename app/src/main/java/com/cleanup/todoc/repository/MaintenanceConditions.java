@@ -0,0 +1,16 @@
+package com.cleanup.todoc.repository;
+
+import androidx.annotation.WorkerThread;
+
+/**
+ * Cette interface indique à {@link TaskMaintenance} si l'état de l'appareil permet les opérations longues,
+ * qui occupent le thread des écritures et le disque le temps de réécrire toute la base.
+ */
+public interface MaintenanceConditions {
+
+    /**
+     * Renvoie true si l'appareil est inactif et en charge : un VACUUM complet de la base peut être lancé.
+     */
+    @WorkerThread
+    boolean isIdleAndCharging();
+}
@@ -1,9 +1,12 @@
 package com.cleanup.todoc.repository;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
 
 import com.cleanup.todoc.database.ProjectDao;
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectRegistry;
+import com.cleanup.todoc.model.ProjectStats;
 
 import java.util.List;
 
@@ -12,15 +15,28 @@ import java.util.List;
  * et les composants qui ont besoin d'y accéder.
  * Elle encapsule la logique de récupération des données des projets
  * et expose une méthode pour obtenir les projets sous forme d'objet LiveData<List<Project>>.
+ * Chaque émission met à jour le {@link ProjectRegistry} avant d'être transmise aux observateurs.
+ * Les statistiques des projets (nombre de tâches, date de la plus récente) sont lues dans la table "project_stats",
+ * sans parcourir les tâches.
  */
 public class ProjectDataRepository {
     private final ProjectDao mProjectDao;
 
-    public ProjectDataRepository(ProjectDao projectDao) {
+    private final ProjectRegistry mProjectRegistry;
+
+    public ProjectDataRepository(ProjectDao projectDao, ProjectRegistry projectRegistry) {
         mProjectDao = projectDao;
+        mProjectRegistry = projectRegistry;
     }
 
     public LiveData<List<Project>> getProjects() {
-        return mProjectDao.getProjects();
+        return Transformations.map(mProjectDao.getProjects(), projects -> {
+            mProjectRegistry.update(projects);
+            return projects;
+        });
+    }
+
+    public LiveData<List<ProjectStats>> getProjectStats() {
+        return mProjectDao.getProjectStats();
     }
 }
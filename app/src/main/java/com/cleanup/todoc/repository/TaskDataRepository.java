@@ -1,36 +1,325 @@
 package com.cleanup.todoc.repository;
 
-
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+import androidx.room.InvalidationTracker;
 
+import com.cleanup.todoc.database.TaskBackup;
 import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.executor.ExecutorLane;
+import com.cleanup.todoc.executor.Priority;
+import com.cleanup.todoc.filter.TaskFilter;
+import com.cleanup.todoc.model.SortMethod;
 import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.search.TaskSearchQuery;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  *Cette classe agit comme une couche intermédiaire entre la source de données des tâches
  * et les composants qui ont besoin d'accéder à ces données.
  * Elle encapsule la logique de récupération, création et suppression des tâches en exposant
- * des méthodes pour effectuer ces opérations.
+ * des méthodes pour effectuer ces opérations. Les écritures sont regroupées par un {@link TaskWriteQueue}.
  */
 public class TaskDataRepository {
 
+    /**
+     * Configuration de la pagination : seules les pages visibles et une marge de préchargement
+     * sont gardées en mémoire, les pages éloignées sont libérées au-delà de maxSize.
+     */
+    private static final PagedList.Config PAGED_LIST_CONFIG = new PagedList.Config.Builder()
+            .setPageSize(50)
+            .setPrefetchDistance(50)
+            .setInitialLoadSizeHint(100)
+            .setMaxSize(200)
+            .setEnablePlaceholders(false)
+            .build();
+
+    /**
+     * Durée pendant laquelle les écritures sont regroupées dans une même transaction
+     */
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = 10;
+
     private final TaskDao mTaskDao;
 
-    public TaskDataRepository(TaskDao taskDao) {
+    private final InvalidationTracker mInvalidationTracker;
+
+    private final TaskWriteQueue mWriteQueue;
+
+    // Chargement des pages de la liste affichée
+    private final Executor mPageExecutor;
+
+    // Enregistrement de la liste affichée pour le prochain démarrage, null s'il est désactivé
+    @Nullable
+    private final TaskSnapshotFile mSnapshotFile;
+
+    private final ExecutorLane mSnapshotExecutor;
+
+    // Import des fichiers de tâches, null s'il est désactivé
+    @Nullable
+    private final TaskImporter mImporter;
+
+    // Sauvegarde et restauration des tâches, null si elles sont désactivées
+    @Nullable
+    private final TaskBackup mBackup;
+
+    // Lots d'import et de restauration, sur le thread des écritures : les commits attendus par l'écran
+    // passent entre deux lots
+    private final ExecutorLane mImportExecutor;
+
+    // Sauvegardes, sur les threads de lecture : elles ne prennent pas le verrou des écritures
+    private final ExecutorLane mExportExecutor;
+
+    // Dernier échec d'une écriture sans écouteur, null une fois signalé
+    private final MutableLiveData<RuntimeException> mWriteFailure = new MutableLiveData<>();
+
+    // Dernière liste à enregistrer, null si aucun enregistrement n'est en attente : seule la plus récente est écrite
+    private final AtomicReference<TaskSnapshotFile.Content> mPendingSnapshot = new AtomicReference<>();
+
+    public TaskDataRepository(TaskDao taskDao, InvalidationTracker invalidationTracker, AppExecutors executors) {
+        this(taskDao, invalidationTracker, executors, null, null, null);
+    }
+
+    public TaskDataRepository(TaskDao taskDao, InvalidationTracker invalidationTracker,
+                              AppExecutors executors, @Nullable TaskSnapshotFile snapshotFile,
+                              @Nullable TaskImporter importer, @Nullable TaskBackup backup) {
         mTaskDao = taskDao;
+        mInvalidationTracker = invalidationTracker;
+        mWriteQueue = new TaskWriteQueue(taskDao, executors.write(), GROUP_COMMIT_WINDOW_MILLIS,
+                mWriteFailure::postValue);
+        mPageExecutor = executors.read().withPriority(Priority.UI);
+        mSnapshotFile = snapshotFile;
+        mSnapshotExecutor = executors.write();
+        mImporter = importer;
+        mBackup = backup;
+        mImportExecutor = executors.write();
+        mExportExecutor = executors.read();
+    }
+
+    /**
+     * Lit la liste enregistrée lors de l'exécution précédente, pour l'afficher avant la fin de la première requête.
+     * Le fichier, de quelques kilo-octets, est projeté en mémoire : la lecture peut se faire sur le thread principal.
+     * @return la liste et sa méthode de tri, ou null s'il n'y en a pas
+     */
+    @Nullable
+    public TaskSnapshotFile.Content loadStartupSnapshot() {
+        return mSnapshotFile != null ? mSnapshotFile.read() : null;
+    }
+
+    /**
+     * Enregistre la liste affichée pour le prochain démarrage, en arrière-plan et après les écritures des tâches.
+     * Si plusieurs listes arrivent avant l'écriture du fichier, seule la dernière est écrite.
+     * @param snapshot le début de la liste affichée
+     * @param sortMethod la méthode de tri de la liste
+     */
+    public void saveStartupSnapshot(@NonNull TaskSnapshot snapshot, @NonNull SortMethod sortMethod) {
+        if (mSnapshotFile != null
+                && mPendingSnapshot.getAndSet(new TaskSnapshotFile.Content(snapshot, sortMethod)) == null) {
+            mSnapshotExecutor.execute(this::writeStartupSnapshot, Priority.BULK);
+        }
+    }
+
+    @WorkerThread
+    private void writeStartupSnapshot() {
+        final TaskSnapshotFile.Content content = mPendingSnapshot.getAndSet(null);
+        try {
+            mSnapshotFile.write(content.getSnapshot(), content.getSortMethod());
+        } catch (IOException e) {
+            // Le fichier précédent reste en place ; il sera remplacé au prochain changement
+        }
+    }
+
+    /**
+     * Renvoie le dernier échec d'une écriture confiée sans {@link WriteCallback} (createTasks, deleteTasks,
+     * moveTasksToProject...) : la transaction qui la contenait a été annulée.
+     * @return l'erreur observable, null lorsqu'il n'y a pas d'échec à signaler
+     */
+    public LiveData<RuntimeException> getWriteFailure() {
+        return mWriteFailure;
+    }
+
+    /**
+     * L'échec a été signalé : il ne l'est plus après un changement de configuration.
+     */
+    @MainThread
+    public void onWriteFailureShown() {
+        mWriteFailure.setValue(null);
     }
 
-    public LiveData<List<Task>> getTasks() {
-        return mTaskDao.getTasks();
+    /**
+     * Renvoie les tâches paginées, triées selon la méthode de tri donnée.
+     * @param sortMethod la méthode de tri
+     * @return la liste paginée observable des tâches
+     */
+    public LiveData<PagedList<Task>> getPagedTasks(SortMethod sortMethod) {
+        return getPagedTasks(sortMethod, TaskFilter.ALL);
     }
 
+    /**
+     * Renvoie les tâches paginées des projets sélectionnés par le filtre, triées selon la méthode de tri donnée.
+     * Le filtre est appliqué par la base de données (project_id IN (...)) : seules les tâches affichées sont lues.
+     * @param sortMethod la méthode de tri
+     * @param filter les projets dont les tâches sont affichées (au plus {@link TaskDao#MAX_IDS_PER_QUERY})
+     * @return la liste paginée observable des tâches
+     */
+    public LiveData<PagedList<Task>> getPagedTasks(SortMethod sortMethod, TaskFilter filter) {
+        if (filter.getProjectIds().length > TaskDao.MAX_IDS_PER_QUERY) {
+            throw new IllegalArgumentException("too many selected projects: " + filter.getProjectIds().length);
+        }
+        return new LivePagedListBuilder<>(
+                new TaskKeysetDataSource.Factory(mTaskDao, mInvalidationTracker, sortMethod, filter),
+                PAGED_LIST_CONFIG)
+                .setFetchExecutor(mPageExecutor)
+                .build();
+    }
+
+    /**
+     * Recherche les tâches dont le nom contient des mots commençant par ceux du texte donné, à l'aide de l'index FTS.
+     * @param text le texte saisi par l'utilisateur
+     * @param limit le nombre maximal de tâches à renvoyer
+     * @return les tâches trouvées, ou une liste vide si le texte ne contient aucun mot
+     */
+    @NonNull
+    @WorkerThread
+    public List<Task> search(@NonNull String text, int limit) {
+        final String query = TaskSearchQuery.toMatchQuery(text);
+        if (query.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return mTaskDao.search(query, limit);
+    }
+
+    /**
+     * Importe un fichier de tâches en arrière-plan, un lot par transaction, les projets inconnus étant créés.
+     * Chaque lot est une tâche de masse distincte de la file des écritures : celles de l'écran passent entre deux lots.
+     * @param input le contenu du fichier, fermé à la fin de l'import
+     * @param callback informé de l'issue de l'import
+     */
+    public void importTasks(@NonNull InputStream input, @NonNull ImportCallback callback) {
+        if (mImporter == null) {
+            throw new IllegalStateException("task import is not enabled");
+        }
+        final TaskImporter.Session session = mImporter.open(input);
+        mImportExecutor.execute(() -> importBatch(session, callback), Priority.BULK);
+    }
+
+    @WorkerThread
+    private void importBatch(@NonNull TaskImporter.Session session, @NonNull ImportCallback callback) {
+        try {
+            if (session.importBatch()) {
+                mImportExecutor.execute(() -> importBatch(session, callback), Priority.BULK);
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            session.close();
+            callback.onFailed(e, session.getResult());
+            return;
+        }
+        session.close();
+        callback.onImported(session.getResult());
+    }
+
+    /**
+     * Sauvegarde en arrière-plan tous les projets et toutes les tâches, dans un état cohérent de la base,
+     * sur un thread de lecture : les écritures continuent pendant la sauvegarde.
+     * @param channel le canal de destination, fermé à la fin de la sauvegarde
+     * @param format le format des lignes
+     * @param gzip true pour compresser la sauvegarde
+     * @param callback informé de l'issue de la sauvegarde
+     */
+    public void exportTasks(@NonNull WritableByteChannel channel, @NonNull TaskBackup.Format format, boolean gzip,
+                            @NonNull BackupCallback callback) {
+        final TaskBackup backup = requireBackup();
+        mExportExecutor.execute(() -> {
+            final TaskBackup.Result result;
+            try {
+                result = backup.exportTo(channel, format, gzip);
+            } catch (IOException | RuntimeException e) {
+                callback.onFailed(e);
+                return;
+            }
+            callback.onCompleted(result);
+        }, Priority.BULK);
+    }
+
+    /**
+     * Remplace en arrière-plan tous les projets et toutes les tâches par ceux d'une sauvegarde, un lot par transaction.
+     * Chaque lot est une tâche de masse distincte de la file des écritures : celles de l'écran passent entre deux lots.
+     * @param input le contenu de la sauvegarde, fermé à la fin de la restauration
+     * @param callback informé de l'issue de la restauration
+     */
+    public void restoreTasks(@NonNull InputStream input, @NonNull BackupCallback callback) {
+        final TaskBackup.Session session = requireBackup().open(input);
+        mImportExecutor.execute(() -> restoreBatch(session, callback), Priority.BULK);
+    }
+
+    @WorkerThread
+    private void restoreBatch(@NonNull TaskBackup.Session session, @NonNull BackupCallback callback) {
+        try {
+            if (session.restoreBatch()) {
+                mImportExecutor.execute(() -> restoreBatch(session, callback), Priority.BULK);
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            session.close();
+            callback.onFailed(e);
+            return;
+        }
+        session.close();
+        callback.onCompleted(session.getResult());
+    }
+
+    @NonNull
+    private TaskBackup requireBackup() {
+        if (mBackup == null) {
+            throw new IllegalStateException("task backup is not enabled");
+        }
+        return mBackup;
+    }
+
+    // Les écritures sont confiées à la file de group commit : elles ne bloquent pas l'appelant
+    // et celles reçues dans la même fenêtre sont appliquées dans une seule transaction.
+    // Le WriteCallback éventuel est informé de l'issue de cette transaction.
     public void createTask(Task task) {
-        mTaskDao.insertTask(task);
+        createTask(task, null);
+    }
+
+    public void createTask(Task task, @Nullable WriteCallback callback) {
+        mWriteQueue.insert(Collections.singletonList(task), callback);
+    }
+
+    public void createTasks(List<Task> tasks) {
+        mWriteQueue.insert(tasks, null);
     }
 
     public void deleteTask(Task task) {
-        mTaskDao.deleteTask(task);
+        deleteTask(task, null);
+    }
+
+    public void deleteTask(Task task, @Nullable WriteCallback callback) {
+        mWriteQueue.delete(new long[]{task.getId()}, callback);
+    }
+
+    public void deleteTasks(long[] ids) {
+        mWriteQueue.delete(ids, null);
+    }
+
+    public void moveTasksToProject(long[] ids, long projectId) {
+        mWriteQueue.move(ids, projectId, null);
     }
 }
@@ -0,0 +1,246 @@
+package com.cleanup.todoc.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.DataSource;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.room.InvalidationTracker;
+
+import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.filter.TaskFilter;
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cette classe charge les tâches page par page pour la PagedList affichée par l'adaptateur.
+ * La clé d'une page est la dernière tâche chargée : la page suivante est lue avec une requête
+ * keyset sur (creationTimestamp, id) ou (name, id) selon la méthode de tri, sans jamais charger toute la table.
+ * Lorsqu'un filtre par projet est actif, les requêtes portent la condition project_id IN (...) :
+ * seules les tâches des projets sélectionnés sont lues.
+ * La source s'invalide dès que la table "task" est modifiée, pour que la PagedList soit rechargée
+ * autour de la dernière position consultée.
+ */
+public class TaskKeysetDataSource extends ItemKeyedDataSource<Task, Task> {
+
+    /**
+     * Les quatre parcours possibles de la table, chacun associé à une paire de requêtes du DAO
+     */
+    private enum Order {
+        TIMESTAMP_ASC, TIMESTAMP_DESC, NAME_ASC, NAME_DESC;
+
+        /**
+         * Renvoie le parcours inverse, utilisé pour charger les tâches situées avant une clé.
+         */
+        Order reverse() {
+            switch (this) {
+                case TIMESTAMP_ASC:
+                    return TIMESTAMP_DESC;
+                case TIMESTAMP_DESC:
+                    return TIMESTAMP_ASC;
+                case NAME_ASC:
+                    return NAME_DESC;
+                default:
+                    return NAME_ASC;
+            }
+        }
+
+        /**
+         * Renvoie le parcours correspondant à la méthode de tri donnée.
+         */
+        static Order of(@NonNull SortMethod sortMethod) {
+            switch (sortMethod) {
+                case ALPHABETICAL:
+                    return NAME_ASC;
+                case ALPHABETICAL_INVERTED:
+                    return NAME_DESC;
+                case RECENT_FIRST:
+                    return TIMESTAMP_DESC;
+                default:
+                    return TIMESTAMP_ASC;
+            }
+        }
+    }
+
+    private final TaskDao mTaskDao;
+
+    private final InvalidationTracker mInvalidationTracker;
+
+    private final Order mOrder;
+
+    /**
+     * Identifiants des projets sélectionnés, ou null lorsque toutes les tâches sont affichées
+     */
+    @Nullable
+    private final long[] mProjectIds;
+
+    /**
+     * Observateur de la table "task" : toute modification invalide la source
+     */
+    private final InvalidationTracker.Observer mObserver = new InvalidationTracker.Observer("task") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            invalidate();
+        }
+    };
+
+    TaskKeysetDataSource(TaskDao taskDao, InvalidationTracker invalidationTracker, SortMethod sortMethod,
+                         TaskFilter filter) {
+        mTaskDao = taskDao;
+        mInvalidationTracker = invalidationTracker;
+        mOrder = Order.of(sortMethod);
+        mProjectIds = filter.isAll() ? null : filter.getProjectIds();
+        mInvalidationTracker.addObserver(mObserver);
+        addInvalidatedCallback(() -> mInvalidationTracker.removeObserver(mObserver));
+    }
+
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<Task> params, @NonNull LoadInitialCallback<Task> callback) {
+        final Task key = params.requestedInitialKey;
+        if (key == null) {
+            callback.onResult(loadFirst(mOrder, params.requestedLoadSize));
+            return;
+        }
+        // On recharge autour de la dernière tâche consultée : une demi-page avant la clé,
+        // puis la clé elle-même et les tâches qui la suivent.
+        final int before = params.requestedLoadSize / 2;
+        final List<Task> tasks = new ArrayList<>(loadBefore(key, before));
+        tasks.addAll(loadAfter(mOrder, inclusive(key), params.requestedLoadSize - tasks.size()));
+        callback.onResult(tasks);
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<Task> params, @NonNull LoadCallback<Task> callback) {
+        callback.onResult(loadAfter(mOrder, params.key, params.requestedLoadSize));
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<Task> params, @NonNull LoadCallback<Task> callback) {
+        callback.onResult(loadBefore(params.key, params.requestedLoadSize));
+    }
+
+    @NonNull
+    @Override
+    public Task getKey(@NonNull Task item) {
+        return item;
+    }
+
+    /**
+     * Charge les tâches situées avant la clé, dans l'ordre d'affichage.
+     */
+    @NonNull
+    private List<Task> loadBefore(@NonNull Task key, int limit) {
+        final List<Task> tasks = loadAfter(mOrder.reverse(), key, limit);
+        Collections.reverse(tasks);
+        return tasks;
+    }
+
+    /**
+     * Renvoie une clé décalée d'un identifiant pour que la requête "après" inclue la tâche de la clé.
+     */
+    @NonNull
+    private Task inclusive(@NonNull Task key) {
+        final long id = mOrder == Order.TIMESTAMP_ASC || mOrder == Order.NAME_ASC ? key.getId() - 1 : key.getId() + 1;
+        return new Task(id, key.getProjectId(), key.getName(), key.getCreationTimestamp());
+    }
+
+    @NonNull
+    private List<Task> loadFirst(@NonNull Order order, int limit) {
+        if (mProjectIds != null) {
+            return loadFirstInProjects(order, mProjectIds, limit);
+        }
+        switch (order) {
+            case TIMESTAMP_ASC:
+                return mTaskDao.getTasksByTimestampAsc(limit);
+            case TIMESTAMP_DESC:
+                return mTaskDao.getTasksByTimestampDesc(limit);
+            case NAME_ASC:
+                return mTaskDao.getTasksByNameAsc(limit);
+            default:
+                return mTaskDao.getTasksByNameDesc(limit);
+        }
+    }
+
+    @NonNull
+    private List<Task> loadAfter(@NonNull Order order, @NonNull Task key, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        if (mProjectIds != null) {
+            return loadAfterInProjects(order, mProjectIds, key, limit);
+        }
+        switch (order) {
+            case TIMESTAMP_ASC:
+                return mTaskDao.getTasksByTimestampAscAfter(key.getCreationTimestamp(), key.getId(), limit);
+            case TIMESTAMP_DESC:
+                return mTaskDao.getTasksByTimestampDescAfter(key.getCreationTimestamp(), key.getId(), limit);
+            case NAME_ASC:
+                return mTaskDao.getTasksByNameAscAfter(key.getName(), key.getId(), limit);
+            default:
+                return mTaskDao.getTasksByNameDescAfter(key.getName(), key.getId(), limit);
+        }
+    }
+
+    @NonNull
+    private List<Task> loadFirstInProjects(@NonNull Order order, @NonNull long[] projectIds, int limit) {
+        switch (order) {
+            case TIMESTAMP_ASC:
+                return mTaskDao.getTasksByTimestampAscInProjects(projectIds, limit);
+            case TIMESTAMP_DESC:
+                return mTaskDao.getTasksByTimestampDescInProjects(projectIds, limit);
+            case NAME_ASC:
+                return mTaskDao.getTasksByNameAscInProjects(projectIds, limit);
+            default:
+                return mTaskDao.getTasksByNameDescInProjects(projectIds, limit);
+        }
+    }
+
+    @NonNull
+    private List<Task> loadAfterInProjects(@NonNull Order order, @NonNull long[] projectIds, @NonNull Task key,
+                                           int limit) {
+        switch (order) {
+            case TIMESTAMP_ASC:
+                return mTaskDao.getTasksByTimestampAscAfterInProjects(projectIds, key.getCreationTimestamp(),
+                        key.getId(), limit);
+            case TIMESTAMP_DESC:
+                return mTaskDao.getTasksByTimestampDescAfterInProjects(projectIds, key.getCreationTimestamp(),
+                        key.getId(), limit);
+            case NAME_ASC:
+                return mTaskDao.getTasksByNameAscAfterInProjects(projectIds, key.getName(), key.getId(), limit);
+            default:
+                return mTaskDao.getTasksByNameDescAfterInProjects(projectIds, key.getName(), key.getId(), limit);
+        }
+    }
+
+    /**
+     * Fabrique de sources : la PagedList en crée une nouvelle à chaque invalidation.
+     */
+    public static class Factory extends DataSource.Factory<Task, Task> {
+
+        private final TaskDao mTaskDao;
+
+        private final InvalidationTracker mInvalidationTracker;
+
+        private final SortMethod mSortMethod;
+
+        private final TaskFilter mFilter;
+
+        public Factory(TaskDao taskDao, InvalidationTracker invalidationTracker, SortMethod sortMethod,
+                       TaskFilter filter) {
+            mTaskDao = taskDao;
+            mInvalidationTracker = invalidationTracker;
+            mSortMethod = sortMethod;
+            mFilter = filter;
+        }
+
+        @NonNull
+        @Override
+        public DataSource<Task, Task> create() {
+            return new TaskKeysetDataSource(mTaskDao, mInvalidationTracker, mSortMethod, mFilter);
+        }
+    }
+}
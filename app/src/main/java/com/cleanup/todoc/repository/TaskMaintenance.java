@@ -0,0 +1,265 @@
+package com.cleanup.todoc.repository;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.database.TodocDatabase;
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.executor.Priority;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cette classe est la maintenance de la base de données, exécutée en tâche de fond pendant les périodes d'inactivité :
+ * <ol>
+ *     <li>les tâches créées depuis plus longtemps que l'âge maximal sont déplacées dans la table "task_archive",
+ *     par lots, un lot par transaction ;</li>
+ *     <li>les statistiques de l'optimiseur sont recalculées (ANALYZE), si des tâches ont été archivées ;</li>
+ *     <li>les pages libérées sont rendues au système par petites étapes (incremental_vacuum) ;</li>
+ *     <li>le journal WAL, grossi par les imports et l'archivage, est reporté dans la base et remis à zéro.</li>
+ * </ol>
+ * Chaque étape est une tâche {@link Priority#BULK} de la file des écritures, qui n'est lancée que lorsque les deux files
+ * sont vides ; sinon elle est reportée. Une écriture ou une lecture demandée par l'écran n'attend donc au plus
+ * qu'une seule étape.
+ * <p>
+ * La base préconstruite est en compactage incrémental. Une base créée par une version antérieure ne l'est pas :
+ * elle n'y passe que par un VACUUM complet, qui réécrit toute la base et n'est lancé qu'une fois, lorsque l'appareil
+ * est inactif et en charge ({@link MaintenanceConditions}). Sinon l'étape est sautée, et une nouvelle maintenance
+ * est programmée après {@link #FULL_VACUUM_RETRY_MINUTES} minutes tant que le processus vit.
+ */
+public class TaskMaintenance {
+
+    private static final String TAG = "TaskMaintenance";
+
+    /**
+     * Âge, en millisecondes, au-delà duquel une tâche est archivée par défaut
+     */
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(90);
+
+    /**
+     * Nombre de tâches archivées par transaction
+     */
+    public static final int DEFAULT_BATCH_SIZE = 2000;
+
+    /**
+     * Nombre de pages libres rendues par étape de incremental_vacuum
+     */
+    private static final int VACUUM_PAGES = 256;
+
+    /**
+     * Nombre de pages libres en deçà duquel la base n'est pas compactée
+     */
+    private static final int MIN_FREE_PAGES = 64;
+
+    /**
+     * Délai, en millisecondes, avant de retenter une étape lorsque les files ne sont pas vides
+     */
+    private static final long RETRY_DELAY_MILLIS = 2000;
+
+    /**
+     * Délai, en minutes, avant une nouvelle maintenance lorsque le VACUUM complet attend que l'appareil soit
+     * inactif et en charge
+     */
+    public static final long FULL_VACUUM_RETRY_MINUTES = 30;
+
+    private enum Step {
+        ARCHIVE,
+        ANALYZE,
+        VACUUM,
+        CHECKPOINT,
+        DONE
+    }
+
+    private final RoomDatabase mDatabase;
+
+    private final TaskDao mTaskDao;
+
+    private final AppExecutors mExecutors;
+
+    private final MaintenanceConditions mConditions;
+
+    private final long mMaxAgeMillis;
+
+    private final int mBatchSize;
+
+    // Vrai d'un appel de schedule() jusqu'à la fin de la dernière étape
+    private final AtomicBoolean mRunning = new AtomicBoolean();
+
+    // État de la maintenance en cours, lu et écrit uniquement depuis la file des écritures
+    private Step mStep = Step.DONE;
+    private long mArchiveBefore;
+    private long mArchived;
+
+    // Vrai lorsque le VACUUM complet a été reporté faute d'appareil inactif et en charge
+    private boolean mFullVacuumDeferred;
+
+    public TaskMaintenance(@NonNull RoomDatabase database, @NonNull TaskDao taskDao, @NonNull AppExecutors executors,
+                           @NonNull MaintenanceConditions conditions) {
+        this(database, taskDao, executors, conditions, DEFAULT_MAX_AGE_MILLIS, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param database la base de données
+     * @param taskDao le DAO des tâches
+     * @param executors les exécuteurs de l'application
+     * @param conditions l'état de l'appareil, qui autorise ou non le VACUUM complet
+     * @param maxAgeMillis l'âge, en millisecondes, au-delà duquel une tâche est archivée
+     * @param batchSize le nombre de tâches archivées par transaction
+     */
+    public TaskMaintenance(@NonNull RoomDatabase database, @NonNull TaskDao taskDao, @NonNull AppExecutors executors,
+                           @NonNull MaintenanceConditions conditions, long maxAgeMillis, int batchSize) {
+        mDatabase = database;
+        mTaskDao = taskDao;
+        mExecutors = executors;
+        mConditions = conditions;
+        mMaxAgeMillis = maxAgeMillis;
+        mBatchSize = batchSize;
+    }
+
+    /**
+     * Programme une maintenance complète après le délai donné. Sans effet si une maintenance est déjà en cours.
+     * @param delay le délai avant la première étape
+     * @param unit l'unité du délai
+     */
+    public void schedule(long delay, @NonNull TimeUnit unit) {
+        if (!mRunning.compareAndSet(false, true)) {
+            return;
+        }
+        final long archiveBefore = System.currentTimeMillis() - mMaxAgeMillis;
+        mExecutors.write().schedule(() -> {
+            mArchiveBefore = archiveBefore;
+            mArchived = 0;
+            mFullVacuumDeferred = false;
+            mStep = Step.ARCHIVE;
+            runWhenIdle();
+        }, delay, unit, Priority.BULK);
+    }
+
+    /**
+     * Exécute l'étape courante si les deux files sont vides, puis programme la suivante.
+     */
+    private void runWhenIdle() {
+        if (!isIdle()) {
+            mExecutors.write().schedule(this::runWhenIdle, RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS, Priority.BULK);
+            return;
+        }
+        boolean more = false;
+        try {
+            more = runStep();
+        } catch (RuntimeException e) {
+            // La maintenance reprendra au prochain démarrage ; les lots déjà archivés sont conservés
+            Log.w(TAG, "maintenance interrupted", e);
+        } finally {
+            if (more) {
+                // Resoumise derrière les tâches arrivées pendant l'étape
+                mExecutors.write().execute(this::runWhenIdle, Priority.BULK);
+            } else {
+                mStep = Step.DONE;
+                mRunning.set(false);
+                if (mFullVacuumDeferred) {
+                    schedule(FULL_VACUUM_RETRY_MINUTES, TimeUnit.MINUTES);
+                }
+            }
+        }
+    }
+
+    private boolean isIdle() {
+        return mExecutors.read().getMetrics().getQueueDepth() == 0
+                && mExecutors.write().getMetrics().getQueueDepth() == 0;
+    }
+
+    /**
+     * Exécute une étape de la maintenance : un lot d'archivage, l'analyse, une étape de compactage
+     * ou le report du journal WAL.
+     * @return true s'il reste des étapes à exécuter
+     */
+    @VisibleForTesting
+    @WorkerThread
+    public boolean runStep() {
+        switch (mStep) {
+            case ARCHIVE:
+                final int archived = mTaskDao.archiveTasksCreatedBefore(mArchiveBefore, mBatchSize);
+                mArchived += archived;
+                if (archived < mBatchSize) {
+                    mStep = mArchived > 0 ? Step.ANALYZE : Step.VACUUM;
+                }
+                return true;
+            case ANALYZE:
+                mDatabase.getOpenHelper().getWritableDatabase().execSQL("ANALYZE");
+                mStep = Step.VACUUM;
+                return true;
+            case VACUUM:
+                if (!vacuumStep()) {
+                    mStep = Step.CHECKPOINT;
+                }
+                return true;
+            case CHECKPOINT:
+                // Les files étant vides, aucune lecture ne retient longtemps le report complet
+                if (!TodocDatabase.checkpoint(mDatabase.getOpenHelper().getWritableDatabase(),
+                        TodocDatabase.CHECKPOINT_TRUNCATE)) {
+                    Log.w(TAG, "WAL checkpoint incomplete");
+                }
+                Log.i(TAG, mArchived + " tasks archived");
+                mStep = Step.DONE;
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Rend au système une partie des pages libres de la base.
+     * @return true s'il reste des pages libres à rendre
+     */
+    private boolean vacuumStep() {
+        final SupportSQLiteDatabase database = mDatabase.getOpenHelper().getWritableDatabase();
+        if (queryLong(database, "PRAGMA auto_vacuum") != TodocDatabase.AUTO_VACUUM_INCREMENTAL) {
+            // Base d'une version antérieure : le mode incrémental ne s'applique qu'après un VACUUM complet,
+            // fait une seule fois et seulement lorsque l'appareil ne sert pas
+            if (!mConditions.isIdleAndCharging()) {
+                mFullVacuumDeferred = true;
+                return false;
+            }
+            database.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+            database.execSQL("VACUUM");
+            mFullVacuumDeferred = false;
+            return false;
+        }
+        if (queryLong(database, "PRAGMA freelist_count") < MIN_FREE_PAGES) {
+            return false;
+        }
+        // Le compactage avance à chaque ligne lue : le curseur est lu en entier
+        try (Cursor cursor = database.query("PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")")) {
+            //noinspection StatementWithEmptyBody
+            while (cursor.moveToNext()) {
+            }
+        }
+        return true;
+    }
+
+    private static long queryLong(@NonNull SupportSQLiteDatabase database, @NonNull String sql) {
+        try (Cursor cursor = database.query(sql)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    /**
+     * Prépare une maintenance complète exécutée étape par étape par {@link #runStep()}, sans passer par les files.
+     * @param archiveBefore l'horodatage de création en deçà duquel les tâches sont archivées
+     */
+    @VisibleForTesting
+    public void start(long archiveBefore) {
+        mArchiveBefore = archiveBefore;
+        mArchived = 0;
+        mFullVacuumDeferred = false;
+        mStep = Step.ARCHIVE;
+    }
+}
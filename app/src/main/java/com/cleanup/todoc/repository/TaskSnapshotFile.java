@@ -0,0 +1,187 @@
+package com.cleanup.todoc.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.TaskSnapshot;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cette classe enregistre dans un fichier binaire le début de la liste des tâches affichée, avec sa méthode de tri,
+ * pour pouvoir l'afficher dès la première image au lancement suivant, avant que la base de données ne soit ouverte.
+ * Le fichier est projeté en mémoire à la lecture ; il est remplacé d'un bloc à l'écriture (fichier temporaire renommé),
+ * et un fichier absent, tronqué ou d'une autre version est ignoré.
+ * <p>
+ * Format (ordre des octets de {@link ByteBuffer}, gros-boutiste) : l'en-tête (signature, version, nom de la méthode
+ * de tri, nombre de tâches), puis les colonnes des identifiants, des projets et des horodatages, les positions
+ * de fin de chaque nom, et les noms en UTF-8 mis bout à bout.
+ */
+public class TaskSnapshotFile {
+
+    /**
+     * Signature du fichier : "TDSN"
+     */
+    private static final int MAGIC = 0x5444534E;
+
+    /**
+     * Version du format, à changer à chaque modification de celui-ci
+     */
+    private static final int VERSION = 1;
+
+    private final File mFile;
+
+    /**
+     * @param file le fichier, dans le stockage privé de l'application
+     */
+    public TaskSnapshotFile(@NonNull File file) {
+        mFile = file;
+    }
+
+    /**
+     * Enregistre la liste donnée et sa méthode de tri, en remplaçant d'un bloc le contenu précédent.
+     */
+    @WorkerThread
+    public void write(@NonNull TaskSnapshot snapshot, @NonNull SortMethod sortMethod) throws IOException {
+        final int size = snapshot.size();
+        final byte[][] names = new byte[size][];
+        int namesLength = 0;
+        for (int position = 0; position < size; position++) {
+            names[position] = snapshot.getName(position).getBytes(StandardCharsets.UTF_8);
+            namesLength += names[position].length;
+        }
+        final byte[] sortName = sortMethod.name().getBytes(StandardCharsets.UTF_8);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(4 * 4 + sortName.length + size * (3 * 8 + 4) + namesLength);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(sortName.length).put(sortName).putInt(size);
+        for (int position = 0; position < size; position++) {
+            buffer.putLong(snapshot.getId(position));
+        }
+        for (int position = 0; position < size; position++) {
+            buffer.putLong(snapshot.getProjectId(position));
+        }
+        for (int position = 0; position < size; position++) {
+            buffer.putLong(snapshot.getCreationTimestamp(position));
+        }
+        int end = 0;
+        for (byte[] name : names) {
+            end += name.length;
+            buffer.putInt(end);
+        }
+        for (byte[] name : names) {
+            buffer.put(name);
+        }
+        buffer.flip();
+
+        final File temporary = new File(mFile.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temporary)) {
+            final FileChannel channel = output.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        if (!temporary.renameTo(mFile)) {
+            throw new IOException("cannot replace " + mFile);
+        }
+    }
+
+    /**
+     * Lit la liste enregistrée en projetant le fichier en mémoire.
+     * @return la liste et sa méthode de tri, ou null si le fichier est absent ou invalide
+     */
+    @Nullable
+    public Content read() {
+        if (!mFile.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "r")) {
+            final FileChannel channel = file.getChannel();
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            // Un fichier illisible équivaut à une absence de fichier : la requête de la base prendra le relais
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Content decode(@NonNull ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            final byte[] sortName = new byte[buffer.getInt()];
+            buffer.get(sortName);
+            final SortMethod sortMethod = SortMethod.valueOf(new String(sortName, StandardCharsets.UTF_8));
+            final int size = buffer.getInt();
+            if (size < 0 || (long) size * (3 * 8 + 4) > buffer.remaining()) {
+                return null;
+            }
+
+            final int idsStart = buffer.position();
+            final int projectIdsStart = idsStart + size * 8;
+            final int timestampsStart = projectIdsStart + size * 8;
+            final int endsStart = timestampsStart + size * 8;
+            final int namesStart = endsStart + size * 4;
+            final int namesLength = size == 0 ? 0 : buffer.getInt(endsStart + (size - 1) * 4);
+            if (namesLength < 0 || namesStart + namesLength != buffer.limit()) {
+                return null;
+            }
+            final byte[] names = new byte[namesLength];
+            buffer.position(namesStart);
+            buffer.get(names);
+
+            final TaskSnapshot.Builder builder = new TaskSnapshot.Builder(size);
+            int start = 0;
+            for (int position = 0; position < size; position++) {
+                final int end = buffer.getInt(endsStart + position * 4);
+                if (end < start || end > namesLength) {
+                    return null;
+                }
+                builder.add(buffer.getLong(idsStart + position * 8),
+                        buffer.getLong(projectIdsStart + position * 8),
+                        new String(names, start, end - start, StandardCharsets.UTF_8),
+                        buffer.getLong(timestampsStart + position * 8));
+                start = end;
+            }
+            return new Content(builder.build(), sortMethod);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Le contenu du fichier : une liste de tâches et la méthode de tri selon laquelle elle était affichée
+     */
+    public static final class Content {
+
+        @NonNull
+        private final TaskSnapshot snapshot;
+
+        @NonNull
+        private final SortMethod sortMethod;
+
+        Content(@NonNull TaskSnapshot snapshot, @NonNull SortMethod sortMethod) {
+            this.snapshot = snapshot;
+            this.sortMethod = sortMethod;
+        }
+
+        @NonNull
+        public TaskSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        @NonNull
+        public SortMethod getSortMethod() {
+            return sortMethod;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.cleanup.todoc.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.executor.ExecutorLane;
+import com.cleanup.todoc.executor.Priority;
+import com.cleanup.todoc.model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cette classe regroupe les écritures de tâches (group commit) : les écritures reçues pendant une courte fenêtre
+ * sont appliquées ensemble dans une seule transaction, au lieu d'une transaction (et d'une synchronisation disque)
+ * par écriture. Les écritures consécutives de même nature sont fusionnées en une seule requête par lot.
+ * L'ordre des écritures est conservé. Les appels ne sont pas bloquants et peuvent venir de n'importe quel thread.
+ * Une écriture peut être accompagnée d'un {@link WriteCallback}, informé de l'issue de la transaction qui la contient ;
+ * l'échec d'une transaction contenant des écritures sans écouteur est transmis au {@link FailureListener}.
+ */
+class TaskWriteQueue {
+
+    private static final String TAG = "TaskWriteQueue";
+
+    /**
+     * Informé de l'échec d'une transaction dont au moins une écriture n'a pas d'écouteur
+     */
+    interface FailureListener {
+
+        /**
+         * Les écritures de la transaction ont été annulées.
+         * @param error l'erreur levée pendant la transaction
+         */
+        @WorkerThread
+        void onUnobservedFailure(@NonNull RuntimeException error);
+    }
+
+    /**
+     * Une écriture en attente, appliquée sur le DAO au moment du commit
+     */
+    private abstract static class Write {
+        // Écouteurs de cette écriture et de celles qu'elle a absorbées
+        final List<WriteCallback> callbacks = new ArrayList<>(1);
+
+        // Vrai si l'une des écritures absorbées n'a pas d'écouteur : personne d'autre ne serait informé d'un échec
+        boolean unobserved;
+
+        Write(@Nullable WriteCallback callback) {
+            if (callback != null) {
+                callbacks.add(callback);
+            } else {
+                unobserved = true;
+            }
+        }
+
+        abstract void apply(@NonNull TaskDao taskDao);
+
+        /**
+         * Fusionne l'écriture suivante dans celle-ci lorsque c'est possible, avec ses écouteurs.
+         * @return true si l'écriture suivante a été absorbée
+         */
+        final boolean absorb(@NonNull Write next) {
+            if (!merge(next)) {
+                return false;
+            }
+            callbacks.addAll(next.callbacks);
+            unobserved |= next.unobserved;
+            return true;
+        }
+
+        /**
+         * Fusionne les données de l'écriture suivante dans celle-ci lorsque c'est possible.
+         * @return true si les données ont été fusionnées
+         */
+        boolean merge(@NonNull Write next) {
+            return false;
+        }
+    }
+
+    private static final class Insert extends Write {
+        private final List<Task> tasks;
+
+        Insert(@NonNull List<Task> tasks, @Nullable WriteCallback callback) {
+            super(callback);
+            this.tasks = new ArrayList<>(tasks);
+        }
+
+        @Override
+        void apply(@NonNull TaskDao taskDao) {
+            taskDao.insertTasks(tasks);
+        }
+
+        @Override
+        boolean merge(@NonNull Write next) {
+            if (next instanceof Insert) {
+                tasks.addAll(((Insert) next).tasks);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Une écriture portant sur une liste d'identifiants, appliquée par tranches de {@link TaskDao#MAX_IDS_PER_QUERY}
+     */
+    private abstract static class IdsWrite extends Write {
+        private long[] ids;
+
+        private int size;
+
+        IdsWrite(@NonNull long[] ids, @Nullable WriteCallback callback) {
+            super(callback);
+            this.ids = ids.clone();
+            this.size = ids.length;
+        }
+
+        abstract void apply(@NonNull TaskDao taskDao, @NonNull long[] ids);
+
+        @Override
+        void apply(@NonNull TaskDao taskDao) {
+            for (int from = 0; from < size; from += TaskDao.MAX_IDS_PER_QUERY) {
+                apply(taskDao, Arrays.copyOfRange(ids, from, Math.min(size, from + TaskDao.MAX_IDS_PER_QUERY)));
+            }
+        }
+
+        void append(@NonNull IdsWrite next) {
+            if (size + next.size > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(size + next.size, ids.length * 2));
+            }
+            System.arraycopy(next.ids, 0, ids, size, next.size);
+            size += next.size;
+        }
+    }
+
+    private static final class Delete extends IdsWrite {
+        Delete(@NonNull long[] ids, @Nullable WriteCallback callback) {
+            super(ids, callback);
+        }
+
+        @Override
+        void apply(@NonNull TaskDao taskDao, @NonNull long[] ids) {
+            taskDao.deleteTasksByIds(ids);
+        }
+
+        @Override
+        boolean merge(@NonNull Write next) {
+            if (next instanceof Delete) {
+                append((Delete) next);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Move extends IdsWrite {
+        private final long projectId;
+
+        Move(@NonNull long[] ids, long projectId, @Nullable WriteCallback callback) {
+            super(ids, callback);
+            this.projectId = projectId;
+        }
+
+        @Override
+        void apply(@NonNull TaskDao taskDao, @NonNull long[] ids) {
+            taskDao.moveTasksToProject(ids, projectId);
+        }
+
+        @Override
+        boolean merge(@NonNull Write next) {
+            if (next instanceof Move && ((Move) next).projectId == projectId) {
+                append((Move) next);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private final TaskDao mTaskDao;
+
+    private final ExecutorLane mExecutor;
+
+    private final long mWindowMillis;
+
+    private final FailureListener mFailureListener;
+
+    // Écritures en attente du prochain commit, protégées par le verrou de l'instance
+    private List<Write> mPending = new ArrayList<>();
+
+    /**
+     * @param taskDao le DAO des tâches
+     * @param executor la file d'exécution des commits, à un seul thread
+     * @param windowMillis la durée pendant laquelle les écritures sont regroupées après la première
+     * @param failureListener informé des échecs que les écouteurs des écritures ne suffisent pas à signaler
+     */
+    TaskWriteQueue(@NonNull TaskDao taskDao, @NonNull ExecutorLane executor, long windowMillis,
+                   @NonNull FailureListener failureListener) {
+        mTaskDao = taskDao;
+        mExecutor = executor;
+        mWindowMillis = windowMillis;
+        mFailureListener = failureListener;
+    }
+
+    void insert(@NonNull List<Task> tasks, @Nullable WriteCallback callback) {
+        if (!tasks.isEmpty()) {
+            enqueue(new Insert(tasks, callback));
+        }
+    }
+
+    void delete(@NonNull long[] ids, @Nullable WriteCallback callback) {
+        if (ids.length > 0) {
+            enqueue(new Delete(ids, callback));
+        }
+    }
+
+    void move(@NonNull long[] ids, long projectId, @Nullable WriteCallback callback) {
+        if (ids.length > 0) {
+            enqueue(new Move(ids, projectId, callback));
+        }
+    }
+
+    private synchronized void enqueue(@NonNull Write write) {
+        // La première écriture de la fenêtre planifie le commit, les suivantes le rejoignent ;
+        // le commit, attendu par l'écran, passe devant les traitements de masse de la file
+        if (mPending.isEmpty()) {
+            mExecutor.schedule(this::commit, mWindowMillis, TimeUnit.MILLISECONDS, Priority.UI);
+        }
+        if (mPending.isEmpty() || !mPending.get(mPending.size() - 1).absorb(write)) {
+            mPending.add(write);
+        }
+    }
+
+    private void commit() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Seul un écouteur peut encore lever une exception : une tâche planifiée la garderait dans son Future,
+            // on la remonte comme une erreur non gérée
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Applique toutes les écritures en attente dans une seule transaction, puis informe leurs écouteurs.
+     * Un échec n'est jamais relancé : il arrêterait le thread des écritures. Il est journalisé, transmis aux écouteurs
+     * des écritures et, si l'une d'elles n'en a pas, au {@link FailureListener}.
+     */
+    @VisibleForTesting
+    void flush() {
+        final List<Write> writes;
+        synchronized (this) {
+            if (mPending.isEmpty()) {
+                return;
+            }
+            writes = mPending;
+            mPending = new ArrayList<>();
+        }
+        try {
+            mTaskDao.runInTransaction(() -> {
+                for (Write write : writes) {
+                    write.apply(mTaskDao);
+                }
+            });
+        } catch (RuntimeException e) {
+            Log.e(TAG, "group commit of " + writes.size() + " writes rolled back", e);
+            boolean unobserved = false;
+            for (Write write : writes) {
+                for (WriteCallback callback : write.callbacks) {
+                    callback.onFailed(e);
+                }
+                unobserved |= write.unobserved;
+            }
+            if (unobserved) {
+                mFailureListener.onUnobservedFailure(e);
+            }
+            return;
+        }
+        for (Write write : writes) {
+            for (WriteCallback callback : write.callbacks) {
+                callback.onCommitted();
+            }
+        }
+    }
+}
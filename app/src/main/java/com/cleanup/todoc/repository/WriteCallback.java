@@ -0,0 +1,24 @@
+package com.cleanup.todoc.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+/**
+ * Cette interface est informée de l'issue d'une écriture confiée à un repository.
+ * Ses méthodes sont appelées sur le thread des écritures, après la fin de la transaction.
+ */
+public interface WriteCallback {
+
+    /**
+     * L'écriture a été validée dans la base de données.
+     */
+    @WorkerThread
+    void onCommitted();
+
+    /**
+     * L'écriture a échoué : la transaction qui la contenait a été annulée.
+     * @param error l'erreur levée pendant la transaction
+     */
+    @WorkerThread
+    void onFailed(@NonNull RuntimeException error);
+}
@@ -1,34 +1,53 @@
 package com.cleanup.todoc.view;
 
 import android.content.DialogInterface;
+import android.content.Intent;
 import android.os.Bundle;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+import android.util.LongSparseArray;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Spinner;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.Observer;
+import androidx.paging.PagedList;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.cleanup.todoc.R;
+import com.cleanup.todoc.TodocApplication;
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.filter.TaskFilter;
 import com.cleanup.todoc.injection.Injection;
 import com.cleanup.todoc.injection.ViewModelFactory;
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectStats;
+import com.cleanup.todoc.model.SortMethod;
 import com.cleanup.todoc.model.Task;
-
-import java.util.ArrayList;
-import java.util.Collections;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.viewmodel.BackupStatus;
+import com.cleanup.todoc.viewmodel.PendingTasks;
+
+import java.io.FileDescriptor;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import androidx.lifecycle.ViewModelProvider;
 
@@ -39,6 +58,20 @@ import androidx.lifecycle.ViewModelProvider;
  */
 public class MainActivity extends AppCompatActivity implements TasksAdapter.DeleteTaskListener {
 
+    private static final String TAG = "MainActivity";
+
+    /**
+     * Délai, en secondes, entre le démarrage de l'activité et la maintenance de la base de données
+     */
+    private static final long MAINTENANCE_DELAY_SECONDS = 10;
+
+    /**
+     * Codes des demandes de sélection du fichier à importer, du fichier de sauvegarde à créer et de celui à restaurer
+     */
+    private static final int REQUEST_IMPORT = 1;
+    private static final int REQUEST_EXPORT = 2;
+    private static final int REQUEST_RESTORE = 3;
+
     /**
      * Cette variable mTaskViewModel permet à l'activité d'accéder au TaskViewModel
      * pour gérer les données de la tâche et effectuer des opérations telles que
@@ -46,14 +79,6 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
      */
     private com.cleanup.todoc.viewmodel.TaskViewModel mTaskViewModel;
 
-    /**
-     * cette variable tasks est utilisée pour stocker une liste de tâches dans l'activité.
-     * Elle est initialisée avec une instance d'ArrayList<Task> et permet d'ajouter, supprimer
-     * ou accéder aux tâches dans l'activité.
-     */
-    @NonNull
-    private final ArrayList<Task> tasks = new ArrayList<>();
-
     /**
      * cette variable adapter est utilisée pour gérer l'affichage des tâches dans l'interface utilisateur de l'activité
      * en utilisant un adaptateur personnalisé TasksAdapter.
@@ -61,13 +86,6 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
      */
     private TasksAdapter adapter;
 
-    /**
-     * cette variable sortMethod est utilisée pour stocker la méthode de tri actuellement sélectionnée
-     * dans l'activité.
-     */
-    @NonNull
-    private SortMethod sortMethod = SortMethod.NONE;
-
     /**
      *  cette variable dialog est utilisée pour stocker une instance de boîte de dialogue AlertDialog dans l'activité.
      */
@@ -105,6 +123,41 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
     @NonNull
     private TextView lblNoTasks;
 
+    /**
+     * Nombre de tâches et date de la plus récente de chaque projet, par identifiant de projet,
+     * affichés dans la liste du filtre par projet
+     */
+    private final LongSparseArray<ProjectStats> projectStats = new LongSparseArray<>();
+
+    /**
+     * Instant (System.nanoTime()) du début de onCreate(), origine des mesures du démarrage
+     */
+    private long createNanos;
+
+    /**
+     * Durée, depuis le début de onCreate(), jusqu'à la première image affichant la liste enregistrée,
+     * puis la première liste de la base de données ; -1 tant qu'elle n'est pas mesurée
+     */
+    private long snapshotFrameMillis = -1;
+    private long databaseFrameMillis = -1;
+
+    /**
+     * Durée de configureViewModel(), qui n'attend la création des sources de données que si celle lancée
+     * en arrière-plan par l'application n'est pas terminée ; l'ouverture de la base de données n'est pas attendue
+     */
+    private long viewModelMillis = -1;
+
+    /**
+     * Durée entre le démarrage de l'application et le début de onCreate(), ou -1 si l'application n'est pas
+     * TodocApplication (tests)
+     */
+    private long applicationMillis = -1;
+
+    /**
+     * Vrai dès que la première image de la liste de la base de données est attendue
+     */
+    private boolean measuringDatabaseFrame;
+
     /**
      * configuration de l'interface utilisateur de l'activité en associant des vues (comme le RecyclerView et le TextView) à des variables,
      * en créant et en configurant un adaptateur pour afficher les tâches, en définissant des écouteurs de clic sur des boutons,
@@ -112,6 +165,11 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
      */
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
+        createNanos = System.nanoTime();
+        if (getApplication() instanceof TodocApplication) {
+            applicationMillis = TimeUnit.NANOSECONDS.toMillis(
+                    createNanos - ((TodocApplication) getApplication()).getStartNanos());
+        }
         // configure le layout de l'activité en définissant le fichier XML activity_main.xml
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
@@ -135,15 +193,28 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
             }
         });
 
+        // les threads des exécuteurs partagés de l'application vivent tant que l'activité n'est pas terminée
+        Injection.provideExecutors().bindTo(this);
+
         // en appelant configureViewModel(), on initialise et configure le ViewModel utilisé dans l'activité.
         configureViewModel();
 
+        // la liste enregistrée lors de l'exécution précédente est affichée dès la première image,
+        // en attendant l'ouverture de la base de données et la première requête
+        showStartupSnapshot();
+
         // initial observe of projects
         observeProjects();
 
         // en appelant observeTasks(), on met en place une observation des tâches à partir du ViewModel,
         // pour mettre à jour en cas de modifications ultérieures de la liste des tâches
         observeTasks();
+
+        // la maintenance de la base (archivage des anciennes tâches, analyse, compactage) démarre une fois l'écran affiché,
+        // et n'avance que lorsque les exécuteurs sont inactifs ; un changement de configuration ne la relance pas
+        if (savedInstanceState == null) {
+            Injection.provideTaskMaintenance(this).schedule(MAINTENANCE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
     }
 
     /**
@@ -151,9 +222,62 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
      * On y associe ensuite le ViewModel à l'activité en tant que propriétaire et appelle la méthode init() du ViewModel
      */
     private void configureViewModel() {
+        final long startNanos = System.nanoTime();
         ViewModelFactory viewModelFactory = Injection.provideViewModelFactory(this);
         mTaskViewModel = new ViewModelProvider(this, viewModelFactory).get(com.cleanup.todoc.viewmodel.TaskViewModel.class);
         mTaskViewModel.init();
+        viewModelMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * On affiche la liste enregistrée lors de l'exécution précédente, s'il y en a une ; la première liste
+     * de la base de données la remplacera. Le fichier est projeté en mémoire, sans attendre la base de données.
+     */
+    private void showStartupSnapshot() {
+        final TaskSnapshot snapshot = mTaskViewModel.getStartupSnapshot();
+        if (snapshot != null && snapshot.size() > 0) {
+            adapter.updateSnapshot(snapshot);
+            lblNoTasks.setVisibility(View.GONE);
+            listTasks.setVisibility(View.VISIBLE);
+            measureNextFrame(true);
+        }
+    }
+
+    /**
+     * On mesure la durée entre le début de onCreate() et la prochaine image dessinée,
+     * pour comparer l'affichage de la liste enregistrée à celui de la première liste de la base de données.
+     */
+    private void measureNextFrame(final boolean fromSnapshot) {
+        final ViewTreeObserver observer = listTasks.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                listTasks.getViewTreeObserver().removeOnPreDrawListener(this);
+                final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createNanos);
+                if (fromSnapshot) {
+                    snapshotFrameMillis = millis;
+                } else {
+                    databaseFrameMillis = millis;
+                    // Les données définitives sont affichées : signalé au système (adb logcat, « Fully drawn »)
+                    reportFullyDrawn();
+                    Log.i(TAG, startupSummary());
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Résumé des mesures du démarrage, écrit dans le journal et dans le dump de l'activité : délai entre le démarrage
+     * de l'application et onCreate(), durée de la configuration du ViewModel, puis délais des premières images
+     * depuis onCreate()
+     */
+    @NonNull
+    private String startupSummary() {
+        return "startup: application " + (applicationMillis >= 0 ? applicationMillis + " ms" : "none")
+                + ", view model " + viewModelMillis + " ms"
+                + ", snapshot frame " + (snapshotFrameMillis >= 0 ? snapshotFrameMillis + " ms" : "none")
+                + ", database frame " + (databaseFrameMillis >= 0 ? databaseFrameMillis + " ms" : "pending");
     }
 
     /** On met en place une observation des projets à partir du ViewModel.
@@ -162,15 +286,38 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
      */
     private void observeProjects() {
         mTaskViewModel.getProjects().observe(this, this::updateProjects);
+        // Les statistiques sont tenues par la base de données : une ligne par projet, quel que soit le nombre de tâches
+        mTaskViewModel.getProjectStats().observe(this, this::updateProjectStats);
     }
 
     /**
-     * On met en place une observation des tâches à partir du ViewModel.
-     * Lorsque des changements sont détectés dans les tâches, la méthode updateTasks de l'activité
-     * sera appelée pour mettre à jour les tâches affichées dans l'interface utilisateur.
+     * On met en place une observation des tâches à partir du ViewModel, une seule fois par activité.
+     * Lorsque des changements sont détectés dans les tâches (écriture, changement de tri), la méthode updateTasks
+     * de l'activité sera appelée pour mettre à jour les tâches affichées dans l'interface utilisateur.
      */
     private void observeTasks() {
         mTaskViewModel.getTasks().observe(this, this::updateTasks);
+        // Les créations et suppressions sont superposées à la liste dès la demande, sans attendre l'écriture
+        mTaskViewModel.getPendingTasks().observe(this, this::updatePendingTasks);
+        // Le bilan d'un import est affiché une fois, à la fin de celui-ci
+        mTaskViewModel.getImportResult().observe(this, this::showImportResult);
+        mTaskViewModel.getBackupStatus().observe(this, this::showBackupStatus);
+        // L'échec d'une écriture de masse est signalé une fois : ses modifications ont été annulées
+        mTaskViewModel.getWriteFailure().observe(this, this::showWriteFailure);
+    }
+
+    /**
+     * On ajoute au dump de l'activité (adb shell dumpsys activity com.cleanup.todoc) les mesures du démarrage
+     * et celles des exécuteurs : profondeur des files d'attente et temps d'attente et d'exécution des tâches,
+     * puis les durées des requêtes et les dernières requêtes lentes avec leur plan.
+     */
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer, @Nullable String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(prefix);
+        writer.println(startupSummary());
+        Injection.provideExecutors().dump(prefix, writer);
+        Injection.provideQueryMonitor().dump(prefix, writer);
     }
 
     /**
@@ -184,38 +331,202 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
 
     /**
      * On gère les sélections d'éléments du menu des options.
-     * Selon l'élément sélectionné, on met à jour la variable sortMethod avec la méthode de tri correspondante.
+     * Selon l'élément sélectionné, on transmet au ViewModel la méthode de tri correspondante :
+     * il remplace alors la requête source, et le tri est effectué par la base de données.
      */
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
 
         if (id == R.id.filter_alphabetical) {
-            sortMethod = SortMethod.ALPHABETICAL;
+            mTaskViewModel.setSortMethod(SortMethod.ALPHABETICAL);
         } else if (id == R.id.filter_alphabetical_inverted) {
-            sortMethod = SortMethod.ALPHABETICAL_INVERTED;
+            mTaskViewModel.setSortMethod(SortMethod.ALPHABETICAL_INVERTED);
         } else if (id == R.id.filter_oldest_first) {
-            sortMethod = SortMethod.OLD_FIRST;
+            mTaskViewModel.setSortMethod(SortMethod.OLD_FIRST);
         } else if (id == R.id.filter_recent_first) {
-            sortMethod = SortMethod.RECENT_FIRST;
+            mTaskViewModel.setSortMethod(SortMethod.RECENT_FIRST);
+        } else if (id == R.id.action_filter_projects) {
+            showProjectFilter();
+        } else if (id == R.id.action_import) {
+            pickImportFile();
+        } else if (id == R.id.action_export) {
+            pickExportFile();
+        } else if (id == R.id.action_restore) {
+            confirmRestore();
         }
 
-        // On met en place l'observation des tâches et
-        // appelle ensuite la méthode par défaut pour gérer l'élément
+        // On appelle ensuite la méthode par défaut pour gérer l'élément
         // du menu sélectionné dans la classe parente de l'activité.
-        observeTasks();
         return super.onOptionsItemSelected(item);
     }
 
     /**
-     * On supprime la tâche spécifiée en utilisant le ViewModel, puis on rétablit l'observation des tâches
-     * pour mettre à jour la liste des tâches affichée dans l'interface utilisateur.
+     * On affiche la liste des projets à cocher, chacun avec son nombre de tâches : seules les tâches des projets cochés
+     * sont lues et affichées, triées selon la méthode de tri courante. Ne cocher aucun projet revient à les afficher tous.
+     */
+    private void showProjectFilter() {
+        final List<Project> projects = mTaskViewModel.getProjects() != null
+                ? mTaskViewModel.getProjects().getValue() : null;
+        if (projects == null || projects.isEmpty()) {
+            return;
+        }
+        final TaskFilter filter = mTaskViewModel.getTaskFilter().getValue();
+        final String[] names = new String[projects.size()];
+        final boolean[] checked = new boolean[projects.size()];
+        for (int i = 0; i < projects.size(); i++) {
+            final ProjectStats stats = projectStats.get(projects.get(i).getId());
+            names[i] = stats != null
+                    ? getString(R.string.filter_project_item, projects.get(i).getName(), stats.getTaskCount())
+                    : projects.get(i).getName();
+            checked[i] = filter != null && !filter.isAll() && filter.matches(projects.get(i).getId());
+        }
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.filter_projects)
+                .setMultiChoiceItems(names, checked, (dialogInterface, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton(R.string.filter, (dialogInterface, which) -> {
+                    final long[] projectIds = new long[projects.size()];
+                    int count = 0;
+                    for (int i = 0; i < projects.size(); i++) {
+                        if (checked[i]) {
+                            projectIds[count++] = projects.get(i).getId();
+                        }
+                    }
+                    mTaskViewModel.setTaskFilter(count == 0 ? TaskFilter.ALL
+                            : TaskFilter.of(Arrays.copyOf(projectIds, count)));
+                })
+                .setNeutralButton(R.string.filter_all_projects,
+                        (dialogInterface, which) -> mTaskViewModel.setTaskFilter(TaskFilter.ALL))
+                .show();
+    }
+
+    /**
+     * On demande au système de choisir le fichier de tâches à importer (format de sampledata/tasks.json).
+     */
+    private void pickImportFile() {
+        final Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT)
+                .addCategory(Intent.CATEGORY_OPENABLE)
+                // Les fichiers .json ne sont pas toujours reconnus comme tels par les fournisseurs de documents
+                .setType("*/*")
+                .putExtra(Intent.EXTRA_MIME_TYPES, new String[]{"application/json", "application/octet-stream", "text/*"});
+        startActivityForResult(intent, REQUEST_IMPORT);
+    }
+
+    /**
+     * On demande au système de créer le fichier de sauvegarde, en JSON Lines compressé.
+     */
+    private void pickExportFile() {
+        final Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT)
+                .addCategory(Intent.CATEGORY_OPENABLE)
+                .setType("application/gzip")
+                .putExtra(Intent.EXTRA_TITLE, "todoc.jsonl.gz");
+        startActivityForResult(intent, REQUEST_EXPORT);
+    }
+
+    /**
+     * On fait confirmer la restauration, qui remplace toutes les données, avant de choisir la sauvegarde.
+     */
+    private void confirmRestore() {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.restore_tasks)
+                .setMessage(R.string.restore_confirm)
+                .setPositiveButton(R.string.restore, (dialogInterface, which) -> {
+                    final Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT)
+                            .addCategory(Intent.CATEGORY_OPENABLE)
+                            .setType("*/*");
+                    startActivityForResult(intent, REQUEST_RESTORE);
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    /**
+     * On transmet au ViewModel le fichier choisi : il est lu ou écrit en arrière-plan.
+     * Les fichiers sont ouverts par descripteur, pour écrire la sauvegarde sur un canal NIO.
+     */
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (resultCode != RESULT_OK || data == null || data.getData() == null) {
+            return;
+        }
+        try {
+            if (requestCode == REQUEST_IMPORT) {
+                final InputStream input = getContentResolver().openInputStream(data.getData());
+                if (input == null) {
+                    throw new FileNotFoundException(data.getData().toString());
+                }
+                mTaskViewModel.importTasks(input);
+            } else if (requestCode == REQUEST_EXPORT) {
+                final ParcelFileDescriptor file = getContentResolver().openFileDescriptor(data.getData(), "wt");
+                if (file == null) {
+                    throw new FileNotFoundException(data.getData().toString());
+                }
+                mTaskViewModel.exportTasks(new ParcelFileDescriptor.AutoCloseOutputStream(file).getChannel());
+            } else if (requestCode == REQUEST_RESTORE) {
+                final ParcelFileDescriptor file = getContentResolver().openFileDescriptor(data.getData(), "r");
+                if (file == null) {
+                    throw new FileNotFoundException(data.getData().toString());
+                }
+                mTaskViewModel.restoreTasks(new ParcelFileDescriptor.AutoCloseInputStream(file));
+            }
+        } catch (FileNotFoundException e) {
+            Toast.makeText(this, R.string.import_unreadable, Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * On affiche l'issue de la sauvegarde ou de la restauration terminée.
+     */
+    private void showBackupStatus(@Nullable BackupStatus status) {
+        if (status == null) {
+            return;
+        }
+        final boolean export = status.getOperation() == BackupStatus.Operation.EXPORT;
+        final String message;
+        if (status.getResult() != null) {
+            Log.i(TAG, (export ? "export: " : "restore: ") + status.getResult());
+            message = getString(export ? R.string.export_done : R.string.restore_done, status.getResult().getTasks());
+        } else {
+            message = getString(export ? R.string.export_failed : R.string.restore_failed);
+        }
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        mTaskViewModel.onBackupStatusShown();
+    }
+
+    /**
+     * On signale l'échec d'une écriture : la liste affichée reste celle de la base de données.
+     */
+    private void showWriteFailure(@Nullable RuntimeException error) {
+        if (error == null) {
+            return;
+        }
+        Toast.makeText(this, R.string.write_failed, Toast.LENGTH_LONG).show();
+        mTaskViewModel.onWriteFailureShown();
+    }
+
+    /**
+     * On affiche le bilan de l'import terminé : nombre de tâches importées et débit, ou interruption.
+     */
+    private void showImportResult(@Nullable TaskImporter.Result result) {
+        if (result == null) {
+            return;
+        }
+        Log.i(TAG, "import: " + result);
+        final String message = result.isComplete()
+                ? getString(R.string.import_done, result.getRows(), result.getRowsPerSecond())
+                : getString(R.string.import_interrupted, result.getRows());
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        mTaskViewModel.onImportResultShown();
+    }
+
+    /**
+     * On supprime la tâche spécifiée en utilisant le ViewModel ; la liste affichée est mise à jour
+     * par l'observation mise en place dans onCreate().
      */
     @Override
     public void onDeleteTask(Task task) {
         mTaskViewModel.deleteTask(task);
-        // On s'assure que la liste des tâches est mise à jour à ce stade.
-        observeTasks();
     }
 
     /**
@@ -280,58 +591,71 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
     }
 
     /**
-     * On crée une nouvelle tâche en utilisant le ViewModel et on met à jour immédiatement la liste des tâches affichée
-     * dans l'interface utilisateur en rétablissant l'observation des tâches.
+     * On crée une nouvelle tâche en utilisant le ViewModel ; la liste affichée est mise à jour
+     * par l'observation mise en place dans onCreate().
      */
     private void addTask(@NonNull Task task) {
         mTaskViewModel.createTask(task);
-        // On s'assure que la liste des tâches est mise à jour à ce stade.
-        observeTasks();
     }
 
     /**
-     * On met à jour la liste des projets dans l'interface utilisateur en utilisant l'adapter,
-     * et en remplaçant la liste actuelle par la nouvelle liste de projets fournie.
+     * On met à jour la liste des projets dans l'interface utilisateur en utilisant l'adapter ;
+     * le registre des projets utilisé par l'adapter a déjà été mis à jour avec la nouvelle liste fournie,
+     * l'adapter ne regénère que les lignes dont le projet a changé.
      */
     private void updateProjects(List<Project> projects){
         adapter.updateProjects(projects);
     }
 
     /**
-     * On met à jour la liste des tâches dans l'UI en fonction de la liste de tâches fournie,
-     * et en appliquant un tri si nécessaire, et en rendant les éléments visibles ou non en fonction de l'état de la liste de tâches.
+     * On garde les statistiques des projets fournies, lues par le filtre par projet à son ouverture.
+     */
+    private void updateProjectStats(List<ProjectStats> stats) {
+        projectStats.clear();
+        for (ProjectStats projectStat : stats) {
+            projectStats.put(projectStat.getProjectId(), projectStat);
+        }
+    }
+
+    /**
+     * On met à jour la liste des tâches dans l'UI en fonction de la liste paginée fournie,
+     * déjà triée par la base de données, et en rendant les éléments visibles ou non en fonction de l'état de la liste de tâches.
+     */
+    private void updateTasks(PagedList<Task> tasks) {
+        if (!measuringDatabaseFrame) {
+            measuringDatabaseFrame = true;
+            measureNextFrame(false);
+        }
+        // On met à jour la liste des tâches dans l'adaptateur (adapter) avec la nouvelle liste fournie (tasks).
+        adapter.updateTasks(tasks);
+        updateEmptyState();
+    }
+
+    /**
+     * lorsque la liste de tâches affichée est vide, le libellé "No Tasks" sera affiché à la place de la liste des tâches dans l'UI.
      */
-    private void updateTasks(List<Task> tasks) {
-        //  lorsque la liste de tâches est vide, le libellé "No Tasks" sera affiché à la place de la liste des tâches dans l'UI.
-        if (tasks.size() == 0) {
-            adapter.updateTasks(tasks);
+    private void updateEmptyState() {
+        final PagedList<Task> tasks = mTaskViewModel.getTasks().getValue();
+        final PendingTasks pendingTasks = mTaskViewModel.getPendingTasks().getValue();
+        final int pendingCount = pendingTasks != null ? pendingTasks.getCreatedTasks().size() : 0;
+        if ((tasks == null || tasks.size() == 0) && pendingCount == 0) {
             lblNoTasks.setVisibility(View.VISIBLE);
             listTasks.setVisibility(View.GONE);
-            // On ajuste la visibilité des éléments dans l'UI en fonction de la présence de tâches,
-            // puis effectue un tri sur la liste de tâches si nécessaire en utilisant la méthode de tri spécifiée par sortMethod.
         } else {
             lblNoTasks.setVisibility(View.GONE);
             listTasks.setVisibility(View.VISIBLE);
-            switch (sortMethod) {
-                case ALPHABETICAL:
-                    Collections.sort(tasks, new Task.TaskAZComparator());
-                    break;
-                case ALPHABETICAL_INVERTED:
-                    Collections.sort(tasks, new Task.TaskZAComparator());
-                    break;
-                case RECENT_FIRST:
-                    Collections.sort(tasks, new Task.TaskRecentComparator());
-                    break;
-                case OLD_FIRST:
-                    Collections.sort(tasks, new Task.TaskOldComparator());
-                    break;
-
-            }
-            // On met à jour la liste des tâches dans l'adaptateur (adapter) avec la nouvelle liste fournie (tasks).
-            adapter.updateTasks(tasks);
         }
     }
 
+    /**
+     * On superpose à la liste affichée les créations et suppressions pas encore écrites dans la base de données.
+     * Le libellé "No Tasks" tient compte des tâches créées en attente.
+     */
+    private void updatePendingTasks(PendingTasks pendingTasks) {
+        adapter.updatePendingTasks(pendingTasks);
+        updateEmptyState();
+    }
+
     /**
      * Cette méthode crée et configure une boîte de dialogue pour l'ajout de nouvelles tâches,
      * en définissant le titre, la vue et les actions à effectuer lorsque la boîte de dialogue est fermée.
@@ -399,34 +723,4 @@ public class MainActivity extends AppCompatActivity implements TasksAdapter.Dele
         };
         mTaskViewModel.getProjects().observe(this, projectObserver);
     }
-
-    /**
-     * Ces valeurs de tri sont utilisées pour déterminer l'ordre dans lequel les éléments doivent être affichés.
-     */
-    private enum SortMethod {
-        /**
-         * Trie les éléments par ordre alphabétique selon leur nom.
-         */
-        ALPHABETICAL,
-
-        /**
-         * Trie les éléments par ordre alphabétique inverse selon leur nom.
-         */
-        ALPHABETICAL_INVERTED,
-
-        /**
-         * Trie les éléments en plaçant les plus récents en premier.
-         */
-        RECENT_FIRST,
-
-        /**
-         * Trie les éléments en plaçant les plus anciens en premier.
-         */
-        OLD_FIRST,
-
-        /**
-         * Indique qu'aucun tri n'est appliqué.
-         */
-        NONE
-    }
 }
\ No newline at end of file
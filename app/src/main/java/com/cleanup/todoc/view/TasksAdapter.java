@@ -7,37 +7,76 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatImageView;
+import androidx.paging.AsyncPagedListDiffer;
+import androidx.paging.PagedList;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.cleanup.todoc.R;
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectRegistry;
 import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.viewmodel.PendingTasks;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 
 /**
  * cette classe gère l'affichage des tâches dans le RecyclerView et permet leur suppression
  * en utilisant un écouteur approprié.
  * Elle est utilisée par la classe MainActivity pour afficher et manipuler les tâches dans l'application.
  * Le TaskAdaper est un sous-traitant de la MAinActivity, seule la MainActivity communique avec le ViewModel.
+ * Les tâches sont fournies sous forme de PagedList : seules les pages proches de la zone visible sont chargées,
+ * et l'accès à une position proche de la fin d'une page déclenche le chargement de la suivante.
+ * Les différences entre deux listes sont calculées en arrière-plan et notifiées ligne par ligne ;
+ * les identifiants des tâches servent d'identifiants stables.
+ * Avant l'arrivée de la première PagedList, l'adapter peut afficher une {@link TaskSnapshot} : seules les lignes
+ * visibles sont alors converties en objets Task, au moment du bind.
+ * Les écritures en attente ({@link PendingTasks}) sont superposées à la PagedList : les tâches créées sont affichées
+ * à leur position dans l'ordre de la liste et les tâches supprimées sont masquées, jusqu'à ce qu'une PagedList relue
+ * les contienne. Seules les lignes de ces écritures sont notifiées, et les différences d'une PagedList sont
+ * transmises aux positions affichées : la liste n'est jamais regénérée en entier pendant les écritures.
  */
 
 public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHolder> {
     /**
-     * The list of tasks the adapter deals with
+     * Indique une mise à jour limitée au projet d'une ligne
      */
-    @NonNull
-    private List<Task> tasks;
+    private static final Object PAYLOAD_PROJECT = new Object();
+
+    /**
+     * Compare deux tâches pour calculer les différences entre deux PagedList
+     */
+    private static final DiffUtil.ItemCallback<Task> DIFF_CALLBACK = new DiffUtil.ItemCallback<Task>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Task oldTask, @NonNull Task newTask) {
+            return oldTask.getId() == newTask.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Task oldTask, @NonNull Task newTask) {
+            return oldTask.getProjectId() == newTask.getProjectId()
+                    && oldTask.getCreationTimestamp() == newTask.getCreationTimestamp()
+                    && oldTask.getName().equals(newTask.getName());
+        }
+    };
 
     /**
-     * The list of projects the adapter deals with
+     * Le registre des projets, tenu à jour par le ProjectDataRepository, utilisé pour trouver le projet de chaque tâche
      */
     @NonNull
-    // Ajout d'une liste java simple représentant les projets qui sera mise à jour dynamiquement
-    // grâce à la méthode updateProject() par l'appelant (MainActivity)
-    private List<Project> projects;
+    private final ProjectRegistry projectRegistry;
 
     /**
      * The listener for when a task needs to be deleted
@@ -45,30 +84,452 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
     @NonNull
     private final DeleteTaskListener deleteTaskListener;
 
+    /**
+     * La liste par colonnes affichée tant qu'aucune PagedList n'a été reçue, null sinon
+     */
+    @Nullable
+    private TaskSnapshot snapshot;
+
+    /**
+     * Les projets affichés lors du dernier appel à updateProjects(), pour repérer ceux qui ont changé
+     */
+    @NonNull
+    private final Map<Long, Project> displayedProjects = new HashMap<>();
+
+    /**
+     * Calcule en arrière-plan les différences entre deux PagedList et notifie les lignes modifiées,
+     * aux positions affichées lorsque des écritures en attente y sont superposées
+     */
+    @NonNull
+    private final AsyncPagedListDiffer<Task> differ;
+
+    /**
+     * Les écritures en attente superposées à la PagedList
+     */
+    @NonNull
+    private PendingTasks pendingTasks = PendingTasks.EMPTY;
+
+    /**
+     * Les écritures en attente reçues pendant le calcul des différences d'une nouvelle PagedList, appliquées avec celle-ci
+     */
+    @Nullable
+    private PendingTasks deferredPendingTasks;
+
+    /**
+     * Nombre de PagedList transmises dont les différences ne sont pas encore appliquées
+     */
+    private int listsInFlight;
+
+    /**
+     * Les lignes affichées lorsque des écritures sont en attente (voir {@link PendingTasks#getRows(List)}) :
+     * la position dans la PagedList, ou -(i + 1) pour la i-ème tâche créée ; null sans écriture en attente.
+     * Pendant la transmission des différences d'une PagedList, elles suivent les positions notifiées une à une.
+     */
+    @Nullable
+    private int[] rows;
+
     /**
      * Instantiates a new TasksAdapter
      */
     TasksAdapter(@NonNull final DeleteTaskListener deleteTaskListener) {
-        this.tasks = new ArrayList<>();
-        this.projects = new ArrayList<>();
+        this.differ = new AsyncPagedListDiffer<>(new PendingAwareUpdateCallback(),
+                new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build());
+        this.projectRegistry = ProjectRegistry.getInstance();
         this.deleteTaskListener = deleteTaskListener;
+        // Les identifiants des tâches sont stables : le RecyclerView garde les vues des tâches déplacées
+        setHasStableIds(true);
     }
 
     /**
-     * cette méthode met à jour la liste de tâches actuelle avec une nouvelle liste fournie
-     * et actualise l'affichage pour refléter les modifications
+     * cette méthode remplace la liste paginée actuelle par la nouvelle liste fournie ;
+     * les différences sont calculées en arrière-plan avant de mettre à jour l'affichage
      */
-    void updateTasks(@NonNull final List<Task> tasks) {
-        this.tasks = tasks;
-        notifyDataSetChanged();
+    void updateTasks(@NonNull final PagedList<Task> tasks) {
+        listsInFlight++;
+        final Runnable onCommitted = () -> {
+            listsInFlight--;
+            // Les écritures en attente retirées parce que cette liste les contient disparaissent avec elle ;
+            // les tâches créées encore en attente sont replacées parmi les tâches de la nouvelle liste
+            if (listsInFlight == 0 && (deferredPendingTasks != null || rows != null)) {
+                final PendingTasks pending = deferredPendingTasks != null ? deferredPendingTasks : pendingTasks;
+                deferredPendingTasks = null;
+                applyPendingTasks(pending);
+            }
+        };
+        if (snapshot != null) {
+            // La première PagedList remplace la liste par colonnes : les positions ne se correspondent pas,
+            // on demande donc une regénération complète plutôt que les insertions annoncées par submitList()
+            snapshot = null;
+            differ.submitList(tasks, onCommitted);
+            notifyDataSetChanged();
+        } else {
+            differ.submitList(tasks, onCommitted);
+        }
+    }
+
+    /**
+     * cette méthode superpose les écritures en attente à la PagedList ; si une nouvelle PagedList est en cours
+     * de comparaison, elles ne sont appliquées qu'avec celle-ci, pour qu'une tâche créée ne disparaisse pas
+     * avant que sa ligne définitive n'apparaisse
+     */
+    void updatePendingTasks(@NonNull final PendingTasks pendingTasks) {
+        if (listsInFlight > 0) {
+            deferredPendingTasks = pendingTasks;
+        } else {
+            applyPendingTasks(pendingTasks);
+        }
     }
 
-    // cette méthode met à jour la liste de projets actuelle avec une nouvelle liste fournie
-    // et force la regénération du RecyclerView pour refléter les modifications et mettre à jour l'affichage.
-    // Permettre à l'appelant (MainActivity) de mettre à jour la liste de projet de cet adapteur
+    // Superpose les écritures données à la PagedList et notifie seulement les lignes ajoutées ou retirées
+    private void applyPendingTasks(@NonNull final PendingTasks pendingTasks) {
+        final List<Task> tasks = currentTasks();
+        final long[] oldKeys = displayedKeys(rows, this.pendingTasks, tasks.size());
+        this.pendingTasks = pendingTasks;
+        rows = pendingTasks.getRows(tasks);
+        if (snapshot != null) {
+            // La liste figée reste affichée jusqu'à la première PagedList
+            return;
+        }
+        if (!notifyRowChanges(oldKeys, displayedKeys(rows, pendingTasks, tasks.size()))) {
+            notifyDataSetChanged();
+        }
+    }
+
+    @NonNull
+    private List<Task> currentTasks() {
+        final PagedList<Task> tasks = differ.getCurrentList();
+        return tasks != null ? tasks : Collections.<Task>emptyList();
+    }
+
+    // Renvoie la clé de chaque ligne affichée : la position dans la PagedList, ou l'identifiant provisoire
+    // (négatif) d'une tâche créée, qui ne dépend pas de l'instance de PendingTasks
+    @NonNull
+    private static long[] displayedKeys(@Nullable int[] rows, @NonNull PendingTasks pendingTasks, int listSize) {
+        final long[] keys = new long[rows != null ? rows.length : listSize];
+        for (int i = 0; i < keys.length; i++) {
+            final int row = rows != null ? rows[i] : i;
+            keys[i] = row >= 0 ? row : pendingTasks.getCreatedTasks().get(-row - 1).getId();
+        }
+        return keys;
+    }
+
+    // Notifie le passage des lignes oldKeys aux lignes newKeys par des retraits puis des insertions, groupés
+    // en plages. Une tâche créée dont la tâche chargée qui la précède a changé est retirée puis insérée à sa place.
+    // Renvoie false si des lignes conservées ont changé d'ordre (changement de tri)
+    private boolean notifyRowChanges(@NonNull long[] oldKeys, @NonNull long[] newKeys) {
+        final Set<Long> kept = keptKeys(oldKeys, newKeys);
+        // Les lignes conservées doivent apparaître dans le même ordre
+        int matched = 0;
+        for (int i = 0, j = 0; i < oldKeys.length && j < newKeys.length; i++) {
+            if (!kept.contains(oldKeys[i])) {
+                continue;
+            }
+            while (j < newKeys.length && newKeys[j] != oldKeys[i]) {
+                j++;
+            }
+            if (j < newKeys.length) {
+                matched++;
+                j++;
+            }
+        }
+        if (matched != kept.size()) {
+            return false;
+        }
+        // Retraits, de la fin vers le début pour que les positions restent valides
+        int removedEnd = -1;
+        for (int i = oldKeys.length - 1; i >= -1; i--) {
+            final boolean removed = i >= 0 && !kept.contains(oldKeys[i]);
+            if (removed && removedEnd < 0) {
+                removedEnd = i;
+            } else if (!removed && removedEnd >= 0) {
+                notifyItemRangeRemoved(i + 1, removedEnd - i);
+                removedEnd = -1;
+            }
+        }
+        // Insertions, du début vers la fin, aux positions de la nouvelle liste
+        int insertedStart = -1;
+        for (int k = 0; k <= newKeys.length; k++) {
+            final boolean inserted = k < newKeys.length && !kept.contains(newKeys[k]);
+            if (inserted && insertedStart < 0) {
+                insertedStart = k;
+            } else if (!inserted && insertedStart >= 0) {
+                notifyItemRangeInserted(insertedStart, k - insertedStart);
+                insertedStart = -1;
+            }
+        }
+        return true;
+    }
+
+    // Renvoie les clés des lignes conservées : les tâches chargées présentes avant et après, et les tâches créées
+    // qui suivent la même tâche chargée conservée
+    @NonNull
+    private static Set<Long> keptKeys(@NonNull long[] oldKeys, @NonNull long[] newKeys) {
+        final Set<Long> oldSet = new HashSet<>(oldKeys.length);
+        for (long key : oldKeys) {
+            oldSet.add(key);
+        }
+        final Set<Long> newSet = new HashSet<>(newKeys.length);
+        for (long key : newKeys) {
+            newSet.add(key);
+        }
+        final Map<Long, Long> oldAnchors = anchors(oldKeys, newSet);
+        final Map<Long, Long> newAnchors = anchors(newKeys, oldSet);
+        final Set<Long> kept = new HashSet<>();
+        for (long key : newKeys) {
+            if (oldSet.contains(key) && (key >= 0 || oldAnchors.get(key).equals(newAnchors.get(key)))) {
+                kept.add(key);
+            }
+        }
+        return kept;
+    }
+
+    // Associe à chaque tâche créée la position de la tâche chargée qui la précède et figure dans les deux listes,
+    // ou -1 s'il n'y en a pas
+    @NonNull
+    private static Map<Long, Long> anchors(@NonNull long[] keys, @NonNull Set<Long> otherKeys) {
+        final Map<Long, Long> anchors = new HashMap<>();
+        long anchor = -1;
+        for (long key : keys) {
+            if (key >= 0) {
+                if (otherKeys.contains(key)) {
+                    anchor = key;
+                }
+            } else {
+                anchors.put(key, anchor);
+            }
+        }
+        return anchors;
+    }
+
+    // Renvoie l'index de la ligne affichée devant laquelle se place la position donnée de la PagedList :
+    // celui de la première tâche chargée qui la suit, ou celui qui suit la dernière tâche chargée
+    private static int insertionIndex(@NonNull int[] rows, int position) {
+        int lastListRow = -1;
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] >= position) {
+                return i;
+            }
+            if (rows[i] >= 0) {
+                lastListRow = i;
+            }
+        }
+        return lastListRow + 1;
+    }
+
+    /**
+     * Transmet au RecyclerView les modifications de la PagedList ; lorsque des écritures en attente sont superposées,
+     * les positions de la PagedList sont converties en positions affichées, et les lignes suivies une à une.
+     * Après un chargement de page, les tâches créées sont replacées parmi les tâches chargées ; après les différences
+     * d'une nouvelle PagedList, elles le sont à la fin de la comparaison.
+     */
+    private class PendingAwareUpdateCallback implements ListUpdateCallback {
+        @Override
+        public void onInserted(int position, int count) {
+            if (rows == null) {
+                notifyItemRangeInserted(position, count);
+                return;
+            }
+            final int at = insertionIndex(rows, position);
+            final int[] updated = new int[rows.length + count];
+            for (int i = 0; i < rows.length; i++) {
+                final int row = rows[i] >= position ? rows[i] + count : rows[i];
+                updated[i < at ? i : i + count] = row;
+            }
+            for (int i = 0; i < count; i++) {
+                updated[at + i] = position + i;
+            }
+            rows = updated;
+            notifyItemRangeInserted(at, count);
+            replaceCreatedTasks();
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            if (rows == null) {
+                notifyItemRangeRemoved(position, count);
+                return;
+            }
+            final int end = position + count;
+            final int[] updated = new int[rows.length];
+            int size = 0;
+            int removedEnd = -1;
+            for (int i = rows.length - 1; i >= -1; i--) {
+                // Les tâches masquées par une suppression en attente n'ont pas de ligne affichée
+                final boolean removed = i >= 0 && rows[i] >= position && rows[i] < end;
+                if (removed && removedEnd < 0) {
+                    removedEnd = i;
+                } else if (!removed && removedEnd >= 0) {
+                    notifyItemRangeRemoved(i + 1, removedEnd - i);
+                    removedEnd = -1;
+                }
+            }
+            for (int row : rows) {
+                if (row < position || row >= end) {
+                    updated[size++] = row >= end ? row - count : row;
+                }
+            }
+            rows = Arrays.copyOf(updated, size);
+            replaceCreatedTasks();
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            if (rows == null) {
+                notifyItemMoved(fromPosition, toPosition);
+                return;
+            }
+            int from = -1;
+            final int[] others = new int[rows.length];
+            int size = 0;
+            for (int i = 0; i < rows.length; i++) {
+                int row = rows[i];
+                if (row == fromPosition) {
+                    from = i;
+                    continue;
+                }
+                if (fromPosition < toPosition && row > fromPosition && row <= toPosition) {
+                    row--;
+                } else if (fromPosition > toPosition && row >= toPosition && row < fromPosition) {
+                    row++;
+                }
+                others[size++] = row;
+            }
+            if (from < 0) {
+                // Tâche masquée : seules les positions des autres changent
+                rows = Arrays.copyOf(others, size);
+                return;
+            }
+            final int[] kept = Arrays.copyOf(others, size);
+            final int to = insertionIndex(kept, toPosition);
+            final int[] updated = new int[rows.length];
+            System.arraycopy(kept, 0, updated, 0, to);
+            updated[to] = toPosition;
+            System.arraycopy(kept, to, updated, to + 1, size - to);
+            rows = updated;
+            notifyItemMoved(from, to);
+        }
+
+        @Override
+        public void onChanged(int position, int count, @Nullable Object payload) {
+            if (rows == null) {
+                notifyItemRangeChanged(position, count, payload);
+                return;
+            }
+            final int end = position + count;
+            int changedStart = -1;
+            for (int i = 0; i <= rows.length; i++) {
+                final boolean changed = i < rows.length && rows[i] >= position && rows[i] < end;
+                if (changed && changedStart < 0) {
+                    changedStart = i;
+                } else if (!changed && changedStart >= 0) {
+                    notifyItemRangeChanged(changedStart, i - changedStart, payload);
+                    changedStart = -1;
+                }
+            }
+        }
+
+        // Un chargement de page, hors comparaison de deux PagedList : la liste courante est complète,
+        // les tâches créées qui suivaient les tâches chargées sont replacées parmi celles de la page
+        private void replaceCreatedTasks() {
+            if (listsInFlight == 0) {
+                applyPendingTasks(pendingTasks);
+            }
+        }
+    }
+
+    /**
+     * cette méthode affiche une liste par colonnes en attendant la première PagedList ;
+     * elle est ignorée dès qu'une PagedList a été reçue
+     */
+    void updateSnapshot(@NonNull final TaskSnapshot snapshot) {
+        if (differ.getCurrentList() == null) {
+            this.snapshot = snapshot;
+            notifyDataSetChanged();
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        if (snapshot != null) {
+            return snapshot.size();
+        }
+        return rows != null ? rows.length : differ.getItemCount();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (snapshot != null) {
+            return snapshot.getId(position);
+        }
+        // Les tâches créées en attente ont un identifiant provisoire négatif, distinct de ceux de la base
+        final Task task = peekTask(position);
+        return task != null ? task.getId() : RecyclerView.NO_ID;
+    }
+
+    // Renvoie la tâche affichée à la position donnée sans déclencher de chargement (PagedList.get())
+    @Nullable
+    private Task peekTask(int position) {
+        final int listPosition = toListPosition(position);
+        if (listPosition < 0) {
+            return pendingTasks.getCreatedTasks().get(-listPosition - 1);
+        }
+        final PagedList<Task> tasks = differ.getCurrentList();
+        return tasks != null ? tasks.get(listPosition) : null;
+    }
+
+    // Renvoie la tâche affichée à la position donnée ; AsyncPagedListDiffer.getItem() signale aussi la position
+    // consultée à la PagedList, qui précharge les pages voisines
+    @Nullable
+    private Task getTask(int position) {
+        final int listPosition = toListPosition(position);
+        if (listPosition < 0) {
+            return pendingTasks.getCreatedTasks().get(-listPosition - 1);
+        }
+        return differ.getItem(listPosition);
+    }
+
+    // Convertit une position affichée en position dans la PagedList, ou en -(i + 1) pour la i-ème tâche créée
+    private int toListPosition(int position) {
+        return rows != null ? rows[position] : position;
+    }
+
+    // cette méthode est appelée par la MainActivity lorsque la liste des projets a changé ; le registre des projets
+    // est déjà à jour. Seules les lignes dont le projet a été ajouté, supprimé, renommé ou recoloré sont mises à jour,
+    // et seule la partie « projet » de ces lignes est regénérée.
     void updateProjects(@NonNull final List<Project> projects) {
-        this.projects = projects;
-        notifyDataSetChanged(); // Forcer Android à regénérer le RecyclerView
+        final Set<Long> changedProjectIds = new HashSet<>(displayedProjects.keySet());
+        for (Project project : projects) {
+            final Project displayed = displayedProjects.get(project.getId());
+            if (displayed != null && displayed.getName().equals(project.getName())
+                    && displayed.getColor() == project.getColor()) {
+                changedProjectIds.remove(project.getId());
+            } else {
+                changedProjectIds.add(project.getId());
+            }
+        }
+        displayedProjects.clear();
+        for (Project project : projects) {
+            displayedProjects.put(project.getId(), project);
+        }
+        if (changedProjectIds.isEmpty()) {
+            return;
+        }
+
+        for (int position = 0; position < getItemCount(); position++) {
+            final long projectId;
+            if (snapshot != null) {
+                projectId = snapshot.getProjectId(position);
+            } else {
+                final Task task = peekTask(position);
+                if (task == null) {
+                    continue;
+                }
+                projectId = task.getProjectId();
+            }
+            if (changedProjectIds.contains(projectId)) {
+                notifyItemChanged(position, PAYLOAD_PROJECT);
+            }
+        }
     }
 
     /**
@@ -88,17 +549,26 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
      */
     @Override
     public void onBindViewHolder(@NonNull TaskViewHolder taskViewHolder, int position) {
-        // On ajoute la liste de projets dynamique au Bind du ViewHolder
+        // On ajoute le registre des projets au Bind du ViewHolder
         // pour rappel cette méthode Bind crée un élément de la liste du RecyclerView à l'écran
-        taskViewHolder.bind(tasks.get(position), projects);
+        // getTask() signale aussi la position consultée à la PagedList, qui précharge les pages voisines
+        // Avant la première PagedList, la tâche est créée à partir des colonnes de la liste figée
+        final Task task = snapshot != null ? snapshot.getTask(position) : getTask(position);
+        if (task != null) {
+            taskViewHolder.bind(task, projectRegistry);
+        }
     }
 
     /**
-     * la méthode renvoie le nombre d'éléments présents dans la liste
+     * Mise à jour partielle d'une ligne : seul le projet de la tâche a changé
      */
     @Override
-    public int getItemCount() {
-        return tasks.size();
+    public void onBindViewHolder(@NonNull TaskViewHolder taskViewHolder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.contains(PAYLOAD_PROJECT)) {
+            taskViewHolder.bindProject(projectRegistry);
+        } else {
+            onBindViewHolder(taskViewHolder, position);
+        }
     }
 
     /**
@@ -167,26 +637,29 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
         /**
          *  la méthode bind() est utilisée pour mettre à jour les éléments de la vue du TaskViewHolder
          *  avec les données d'une tâche spécifique. Elle affiche le nom de la tâche, associe la tâche à l'image de suppression,
-         *  recherche et affiche le projet associé à la tâche à partir de la liste des projets.
+         *  recherche et affiche le projet associé à la tâche à partir du registre des projets.
          */
-        // Ajout de la liste projects pour utiliser une liste dynamique présente dans l'adapter
-        // qui elle même est mise à jour par la MainActivty, en cas de changements sur le LiveData (Project)
-        void bind(Task task, List<Project> projects){
+        // Le registre est mis à jour à chaque changement sur le LiveData (Project)
+        void bind(Task task, ProjectRegistry projectRegistry){
             lblTaskName.setText(task.getName());
             imgDelete.setTag(task);
 
-            // On recherche le projet dans la liste des projets qui a le même ID que le projet de la tâche spécifiée,
+            bindProject(projectRegistry);
+        }
+
+        /**
+         *  met à jour uniquement la partie « projet » de la ligne (couleur et nom), à partir du registre des projets ;
+         *  la tâche est celle du dernier bind().
+         */
+        void bindProject(ProjectRegistry projectRegistry) {
+            final Task task = (Task) imgDelete.getTag();
+            // On recherche le projet qui a le même ID que le projet de la tâche spécifiée, en temps constant,
             // et stocke celui-ci dans la variable taskProject
-            Project taskProject = null;
-            for(Project project : projects){
-                if(project.getId() == task.getProjectId()) {
-                    taskProject = project;
-                    break;
-                }
-            }
+            final Project taskProject = projectRegistry.get(task.getProjectId());
             //  lorsque le projet associé à la tâche est trouvé, on met à jour la couleur de l'image
             //  et le texte de l'étiquette pour refléter les informations du projet.
             if (taskProject != null) {
+                imgProject.setVisibility(View.VISIBLE);
                 imgProject.setSupportImageTintList(ColorStateList.valueOf(taskProject.getColor()));
                 lblProjectName.setText(taskProject.getName());
             } else {
@@ -195,7 +668,6 @@ public class TasksAdapter extends RecyclerView.Adapter<TasksAdapter.TaskViewHold
                 imgProject.setVisibility(View.INVISIBLE);
                 lblProjectName.setText("");
             }
-
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.cleanup.todoc.viewmodel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.cleanup.todoc.database.TaskBackup;
+
+/**
+ * Cette classe représente l'issue d'une sauvegarde ou d'une restauration des tâches, à afficher à l'utilisateur.
+ * Une instance est immuable.
+ */
+public final class BackupStatus {
+
+    /**
+     * L'opération demandée
+     */
+    public enum Operation {
+        EXPORT,
+        RESTORE
+    }
+
+    @NonNull
+    private final Operation operation;
+
+    @Nullable
+    private final TaskBackup.Result result;
+
+    BackupStatus(@NonNull Operation operation, @Nullable TaskBackup.Result result) {
+        this.operation = operation;
+        this.result = result;
+    }
+
+    @NonNull
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Renvoie le bilan de l'opération, ou null si elle a échoué.
+     */
+    @Nullable
+    public TaskBackup.Result getResult() {
+        return result;
+    }
+}
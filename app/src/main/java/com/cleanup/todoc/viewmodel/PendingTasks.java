@@ -0,0 +1,197 @@
+package com.cleanup.todoc.viewmodel;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.cleanup.todoc.filter.TaskFilter;
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cette classe représente les écritures demandées par l'utilisateur et pas encore visibles dans la liste paginée :
+ * les tâches créées, avec un identifiant provisoire négatif, et les identifiants des tâches supprimées, masquées de la liste.
+ * Les tâches créées exclues par le filtre courant ne sont pas retenues ; les autres sont rangées dans l'ordre
+ * de la liste paginée, celui des requêtes keyset du TaskDao, et {@link #getRows(List)} les place à leur position
+ * parmi les tâches déjà chargées.
+ * Une instance est immuable.
+ */
+public final class PendingTasks {
+
+    /**
+     * Aucune écriture en attente
+     */
+    public static final PendingTasks EMPTY = new PendingTasks(Collections.emptyList(), Collections.emptySet(),
+            SortMethod.NONE, TaskFilter.ALL);
+
+    @NonNull
+    private final List<Task> createdTasks;
+
+    @NonNull
+    private final Set<Long> deletedIds;
+
+    @NonNull
+    private final Comparator<Task> order;
+
+    /**
+     * @param createdTasks les tâches créées, avec leur identifiant provisoire
+     * @param deletedIds les identifiants des tâches en cours de suppression
+     * @param sortMethod la méthode de tri de la liste paginée
+     * @param filter le filtre de la liste paginée
+     */
+    PendingTasks(@NonNull List<Task> createdTasks, @NonNull Set<Long> deletedIds, @NonNull SortMethod sortMethod,
+                 @NonNull TaskFilter filter) {
+        this.order = orderOf(sortMethod);
+        final List<Task> accepted = filter.filter(createdTasks);
+        final List<Task> sorted = new ArrayList<>(accepted);
+        Collections.sort(sorted, order);
+        this.createdTasks = Collections.unmodifiableList(sorted);
+        this.deletedIds = Collections.unmodifiableSet(new HashSet<>(deletedIds));
+    }
+
+    /**
+     * Renvoie les tâches créées acceptées par le filtre, dans l'ordre de la liste, avec leur identifiant provisoire.
+     */
+    @NonNull
+    public List<Task> getCreatedTasks() {
+        return createdTasks;
+    }
+
+    /**
+     * Renvoie true si la tâche d'identifiant donné est en cours de suppression.
+     */
+    public boolean isDeleted(long id) {
+        return deletedIds.contains(id);
+    }
+
+    /**
+     * Renvoie true si aucune suppression n'est en attente.
+     */
+    public boolean hasNoDeletions() {
+        return deletedIds.isEmpty();
+    }
+
+    /**
+     * Renvoie true si aucune écriture n'est en attente.
+     */
+    public boolean isEmpty() {
+        return createdTasks.isEmpty() && deletedIds.isEmpty();
+    }
+
+    /**
+     * Renvoie les lignes affichées lorsque ces écritures sont superposées aux tâches chargées, en un seul parcours :
+     * pour chaque ligne, la position dans la liste donnée, ou -(i + 1) pour la i-ème tâche créée.
+     * Les tâches supprimées sont masquées et chaque tâche créée est placée devant la première tâche chargée
+     * qui la suit dans l'ordre de la liste ; celles qui suivent toutes les tâches chargées sont placées à la fin,
+     * et descendent à mesure que les pages suivantes arrivent.
+     * @param tasks les tâches chargées, dans l'ordre de la liste ; une tâche pas encore chargée (null) n'est pas masquée
+     * @return les lignes affichées, ou null si elles correspondent exactement à la liste donnée
+     */
+    @Nullable
+    public int[] getRows(@NonNull List<Task> tasks) {
+        if (isEmpty()) {
+            return null;
+        }
+        final int[] rows = new int[tasks.size() + createdTasks.size()];
+        int count = 0;
+        int created = 0;
+        for (int position = 0; position < tasks.size(); position++) {
+            final Task task = tasks.get(position);
+            if (task == null) {
+                rows[count++] = position;
+                continue;
+            }
+            while (created < createdTasks.size() && order.compare(createdTasks.get(created), task) < 0) {
+                rows[count++] = -(++created);
+            }
+            if (!deletedIds.contains(task.getId())) {
+                rows[count++] = position;
+            }
+        }
+        while (created < createdTasks.size()) {
+            rows[count++] = -(++created);
+        }
+        return count == rows.length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /**
+     * Renvoie la liste affichée lorsque ces écritures sont superposées aux tâches chargées (voir {@link #getRows(List)}).
+     * @param tasks les tâches chargées, dans l'ordre de la liste
+     */
+    @NonNull
+    public List<Task> applyTo(@NonNull List<Task> tasks) {
+        final int[] rows = getRows(tasks);
+        if (rows == null) {
+            return tasks;
+        }
+        final List<Task> displayed = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            displayed.add(row >= 0 ? tasks.get(row) : createdTasks.get(-row - 1));
+        }
+        return displayed;
+    }
+
+    /**
+     * Renvoie l'ordre de la liste paginée pour une méthode de tri, celui des requêtes keyset :
+     * (name, id) ou (creationTimestamp, id), croissant ou décroissant ; sans tri, l'ordre de création croissant.
+     * Une tâche créée n'a pas encore d'identifiant : elle recevra un identifiant supérieur à ceux des tâches
+     * de la base, et d'autant plus grand qu'elle a été créée tard (identifiant provisoire plus petit).
+     */
+    @NonNull
+    private static Comparator<Task> orderOf(@NonNull SortMethod sortMethod) {
+        switch (sortMethod) {
+            case ALPHABETICAL:
+                return new Comparator<Task>() {
+                    @Override
+                    public int compare(Task left, Task right) {
+                        final int byName = left.getName().compareTo(right.getName());
+                        return byName != 0 ? byName : compareIds(left, right);
+                    }
+                };
+            case ALPHABETICAL_INVERTED:
+                return new Comparator<Task>() {
+                    @Override
+                    public int compare(Task left, Task right) {
+                        final int byName = right.getName().compareTo(left.getName());
+                        return byName != 0 ? byName : compareIds(right, left);
+                    }
+                };
+            case RECENT_FIRST:
+                return new Comparator<Task>() {
+                    @Override
+                    public int compare(Task left, Task right) {
+                        final int byTimestamp = Long.compare(right.getCreationTimestamp(), left.getCreationTimestamp());
+                        return byTimestamp != 0 ? byTimestamp : compareIds(right, left);
+                    }
+                };
+            default:
+                return new Comparator<Task>() {
+                    @Override
+                    public int compare(Task left, Task right) {
+                        final int byTimestamp = Long.compare(left.getCreationTimestamp(), right.getCreationTimestamp());
+                        return byTimestamp != 0 ? byTimestamp : compareIds(left, right);
+                    }
+                };
+        }
+    }
+
+    /**
+     * Compare les identifiants que les tâches auront dans la base, une tâche créée suivant toutes les autres
+     */
+    private static int compareIds(Task left, Task right) {
+        final boolean leftCreated = left.getId() < 0;
+        final boolean rightCreated = right.getId() < 0;
+        if (leftCreated != rightCreated) {
+            return leftCreated ? 1 : -1;
+        }
+        // Deux tâches créées : l'identifiant provisoire décroît, l'identifiant définitif croîtra
+        return leftCreated ? Long.compare(right.getId(), left.getId()) : Long.compare(left.getId(), right.getId());
+    }
+}
@@ -1,21 +1,49 @@
 package com.cleanup.todoc.viewmodel;
 
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.arch.core.executor.ArchTaskExecutor;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
+import androidx.paging.PagedList;
 
+import com.cleanup.todoc.database.TaskBackup;
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.executor.ExecutorLane;
+import com.cleanup.todoc.executor.Priority;
+import com.cleanup.todoc.filter.TaskFilter;
 import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectStats;
+import com.cleanup.todoc.model.SortMethod;
 import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.repository.BackupCallback;
+import com.cleanup.todoc.repository.ImportCallback;
 import com.cleanup.todoc.repository.ProjectDataRepository;
 import com.cleanup.todoc.repository.TaskDataRepository;
+import com.cleanup.todoc.repository.TaskSnapshotFile;
+import com.cleanup.todoc.repository.WriteCallback;
 
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Executor;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Cette classe sert d'intermédiaire entre la vue et le modèle.
  * Elle fournit des méthodes pour accéder aux données des projets et des tâches de manière observable,
- * ainsi que des méthodes pour créer et supprimer des tâches de manière asynchrone.
+ * ainsi que des méthodes pour créer et supprimer des tâches de manière asynchrone, et pour les rechercher par leur nom.
+ * Les créations et suppressions sont visibles aussitôt dans {@link #getPendingTasks()}, superposées à la liste paginée
+ * jusqu'à ce qu'une liste relue après leur écriture les contienne, ou retirées si l'écriture échoue.
  * Elle est utilisée pour gérer la logique métier liée aux tâches et aux projets dans l'application.
  */
 public class TaskViewModel extends ViewModel {
@@ -24,18 +52,168 @@ public class TaskViewModel extends ViewModel {
     private final ProjectDataRepository mProjectDataSource;
     private final TaskDataRepository mTaskDataSource;
 
-    // Exécution des tâches asynchrones
-    private final Executor mExecutor;
-
     // Classe du framework Android qui représente une donnée observable,
     @Nullable
     private LiveData<List<Project>> mProjects;
 
-    // Initialise des variables membres avec les sources de données des projets et tâches, ainsi qu'un objet Executor
-    public TaskViewModel(ProjectDataRepository projectDataSource, TaskDataRepository taskDataSource, Executor executor) {
+    // Statistiques des projets (nombre de tâches, date de la plus récente), tenues à jour par la base
+    @Nullable
+    private LiveData<List<ProjectStats>> mProjectStats;
+
+    // Méthode de tri sélectionnée, conservée par le ViewModel lors des changements de configuration
+    private final MutableLiveData<SortMethod> mSortMethod = new MutableLiveData<>(SortMethod.NONE);
+
+    // Projets dont les tâches sont affichées, conservés par le ViewModel lors des changements de configuration
+    private final MutableLiveData<TaskFilter> mTaskFilter = new MutableLiveData<>(TaskFilter.ALL);
+
+    // Liste paginée des tâches, seule donnée observée par la vue : elle est conservée par le ViewModel lors des
+    // changements de configuration, sans nouvelle requête. Sa source est remplacée à chaque changement de méthode de tri
+    // ou de filtre.
+    private final MediatorLiveData<PagedList<Task>> mTasks = new MediatorLiveData<>();
+
+    // Requête paginée courante ; les listes d'une requête remplacée ne sont plus transmises
+    @Nullable
+    private LiveData<PagedList<Task>> mTasksSource;
+
+    // Méthode de tri et filtre de la requête courante
+    @Nullable
+    private SortMethod mTasksSortMethod;
+    @Nullable
+    private TaskFilter mTasksFilter;
+
+    /**
+     * Une création ou une suppression demandée par l'utilisateur, superposée à la liste paginée
+     */
+    private static final class PendingWrite {
+        final Task task;
+        final boolean deletion;
+        // Vrai lorsque l'écriture a été validée dans la base de données
+        boolean committed;
+
+        PendingWrite(Task task, boolean deletion) {
+            this.task = task;
+            this.deletion = deletion;
+        }
+    }
+
+    // Écritures superposées à la liste paginée, dans l'ordre des demandes (thread principal)
+    private final List<PendingWrite> mPendingWrites = new ArrayList<>();
+
+    // Superposition publiée à la vue
+    private final MutableLiveData<PendingTasks> mPendingTasks = new MutableLiveData<>(PendingTasks.EMPTY);
+
+    // Prochain identifiant provisoire d'une tâche créée, négatif pour ne jamais rencontrer un identifiant de la base
+    private long mNextPendingId = -1;
+
+    // Instant (System.nanoTime()) de réception de la dernière liste paginée, ou de création du ViewModel
+    private long mLastTasksNanos = System.nanoTime();
+
+    // Nombre de tâches enregistrées pour la première image du prochain démarrage : plus d'un écran
+    private static final int STARTUP_SNAPSHOT_SIZE = 50;
+
+    // Vrai une fois la liste enregistrée lue : elle ne sert qu'au premier affichage
+    private boolean mStartupSnapshotRead;
+
+    // Délai d'attente après la dernière frappe avant de lancer une recherche
+    private static final long SEARCH_DEBOUNCE_MILLIS = 250;
+
+    // Nombre maximal de résultats d'une recherche
+    private static final int SEARCH_LIMIT = 100;
+
+    // Exécution différée des recherches, sur la file des lectures
+    private final ExecutorLane mSearchExecutor;
+
+    // Résultats de la dernière recherche
+    private final MutableLiveData<List<Task>> mSearchResults = new MutableLiveData<>(Collections.emptyList());
+
+    // Numéro de la dernière recherche demandée : les résultats d'une recherche remplacée entre-temps sont ignorés
+    private final AtomicInteger mSearchGeneration = new AtomicInteger();
+
+    // Recherche planifiée et pas encore démarrée, annulée si une nouvelle recherche arrive
+    @Nullable
+    private Future<?> mPendingSearch;
+
+    // Bilan du dernier import, null une fois affiché
+    private final MutableLiveData<TaskImporter.Result> mImportResult = new MutableLiveData<>();
+
+    // Issue de la dernière sauvegarde ou restauration, null une fois affichée
+    private final MutableLiveData<BackupStatus> mBackupStatus = new MutableLiveData<>();
+
+    // Initialise des variables membres avec les sources de données des projets et tâches, ainsi que la file d'exécution des recherches
+    public TaskViewModel(ProjectDataRepository projectDataSource, TaskDataRepository taskDataSource,
+                         ExecutorLane searchExecutor) {
         mProjectDataSource = projectDataSource;
         mTaskDataSource = taskDataSource;
-        mExecutor = executor;
+        mSearchExecutor = searchExecutor;
+        mTasks.addSource(mSortMethod, sortMethod -> reloadTasks());
+        mTasks.addSource(mTaskFilter, filter -> reloadTasks());
+    }
+
+    // Remplace la requête source de la liste paginée par celle de l'état courant : une seule requête par changement,
+    // exécutée et triée par la base de données sur l'exécuteur d'entrées/sorties de la pagination.
+    // La méthode de tri et le filtre sont transmis l'un après l'autre à l'activation : une requête déjà créée
+    // pour le même état n'est pas remplacée.
+    private void reloadTasks() {
+        final SortMethod sortMethod = mSortMethod.getValue();
+        final TaskFilter filter = mTaskFilter.getValue();
+        if (mTasksSource != null) {
+            if (sortMethod == mTasksSortMethod && filter.equals(mTasksFilter)) {
+                return;
+            }
+            mTasks.removeSource(mTasksSource);
+        }
+        mTasksSortMethod = sortMethod;
+        mTasksFilter = filter;
+        mTasksSource = mTaskDataSource.getPagedTasks(sortMethod, filter);
+        mTasks.addSource(mTasksSource, this::onTasksLoaded);
+        // Les créations en attente suivent le tri et le filtre de la nouvelle liste
+        if (!mPendingWrites.isEmpty()) {
+            publishPendingTasks();
+        }
+    }
+
+    // Une liste reçue après la validation d'une écriture a été relue après celle-ci et la contient :
+    // l'écriture n'a plus besoin d'être superposée
+    private void onTasksLoaded(PagedList<Task> tasks) {
+        mLastTasksNanos = System.nanoTime();
+        mTasks.setValue(tasks);
+        removeCommittedWrites();
+        // Le filtre n'est pas conservé d'une exécution à l'autre : seule la liste complète est enregistrée
+        if (tasks != null && mTaskFilter.getValue().isAll()) {
+            saveStartupSnapshot(tasks);
+        }
+    }
+
+    // Enregistre le début de la liste reçue, déjà chargé, pour la première image du prochain démarrage
+    private void saveStartupSnapshot(PagedList<Task> tasks) {
+        final int size = Math.min(tasks.size(), STARTUP_SNAPSHOT_SIZE);
+        final TaskSnapshot.Builder builder = new TaskSnapshot.Builder(size);
+        for (int position = 0; position < size; position++) {
+            final Task task = tasks.get(position);
+            if (task != null) {
+                builder.add(task.getId(), task.getProjectId(), task.getName(), task.getCreationTimestamp());
+            }
+        }
+        mTaskDataSource.saveStartupSnapshot(builder.build(), mSortMethod.getValue());
+    }
+
+    // Cette méthode retourne la liste enregistrée lors de l'exécution précédente, à afficher en attendant
+    // la première liste paginée, ou null s'il n'y en a pas ou si une liste paginée est déjà disponible
+    // (activité recréée). La méthode de tri enregistrée avec elle devient la méthode de tri courante :
+    // la liste paginée qui la remplace est triée de la même façon.
+    @MainThread
+    @Nullable
+    public TaskSnapshot getStartupSnapshot() {
+        if (mStartupSnapshotRead || mTasks.getValue() != null) {
+            return null;
+        }
+        mStartupSnapshotRead = true;
+        final TaskSnapshotFile.Content content = mTaskDataSource.loadStartupSnapshot();
+        if (content == null) {
+            return null;
+        }
+        setSortMethod(content.getSortMethod());
+        return content.getSnapshot();
     }
 
     // la méthode init() vérifie si les projets ont été initialisés,
@@ -43,6 +221,8 @@ public class TaskViewModel extends ViewModel {
     public void init() {
         if (mProjects == null)
             mProjects = mProjectDataSource.getProjects();
+        if (mProjectStats == null)
+            mProjectStats = mProjectDataSource.getProjectStats();
     }
 
 
@@ -54,22 +234,261 @@ public class TaskViewModel extends ViewModel {
         return mProjects;
     }
 
-    // Cette méthode retourne un objet LiveData contenant une liste de tâches.
-    // Elle est utilisée pour accéder aux tâches de manière observable, de sorte que les observateurs peuvent être informés
-    // des changements de la liste de tâches et prendre des mesures appropriées.
-    public LiveData<List<Task>> getTasks() {
-        return mTaskDataSource.getTasks();
+    // Cette méthode retourne un objet LiveData contenant le nombre de tâches et la date de la plus récente
+    // de chaque projet, lus sans parcourir les tâches ; elle est disponible après init().
+    @Nullable
+    public LiveData<List<ProjectStats>> getProjectStats() {
+        return mProjectStats;
+    }
+
+    // Cette méthode retourne un objet LiveData contenant une liste paginée de tâches, triée par la base de données
+    // selon la méthode de tri courante. Seules les pages visibles (et une marge de préchargement) sont chargées,
+    // et la liste est rechargée automatiquement lorsque les tâches changent.
+    public LiveData<PagedList<Task>> getTasks() {
+        return mTasks;
+    }
+
+    // Cette méthode retourne les créations et suppressions pas encore visibles dans la liste paginée,
+    // à superposer à celle-ci pour que la liste affichée change dès la demande de l'utilisateur.
+    public LiveData<PendingTasks> getPendingTasks() {
+        return mPendingTasks;
+    }
+
+    // Cette méthode retourne la méthode de tri courante, par exemple pour cocher l'élément de menu correspondant.
+    public LiveData<SortMethod> getSortMethod() {
+        return mSortMethod;
+    }
+
+    // Change la méthode de tri : la liste paginée est alors rechargée avec la requête triée correspondante.
+    // Sélectionner la méthode déjà active ne relance aucune requête.
+    public void setSortMethod(SortMethod sortMethod) {
+        if (sortMethod != mSortMethod.getValue()) {
+            mSortMethod.setValue(sortMethod);
+        }
     }
 
+    // Cette méthode retourne le filtre courant : tous les projets, ou les projets sélectionnés.
+    public LiveData<TaskFilter> getTaskFilter() {
+        return mTaskFilter;
+    }
+
+    // Change le filtre : la liste paginée est rechargée avec les requêtes limitées aux projets sélectionnés,
+    // triées selon la méthode de tri courante. Sélectionner le filtre déjà actif ne relance aucune requête.
+    public void setTaskFilter(TaskFilter filter) {
+        if (!filter.equals(mTaskFilter.getValue())) {
+            mTaskFilter.setValue(filter);
+        }
+    }
+
+
+    // Cette méthode retourne un objet LiveData contenant les résultats de la dernière recherche.
+    public LiveData<List<Task>> getSearchResults() {
+        return mSearchResults;
+    }
+
+    // Lance une recherche des tâches par leur nom, à appeler à chaque modification du texte recherché.
+    // La recherche n'est lancée qu'après SEARCH_DEBOUNCE_MILLIS sans nouvelle saisie ; une recherche remplacée
+    // est annulée si elle n'a pas commencé, et ses résultats sont ignorés si elle est déjà en cours.
+    public void search(String text) {
+        final int generation = mSearchGeneration.incrementAndGet();
+        if (mPendingSearch != null) {
+            mPendingSearch.cancel(false);
+            mPendingSearch = null;
+        }
+        if (text.trim().isEmpty()) {
+            mSearchResults.setValue(Collections.emptyList());
+            return;
+        }
+        mPendingSearch = mSearchExecutor.schedule(() -> {
+            final List<Task> results = mTaskDataSource.search(text, SEARCH_LIMIT);
+            if (generation == mSearchGeneration.get()) {
+                mSearchResults.postValue(results);
+            }
+        }, SEARCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS, Priority.UI);
+    }
+
+    // Une recherche en attente n'a plus d'observateur lorsque le ViewModel est détruit
+    @Override
+    protected void onCleared() {
+        mSearchGeneration.incrementAndGet();
+        if (mPendingSearch != null) {
+            mPendingSearch.cancel(false);
+        }
+    }
+
+    // Importe un fichier de tâches en arrière-plan, par lots : la liste paginée est rechargée après chaque lot.
+    // Le bilan, complet ou partiel en cas d'erreur, est publié dans getImportResult().
+    public void importTasks(InputStream input) {
+        mTaskDataSource.importTasks(input, new ImportCallback() {
+            @Override
+            public void onImported(@NonNull TaskImporter.Result result) {
+                mImportResult.postValue(result);
+            }
+
+            @Override
+            public void onFailed(@NonNull Exception error, @NonNull TaskImporter.Result result) {
+                mImportResult.postValue(result);
+            }
+        });
+    }
+
+    // Cette méthode retourne le bilan du dernier import, à afficher une seule fois
+    public LiveData<TaskImporter.Result> getImportResult() {
+        return mImportResult;
+    }
+
+    // Le bilan a été affiché : il ne l'est plus après un changement de configuration
+    @MainThread
+    public void onImportResultShown() {
+        mImportResult.setValue(null);
+    }
+
+    // Sauvegarde en arrière-plan les projets et les tâches, en JSON Lines compressé ; l'issue est publiée
+    // dans getBackupStatus().
+    public void exportTasks(WritableByteChannel channel) {
+        mTaskDataSource.exportTasks(channel, TaskBackup.Format.JSON_LINES, true,
+                new BackupStatusCallback(BackupStatus.Operation.EXPORT));
+    }
+
+    // Remplace en arrière-plan les projets et les tâches par ceux d'une sauvegarde : la liste paginée est rechargée
+    // à la fin de la restauration, et l'issue publiée dans getBackupStatus().
+    public void restoreTasks(InputStream input) {
+        mTaskDataSource.restoreTasks(input, new BackupStatusCallback(BackupStatus.Operation.RESTORE));
+    }
 
-     // Création d'une nouvelle tâche de manière asynchrone en utilisant un Executor
+    // Cette méthode retourne le dernier échec d'une écriture de masse (sans suivi par la superposition),
+    // à signaler une seule fois
+    public LiveData<RuntimeException> getWriteFailure() {
+        return mTaskDataSource.getWriteFailure();
+    }
+
+    // L'échec a été signalé : il ne l'est plus après un changement de configuration
+    @MainThread
+    public void onWriteFailureShown() {
+        mTaskDataSource.onWriteFailureShown();
+    }
+
+    // Cette méthode retourne l'issue de la dernière sauvegarde ou restauration, à afficher une seule fois
+    public LiveData<BackupStatus> getBackupStatus() {
+        return mBackupStatus;
+    }
+
+    // L'issue a été affichée : elle ne l'est plus après un changement de configuration
+    @MainThread
+    public void onBackupStatusShown() {
+        mBackupStatus.setValue(null);
+    }
+
+    /**
+     * Publie l'issue d'une sauvegarde ou d'une restauration
+     */
+    private final class BackupStatusCallback implements BackupCallback {
+        private final BackupStatus.Operation mOperation;
+
+        BackupStatusCallback(BackupStatus.Operation operation) {
+            mOperation = operation;
+        }
+
+        @Override
+        public void onCompleted(@NonNull TaskBackup.Result result) {
+            mBackupStatus.postValue(new BackupStatus(mOperation, result));
+        }
+
+        @Override
+        public void onFailed(@NonNull Exception error) {
+            mBackupStatus.postValue(new BackupStatus(mOperation, null));
+        }
+    }
+
+     // Création d'une nouvelle tâche de manière asynchrone : le repository la confie à sa file d'écritures,
+     // qui regroupe les écritures proches dans une seule transaction. En attendant, une copie de la tâche
+     // avec un identifiant provisoire est publiée dans les écritures en attente.
+    @MainThread
     public void createTask(Task task) {
-        mExecutor.execute(() -> mTaskDataSource.createTask(task));
+        final Task pendingTask = new Task(mNextPendingId--, task.getProjectId(), task.getName(), task.getCreationTimestamp());
+        final PendingWrite write = new PendingWrite(pendingTask, false);
+        addPendingWrite(write);
+        mTaskDataSource.createTask(task, new PendingWriteCallback(write));
     }
 
-    // Cette méthode est appelée pour l'exécution de la tâche de suppression de manière asynchrone en utilisant l'objet mExecutor.
-    // Cela permet de déléguer la suppression tout en continuant à exécuter le reste du code de manière non bloquante.
+    // Cette méthode est appelée pour la suppression de la tâche de manière asynchrone, par la file d'écritures du repository.
+    // Cela permet de déléguer la suppression tout en continuant à exécuter le reste du code de manière non bloquante ;
+    // la tâche est masquée dès maintenant. Une tâche dont la création n'est pas encore validée n'a pas encore
+    // d'identifiant dans la base : sa suppression est ignorée.
+    @MainThread
     public void deleteTask(Task task) {
-        mExecutor.execute(() -> mTaskDataSource.deleteTask(task));
+        if (task.getId() < 0) {
+            return;
+        }
+        final PendingWrite write = new PendingWrite(task, true);
+        addPendingWrite(write);
+        mTaskDataSource.deleteTask(task, new PendingWriteCallback(write));
+    }
+
+    /**
+     * Informé de l'issue d'une écriture sur le thread des écritures, et la transmet au thread principal
+     */
+    private final class PendingWriteCallback implements WriteCallback {
+        private final PendingWrite mWrite;
+
+        PendingWriteCallback(PendingWrite write) {
+            mWrite = write;
+        }
+
+        @Override
+        public void onCommitted() {
+            final long committedNanos = System.nanoTime();
+            ArchTaskExecutor.getMainThreadExecutor().execute(() -> onWriteCommitted(mWrite, committedNanos));
+        }
+
+        @Override
+        public void onFailed(@NonNull RuntimeException error) {
+            // L'écriture n'a pas eu lieu : on retire la superposition, la liste affichée redevient celle de la base
+            ArchTaskExecutor.getMainThreadExecutor().execute(() -> {
+                mPendingWrites.remove(mWrite);
+                publishPendingTasks();
+            });
+        }
+    }
+
+    private void addPendingWrite(PendingWrite write) {
+        mPendingWrites.add(write);
+        publishPendingTasks();
+    }
+
+    private void onWriteCommitted(PendingWrite write, long committedNanos) {
+        write.committed = true;
+        // La liste relue après l'écriture est déjà arrivée : on n'en attend pas d'autre
+        if (mLastTasksNanos - committedNanos > 0) {
+            removeCommittedWrites();
+        }
+    }
+
+    private void removeCommittedWrites() {
+        boolean removed = false;
+        for (int i = mPendingWrites.size() - 1; i >= 0; i--) {
+            if (mPendingWrites.get(i).committed) {
+                mPendingWrites.remove(i);
+                removed = true;
+            }
+        }
+        if (removed) {
+            publishPendingTasks();
+        }
+    }
+
+    private void publishPendingTasks() {
+        final List<Task> createdTasks = new ArrayList<>();
+        final Set<Long> deletedIds = new HashSet<>();
+        for (PendingWrite write : mPendingWrites) {
+            if (write.deletion) {
+                deletedIds.add(write.task.getId());
+            } else {
+                createdTasks.add(write.task);
+            }
+        }
+        // Rangées selon le tri et le filtre courants, ceux de la liste paginée
+        mPendingTasks.setValue(createdTasks.isEmpty() && deletedIds.isEmpty() ? PendingTasks.EMPTY
+                : new PendingTasks(createdTasks, deletedIds, mSortMethod.getValue(), mTaskFilter.getValue()));
     }
 }
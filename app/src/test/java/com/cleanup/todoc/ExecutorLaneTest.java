@@ -0,0 +1,119 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.executor.ExecutorLane;
+import com.cleanup.todoc.executor.LaneMetrics;
+import com.cleanup.todoc.executor.Priority;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires des files d'exécution partagées de l'application
+ */
+public class ExecutorLaneTest {
+
+    private final ExecutorLane lane = new ExecutorLane("test", 1, Thread.NORM_PRIORITY);
+
+    @After
+    public void tearDown() {
+        lane.shutdown();
+    }
+
+    // ce test vérifie qu'une tâche de l'écran passe devant les traitements de masse en attente,
+    // et que les tâches de même priorité gardent leur ordre de soumission.
+    @Test
+    public void test_ui_tasks_skip_ahead_of_bulk_tasks() throws InterruptedException {
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch release = hold();
+        lane.execute(() -> order.add("bulk 1"), Priority.BULK);
+        lane.execute(() -> order.add("bulk 2"), Priority.BULK);
+        lane.execute(() -> order.add("default"));
+        lane.execute(() -> order.add("ui"), Priority.UI);
+        assertEquals(4, lane.getMetrics().getQueueDepth());
+        assertEquals(4, lane.getMetrics().getMaxQueueDepth());
+
+        release.countDown();
+        awaitIdle();
+
+        assertEquals(Arrays.asList("ui", "default", "bulk 1", "bulk 2"), order);
+        final LaneMetrics metrics = lane.getMetrics();
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(5, metrics.getCompletedCount());
+        assertEquals(2, metrics.getCompletedCount(Priority.BULK));
+        assertTrue(metrics.getMaxWaitMicros(Priority.BULK) >= metrics.getMaxWaitMicros(Priority.UI));
+    }
+
+    // ce test vérifie qu'une tâche différée est exécutée avant l'arrêt des threads,
+    // et qu'une tâche soumise après l'arrêt redémarre la file.
+    @Test
+    public void test_shutdown_drains_then_restarts() throws InterruptedException {
+        final CountDownLatch delayed = new CountDownLatch(1);
+        lane.schedule(delayed::countDown, 50, TimeUnit.MILLISECONDS, Priority.UI);
+        lane.shutdown();
+        assertTrue(lane.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, delayed.getCount());
+
+        final CountDownLatch restarted = new CountDownLatch(1);
+        lane.execute(restarted::countDown);
+        assertTrue(restarted.await(5, TimeUnit.SECONDS));
+    }
+
+    // ce test vérifie qu'aucune tâche n'est refusée lorsque shutdown() est appelé pendant les soumissions :
+    // chaque tâche est exécutée, par les threads en cours d'arrêt ou par de nouveaux threads.
+    @Test
+    public void test_shutdown_during_submissions_rejects_nothing() throws InterruptedException {
+        final int tasks = 20_000;
+        final CountDownLatch done = new CountDownLatch(tasks);
+        final Thread stopper = new Thread(() -> {
+            while (done.getCount() > 0 && !Thread.currentThread().isInterrupted()) {
+                lane.shutdown();
+            }
+        });
+        stopper.start();
+        try {
+            for (int i = 0; i < tasks; i++) {
+                if (i % 2 == 0) {
+                    lane.execute(done::countDown);
+                } else {
+                    lane.schedule(done::countDown, 0, TimeUnit.MILLISECONDS, Priority.BULK);
+                }
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            stopper.interrupt();
+            stopper.join();
+        }
+    }
+
+    // Occupe l'unique thread de la file jusqu'à l'ouverture du verrou
+    private CountDownLatch hold() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        lane.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    // Attend que toutes les tâches soumises soient terminées et mesurées
+    private void awaitIdle() throws InterruptedException {
+        lane.shutdown();
+        assertTrue(lane.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
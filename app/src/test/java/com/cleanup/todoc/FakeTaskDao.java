@@ -0,0 +1,340 @@
+package com.cleanup.todoc;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.model.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * DAO des tâches en mémoire pour les tests unitaires : il compte les transactions et les requêtes d'écriture,
+ * et peut simuler une base lente en attendant avant chaque écriture, ou une base en erreur.
+ * Les requêtes paginées sont évaluées sur la table en mémoire avec le même ordre et les mêmes clés que leur SQL
+ * (pages suivantes strictement après la clé, filtre project_id IN), l'archive étant une seconde table.
+ */
+class FakeTaskDao implements TaskDao {
+
+    // Ordres des requêtes paginées : (creationTimestamp, id) et (name, id)
+    private static final Comparator<Task> BY_TIMESTAMP =
+            Comparator.comparingLong(Task::getCreationTimestamp).thenComparingLong(Task::getId);
+    private static final Comparator<Task> BY_NAME =
+            Comparator.comparing(Task::getName).thenComparingLong(Task::getId);
+
+    final TreeMap<Long, Task> tasks = new TreeMap<>();
+
+    // Tâches archivées, comme la table task_archive
+    final TreeMap<Long, Task> archive = new TreeMap<>();
+
+    int transactions;
+
+    int writeQueries;
+
+    int searches;
+
+    // Si vrai, chaque écriture lève une exception, comme une base en erreur
+    volatile boolean failWrites;
+
+    private final long writeDelayMillis;
+
+    private long nextId = 1;
+
+    FakeTaskDao() {
+        this(0);
+    }
+
+    FakeTaskDao(long writeDelayMillis) {
+        this.writeDelayMillis = writeDelayMillis;
+    }
+
+    @Override
+    public synchronized LiveData<List<Task>> getTasks() {
+        return new MutableLiveData<>(snapshot());
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampAsc(int limit) {
+        return page(tasks.values(), BY_TIMESTAMP, null, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampAscAfter(long timestamp, long id, int limit) {
+        return page(tasks.values(), BY_TIMESTAMP, null, key(id, null, timestamp), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampDesc(int limit) {
+        return page(tasks.values(), BY_TIMESTAMP.reversed(), null, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampDescAfter(long timestamp, long id, int limit) {
+        return page(tasks.values(), BY_TIMESTAMP.reversed(), null, key(id, null, timestamp), limit);
+    }
+
+    @Override
+    public synchronized void copyTasksToArchive(long before, int limit) {
+        write();
+        for (Task task : oldest(before, limit)) {
+            archive.put(task.getId(), copy(task));
+        }
+    }
+
+    @Override
+    public synchronized int deleteTasksCreatedBefore(long before, int limit) {
+        write();
+        final List<Task> oldest = oldest(before, limit);
+        for (Task task : oldest) {
+            tasks.remove(task.getId());
+        }
+        return oldest.size();
+    }
+
+    @Override
+    public synchronized long getArchivedTaskCount() {
+        return archive.size();
+    }
+
+    @Override
+    public synchronized List<Task> getTaskHistoryDesc(int limit) {
+        return page(history(), BY_TIMESTAMP.reversed(), null, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTaskHistoryDescAfter(long timestamp, long id, int limit) {
+        return page(history(), BY_TIMESTAMP.reversed(), null, key(id, null, timestamp), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameAsc(int limit) {
+        return page(tasks.values(), BY_NAME, null, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameAscAfter(String name, long id, int limit) {
+        return page(tasks.values(), BY_NAME, null, key(id, name, 0), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameDesc(int limit) {
+        return page(tasks.values(), BY_NAME.reversed(), null, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameDescAfter(String name, long id, int limit) {
+        return page(tasks.values(), BY_NAME.reversed(), null, key(id, name, 0), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampAscInProjects(long[] projectIds, int limit) {
+        return page(tasks.values(), BY_TIMESTAMP, projectIds, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampAscAfterInProjects(long[] projectIds, long timestamp, long id,
+                                                                         int limit) {
+        return page(tasks.values(), BY_TIMESTAMP, projectIds, key(id, null, timestamp), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampDescInProjects(long[] projectIds, int limit) {
+        return page(tasks.values(), BY_TIMESTAMP.reversed(), projectIds, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByTimestampDescAfterInProjects(long[] projectIds, long timestamp, long id,
+                                                                          int limit) {
+        return page(tasks.values(), BY_TIMESTAMP.reversed(), projectIds, key(id, null, timestamp), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameAscInProjects(long[] projectIds, int limit) {
+        return page(tasks.values(), BY_NAME, projectIds, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameAscAfterInProjects(long[] projectIds, String name, long id, int limit) {
+        return page(tasks.values(), BY_NAME, projectIds, key(id, name, 0), limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameDescInProjects(long[] projectIds, int limit) {
+        return page(tasks.values(), BY_NAME.reversed(), projectIds, null, limit);
+    }
+
+    @Override
+    public synchronized List<Task> getTasksByNameDescAfterInProjects(long[] projectIds, String name, long id,
+                                                                     int limit) {
+        return page(tasks.values(), BY_NAME.reversed(), projectIds, key(id, name, 0), limit);
+    }
+
+    // Interprète les expressions produites par TaskSearchQuery.toMatchQuery() : chaque "préfixe*"
+    // doit commencer un mot du nom, sans tenir compte de la casse
+    @Override
+    public synchronized List<Task> search(String query, int limit) {
+        searches++;
+        final List<Task> result = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            final List<String> words = Arrays.asList(task.getName().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"));
+            boolean matches = true;
+            for (String prefix : query.replace("*\"", "").replace("\"", "").toLowerCase(Locale.ROOT).split(" ")) {
+                boolean found = false;
+                for (String word : words) {
+                    found |= word.startsWith(prefix);
+                }
+                matches &= found;
+            }
+            if (matches && result.size() < limit) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void insertTask(Task task) {
+        insertTasks(Collections.singletonList(task));
+    }
+
+    @Override
+    public synchronized void deleteTask(Task task) {
+        deleteTasksByIds(new long[]{task.getId()});
+    }
+
+    @Override
+    public synchronized void insertTasks(List<Task> tasks) {
+        write();
+        for (Task task : tasks) {
+            final long id = task.getId() != 0 ? task.getId() : nextId;
+            nextId = Math.max(nextId, id + 1);
+            this.tasks.put(id, new Task(id, task.getProjectId(), task.getName(), task.getCreationTimestamp()));
+        }
+    }
+
+    @Override
+    public synchronized int deleteTasksByIds(long[] ids) {
+        checkIds(ids);
+        write();
+        int count = 0;
+        for (long id : ids) {
+            if (tasks.remove(id) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int moveTasksToProject(long[] ids, long projectId) {
+        checkIds(ids);
+        write();
+        int count = 0;
+        for (long id : ids) {
+            final Task task = tasks.get(id);
+            if (task != null) {
+                task.setProjectId(projectId);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized List<Task> getTaskList() {
+        return snapshot();
+    }
+
+    @Override
+    public synchronized void runInTransaction(Runnable writes) {
+        transactions++;
+        writes.run();
+    }
+
+    // Copie des tâches, comme une lecture en base : les objets renvoyés ne suivent pas les écritures suivantes
+    synchronized List<Task> snapshot() {
+        final List<Task> result = new ArrayList<>(tasks.size());
+        for (Task task : tasks.values()) {
+            result.add(copy(task));
+        }
+        return result;
+    }
+
+    // Une page : les tâches des projets donnés (toutes si null), dans l'ordre donné, strictement après la clé
+    // si elle est donnée, comme les requêtes par clé du DAO
+    private static List<Task> page(Collection<Task> source, Comparator<Task> order, long[] projectIds, Task after,
+                                   int limit) {
+        final List<Task> result = new ArrayList<>();
+        for (Task task : source) {
+            if ((projectIds == null || contains(projectIds, task.getProjectId()))
+                    && (after == null || order.compare(task, after) > 0)) {
+                result.add(copy(task));
+            }
+        }
+        result.sort(order);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    // Clé d'une page suivante : seuls l'identifiant et la colonne de tri comptent
+    private static Task key(long id, String name, long timestamp) {
+        return new Task(id, 0, name, timestamp);
+    }
+
+    private static boolean contains(long[] values, long value) {
+        for (long candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Les tâches les plus anciennes créées avant l'instant donné, comme les requêtes d'archivage
+    private List<Task> oldest(long before, int limit) {
+        final List<Task> result = new ArrayList<>();
+        for (Task task : page(tasks.values(), BY_TIMESTAMP, null, null, Integer.MAX_VALUE)) {
+            if (task.getCreationTimestamp() < before && result.size() < limit) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    // Les tâches courantes et archivées, comme l'union des requêtes d'historique
+    private List<Task> history() {
+        final List<Task> result = new ArrayList<>(tasks.values());
+        result.addAll(archive.values());
+        return result;
+    }
+
+    private static Task copy(Task task) {
+        return new Task(task.getId(), task.getProjectId(), task.getName(), task.getCreationTimestamp());
+    }
+
+    private void write() {
+        if (failWrites) {
+            throw new IllegalStateException("disk I/O error");
+        }
+        writeQueries++;
+        if (writeDelayMillis > 0) {
+            try {
+                Thread.sleep(writeDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void checkIds(long[] ids) {
+        if (ids.length > MAX_IDS_PER_QUERY) {
+            throw new IllegalArgumentException("too many ids: " + ids.length);
+        }
+    }
+}
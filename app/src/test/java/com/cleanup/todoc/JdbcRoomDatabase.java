@@ -0,0 +1,273 @@
+package com.cleanup.todoc;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.DatabaseConfiguration;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Une RoomDatabase sur une connexion JDBC (sqlite-jdbc), pour exécuter sur la JVM le code de l'application qui écrit
+ * directement par la base (TaskImporter, TaskBackup) : transactions, requêtes, requêtes compilées et connexion des écritures.
+ * Room n'est pas initialisé : aucun DAO, ni observateur de tables. Les requêtes compilées ne renvoient pas
+ * l'identifiant inséré (executeInsert() renvoie -1), que l'import et la restauration ne lisent pas ; les autres méthodes de
+ * SupportSQLiteDatabase lèvent une UnsupportedOperationException.
+ */
+final class JdbcRoomDatabase extends RoomDatabase {
+
+    private final Connection mConnection;
+
+    private final SupportSQLiteDatabase mDatabase;
+
+    private final SupportSQLiteOpenHelper mOpenHelper;
+
+    // Vrai lorsque la transaction en cours doit être validée
+    private boolean mSuccessful;
+
+    JdbcRoomDatabase(@NonNull Connection connection) {
+        mConnection = connection;
+        mDatabase = (SupportSQLiteDatabase) Proxy.newProxyInstance(SupportSQLiteDatabase.class.getClassLoader(),
+                new Class<?>[]{SupportSQLiteDatabase.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "execSQL":
+                            try (Statement statement = mConnection.createStatement()) {
+                                statement.execute((String) args[0]);
+                            }
+                            return null;
+                        case "query":
+                            return query((String) args[0], args.length > 1 ? (Object[]) args[1] : null);
+                        case "compileStatement":
+                            return compileStatement((String) args[0]);
+                        case "beginTransaction":
+                        case "beginTransactionNonExclusive":
+                            beginTransaction();
+                            return null;
+                        case "setTransactionSuccessful":
+                            setTransactionSuccessful();
+                            return null;
+                        case "endTransaction":
+                            endTransaction();
+                            return null;
+                        case "inTransaction":
+                            return inTransaction();
+                        case "isOpen":
+                            return isOpen();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        mOpenHelper = (SupportSQLiteOpenHelper) Proxy.newProxyInstance(
+                SupportSQLiteOpenHelper.class.getClassLoader(), new Class<?>[]{SupportSQLiteOpenHelper.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getWritableDatabase":
+                        case "getReadableDatabase":
+                            return mDatabase;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @NonNull
+    @Override
+    protected SupportSQLiteOpenHelper createOpenHelper(DatabaseConfiguration config) {
+        throw new UnsupportedOperationException("not initialized by Room");
+    }
+
+    @NonNull
+    @Override
+    protected InvalidationTracker createInvalidationTracker() {
+        return new InvalidationTracker(this);
+    }
+
+    @Override
+    public void clearAllTables() {
+        throw new UnsupportedOperationException("clearAllTables");
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper getOpenHelper() {
+        return mOpenHelper;
+    }
+
+    @Override
+    public boolean isOpen() {
+        try {
+            return !mConnection.isClosed();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void beginTransaction() {
+        try {
+            mConnection.setAutoCommit(false);
+            mSuccessful = false;
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setTransactionSuccessful() {
+        mSuccessful = true;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void endTransaction() {
+        try {
+            if (mSuccessful) {
+                mConnection.commit();
+            } else {
+                mConnection.rollback();
+            }
+            mConnection.setAutoCommit(true);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean inTransaction() {
+        try {
+            return !mConnection.getAutoCommit();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Exécute la requête et renvoie toutes ses lignes dans un curseur en mémoire.
+     */
+    @NonNull
+    @Override
+    public Cursor query(@NonNull String sql, Object[] args) {
+        try (PreparedStatement statement = mConnection.prepareStatement(sql)) {
+            for (int i = 0; args != null && i < args.length; i++) {
+                statement.setObject(i + 1, args[i]);
+            }
+            final List<String> columns = new ArrayList<>();
+            final List<Object[]> rows = new ArrayList<>();
+            try (ResultSet result = statement.executeQuery()) {
+                // sqlite-jdbc ferme d'emblée le résultat d'une requête sans ligne
+                if (!result.isClosed()) {
+                    final int count = result.getMetaData().getColumnCount();
+                    for (int column = 1; column <= count; column++) {
+                        columns.add(result.getMetaData().getColumnName(column));
+                    }
+                    while (result.next()) {
+                        final Object[] row = new Object[count];
+                        for (int column = 0; column < count; column++) {
+                            row[column] = result.getObject(column + 1);
+                        }
+                        rows.add(row);
+                    }
+                }
+            }
+            return cursor(columns, rows);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteStatement compileStatement(@NonNull String sql) {
+        final PreparedStatement statement;
+        try {
+            statement = mConnection.prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return (SupportSQLiteStatement) Proxy.newProxyInstance(SupportSQLiteStatement.class.getClassLoader(),
+                new Class<?>[]{SupportSQLiteStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "bindLong":
+                        case "bindString":
+                        case "bindDouble":
+                        case "bindBlob":
+                            statement.setObject((int) args[0], args[1]);
+                            return null;
+                        case "bindNull":
+                            statement.setObject((int) args[0], null);
+                            return null;
+                        case "clearBindings":
+                            statement.clearParameters();
+                            return null;
+                        case "execute":
+                            statement.execute();
+                            return null;
+                        case "executeUpdateDelete":
+                            return statement.executeUpdate();
+                        case "executeInsert":
+                            statement.executeUpdate();
+                            return -1L;
+                        case "close":
+                            statement.close();
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Curseur en mémoire sur les lignes lues, parcouru en avant comme le fait le code de l'application
+     */
+    private static Cursor cursor(List<String> columns, List<Object[]> rows) {
+        final int[] position = {-1};
+        return (Cursor) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[]{Cursor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getCount":
+                            return rows.size();
+                        case "getColumnCount":
+                            return columns.size();
+                        case "getPosition":
+                            return position[0];
+                        case "moveToFirst":
+                            position[0] = 0;
+                            return !rows.isEmpty();
+                        case "moveToNext":
+                            position[0] = Math.min(position[0] + 1, rows.size());
+                            return position[0] < rows.size();
+                        case "getColumnIndex":
+                            return columns.indexOf((String) args[0]);
+                        case "isNull":
+                            return rows.get(position[0])[(int) args[0]] == null;
+                        case "getLong":
+                            return ((Number) rows.get(position[0])[(int) args[0]]).longValue();
+                        case "getInt":
+                            return ((Number) rows.get(position[0])[(int) args[0]]).intValue();
+                        case "getString":
+                            final Object value = rows.get(position[0])[(int) args[0]];
+                            return value == null ? null : String.valueOf(value);
+                        case "close":
+                            return null;
+                        case "isClosed":
+                            return false;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,281 @@
+package com.cleanup.todoc;
+
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.cleanup.todoc.database.TodocDatabase;
+import com.cleanup.todoc.model.Task;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cette classe ouvre la base de l'application sur la JVM, avec SQLite (sqlite-jdbc) : le schéma est celui que Room a
+ * créé pour la version 1, complété par toutes les migrations de {@link TodocDatabase}. Elle donne aussi accès aux
+ * requêtes @Query des DAO, lues dans les sources, et à celles que Room génère pour @Insert et @Delete,
+ * pour les exécuter telles que l'application les exécute.
+ */
+final class JdbcTodocDatabase {
+
+    private static final String[] DAO_SOURCES = {
+            "src/main/java/com/cleanup/todoc/database/TaskDao.java",
+            "src/main/java/com/cleanup/todoc/database/ProjectDao.java"
+    };
+
+    /**
+     * Schéma créé par Room pour la version 1 de la base (entités Project et Task)
+     */
+    private static final String[] VERSION_1_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS `project` (`id` INTEGER NOT NULL, `name` TEXT NOT NULL, "
+                    + "`color` INTEGER NOT NULL, PRIMARY KEY(`id`))",
+            "CREATE TABLE IF NOT EXISTS `task` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`project_id` INTEGER NOT NULL, `name` TEXT NOT NULL, `creationTimestamp` INTEGER NOT NULL, "
+                    + "FOREIGN KEY(`project_id`) REFERENCES `project`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE INDEX IF NOT EXISTS `index_task_project_id` ON `task` (`project_id`)"
+    };
+
+    /**
+     * Requête générée par Room pour ProjectDao.insertProject
+     */
+    static final String INSERT_PROJECT = "INSERT OR ABORT INTO `project` (`id`,`name`,`color`) VALUES (?,?,?)";
+
+    /**
+     * Requête générée par Room pour TaskDao.insertTask et TaskDao.insertTasks
+     */
+    static final String INSERT_TASK =
+            "INSERT OR ABORT INTO `task` (`id`,`project_id`,`name`,`creationTimestamp`) VALUES (nullif(?, 0),?,?,?)";
+
+    /**
+     * Requête générée par Room pour TaskDao.deleteTask
+     */
+    static final String DELETE_TASK = "DELETE FROM `task` WHERE `id` = ?";
+
+    private static final Pattern PARAMETER = Pattern.compile(":(\\w+)");
+
+    private JdbcTodocDatabase() {
+    }
+
+    /**
+     * Ouvre une base au schéma de la dernière version, avec les contraintes de clés étrangères activées comme
+     * le fait Room à chaque ouverture.
+     * @param url l'adresse JDBC de la base, par exemple "jdbc:sqlite::memory:"
+     */
+    static Connection open(String url) throws SQLException {
+        return open(url, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ouvre une base au schéma de la version donnée, pour tester une migration sur des données existantes.
+     * @param url l'adresse JDBC de la base
+     * @param version la version du schéma, atteinte par les migrations de TodocDatabase
+     */
+    static Connection open(String url, int version) throws SQLException {
+        final Connection connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = ON");
+            for (String sql : VERSION_1_SCHEMA) {
+                statement.execute(sql);
+            }
+            for (Migration migration : TodocDatabase.MIGRATIONS) {
+                if (migration.endVersion <= version) {
+                    migrate(connection, migration);
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Applique une migration de TodocDatabase à la base.
+     */
+    static void migrate(Connection connection, Migration migration) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            migration.migrate(executeOnly(statement));
+        }
+    }
+
+    /**
+     * Lit les requêtes @Query des sources des DAO : la concaténation de leurs chaînes, par "Dao.méthode".
+     */
+    static Map<String, String> readQueries() throws IOException {
+        final Pattern annotation = Pattern.compile("@Query\\(((?:\\s*\"(?:[^\"\\\\]|\\\\.)*\"\\s*\\+?)+)\\)");
+        final Pattern literal = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+        final Pattern method = Pattern.compile("(\\w+)\\s*\\(");
+        final Map<String, String> queries = new LinkedHashMap<>();
+        for (String path : DAO_SOURCES) {
+            final File file = moduleFile(path);
+            final String dao = file.getName().replace(".java", "");
+            final String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            final Matcher matcher = annotation.matcher(source);
+            while (matcher.find()) {
+                final StringBuilder sql = new StringBuilder();
+                final Matcher part = literal.matcher(matcher.group(1));
+                while (part.find()) {
+                    sql.append(part.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+                }
+                // La méthode annotée : le premier appel après l'annotation, hors commentaires et autres annotations
+                final String declaration = source.substring(matcher.end(), source.indexOf(';', matcher.end()))
+                        .replaceAll("//.*", "")
+                        .replaceAll("@\\w+(\\([^)]*\\))?", "");
+                final Matcher name = method.matcher(declaration);
+                if (!name.find()) {
+                    throw new IllegalStateException("no method after " + matcher.group());
+                }
+                queries.put(dao + "." + name.group(1), sql.toString());
+            }
+        }
+        if (queries.isEmpty()) {
+            throw new IllegalStateException("no @Query found");
+        }
+        return queries;
+    }
+
+    /**
+     * Prépare une requête de DAO : les paramètres nommés de Room (:nom) sont liés dans l'ordre où ils apparaissent,
+     * chaque liste IN (:ids) recevant autant de paramètres que la liste a d'éléments.
+     */
+    static Query prepare(Connection connection, String sql, Map<String, Integer> listSizes) throws SQLException {
+        final List<String> names = new ArrayList<>();
+        final StringBuffer jdbcSql = new StringBuffer();
+        final Matcher matcher = PARAMETER.matcher(sql);
+        while (matcher.find()) {
+            final Integer size = listSizes.get(matcher.group(1));
+            final StringBuilder placeholders = new StringBuilder("?");
+            names.add(matcher.group(1));
+            for (int i = 1; size != null && i < size; i++) {
+                placeholders.append(",?");
+                names.add(matcher.group(1));
+            }
+            matcher.appendReplacement(jdbcSql, placeholders.toString());
+        }
+        matcher.appendTail(jdbcSql);
+        return new Query(connection.prepareStatement(jdbcSql.toString()), names);
+    }
+
+    /**
+     * Prépare une requête de DAO sans liste IN.
+     */
+    static Query prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, Collections.emptyMap());
+    }
+
+    /**
+     * Lit toutes les lignes de la requête en tâches, comme le code généré par Room.
+     */
+    static List<Task> readTasks(PreparedStatement statement) throws SQLException {
+        final List<Task> tasks = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery()) {
+            // sqlite-jdbc ferme d'emblée le résultat d'une requête sans ligne
+            if (rows.isClosed()) {
+                return tasks;
+            }
+            final int id = rows.findColumn("id");
+            final int projectId = rows.findColumn("project_id");
+            final int name = rows.findColumn("name");
+            final int creationTimestamp = rows.findColumn("creationTimestamp");
+            while (rows.next()) {
+                tasks.add(new Task(rows.getLong(id), rows.getLong(projectId), rows.getString(name),
+                        rows.getLong(creationTimestamp)));
+            }
+        }
+        return tasks;
+    }
+
+    static long countTasks(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM task")) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    /**
+     * Renvoie un fichier du module, que les tests soient lancés depuis le module (Gradle) ou depuis le projet.
+     */
+    static File moduleFile(String path) {
+        return new File("src/main").isDirectory() ? new File(path) : new File("app", path);
+    }
+
+    /**
+     * Enveloppe la connexion dans une SupportSQLiteDatabase qui n'accepte que execSQL(), la seule méthode
+     * utilisée par les migrations.
+     */
+    private static SupportSQLiteDatabase executeOnly(Statement statement) {
+        return (SupportSQLiteDatabase) Proxy.newProxyInstance(SupportSQLiteDatabase.class.getClassLoader(),
+                new Class<?>[]{SupportSQLiteDatabase.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("execSQL") || args.length != 1) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    statement.execute((String) args[0]);
+                    return null;
+                });
+    }
+
+    /**
+     * Une requête de DAO préparée, dont les paramètres sont liés par leur nom
+     */
+    static final class Query implements AutoCloseable {
+
+        private final PreparedStatement mStatement;
+
+        private final List<String> mNames;
+
+        Query(PreparedStatement statement, List<String> names) {
+            mStatement = statement;
+            mNames = names;
+        }
+
+        /**
+         * Lie la valeur donnée à toutes les occurrences du paramètre.
+         */
+        Query bind(String name, Object value) throws SQLException {
+            for (int i = 0; i < mNames.size(); i++) {
+                if (mNames.get(i).equals(name)) {
+                    mStatement.setObject(i + 1, value);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Lie les éléments d'une liste IN, dans l'ordre ; la liste doit avoir la taille donnée à la préparation.
+         */
+        Query bind(String name, long[] values) throws SQLException {
+            int index = 0;
+            for (int i = 0; i < mNames.size(); i++) {
+                if (mNames.get(i).equals(name)) {
+                    mStatement.setLong(i + 1, values[index++]);
+                }
+            }
+            return this;
+        }
+
+        PreparedStatement getStatement() {
+            return mStatement;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            mStatement.close();
+        }
+    }
+}
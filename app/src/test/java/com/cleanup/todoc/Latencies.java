@@ -0,0 +1,65 @@
+package com.cleanup.todoc;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Les durées d'une opération de banc d'essai et le nombre de lignes traitées, pour le débit et les centiles exacts.
+ * Une instance n'est remplie que par un seul thread ; celles de plusieurs threads sont réunies par {@link #addAll}.
+ */
+final class Latencies {
+
+    private long[] mNanos = new long[64];
+
+    private int mCount;
+
+    private long mRows;
+
+    void add(long nanos, int rows) {
+        if (mCount == mNanos.length) {
+            mNanos = Arrays.copyOf(mNanos, mCount * 2);
+        }
+        mNanos[mCount++] = nanos;
+        mRows += rows;
+    }
+
+    void addAll(Latencies other) {
+        for (int i = 0; i < other.mCount; i++) {
+            add(other.mNanos[i], 0);
+        }
+        mRows += other.mRows;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    long getRows() {
+        return mRows;
+    }
+
+    /**
+     * Écrit une ligne : le libellé (volume, mode...), l'opération, le nombre de mesures, le débit en lignes
+     * par seconde de mesure, puis les centiles 50, 90, 99 et le maximum, en µs.
+     */
+    void print(String label, String operation) {
+        final long[] sorted = Arrays.copyOf(mNanos, mCount);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long nanos : sorted) {
+            total += nanos;
+        }
+        System.out.printf("%-10s %-22s %8d %12d %9d %9d %9d %9d%n", label, operation, mCount,
+                total == 0 ? 0 : mRows * TimeUnit.SECONDS.toNanos(1) / total,
+                percentileMicros(sorted, 50), percentileMicros(sorted, 90), percentileMicros(sorted, 99),
+                sorted.length == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length - 1]));
+    }
+
+    private static long percentileMicros(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(sorted.length * percentile / 100.0) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+    }
+}
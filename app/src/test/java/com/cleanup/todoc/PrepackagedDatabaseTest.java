@@ -0,0 +1,182 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TodocDatabase;
+import com.cleanup.todoc.model.Project;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests de la base préconstruite livrée dans les assets ({@link TodocDatabase#DATABASE_ASSET}), que Room copie
+ * au premier lancement. Elle doit être identique à une base créée par les migrations de TodocDatabase
+ * (voir {@link JdbcTodocDatabase}) puis remplie des projets prédéfinis : même schéma, mêmes index et déclencheurs,
+ * mêmes lignes, même version et même mode de compactage (incrémental).
+ * <p>
+ * Après une modification du schéma ou des projets, la base est régénérée avec
+ * {@code ./gradlew :app:testDebugUnitTest --tests '*PrepackagedDatabaseTest' -Ptodoc.updateAsset=true}.
+ */
+public class PrepackagedDatabaseTest {
+
+    private static final String ASSET = "src/main/assets/" + TodocDatabase.DATABASE_ASSET;
+
+    /**
+     * Contenu comparé des deux bases : le schéma, dans l'ordre de sqlite_master, puis les lignes des tables remplies
+     */
+    private static final String[] CONTENT = {
+            "SELECT type, name, tbl_name, sql FROM sqlite_master ORDER BY type, name",
+            "SELECT id, name, color FROM project ORDER BY id",
+            "SELECT project_id, task_count, last_task_timestamp FROM project_stats ORDER BY project_id",
+            "SELECT COUNT(*) FROM task",
+            "PRAGMA user_version",
+            "PRAGMA auto_vacuum"
+    };
+
+    // ce test vérifie que la base préconstruite est à jour : identique à celle que produisent les migrations,
+    // à la version courante du schéma.
+    @Test
+    public void test_asset_matches_migrated_schema() throws SQLException, IOException {
+        final File asset = JdbcTodocDatabase.moduleFile(ASSET);
+        if (Boolean.getBoolean("todoc.updateAsset")) {
+            write(asset);
+        }
+        assertTrue("missing " + asset + ", run with -Ptodoc.updateAsset=true", asset.exists());
+
+        final File expected = File.createTempFile("todoc", ".db");
+        try {
+            create(expected);
+            try (Connection actualConnection = DriverManager.getConnection("jdbc:sqlite:" + asset);
+                 Connection expectedConnection = DriverManager.getConnection("jdbc:sqlite:" + expected)) {
+                for (String query : CONTENT) {
+                    assertEquals("outdated asset, run with -Ptodoc.updateAsset=true: " + query,
+                            rows(expectedConnection, query), rows(actualConnection, query));
+                }
+                assertEquals(String.valueOf(TodocDatabase.VERSION), rows(actualConnection, "PRAGMA user_version"));
+                assertEquals(String.valueOf(TodocDatabase.AUTO_VACUUM_INCREMENTAL),
+                        rows(actualConnection, "PRAGMA auto_vacuum"));
+            }
+        } finally {
+            Files.deleteIfExists(expected.toPath());
+        }
+    }
+
+    // ce test vérifie que la base préconstruite contient les projets prédéfinis et leurs statistiques,
+    // et que ses déclencheurs fonctionnent dès la copie.
+    @Test
+    public void test_asset_contains_projects_and_triggers() throws SQLException, IOException {
+        final File copy = File.createTempFile("todoc", ".db");
+        try {
+            Files.copy(JdbcTodocDatabase.moduleFile(ASSET).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy);
+                 Statement statement = connection.createStatement()) {
+                assertEquals(String.valueOf(Project.getAllProjects().length), rows(connection, "SELECT COUNT(*) FROM project"));
+                final long projectId = Project.getAllProjects()[0].getId();
+                statement.execute("INSERT INTO task (project_id, name, creationTimestamp) VALUES (" + projectId + ", 'a', 100)");
+                assertEquals("1 100", rows(connection,
+                        "SELECT task_count, last_task_timestamp FROM project_stats WHERE project_id = " + projectId));
+                assertEquals("1", rows(connection, "SELECT COUNT(*) FROM task_fts WHERE task_fts MATCH 'a'"));
+            }
+        } finally {
+            Files.deleteIfExists(copy.toPath());
+        }
+    }
+
+    // ce test vérifie que la migration 8 → 9 supprime le journal des modifications, sa table d'état et ses déclencheurs
+    // d'une base qui les avait, sans toucher aux tâches.
+    @Test
+    public void test_migration_drops_changelog() throws SQLException {
+        try (Connection version8 = JdbcTodocDatabase.open("jdbc:sqlite::memory:", 8);
+             Statement statement = version8.createStatement()) {
+            // Le journal tel que l'avaient créé les migrations 3 → 4 et 7 → 8
+            statement.execute("CREATE TABLE task_changelog (seq INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "task_id INTEGER NOT NULL, op INTEGER NOT NULL)");
+            statement.execute("CREATE TABLE task_changelog_state (id INTEGER NOT NULL, enabled INTEGER NOT NULL, "
+                    + "PRIMARY KEY(id))");
+            statement.execute("INSERT INTO task_changelog_state (id, enabled) VALUES (1, 1)");
+            statement.execute("CREATE TRIGGER task_changelog_AFTER_INSERT AFTER INSERT ON task "
+                    + "WHEN (SELECT enabled FROM task_changelog_state WHERE id = 1) "
+                    + "BEGIN INSERT INTO task_changelog(task_id, op) VALUES (NEW.id, 0); END");
+            statement.execute("INSERT INTO project (id, name, color) VALUES (1, 'Projet 1', 0)");
+            statement.execute("INSERT INTO task (project_id, name, creationTimestamp) VALUES (1, 'a', 10)");
+            assertEquals("1", rows(version8, "SELECT COUNT(*) FROM task_changelog"));
+
+            JdbcTodocDatabase.migrate(version8, TodocDatabase.MIGRATION_8_9);
+            assertEquals("0", rows(version8, "SELECT COUNT(*) FROM sqlite_master WHERE name LIKE 'task_changelog%'"));
+            statement.execute("INSERT INTO task (project_id, name, creationTimestamp) VALUES (1, 'b', 20)");
+            assertEquals("a, b", rows(version8, "SELECT name FROM task ORDER BY id"));
+        }
+    }
+
+    /**
+     * Crée la base préconstruite dans un fichier : le schéma de la version courante, obtenu par les migrations,
+     * puis les projets prédéfinis, insérés comme le fait ProjectDao ; les statistiques sont créées par les déclencheurs.
+     */
+    private static void create(File file) throws SQLException, IOException {
+        Files.deleteIfExists(file.toPath());
+        try (Connection connection = JdbcTodocDatabase.open("jdbc:sqlite:" + file);
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(JdbcTodocDatabase.INSERT_PROJECT)) {
+                for (Project project : Project.getAllProjects()) {
+                    insert.setLong(1, project.getId());
+                    insert.setString(2, project.getName());
+                    insert.setInt(3, project.getColor());
+                    insert.executeUpdate();
+                }
+            }
+            statement.execute("PRAGMA user_version = " + TodocDatabase.VERSION);
+            connection.commit();
+            connection.setAutoCommit(true);
+            // La base livrée est compacte : aucune page libre laissée par les migrations ; le VACUUM applique aussi
+            // le compactage incrémental, que la maintenance n'a pas à mettre en place par un VACUUM sur l'appareil
+            statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            statement.execute("VACUUM");
+        }
+    }
+
+    /**
+     * Régénère la base préconstruite des assets.
+     */
+    private static void write(File asset) throws SQLException, IOException {
+        final File file = File.createTempFile("todoc", ".db");
+        try {
+            create(file);
+            Files.createDirectories(asset.getParentFile().toPath());
+            Files.copy(file.toPath(), asset.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    /**
+     * Renvoie les lignes d'une requête, colonnes séparées par une espace et lignes par une virgule.
+     */
+    private static String rows(Connection connection, String query) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(query)) {
+            final int columns = result.getMetaData().getColumnCount();
+            while (result.next()) {
+                final StringBuilder row = new StringBuilder();
+                for (int i = 1; i <= columns; i++) {
+                    row.append(i > 1 ? " " : "").append(result.getString(i));
+                }
+                rows.add(row.toString());
+            }
+        }
+        return String.join(", ", rows);
+    }
+}
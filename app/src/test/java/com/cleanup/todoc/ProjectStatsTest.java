@@ -0,0 +1,135 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TodocDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests unitaires des statistiques par projet tenues à jour par les déclencheurs SQLite,
+ * sur le schéma de la dernière version (voir {@link JdbcTodocDatabase})
+ */
+public class ProjectStatsTest {
+
+    /**
+     * Les statistiques de chaque projet recalculées à partir des tâches, dans le format de {@link #STATS}
+     */
+    private static final String EXPECTED_STATS = "SELECT project.id, COUNT(task.id), "
+            + "IFNULL(MAX(task.creationTimestamp), 0) FROM project LEFT JOIN task ON task.project_id = project.id GROUP BY project.id ORDER BY project.id";
+
+    private static final String STATS = "SELECT project_id, task_count, last_task_timestamp FROM project_stats "
+            + "ORDER BY project_id";
+
+    private Connection connection;
+
+    private Statement statement;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = JdbcTodocDatabase.open("jdbc:sqlite::memory:");
+        statement = connection.createStatement();
+        for (int id = 1; id <= 3; id++) {
+            statement.execute("INSERT INTO project (id, name, color) VALUES (" + id + ", 'Projet " + id + "', 0)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // ce test vérifie qu'un projet créé a des statistiques vides, et que l'insertion et la suppression
+    // d'une tâche mettent à jour le nombre de tâches et la date de la plus récente.
+    @Test
+    public void test_insert_and_delete() throws SQLException {
+        assertEquals("1 0 0, 2 0 0, 3 0 0", rows(STATS));
+
+        statement.execute("INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (1, 1, 'a', 100)");
+        statement.execute("INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (2, 1, 'b', 300)");
+        statement.execute("INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (3, 1, 'c', 200)");
+        assertEquals("1 3 300, 2 0 0, 3 0 0", rows(STATS));
+
+        // la plus récente est retirée : la suivante est retrouvée
+        statement.execute("DELETE FROM task WHERE id = 2");
+        assertEquals("1 2 200, 2 0 0, 3 0 0", rows(STATS));
+        statement.execute("DELETE FROM task");
+        assertEquals("1 0 0, 2 0 0, 3 0 0", rows(STATS));
+    }
+
+    // ce test vérifie le déplacement de tâches vers un autre projet, le changement de date d'une tâche,
+    // et la suppression des statistiques avec le projet.
+    @Test
+    public void test_move_update_and_delete_project() throws SQLException {
+        statement.execute("INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (1, 1, 'a', 100)");
+        statement.execute("INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (2, 1, 'b', 300)");
+        statement.execute("UPDATE task SET project_id = 2 WHERE id = 2");
+        assertEquals("1 1 100, 2 1 300, 3 0 0", rows(STATS));
+
+        statement.execute("UPDATE task SET creationTimestamp = 50 WHERE id = 2");
+        // un renommage ne change pas les statistiques
+        statement.execute("UPDATE task SET name = 'c' WHERE id = 1");
+        assertEquals("1 1 100, 2 1 50, 3 0 0", rows(STATS));
+
+        statement.execute("DELETE FROM project WHERE id = 2");
+        assertEquals("1 1 100, 3 0 0", rows(STATS));
+    }
+
+    // ce test vérifie, après des insertions, déplacements et suppressions au hasard,
+    // que les statistiques sont celles recalculées à partir des tâches.
+    @Test
+    public void test_random_writes_match_recomputed_stats() throws SQLException {
+        final Random random = new Random(7);
+        for (int i = 1; i <= 2000; i++) {
+            statement.execute("INSERT INTO task (project_id, name, creationTimestamp) VALUES ("
+                    + (1 + random.nextInt(3)) + ", 't', " + random.nextInt(500) + ")");
+            if (random.nextInt(4) == 0) {
+                statement.execute("DELETE FROM task WHERE id = " + (1 + random.nextInt(i)));
+            }
+            if (random.nextInt(4) == 0) {
+                statement.execute("UPDATE task SET project_id = " + (1 + random.nextInt(3))
+                        + " WHERE id = " + (1 + random.nextInt(i)));
+            }
+        }
+        assertEquals(rows(EXPECTED_STATS), rows(STATS));
+    }
+
+    // ce test vérifie que la migration 5 → 6 calcule les statistiques des tâches existantes.
+    @Test
+    public void test_migration_computes_existing_stats() throws SQLException {
+        try (Connection version5 = JdbcTodocDatabase.open("jdbc:sqlite::memory:", 5);
+             Statement statement = version5.createStatement()) {
+            statement.execute("INSERT INTO project (id, name, color) VALUES (1, 'Projet 1', 0), (2, 'Projet 2', 0)");
+            statement.execute("INSERT INTO task (project_id, name, creationTimestamp) VALUES (1, 'a', 10), (1, 'b', 20)");
+
+            JdbcTodocDatabase.migrate(version5, TodocDatabase.MIGRATION_5_6);
+            assertEquals("1 2 20, 2 0 0", rows(statement, STATS));
+            statement.execute("INSERT INTO task (project_id, name, creationTimestamp) VALUES (2, 'c', 30)");
+            assertEquals("1 2 20, 2 1 30", rows(statement, STATS));
+        }
+    }
+
+    private String rows(String sql) throws SQLException {
+        return rows(statement, sql);
+    }
+
+    private static String rows(Statement statement, String sql) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                rows.add(resultSet.getLong(1) + " " + resultSet.getLong(2) + " " + resultSet.getLong(3));
+            }
+        }
+        return String.join(", ", rows);
+    }
+}
@@ -0,0 +1,148 @@
+package com.cleanup.todoc;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.cleanup.todoc.database.QueryMonitor;
+import com.cleanup.todoc.database.QueryStats;
+import com.cleanup.todoc.database.SlowQuery;
+import com.cleanup.todoc.database.TimingOpenHelperFactory;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires des mesures des requêtes SQLite
+ */
+public class QueryMonitorTest {
+
+    private final QueryMonitor monitor = new QueryMonitor();
+
+    // ce test vérifie que les exécutions d'une même requête ont la même forme,
+    // quels que soient les littéraux et le nombre de paramètres d'une liste IN.
+    @Test
+    public void test_shape_ignores_literals_and_parameter_lists() {
+        assertEquals("SELECT * FROM task WHERE id IN (?, ...) AND name = ? LIMIT ?",
+                QueryMonitor.shapeOf("SELECT *  FROM task\n WHERE id IN (?,?,?) AND name = 'a''b' LIMIT 20"));
+        assertEquals(QueryMonitor.shapeOf("DELETE FROM task WHERE id IN (?,?)"),
+                QueryMonitor.shapeOf("DELETE FROM task WHERE id IN (?,?,?,?,?)"));
+        // les nombres qui font partie d'un identifiant sont conservés
+        assertEquals("SELECT col1 FROM t2 WHERE x > ?", QueryMonitor.shapeOf("SELECT col1 FROM t2 WHERE x > -1.5"));
+    }
+
+    // ce test vérifie l'histogramme d'une forme : nombre, maximum et centiles majorés par la classe qui les contient.
+    @Test
+    public void test_histogram_percentiles() {
+        for (int i = 0; i < 99; i++) {
+            monitor.record("SELECT 1", TimeUnit.MICROSECONDS.toNanos(100), null);
+        }
+        monitor.record("SELECT 2", TimeUnit.MILLISECONDS.toNanos(5), null);
+
+        final QueryStats stats = monitor.getQueryStats("SELECT 3");
+        assertNotNull(stats);
+        assertEquals(100, stats.getCount());
+        assertEquals(5000, stats.getMaxMicros());
+        // 100 µs est dans la classe [64, 128[
+        assertEquals(128, stats.getPercentileMicros(50));
+        assertEquals(128, stats.getPercentileMicros(99));
+        assertEquals(5000, stats.getPercentileMicros(100));
+        assertNull(monitor.getQueryStats("SELECT * FROM project"));
+    }
+
+    // ce test vérifie que seules les dernières exécutions lentes sont conservées, de la plus ancienne à la plus récente.
+    @Test
+    public void test_slow_queries_ring_buffer() {
+        monitor.setSlowQueryThreshold(1, TimeUnit.MILLISECONDS);
+        monitor.record("SELECT fast", TimeUnit.MICROSECONDS.toNanos(10), null);
+        for (int i = 0; i < QueryMonitor.SLOW_QUERY_CAPACITY + 3; i++) {
+            monitor.record("SELECT " + i, TimeUnit.MILLISECONDS.toNanos(2), null);
+        }
+        final List<SlowQuery> slow = monitor.getSlowQueries();
+        assertEquals(QueryMonitor.SLOW_QUERY_CAPACITY, slow.size());
+        assertEquals("SELECT 3", slow.get(0).getSql());
+        assertEquals("SELECT " + (QueryMonitor.SLOW_QUERY_CAPACITY + 2), slow.get(slow.size() - 1).getSql());
+
+        monitor.reset();
+        assertTrue(monitor.getSlowQueries().isEmpty());
+        assertTrue(monitor.getQueryStats().isEmpty());
+    }
+
+    // ce test vérifie, à travers la fabrique enveloppée, que les instructions, les curseurs et la seule transaction
+    // la plus externe sont mesurés, et que le plan d'une requête lente est demandé à la base enveloppée.
+    @Test
+    public void test_timing_open_helper_records_statements_cursors_and_transactions() throws Exception {
+        monitor.setSlowQueryThreshold(0, TimeUnit.NANOSECONDS);
+        final SupportSQLiteOpenHelper helper = new TimingOpenHelperFactory(configuration -> fakeHelper(), monitor)
+                .create(null);
+        final SupportSQLiteDatabase database = helper.getWritableDatabase();
+
+        database.beginTransaction();
+        database.beginTransaction();
+        database.compileStatement("INSERT INTO task (name) VALUES (?)").executeInsert();
+        database.endTransaction();
+        database.endTransaction();
+        try (Cursor cursor = database.query("SELECT * FROM task ORDER BY name")) {
+            while (cursor.moveToNext()) {
+                cursor.getString(3);
+            }
+        }
+
+        final QueryStats transactions = monitor.getQueryStats(QueryMonitor.TRANSACTION);
+        assertNotNull(transactions);
+        assertEquals(1, transactions.getCount());
+        final QueryStats inserts = monitor.getQueryStats("INSERT INTO task (name) VALUES (?)");
+        assertNotNull(inserts);
+        assertEquals(1, inserts.getCount());
+        final QueryStats selects = monitor.getQueryStats("SELECT * FROM task ORDER BY name");
+        assertNotNull(selects);
+        assertEquals(1, selects.getCount());
+
+        final SlowQuery select = monitor.getSlowQueries().get(monitor.getSlowQueries().size() - 1);
+        assertEquals("SELECT * FROM task ORDER BY name", select.getSql());
+        assertEquals("SCAN task\n  USE TEMP B-TREE FOR ORDER BY", select.getPlan());
+        // une transaction n'a pas de plan
+        assertEquals(QueryMonitor.TRANSACTION, monitor.getSlowQueries().get(1).getSql());
+        assertNull(monitor.getSlowQueries().get(1).getPlan());
+    }
+
+    private static SupportSQLiteOpenHelper fakeHelper() {
+        final SupportSQLiteDatabase database = fake(SupportSQLiteDatabase.class, (method, args) -> {
+            switch (method) {
+                case "compileStatement":
+                    return fake(SupportSQLiteStatement.class, (statementMethod, statementArgs) ->
+                            "executeInsert".equals(statementMethod) ? 1L : null);
+                case "query":
+                    // Le plan demandé par le moniteur, ou les lignes de la requête
+                    final MatrixCursor cursor = new MatrixCursor(new String[]{"id", "parent", "notused", "detail"});
+                    cursor.addRow(new Object[]{2, 0, 0, "SCAN task"});
+                    cursor.addRow(new Object[]{4, 2, 0, "USE TEMP B-TREE FOR ORDER BY"});
+                    return cursor;
+                default:
+                    return null;
+            }
+        });
+        return fake(SupportSQLiteOpenHelper.class, (method, args) -> database);
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, Answer answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> answer.answer(method.getName(), args));
+    }
+}
@@ -0,0 +1,264 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.Project;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests de non-régression des plans d'exécution : chaque requête @Query de TaskDao et ProjectDao, lue dans les sources,
+ * est soumise à EXPLAIN QUERY PLAN sur une base remplie d'un volume réaliste puis analysée (ANALYZE, comme le fait
+ * la maintenance). Le plan doit utiliser les index attendus, sans parcours complet d'une table ni tri temporaire
+ * (USE TEMP B-TREE) non prévus.
+ * <p>
+ * Le schéma est celui que Room a créé pour la version 1, complété par toutes les migrations de TodocDatabase
+ * (voir {@link JdbcTodocDatabase}) : une migration qui oublie un index fait aussi échouer ces tests.
+ * Les requêtes sont exécutées par SQLite (sqlite-jdbc), dont le planificateur est celui des appareils récents.
+ * <p>
+ * Une nouvelle requête doit être ajoutée à {@link #EXPECTED}, avec les index qu'elle doit utiliser.
+ */
+public class QueryPlanTest {
+
+    private static final int TASKS = 20_000;
+    private static final int ARCHIVED_TASKS = 20_000;
+    private static final int CHANGES = 2_000;
+
+    /**
+     * Plan attendu de chaque requête, par "Dao.méthode"
+     */
+    private static final Map<String, Expectation> EXPECTED = new LinkedHashMap<>();
+
+    static {
+        // Listes complètes, lues en entier par conception
+        expect("TaskDao.getTasks").fullScan("task");
+        expect("TaskDao.getTaskList").fullScan("task");
+        expect("ProjectDao.getProjects").fullScan("project");
+        expect("ProjectDao.getProjectStats").fullScan("project_stats");
+        // Pages de la liste, par clé (creationTimestamp, id) ou (name, id)
+        expect("TaskDao.getTasksByTimestampAsc").uses("SCAN task USING INDEX index_task_creationTimestamp");
+        expect("TaskDao.getTasksByTimestampAscAfter").uses("SEARCH task USING INDEX index_task_creationTimestamp");
+        expect("TaskDao.getTasksByTimestampDesc").uses("SCAN task USING INDEX index_task_creationTimestamp");
+        expect("TaskDao.getTasksByTimestampDescAfter").uses("SEARCH task USING INDEX index_task_creationTimestamp");
+        expect("TaskDao.getTasksByNameAsc").uses("SCAN task USING INDEX index_task_name");
+        expect("TaskDao.getTasksByNameAscAfter").uses("SEARCH task USING INDEX index_task_name");
+        expect("TaskDao.getTasksByNameDesc").uses("SCAN task USING INDEX index_task_name");
+        expect("TaskDao.getTasksByNameDescAfter").uses("SEARCH task USING INDEX index_task_name");
+        // Pages de la liste filtrée par projet : l'index du projet donne les tâches déjà triées
+        expect("TaskDao.getTasksByTimestampAscInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_creationTimestamp (project_id=?)");
+        expect("TaskDao.getTasksByTimestampAscAfterInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_creationTimestamp (project_id=? AND creationTimestamp>?)");
+        expect("TaskDao.getTasksByTimestampDescInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_creationTimestamp (project_id=?)");
+        expect("TaskDao.getTasksByTimestampDescAfterInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_creationTimestamp (project_id=? AND creationTimestamp<?)");
+        expect("TaskDao.getTasksByNameAscInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_name (project_id=?)");
+        expect("TaskDao.getTasksByNameAscAfterInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_name (project_id=? AND name>?)");
+        expect("TaskDao.getTasksByNameDescInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_name (project_id=?)");
+        expect("TaskDao.getTasksByNameDescAfterInProjects")
+                .uses("SEARCH task USING INDEX index_task_project_id_name (project_id=? AND name<?)");
+        // Recherche plein texte
+        expect("TaskDao.search").uses("SCAN task_fts VIRTUAL TABLE INDEX 3:",
+                "SEARCH task USING INTEGER PRIMARY KEY");
+        // Lectures et écritures par identifiant
+        expect("ProjectDao.getProjectStatsById").uses("SEARCH project_stats USING INTEGER PRIMARY KEY");
+        expect("TaskDao.deleteTasksByIds").uses("SEARCH task USING INTEGER PRIMARY KEY");
+        expect("TaskDao.moveTasksToProject").uses("SEARCH task USING INTEGER PRIMARY KEY");
+        // Archive et historique
+        expect("TaskDao.copyTasksToArchive").uses("SEARCH task USING INDEX index_task_creationTimestamp");
+        expect("TaskDao.deleteTasksCreatedBefore").uses("SEARCH task USING INTEGER PRIMARY KEY",
+                "SEARCH task USING COVERING INDEX index_task_creationTimestamp");
+        expect("TaskDao.getArchivedTaskCount").uses("SCAN task_archive USING COVERING INDEX");
+        expect("TaskDao.getTaskHistoryDesc").uses("SCAN task USING INDEX index_task_creationTimestamp",
+                "SCAN task_archive USING INDEX index_task_archive_creationTimestamp");
+        expect("TaskDao.getTaskHistoryDescAfter").uses("SEARCH task USING INDEX index_task_creationTimestamp",
+                "SEARCH task_archive USING INDEX index_task_archive_creationTimestamp");
+    }
+
+    private static Connection connection;
+
+    private static Map<String, String> queries;
+
+    @BeforeClass
+    public static void createDatabase() throws SQLException, IOException {
+        queries = JdbcTodocDatabase.readQueries();
+        connection = JdbcTodocDatabase.open("jdbc:sqlite::memory:");
+        seed();
+    }
+
+    @AfterClass
+    public static void closeDatabase() throws SQLException {
+        connection.close();
+    }
+
+    // ce test vérifie que chaque requête des DAO a un plan attendu, et que chaque plan attendu a encore sa requête.
+    @Test
+    public void test_every_query_has_an_expected_plan() {
+        assertEquals("add the expected plan of new queries to QueryPlanTest.EXPECTED",
+                new TreeSet<>(EXPECTED.keySet()), new TreeSet<>(queries.keySet()));
+    }
+
+    // ce test vérifie que le plan de chaque requête utilise les index attendus,
+    // sans parcours complet ni tri temporaire imprévu.
+    @Test
+    public void test_query_plans_use_expected_indexes() throws SQLException {
+        final List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            final Expectation expectation = EXPECTED.get(query.getKey());
+            if (expectation == null) {
+                continue;
+            }
+            final List<String> plan = explain(query.getValue());
+            final String problem = expectation.check(plan);
+            if (problem != null) {
+                failures.add(query.getKey() + ": " + problem + "\n    " + String.join("\n    ", plan)
+                        + "\n    " + query.getValue());
+            }
+        }
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    /**
+     * Remplit la base : les projets de l'application, des tâches courantes et archivées aux noms et aux dates variés ;
+     * puis calcule les statistiques de l'optimiseur.
+     */
+    private static void seed() throws SQLException {
+        final Random random = new Random(42);
+        final Project[] projects = Project.getAllProjects();
+        final String[] words = {"Réunion", "Appel", "Rapport", "Courses", "Rendez-vous", "Facture", "Relire", "Envoyer"};
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertProject = connection.prepareStatement(
+                     "INSERT INTO project (id, name, color) VALUES (?, ?, ?)");
+             PreparedStatement insertTask = connection.prepareStatement(
+                     "INSERT INTO task (project_id, name, creationTimestamp) VALUES (?, ?, ?)");
+             PreparedStatement insertArchived = connection.prepareStatement(
+                     "INSERT INTO task_archive (id, project_id, name, creationTimestamp) VALUES (?, ?, ?, ?)");
+             Statement statement = connection.createStatement()) {
+            for (Project project : projects) {
+                insertProject.setLong(1, project.getId());
+                insertProject.setString(2, project.getName());
+                insertProject.setInt(3, project.getColor());
+                insertProject.executeUpdate();
+            }
+            final long now = 1_700_000_000_000L;
+            for (int i = 0; i < TASKS; i++) {
+                insertTask.setLong(1, projects[random.nextInt(projects.length)].getId());
+                insertTask.setString(2, words[random.nextInt(words.length)] + " " + random.nextInt(10_000));
+                insertTask.setLong(3, now - (long) random.nextInt(90) * 86_400_000L - random.nextInt(86_400_000));
+                insertTask.addBatch();
+            }
+            insertTask.executeBatch();
+            for (int i = 0; i < ARCHIVED_TASKS; i++) {
+                insertArchived.setLong(1, TASKS + i + 1L);
+                insertArchived.setLong(2, projects[random.nextInt(projects.length)].getId());
+                insertArchived.setString(3, words[random.nextInt(words.length)] + " " + random.nextInt(10_000));
+                insertArchived.setLong(4, now - (90L + random.nextInt(720)) * 86_400_000L);
+                insertArchived.addBatch();
+            }
+            insertArchived.executeBatch();
+            // Quelques modifications récentes, par-dessus celles des insertions
+            statement.execute("UPDATE task SET name = name || ' !' WHERE id % " + (TASKS / CHANGES) + " = 0");
+            connection.commit();
+            statement.execute("ANALYZE");
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Renvoie le plan d'exécution d'une requête de DAO, une ligne par étape. Les paramètres nommés de Room
+     * deviennent des paramètres SQLite liés à NULL, ce qui ne change pas les index choisis ; une liste IN (:ids)
+     * a un seul élément, chacun étant cherché de la même façon.
+     */
+    private static List<String> explain(String sql) throws SQLException {
+        final String statementSql = "EXPLAIN QUERY PLAN " + sql.replaceAll(":\\w+", "?");
+        final List<String> plan = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(statementSql)) {
+            final int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setNull(i, java.sql.Types.NULL);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    // Les versions antérieures à 3.36 écrivent "SCAN TABLE task" au lieu de "SCAN task"
+                    plan.add(rows.getString("detail").replaceFirst("^(SCAN|SEARCH) TABLE ", "$1 "));
+                }
+            }
+        }
+        return plan;
+    }
+
+    private static Expectation expect(String query) {
+        final Expectation expectation = new Expectation();
+        EXPECTED.put(query, expectation);
+        return expectation;
+    }
+
+    /**
+     * Le plan attendu d'une requête : les étapes qu'il doit contenir et les tables qu'il peut parcourir en entier
+     */
+    private static final class Expectation {
+        private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (\\w+)$");
+
+        private final List<String> mSteps = new ArrayList<>();
+        private final List<String> mFullScans = new ArrayList<>();
+
+        Expectation uses(String... steps) {
+            mSteps.addAll(Arrays.asList(steps));
+            return this;
+        }
+
+        Expectation fullScan(String... tables) {
+            mFullScans.addAll(Arrays.asList(tables));
+            return this;
+        }
+
+        /**
+         * @return la description du premier écart du plan, ou null s'il est conforme
+         */
+        String check(List<String> plan) {
+            for (String step : mSteps) {
+                boolean found = false;
+                for (String line : plan) {
+                    found |= line.startsWith(step);
+                }
+                if (!found) {
+                    return "expected " + step;
+                }
+            }
+            for (String line : plan) {
+                final Matcher scan = FULL_SCAN.matcher(line);
+                if (scan.matches() && !mFullScans.contains(scan.group(1))) {
+                    return "unexpected full scan of " + scan.group(1);
+                }
+                if (line.contains("USE TEMP B-TREE")) {
+                    return "unexpected temporary sort";
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskBackup;
+import com.cleanup.todoc.database.TaskBackupReader;
+import com.cleanup.todoc.database.TaskBackupWriter;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mesure de l'écriture puis de la relecture d'une sauvegarde de 1 000 000 de tâches, en JSON Lines compressé,
+ * dans un fichier : débit en lignes par seconde, et mémoire utilisée au quart puis à la fin, qui doit rester stable.
+ * La lecture de la base, qui dépend de l'appareil, est mesurée par le bilan de TaskBackup (journal "export:").
+ * Il n'est exécuté que si la propriété todoc.benchmark est activée :
+ * ./gradlew :app:testDebugUnitTest -Ptodoc.benchmark=true --tests '*Benchmark'
+ */
+public class TaskBackupBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Boolean.getBoolean("todoc.benchmark"));
+    }
+
+    @Test
+    public void benchmark_backup_1m_tasks() throws IOException {
+        final File file = folder.newFile("backup.jsonl.gz");
+        long quarterMemory = 0;
+        long start = System.nanoTime();
+        try (TaskBackupWriter writer = new TaskBackupWriter(new FileOutputStream(file).getChannel(),
+                TaskBackup.Format.JSON_LINES, true)) {
+            for (int i = 0; i < SIZE; i++) {
+                writer.writeTask(i + 1, 1 + i % 3, "Tâche numéro " + i, 1_600_000_000_000L + i);
+                if (i == SIZE / 4) {
+                    quarterMemory = usedMemory();
+                }
+            }
+        }
+        final long writeNanos = System.nanoTime() - start;
+        final long writeMemory = usedMemory();
+        assertTrue(writeMemory - quarterMemory < 4L * 1024 * 1024);
+        print("write", writeNanos, quarterMemory, writeMemory);
+
+        long rows = 0;
+        start = System.nanoTime();
+        try (TaskBackupReader reader = new TaskBackupReader(new FileInputStream(file))) {
+            while (reader.next() != null) {
+                if (++rows == SIZE / 4) {
+                    quarterMemory = usedMemory();
+                }
+            }
+        }
+        final long readNanos = System.nanoTime() - start;
+        final long readMemory = usedMemory();
+        assertEquals(SIZE, rows);
+        assertTrue(readMemory - quarterMemory < 4L * 1024 * 1024);
+        print("read", readNanos, quarterMemory, readMemory);
+        System.out.printf("file %,d bytes%n", file.length());
+    }
+
+    private static void print(String operation, long nanos, long quarterMemory, long endMemory) {
+        System.out.printf("%s %,d rows in %,d ms (%,d rows/s), used memory %,d bytes at 25%%, %,d bytes at 100%%%n",
+                operation, SIZE, TimeUnit.NANOSECONDS.toMillis(nanos), SIZE * TimeUnit.SECONDS.toNanos(1) / nanos,
+                quarterMemory, endMemory);
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
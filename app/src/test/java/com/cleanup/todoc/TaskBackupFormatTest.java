@@ -0,0 +1,82 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskBackup;
+import com.cleanup.todoc.database.TaskBackupReader;
+import com.cleanup.todoc.database.TaskBackupWriter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests unitaires de l'écriture et de la relecture des sauvegardes de tâches
+ */
+public class TaskBackupFormatTest {
+
+    // Noms qui doivent être échappés dans l'un ou l'autre format
+    private static final String[] NAMES = {
+            "simple", "virgule, \"guillemets\"", "deux\r\nlignes", "antislash \\ et tabulation\t", "Réunion 🗓  ",
+    };
+
+    // ce test vérifie que chaque format, compressé ou non, relit exactement ce qui a été écrit
+    // et est reconnu sans être précisé.
+    @Test
+    public void test_round_trip_in_every_format() throws IOException {
+        for (TaskBackup.Format format : TaskBackup.Format.values()) {
+            for (boolean gzip : new boolean[]{false, true}) {
+                final byte[] backup = write(format, gzip);
+                if (gzip) {
+                    assertEquals(0x1f, backup[0]);
+                }
+                try (TaskBackupReader reader = new TaskBackupReader(new ByteArrayInputStream(backup))) {
+                    assertEquals(format, reader.getFormat());
+                    assertEquals(TaskBackupReader.Record.PROJECT, reader.next());
+                    assertEquals(1, reader.getId());
+                    assertEquals("Projet, \"Tartampion\"", reader.getName());
+                    assertEquals(0xFFEADAD1, reader.getColor());
+                    for (int i = 0; i < NAMES.length; i++) {
+                        assertEquals(TaskBackupReader.Record.TASK, reader.next());
+                        assertEquals(i + 10, reader.getId());
+                        assertEquals(1, reader.getProjectId());
+                        assertEquals(NAMES[i], reader.getName());
+                        assertEquals(1_600_000_000_000L + i, reader.getCreationTimestamp());
+                    }
+                    assertNull(reader.next());
+                }
+            }
+        }
+    }
+
+    // ce test vérifie qu'un fichier qui n'est pas une sauvegarde est refusé.
+    @Test
+    public void test_unknown_file_is_rejected() {
+        for (String content : new String[]{"", "id,name\n1,a\n", "{\"type\":\"other\",\"name\":\"x\"}"}) {
+            try (TaskBackupReader reader = new TaskBackupReader(
+                    new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))) {
+                reader.next();
+                fail("an IOException was expected for " + content);
+            } catch (IOException expected) {
+                // format non reconnu ou enregistrement invalide
+            }
+        }
+    }
+
+    private static byte[] write(TaskBackup.Format format, boolean gzip) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (TaskBackupWriter writer = new TaskBackupWriter(Channels.newChannel(output), format, gzip)) {
+            writer.writeProject(1, "Projet, \"Tartampion\"", 0xFFEADAD1);
+            for (int i = 0; i < NAMES.length; i++) {
+                writer.writeTask(i + 10, 1, NAMES[i], 1_600_000_000_000L + i);
+            }
+        }
+        return output.toByteArray();
+    }
+}
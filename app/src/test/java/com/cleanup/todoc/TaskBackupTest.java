@@ -0,0 +1,128 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskBackup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests unitaires de la sauvegarde et de la restauration des tâches, sur une base SQLite en mémoire
+ * au schéma de l'application (voir {@link JdbcRoomDatabase})
+ */
+public class TaskBackupTest {
+
+    private Connection connection;
+
+    private TaskBackup backup;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = JdbcTodocDatabase.open("jdbc:sqlite::memory:");
+        // Deux enregistrements par lot : la sauvegarde ci-dessous en compte quatre
+        backup = new TaskBackup(new JdbcRoomDatabase(connection), 2);
+        execute("INSERT INTO project (id, name, color) VALUES (1, 'Projet Tartampion', 1)",
+                "INSERT INTO project (id, name, color) VALUES (2, 'Projet Lucidia', 2)",
+                "INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (10, 1, 'tâche', 100)",
+                "INSERT INTO task_archive (id, project_id, name, creationTimestamp) VALUES (5, 2, 'archivée', 50)");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    // ce test vérifie que la sauvegarde lit les projets puis les tâches, archivées comprises, par une seule requête,
+    // et que la restauration, lot par lot, remet la base dans l'état sauvegardé.
+    @Test
+    public void test_export_then_restore_in_batches() throws IOException, SQLException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final TaskBackup.Result exported = backup.exportTo(Channels.newChannel(output), TaskBackup.Format.CSV, false);
+        assertEquals(2, exported.getProjects());
+        assertEquals(2, exported.getTasks());
+        assertEquals(Arrays.asList("1,Projet Tartampion,1", "2,Projet Lucidia,2"), projects());
+
+        execute("DELETE FROM task", "DELETE FROM project WHERE id = 2",
+                "INSERT INTO task (id, project_id, name, creationTimestamp) VALUES (11, 1, 'autre', 200)");
+        final TaskBackup.Session session = backup.open(new ByteArrayInputStream(output.toByteArray()));
+        // Premier lot : les tables sont vidées, puis les deux projets restaurés
+        assertTrue(session.restoreBatch());
+        assertEquals(2, session.getResult().getProjects());
+        assertEquals(Collections.emptyList(), tasks());
+        assertTrue(session.restoreBatch());
+        assertFalse(session.restoreBatch());
+        session.close();
+        assertEquals(2, session.getResult().getTasks());
+        assertEquals(Arrays.asList("1,Projet Tartampion,1", "2,Projet Lucidia,2"), projects());
+        assertEquals(Arrays.asList("5,2,archivée", "10,1,tâche"), tasks());
+        assertEquals(0, count("SELECT COUNT(*) FROM task_archive"));
+    }
+
+    // ce test vérifie qu'une sauvegarde refusée dès le premier lot ne modifie rien.
+    @Test
+    public void test_invalid_backup_changes_nothing() throws SQLException {
+        try {
+            backup.restoreFrom(new ByteArrayInputStream(
+                    "{\"type\":\"task\",\"id\":1,\"projectId\":99,\"name\":\"x\",\"creationTimestamp\":0}"
+                            .getBytes(StandardCharsets.UTF_8)));
+            fail("the foreign key constraint was expected to fail");
+        } catch (IOException | RuntimeException expected) {
+            // le projet 99 n'existe pas : le premier lot, qui vide les tables, est annulé
+        }
+        assertEquals(Arrays.asList("10,1,tâche"), tasks());
+        assertEquals(1, count("SELECT COUNT(*) FROM task_archive"));
+        assertEquals(2, projects().size());
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            return result.getLong(1);
+        }
+    }
+
+    private List<String> projects() throws SQLException {
+        return rows("SELECT id, name, color FROM project ORDER BY id");
+    }
+
+    private List<String> tasks() throws SQLException {
+        return rows("SELECT id, project_id, name FROM task ORDER BY id");
+    }
+
+    private List<String> rows(String sql) throws SQLException {
+        final List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            // sqlite-jdbc ferme d'emblée le résultat d'une requête sans ligne
+            while (!result.isClosed() && result.next()) {
+                rows.add(result.getString(1) + "," + result.getString(2) + "," + result.getString(3));
+            }
+        }
+        return rows;
+    }
+}
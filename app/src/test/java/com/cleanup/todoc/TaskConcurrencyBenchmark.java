@@ -0,0 +1,292 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.database.TodocDatabase;
+import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.Task;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mesure des lectures de la liste pendant des écritures de masse : plusieurs lecteurs, chacun sur sa connexion comme
+ * les threads de la file des lectures, lisent des pages de la liste (première page et pages suivantes) pendant
+ * qu'un seul écrivain, comme la file des écritures, insère des lots de {@link TaskImporter#DEFAULT_BATCH_SIZE} tâches,
+ * une transaction par lot, sans pause. Les centiles de latence des lectures sont relevés sans écriture puis pendant
+ * les écritures, en journal WAL (celui de l'application) et en journal DELETE, où chaque commit bloque les lectures.
+ * <p>
+ * Le volume initial est de 100 000 tâches, ou le premier de la propriété todoc.benchmark.sizes ; le nombre de lecteurs
+ * est donné par todoc.benchmark.readers (3 par défaut) et la durée de chaque phase par todoc.benchmark.seconds
+ * (5 par défaut). Il n'est exécuté que si la propriété todoc.benchmark est activée :
+ * ./gradlew :app:testDebugUnitTest -Ptodoc.benchmark=true --tests '*TaskConcurrencyBenchmark'
+ */
+public class TaskConcurrencyBenchmark {
+
+    private static final String DEFAULT_SIZES = "100000";
+
+    private static final int PROJECTS = 20;
+
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Nombre de tâches servant de clés aux pages suivantes
+     */
+    private static final int KEYS = 1000;
+
+    /**
+     * Délai maximal, en millisecondes, d'attente d'un verrou par une connexion, comme le fait Android
+     */
+    private static final int BUSY_TIMEOUT_MILLIS = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Map<String, String> queries;
+
+    private int size;
+
+    private int readers;
+
+    private long phaseNanos;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("todoc.benchmark"));
+        queries = JdbcTodocDatabase.readQueries();
+        size = Integer.parseInt(System.getProperty("todoc.benchmark.sizes", DEFAULT_SIZES).split(",")[0].trim());
+        readers = Integer.getInteger("todoc.benchmark.readers", 3);
+        phaseNanos = TimeUnit.SECONDS.toNanos(Integer.getInteger("todoc.benchmark.seconds", 5));
+    }
+
+    @Test
+    public void benchmark_reads_during_writes() throws Exception {
+        System.out.printf("%d tasks, %d readers, %d s per phase%n", size, readers, TimeUnit.NANOSECONDS.toSeconds(phaseNanos));
+        System.out.printf("%-10s %-22s %8s %12s %9s %9s %9s %9s%n",
+                "journal", "operation", "samples", "rows/s", "p50 µs", "p90 µs", "p99 µs", "max µs");
+        for (String journalMode : new String[]{"WAL", "DELETE"}) {
+            run(journalMode);
+        }
+    }
+
+    private void run(String journalMode) throws Exception {
+        final String label = journalMode.toLowerCase();
+        final File file = folder.newFile();
+        final TaskWorkload workload = new TaskWorkload.Builder()
+                .projects(PROJECTS)
+                .tasksPerProject(Math.max(1, size / PROJECTS))
+                .build();
+        try (Connection writer = JdbcTodocDatabase.open("jdbc:sqlite:" + file.getAbsolutePath())) {
+            try (Statement statement = writer.createStatement()) {
+                statement.execute("PRAGMA journal_mode = " + journalMode);
+                // Les réglages appliqués par TodocDatabase à l'ouverture (sans effet hors journal WAL)
+                statement.execute("PRAGMA wal_autocheckpoint = " + TodocDatabase.WAL_AUTOCHECKPOINT_PAGES);
+                statement.execute("PRAGMA journal_size_limit = " + TodocDatabase.JOURNAL_SIZE_LIMIT_BYTES);
+                statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            }
+            seed(writer, workload);
+            final List<Task> keys = sampleTasks(writer, new Random(size));
+
+            final List<Connection> connections = new ArrayList<>(readers);
+            try {
+                for (int i = 0; i < readers; i++) {
+                    final Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+                    }
+                    connections.add(connection);
+                }
+                phase(connections, keys, null, workload).read.print(label, "read (no writes)");
+                final Phase writes = phase(connections, keys, writer, workload);
+                writes.read.print(label, "read (bulk writes)");
+                writes.write.print(label, "write (batch)");
+                assertTrue(writes.write.getRows() > 0);
+            } finally {
+                for (Connection connection : connections) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Le résultat d'une phase : les lectures de tous les lecteurs et les lots de l'écrivain
+     */
+    private static final class Phase {
+
+        final Latencies read = new Latencies();
+
+        final Latencies write = new Latencies();
+    }
+
+    /**
+     * Fait lire les lecteurs pendant la durée d'une phase, avec l'écrivain s'il est donné.
+     */
+    private Phase phase(List<Connection> connections, List<Task> keys, Connection writer, TaskWorkload workload)
+            throws InterruptedException, ExecutionException {
+        final AtomicBoolean stop = new AtomicBoolean();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(connections.size() + 1);
+        try {
+            final List<Future<Latencies>> reads = new ArrayList<>();
+            for (int i = 0; i < connections.size(); i++) {
+                final Connection connection = connections.get(i);
+                final Random random = new Random(i);
+                reads.add(executor.submit(() -> read(connection, keys, random, start, stop)));
+            }
+            final Future<Latencies> write = writer == null ? null
+                    : executor.submit(() -> write(writer, workload, start, stop));
+            start.countDown();
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(phaseNanos));
+            stop.set(true);
+
+            final Phase phase = new Phase();
+            for (Future<Latencies> read : reads) {
+                phase.read.addAll(read.get());
+            }
+            if (write != null) {
+                phase.write.addAll(write.get());
+            }
+            return phase;
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Lit, jusqu'à la fin de la phase, une première page de la liste puis une page suivante à partir d'une clé
+     * au hasard, à tour de rôle, comme le fait le défilement de la liste.
+     */
+    private Latencies read(Connection connection, List<Task> keys, Random random, CountDownLatch start,
+                           AtomicBoolean stop) throws SQLException, InterruptedException {
+        final Latencies latencies = new Latencies();
+        try (JdbcTodocDatabase.Query first = JdbcTodocDatabase.prepare(connection,
+                queries.get("TaskDao.getTasksByTimestampDesc"));
+             JdbcTodocDatabase.Query next = JdbcTodocDatabase.prepare(connection,
+                     queries.get("TaskDao.getTasksByTimestampDescAfter"))) {
+            first.bind("limit", PAGE_SIZE);
+            next.bind("limit", PAGE_SIZE);
+            start.await();
+            for (int i = 0; !stop.get(); i++) {
+                final PreparedStatement statement;
+                if (i % 2 == 0) {
+                    statement = first.getStatement();
+                } else {
+                    final Task key = keys.get(random.nextInt(keys.size()));
+                    next.bind("timestamp", key.getCreationTimestamp()).bind("id", key.getId());
+                    statement = next.getStatement();
+                }
+                final long begin = System.nanoTime();
+                final int rows = JdbcTodocDatabase.readTasks(statement).size();
+                latencies.add(System.nanoTime() - begin, rows);
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Insère, jusqu'à la fin de la phase, des lots de tâches d'une transaction chacun, sans pause entre deux lots.
+     */
+    private static Latencies write(Connection connection, TaskWorkload workload, CountDownLatch start,
+                                   AtomicBoolean stop) throws SQLException, InterruptedException {
+        final Latencies latencies = new Latencies();
+        TaskWorkload.Tasks tasks = workload.tasks();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertTask = connection.prepareStatement(JdbcTodocDatabase.INSERT_TASK)) {
+            start.await();
+            while (!stop.get()) {
+                final long begin = System.nanoTime();
+                int rows = 0;
+                for (; rows < TaskImporter.DEFAULT_BATCH_SIZE; rows++) {
+                    if (!tasks.hasNext()) {
+                        tasks = workload.tasks();
+                    }
+                    bindTask(insertTask, tasks.next());
+                    insertTask.executeUpdate();
+                }
+                connection.commit();
+                latencies.add(System.nanoTime() - begin, rows);
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return latencies;
+    }
+
+    /**
+     * Insère les projets puis les tâches du jeu de données, par lots d'une transaction comme l'import.
+     */
+    private static void seed(Connection connection, TaskWorkload workload) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertProject = connection.prepareStatement(JdbcTodocDatabase.INSERT_PROJECT);
+             PreparedStatement insertTask = connection.prepareStatement(JdbcTodocDatabase.INSERT_TASK)) {
+            for (Project project : workload.getProjects()) {
+                insertProject.setLong(1, project.getId());
+                insertProject.setString(2, project.getName());
+                insertProject.setInt(3, project.getColor());
+                insertProject.executeUpdate();
+            }
+            final TaskWorkload.Tasks tasks = workload.tasks();
+            for (int rows = 1; tasks.hasNext(); rows++) {
+                bindTask(insertTask, tasks.next());
+                insertTask.executeUpdate();
+                if (rows % TaskImporter.DEFAULT_BATCH_SIZE == 0) {
+                    connection.commit();
+                }
+            }
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        try (Statement statement = connection.createStatement()) {
+            // Comme la maintenance de l'application, après un import
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static void bindTask(PreparedStatement insertTask, Task task) throws SQLException {
+        insertTask.setLong(1, task.getId());
+        insertTask.setLong(2, task.getProjectId());
+        insertTask.setString(3, task.getName());
+        insertTask.setLong(4, task.getCreationTimestamp());
+    }
+
+    /**
+     * Renvoie KEYS tâches au hasard, qui servent de clés aux pages suivantes.
+     */
+    private static List<Task> sampleTasks(Connection connection, Random random) throws SQLException {
+        final long maxId = JdbcTodocDatabase.countTasks(connection);
+        final List<Task> tasks = new ArrayList<>(KEYS);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM task WHERE id = ?")) {
+            while (tasks.size() < KEYS) {
+                statement.setLong(1, 1 + (long) (random.nextDouble() * maxId));
+                tasks.addAll(JdbcTodocDatabase.readTasks(statement));
+            }
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,249 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskDao;
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.search.TaskSearchQuery;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Mesure des requêtes de TaskDao sur des volumes croissants : insertion par lots, lecture des pages de la liste,
+ * lecture complète, recherche plein texte et suppression par identifiants. Pour chaque opération : le débit en lignes
+ * par seconde et les centiles de latence, en µs. Les requêtes sont celles des DAO (lues dans les sources, ou celles
+ * que Room génère), exécutées par SQLite sur la JVM dans un fichier, sur le schéma de {@link JdbcTodocDatabase}
+ * avec ses index et ses déclencheurs (FTS, journal des modifications).
+ * <p>
+ * Les volumes sont 10 000, 100 000 et 1 000 000 de tâches, ou ceux de la propriété todoc.benchmark.sizes
+ * (par exemple -Ptodoc.benchmark.sizes=5000,50000). Il n'est exécuté que si la propriété todoc.benchmark est activée :
+ * ./gradlew :app:testDebugUnitTest -Ptodoc.benchmark=true --tests '*Benchmark'
+ */
+public class TaskDaoBenchmark {
+
+    private static final String DEFAULT_SIZES = "10000,100000,1000000";
+
+    private static final int PROJECTS = 20;
+
+    private static final int PAGE_SIZE = 50;
+
+    /**
+     * Nombre de mesures des lectures et des recherches, par volume
+     */
+    private static final int SAMPLES = 500;
+
+    /**
+     * Nombre de lots de suppression, de TaskDao.MAX_IDS_PER_QUERY tâches chacun, par volume
+     */
+    private static final int DELETE_BATCHES = 20;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Map<String, String> queries;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("todoc.benchmark"));
+        queries = JdbcTodocDatabase.readQueries();
+    }
+
+    @Test
+    public void benchmark_task_dao() throws IOException, SQLException {
+        System.out.printf("%-10s %-22s %8s %12s %9s %9s %9s %9s%n",
+                "tasks", "operation", "samples", "rows/s", "p50 µs", "p90 µs", "p99 µs", "max µs");
+        for (String size : System.getProperty("todoc.benchmark.sizes", DEFAULT_SIZES).split(",")) {
+            run(Integer.parseInt(size.trim()));
+        }
+    }
+
+    private void run(int size) throws IOException, SQLException {
+        final TaskWorkload workload = new TaskWorkload.Builder()
+                .projects(PROJECTS)
+                .tasksPerProject(Math.max(1, size / PROJECTS))
+                .build();
+        final Random random = new Random(size);
+        try (Connection connection = JdbcTodocDatabase.open("jdbc:sqlite:" + folder.newFile().getAbsolutePath())) {
+            final int count = workload.getTaskCount();
+            insert(connection, workload).print(String.valueOf(count), "insert (batch)");
+            try (Statement statement = connection.createStatement()) {
+                // Comme la maintenance de l'application, après un import
+                statement.execute("ANALYZE");
+            }
+
+            list(connection).print(String.valueOf(count), "list first page");
+            listAfter(connection, random, "TaskDao.getTasksByTimestampDescAfter")
+                    .print(String.valueOf(count), "list next page (date)");
+            listAfter(connection, random, "TaskDao.getTasksByNameAscAfter")
+                    .print(String.valueOf(count), "list next page (name)");
+            listAll(connection, count).print(String.valueOf(count), "list all");
+            search(connection, random).print(String.valueOf(count), "search");
+            delete(connection, random, count).print(String.valueOf(count), "delete (batch)");
+        }
+    }
+
+    /**
+     * Insère les projets puis les tâches, par lots d'une transaction comme l'import (TaskDao.insertTasks).
+     */
+    private Latencies insert(Connection connection, TaskWorkload workload) throws SQLException {
+        final Latencies latencies = new Latencies();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertProject = connection.prepareStatement(JdbcTodocDatabase.INSERT_PROJECT);
+             PreparedStatement insertTask = connection.prepareStatement(JdbcTodocDatabase.INSERT_TASK)) {
+            for (Project project : workload.getProjects()) {
+                insertProject.setLong(1, project.getId());
+                insertProject.setString(2, project.getName());
+                insertProject.setInt(3, project.getColor());
+                insertProject.executeUpdate();
+            }
+            connection.commit();
+
+            final TaskWorkload.Tasks tasks = workload.tasks();
+            while (tasks.hasNext()) {
+                final long start = System.nanoTime();
+                int rows = 0;
+                for (; rows < TaskImporter.DEFAULT_BATCH_SIZE && tasks.hasNext(); rows++) {
+                    final Task task = tasks.next();
+                    insertTask.setLong(1, task.getId());
+                    insertTask.setLong(2, task.getProjectId());
+                    insertTask.setString(3, task.getName());
+                    insertTask.setLong(4, task.getCreationTimestamp());
+                    insertTask.executeUpdate();
+                }
+                connection.commit();
+                latencies.add(System.nanoTime() - start, rows);
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        assertEquals(workload.getTaskCount(), JdbcTodocDatabase.countTasks(connection));
+        return latencies;
+    }
+
+    private Latencies list(Connection connection) throws SQLException {
+        final Latencies latencies = new Latencies();
+        try (JdbcTodocDatabase.Query query = JdbcTodocDatabase.prepare(connection,
+                queries.get("TaskDao.getTasksByTimestampDesc"))) {
+            query.bind("limit", PAGE_SIZE);
+            for (int i = 0; i < SAMPLES; i++) {
+                final long start = System.nanoTime();
+                final int rows = JdbcTodocDatabase.readTasks(query.getStatement()).size();
+                latencies.add(System.nanoTime() - start, rows);
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Lit des pages suivantes à partir de positions aléatoires dans la liste (pagination par clé).
+     */
+    private Latencies listAfter(Connection connection, Random random, String name) throws SQLException {
+        final List<Task> keys = sampleTasks(connection, random);
+        final Latencies latencies = new Latencies();
+        try (JdbcTodocDatabase.Query query = JdbcTodocDatabase.prepare(connection, queries.get(name))) {
+            query.bind("limit", PAGE_SIZE);
+            for (Task key : keys) {
+                query.bind("timestamp", key.getCreationTimestamp())
+                        .bind("name", key.getName())
+                        .bind("id", key.getId());
+                final long start = System.nanoTime();
+                final int rows = JdbcTodocDatabase.readTasks(query.getStatement()).size();
+                latencies.add(System.nanoTime() - start, rows);
+            }
+        }
+        return latencies;
+    }
+
+    private Latencies listAll(Connection connection, int count) throws SQLException {
+        final Latencies latencies = new Latencies();
+        try (JdbcTodocDatabase.Query query = JdbcTodocDatabase.prepare(connection, queries.get("TaskDao.getTaskList"))) {
+            for (int i = 0; i < 3; i++) {
+                final long start = System.nanoTime();
+                final int rows = JdbcTodocDatabase.readTasks(query.getStatement()).size();
+                latencies.add(System.nanoTime() - start, rows);
+                assertEquals(count, rows);
+            }
+        }
+        return latencies;
+    }
+
+    private Latencies search(Connection connection, Random random) throws SQLException {
+        final Latencies latencies = new Latencies();
+        try (JdbcTodocDatabase.Query query = JdbcTodocDatabase.prepare(connection, queries.get("TaskDao.search"))) {
+            query.bind("limit", PAGE_SIZE);
+            for (int i = 0; i < SAMPLES; i++) {
+                query.bind("query", TaskSearchQuery.toMatchQuery(TaskWorkload.searchText(random)));
+                final long start = System.nanoTime();
+                final int rows = JdbcTodocDatabase.readTasks(query.getStatement()).size();
+                latencies.add(System.nanoTime() - start, rows);
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * Supprime des tâches choisies au hasard, par lots de TaskDao.MAX_IDS_PER_QUERY, chacun dans sa transaction
+     * comme TaskDao.deleteTasksByIds. Les identifiants vont de 1 au nombre de tâches, la base étant neuve.
+     */
+    private Latencies delete(Connection connection, Random random, int count) throws SQLException {
+        final int batch = Math.max(1, Math.min(TaskDao.MAX_IDS_PER_QUERY, count / (2 * DELETE_BATCHES)));
+        final List<Long> ids = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            ids.add(id);
+        }
+        Collections.shuffle(ids, random);
+
+        final Latencies latencies = new Latencies();
+        int deleted = 0;
+        try (JdbcTodocDatabase.Query query = JdbcTodocDatabase.prepare(connection,
+                queries.get("TaskDao.deleteTasksByIds"), Collections.singletonMap("ids", batch))) {
+            final long[] batchIds = new long[batch];
+            for (int i = 0; i < DELETE_BATCHES; i++) {
+                for (int j = 0; j < batch; j++) {
+                    batchIds[j] = ids.get(i * batch + j);
+                }
+                query.bind("ids", batchIds);
+                final long start = System.nanoTime();
+                final int rows = query.getStatement().executeUpdate();
+                latencies.add(System.nanoTime() - start, rows);
+                deleted += rows;
+            }
+        }
+        assertEquals(batch * DELETE_BATCHES, deleted);
+        assertEquals(count - deleted, JdbcTodocDatabase.countTasks(connection));
+        return latencies;
+    }
+
+    /**
+     * Renvoie SAMPLES tâches au hasard, qui servent de clés aux pages suivantes.
+     */
+    private static List<Task> sampleTasks(Connection connection, Random random) throws SQLException {
+        final long maxId = JdbcTodocDatabase.countTasks(connection);
+        final List<Task> tasks = new ArrayList<>(SAMPLES);
+        try (PreparedStatement statement = connection.prepareStatement("SELECT * FROM task WHERE id = ?")) {
+            while (tasks.size() < SAMPLES) {
+                statement.setLong(1, 1 + (long) (random.nextDouble() * maxId));
+                tasks.addAll(JdbcTodocDatabase.readTasks(statement));
+            }
+        }
+        return tasks;
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.cleanup.todoc;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.repository.TaskDataRepository;
+import com.cleanup.todoc.repository.WriteCallback;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires du regroupement des écritures de tâches dans une seule transaction
+ */
+public class TaskGroupCommitTest {
+
+    // Les échecs sont publiés par postValue(), exécuté aussitôt
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private FakeTaskDao taskDao;
+
+    private AppExecutors executors;
+
+    private TaskDataRepository repository;
+
+    @Before
+    public void setUp() {
+        taskDao = new FakeTaskDao();
+        executors = new AppExecutors(1);
+        repository = new TaskDataRepository(taskDao, null, executors);
+    }
+
+    // ce test vérifie que des créations successives sont appliquées en une seule requête et une seule transaction.
+    @Test
+    public void test_inserts_are_grouped() throws InterruptedException {
+        try (HeldWrites ignored = holdWrites()) {
+            for (int i = 0; i < 1000; i++) {
+                repository.createTask(new Task(1, "task " + i, i));
+            }
+        }
+        awaitCommits();
+
+        assertEquals(1000, taskDao.snapshot().size());
+        assertEquals(1, taskDao.transactions);
+        assertEquals(1, taskDao.writeQueries);
+    }
+
+    // ce test vérifie que l'ordre des écritures est conservé et que les lots d'identifiants
+    // sont découpés selon la limite de paramètres de SQLite.
+    @Test
+    public void test_writes_keep_their_order() throws InterruptedException {
+        for (int i = 0; i < 1200; i++) {
+            taskDao.insertTask(new Task(1, "task " + i, i));
+        }
+        final List<Task> tasks = taskDao.snapshot();
+        final long[] ids = new long[tasks.size() - 1];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.get(i + 1).getId();
+        }
+        taskDao.writeQueries = 0;
+
+        try (HeldWrites ignored = holdWrites()) {
+            repository.moveTasksToProject(new long[]{tasks.get(0).getId(), tasks.get(1).getId()}, 2);
+            repository.deleteTasks(ids);
+            repository.createTask(new Task(3, "task", 0));
+        }
+        awaitCommits();
+
+        final List<Task> remaining = taskDao.snapshot();
+        assertEquals(2, remaining.size());
+        assertEquals(2, remaining.get(0).getProjectId());
+        assertEquals(3, remaining.get(1).getProjectId());
+        assertEquals(1, taskDao.transactions);
+        // 1 déplacement, 3 tranches de suppression, 1 insertion
+        assertEquals(5, taskDao.writeQueries);
+    }
+
+    // ce test vérifie que l'échec d'une transaction contenant une écriture sans écouteur est signalé par le repository
+    // sans arrêter le thread des écritures, et que les écritures regroupées avec elle sont informées de leur annulation.
+    @Test
+    public void test_unobserved_failure_is_reported() throws InterruptedException {
+        final CountDownLatch failed = new CountDownLatch(1);
+        taskDao.failWrites = true;
+        try (HeldWrites ignored = holdWrites()) {
+            repository.createTasks(Collections.singletonList(new Task(1, "bulk", 0)));
+            repository.createTask(new Task(1, "task", 0), new WriteCallback() {
+                @Override
+                public void onCommitted() {
+                }
+
+                @Override
+                public void onFailed(@NonNull RuntimeException error) {
+                    failed.countDown();
+                }
+            });
+        }
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertNotNull(repository.getWriteFailure().getValue());
+
+        taskDao.failWrites = false;
+        repository.createTask(new Task(1, "after", 0));
+        awaitCommits();
+        assertEquals(1, taskDao.snapshot().size());
+        assertEquals(2, taskDao.transactions);
+    }
+
+    /**
+     * Tant qu'elle n'est pas fermée, la file des écritures est occupée : le commit ne peut pas partir avant
+     * la dernière écriture, quelle que soit la durée des appels
+     */
+    private final class HeldWrites implements AutoCloseable {
+
+        private final CountDownLatch mReleased = new CountDownLatch(1);
+
+        HeldWrites() {
+            executors.write().execute(() -> {
+                try {
+                    mReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            mReleased.countDown();
+        }
+    }
+
+    private HeldWrites holdWrites() {
+        return new HeldWrites();
+    }
+
+    // Les commits planifiés sont exécutés avant l'arrêt de l'exécuteur
+    private void awaitCommits() throws InterruptedException {
+        executors.write().shutdown();
+        assertTrue(executors.write().awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,220 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskImporter;
+import com.cleanup.todoc.database.TaskJsonReader;
+import com.cleanup.todoc.database.TodocDatabase;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mesure de l'import d'un fichier de 1 000 000 de tâches, généré au fur et à mesure de la lecture : d'abord la seule
+ * lecture en flux par TaskJsonReader, puis l'import complet par TaskImporter dans une base SQLite sur fichier
+ * (sqlite-jdbc, voir {@link JdbcRoomDatabase}), au schéma et aux réglages WAL de l'application. Chaque mesure donne
+ * le débit en lignes par seconde et la mémoire utilisée au quart puis à la fin, qui doit rester stable.
+ * Sur un appareil, l'import est aussi mesuré par le bilan de TaskImporter (journal "import:").
+ * Il n'est exécuté que si la propriété todoc.benchmark est activée :
+ * ./gradlew :app:testDebugUnitTest -Ptodoc.benchmark=true --tests '*Benchmark'
+ */
+public class TaskImportBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    /**
+     * Écart maximal de mémoire utilisée entre le quart et la fin de l'import, en octets
+     */
+    private static final long MAX_MEMORY_GROWTH = 4L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Boolean.getBoolean("todoc.benchmark"));
+    }
+
+    @Test
+    public void benchmark_stream_1m_records() throws IOException {
+        final Map<String, Long> projectIds = new HashMap<>();
+        long quarterMemory = 0;
+        long rows = 0;
+        final long start = System.nanoTime();
+        try (TaskJsonReader reader = new TaskJsonReader(new GeneratedTasksReader(SIZE))) {
+            while (reader.next()) {
+                // Même travail par ligne que l'import, hors base de données
+                Long projectId = projectIds.get(reader.getProjectName());
+                if (projectId == null) {
+                    projectIds.put(reader.getProjectName(), (long) projectIds.size() + 1);
+                    reader.getProjectColor();
+                }
+                if (++rows == SIZE / 4) {
+                    quarterMemory = usedMemory();
+                }
+            }
+        }
+        final long elapsedNanos = System.nanoTime() - start;
+        final long endMemory = usedMemory();
+
+        assertEquals(SIZE, rows);
+        assertEquals(GeneratedTasksReader.PROJECTS, projectIds.size());
+        // La mémoire ne dépend pas du nombre de lignes lues
+        assertTrue(endMemory - quarterMemory < MAX_MEMORY_GROWTH);
+        System.out.printf("stream: %,d rows in %,d ms (%,d rows/s)%n", rows,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+        System.out.printf("stream: used memory %,d bytes at 25%%, %,d bytes at 100%%%n", quarterMemory, endMemory);
+    }
+
+    @Test
+    public void benchmark_import_1m_records_into_sqlite() throws IOException, SQLException {
+        try (Connection connection = JdbcTodocDatabase.open("jdbc:sqlite:" + folder.newFile().getAbsolutePath())) {
+            try (Statement statement = connection.createStatement()) {
+                // Les réglages de la base fichier de l'application
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA wal_autocheckpoint = " + TodocDatabase.WAL_AUTOCHECKPOINT_PAGES);
+                statement.execute("PRAGMA journal_size_limit = " + TodocDatabase.JOURNAL_SIZE_LIMIT_BYTES);
+            }
+            final TaskImporter importer = new TaskImporter(new JdbcRoomDatabase(connection));
+            long quarterMemory = 0;
+            final TaskImporter.Result result;
+            try (TaskImporter.Session session = importer.open(new GeneratedTasksInputStream(SIZE))) {
+                while (session.importBatch()) {
+                    if (quarterMemory == 0 && session.getResult().getRows() >= SIZE / 4) {
+                        quarterMemory = usedMemory();
+                    }
+                }
+                result = session.getResult();
+            }
+            final long endMemory = usedMemory();
+
+            assertTrue(result.isComplete());
+            assertEquals(SIZE, result.getRows());
+            assertEquals(GeneratedTasksReader.PROJECTS, result.getProjectsCreated());
+            assertEquals(SIZE, JdbcTodocDatabase.countTasks(connection));
+            // Les lots sont validés un à un : la mémoire ne dépend pas du nombre de lignes importées
+            assertTrue(endMemory - quarterMemory < MAX_MEMORY_GROWTH);
+            System.out.printf("import: %,d rows in %,d ms (%,d rows/s)%n", result.getRows(),
+                    result.getElapsedMillis(), result.getRowsPerSecond());
+            System.out.printf("import: used memory %,d bytes at 25%%, %,d bytes at 100%%%n", quarterMemory, endMemory);
+        }
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Un fichier de tâches au format de sampledata/tasks.json, produit enregistrement par enregistrement
+     */
+    private static final class GeneratedTasksReader extends Reader {
+
+        static final int PROJECTS = 20;
+
+        private final int mSize;
+
+        private final String[] mTints = new String[PROJECTS];
+
+        private final StringBuilder mChunk = new StringBuilder("{\"data\":[");
+
+        private int mPosition;
+
+        private int mNext;
+
+        GeneratedTasksReader(int size) {
+            mSize = size;
+            for (int project = 0; project < PROJECTS; project++) {
+                mTints[project] = String.format("#%06X", project * 0x0A0B0C);
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (mPosition == mChunk.length()) {
+                if (mNext > mSize) {
+                    return -1;
+                }
+                mChunk.setLength(0);
+                mPosition = 0;
+                if (mNext == mSize) {
+                    mChunk.append("]}");
+                } else {
+                    final int project = mNext % PROJECTS;
+                    mChunk.append(mNext == 0 ? "" : ",")
+                            .append("{\"backgroundTint\":\"").append(mTints[project])
+                            .append("\",\"taskName\":\"Tâche numéro ").append(mNext)
+                            .append("\",\"projectName\":\"Projet ").append(project).append("\"}");
+                }
+                mNext++;
+            }
+            final int count = Math.min(length, mChunk.length() - mPosition);
+            mChunk.getChars(mPosition, mPosition + count, buffer, offset);
+            mPosition += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Le même fichier de tâches, encodé en UTF-8, comme le lit TaskImporter
+     */
+    private static final class GeneratedTasksInputStream extends InputStream {
+
+        private final GeneratedTasksReader mReader;
+
+        private final char[] mChars = new char[4096];
+
+        private byte[] mBytes = new byte[0];
+
+        private int mPosition;
+
+        GeneratedTasksInputStream(int size) {
+            mReader = new GeneratedTasksReader(size);
+        }
+
+        @Override
+        public int read() {
+            final byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (mPosition == mBytes.length) {
+                // Le fichier généré ne contient aucun caractère codé sur deux char : un bloc se code seul
+                final int count = mReader.read(mChars, 0, mChars.length);
+                if (count < 0) {
+                    return -1;
+                }
+                mBytes = new String(mChars, 0, count).getBytes(StandardCharsets.UTF_8);
+                mPosition = 0;
+            }
+            final int count = Math.min(length, mBytes.length - mPosition);
+            System.arraycopy(mBytes, mPosition, buffer, offset, count);
+            mPosition += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.database.TaskJsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests unitaires de la lecture en flux des fichiers de tâches
+ */
+public class TaskJsonReaderTest {
+
+    // ce test vérifie que les enregistrements sont lus dans l'ordre, que les champs et les clés inconnus sont ignorés,
+    // et que les champs absents ou nuls sont signalés comme tels.
+    @Test
+    public void test_reads_records_and_skips_unknown_fields() throws IOException {
+        final String json = "{\"version\":{\"major\":1,\"tags\":[\"a\"]},\"data\":["
+                + "{\"backgroundTint\":\"#EADAD1\",\"taskName\":\"Nettoyer\",\"projectName\":\"Projet Tartampion\"},"
+                + "{\"taskName\":\"Réunion\",\"extra\":[1,{\"x\":null}],\"projectName\":\"Projet X\","
+                + "\"backgroundTint\":null,\"creationTimestamp\":1234},"
+                + "{\"taskName\":null}"
+                + "],\"count\":3}";
+        try (TaskJsonReader reader = new TaskJsonReader(new StringReader(json))) {
+            assertTrue(reader.next());
+            assertEquals("Nettoyer", reader.getTaskName());
+            assertEquals("Projet Tartampion", reader.getProjectName());
+            assertEquals(0xFFEADAD1, reader.getProjectColor());
+            assertFalse(reader.hasCreationTimestamp());
+
+            assertTrue(reader.next());
+            assertEquals("Réunion", reader.getTaskName());
+            assertEquals(TaskJsonReader.DEFAULT_COLOR, reader.getProjectColor());
+            assertTrue(reader.hasCreationTimestamp());
+            assertEquals(1234, reader.getCreationTimestamp());
+
+            assertTrue(reader.next());
+            assertNull(reader.getTaskName());
+            assertNull(reader.getProjectName());
+            assertFalse(reader.hasCreationTimestamp());
+
+            assertFalse(reader.next());
+            assertFalse(reader.next());
+        }
+    }
+
+    // ce test vérifie les formats de couleur acceptés.
+    @Test
+    public void test_parse_color() {
+        assertEquals(0xFFB4CDBA, TaskJsonReader.parseColor("#B4CDBA"));
+        assertEquals(0x80112233, TaskJsonReader.parseColor("#80112233"));
+        assertEquals(TaskJsonReader.DEFAULT_COLOR, TaskJsonReader.parseColor("#12"));
+        assertEquals(TaskJsonReader.DEFAULT_COLOR, TaskJsonReader.parseColor(""));
+        assertEquals(TaskJsonReader.DEFAULT_COLOR, TaskJsonReader.parseColor(null));
+    }
+
+    // ce test vérifie qu'un document sans tableau "data" est vide, et qu'un document d'une autre forme est refusé.
+    @Test
+    public void test_unexpected_documents() throws IOException {
+        try (TaskJsonReader reader = new TaskJsonReader(new StringReader("{\"other\":[]}"))) {
+            assertFalse(reader.next());
+        }
+        try (TaskJsonReader reader = new TaskJsonReader(new StringReader("{\"data\":[1]}"))) {
+            reader.next();
+            fail("an IOException was expected");
+        } catch (IOException expected) {
+            // un enregistrement doit être un objet
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.cleanup.todoc;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.repository.TaskDataRepository;
+import com.cleanup.todoc.search.TaskSearchQuery;
+import com.cleanup.todoc.viewmodel.TaskViewModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires de la recherche des tâches par leur nom
+ */
+public class TaskSearchTest {
+
+    @Rule
+    // Règle pour exécuter les mises à jour des LiveData de manière synchrone
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private FakeTaskDao taskDao;
+
+    private AppExecutors executors;
+
+    private TaskViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        taskDao = new FakeTaskDao();
+        taskDao.insertTask(new Task(1, "Écrire le rapport", 1));
+        taskDao.insertTask(new Task(1, "Relire le cours", 2));
+        taskDao.insertTask(new Task(2, "Écouter le cours", 3));
+        executors = new AppExecutors(1);
+        final TaskDataRepository repository = new TaskDataRepository(taskDao, null, executors);
+        viewModel = new TaskViewModel(null, repository, executors.read());
+    }
+
+    @After
+    public void tearDown() {
+        executors.shutdown();
+    }
+
+    // ce test vérifie que chaque mot devient une recherche par préfixe et que les opérateurs FTS sont neutralisés.
+    @Test
+    public void test_match_query() {
+        assertEquals("\"écr*\" \"cours*\"", TaskSearchQuery.toMatchQuery("  écr, cours"));
+        assertEquals("\"a*\" \"OR*\" \"b*\"", TaskSearchQuery.toMatchQuery("a OR \"b"));
+        assertEquals("", TaskSearchQuery.toMatchQuery(" -* "));
+    }
+
+    // ce test vérifie que seule la dernière d'une série de saisies rapprochées est exécutée.
+    @Test
+    public void test_search_is_debounced() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        viewModel.getSearchResults().observeForever(tasks -> {
+            if (!tasks.isEmpty()) {
+                latch.countDown();
+            }
+        });
+
+        viewModel.search("c");
+        viewModel.search("co");
+        viewModel.search("cou");
+        viewModel.search("cours é");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        final List<Task> results = viewModel.getSearchResults().getValue();
+        assertEquals(1, results.size());
+        assertEquals("Écouter le cours", results.get(0).getName());
+        assertEquals(1, taskDao.searches);
+    }
+}
@@ -0,0 +1,64 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.repository.TaskSnapshotFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests unitaires du fichier de la liste affichée au démarrage
+ */
+public class TaskSnapshotFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // ce test vérifie que la liste relue est identique à la liste enregistrée, noms accentués compris,
+    // et qu'un nouvel enregistrement remplace le précédent.
+    @Test
+    public void test_write_then_read() throws IOException {
+        final TaskSnapshotFile file = new TaskSnapshotFile(folder.newFile("snapshot.bin"));
+        file.write(new TaskSnapshot.Builder(1).add(9, 1, "old", 9).build(), SortMethod.NONE);
+        final TaskSnapshot snapshot = new TaskSnapshot.Builder(3)
+                .add(3, 2, "Écrire le rapport", 30)
+                .add(1, 1, "", 10)
+                .add(2, 3, "Réunion 🗓", 20)
+                .build();
+        file.write(snapshot, SortMethod.ALPHABETICAL);
+
+        final TaskSnapshotFile.Content content = file.read();
+        assertEquals(SortMethod.ALPHABETICAL, content.getSortMethod());
+        final TaskSnapshot read = content.getSnapshot();
+        assertEquals(3, read.size());
+        for (int position = 0; position < 3; position++) {
+            assertEquals(snapshot.getId(position), read.getId(position));
+            assertEquals(snapshot.getProjectId(position), read.getProjectId(position));
+            assertEquals(snapshot.getName(position), read.getName(position));
+            assertEquals(snapshot.getCreationTimestamp(position), read.getCreationTimestamp(position));
+        }
+    }
+
+    // ce test vérifie qu'un fichier absent ou tronqué est ignoré.
+    @Test
+    public void test_missing_or_truncated_file_is_ignored() throws IOException {
+        final File path = new File(folder.getRoot(), "snapshot.bin");
+        final TaskSnapshotFile file = new TaskSnapshotFile(path);
+        assertNull(file.read());
+
+        file.write(new TaskSnapshot.Builder(1).add(1, 1, "task", 1).build(), SortMethod.NONE);
+        try (RandomAccessFile raw = new RandomAccessFile(path, "rw")) {
+            raw.setLength(raw.length() - 1);
+        }
+        assertNull(file.read());
+    }
+}
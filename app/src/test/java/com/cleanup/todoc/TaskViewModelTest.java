@@ -0,0 +1,221 @@
+package com.cleanup.todoc;
+
+import androidx.annotation.NonNull;
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
+import androidx.paging.PagedList;
+
+import com.cleanup.todoc.executor.AppExecutors;
+import com.cleanup.todoc.filter.TaskFilter;
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.repository.TaskDataRepository;
+import com.cleanup.todoc.viewmodel.PendingTasks;
+import com.cleanup.todoc.viewmodel.TaskViewModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires du ViewModel des tâches
+ */
+public class TaskViewModelTest {
+
+    // Durée d'une image à 60 Hz
+    private static final long FRAME_MILLIS = 16;
+
+    @Rule
+    // Règle pour exécuter les mises à jour des LiveData de manière synchrone
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    // Requêtes paginées demandées au repository, dans l'ordre
+    private final List<SortMethod> queries = new ArrayList<>();
+
+    // Filtres de ces requêtes
+    private final List<TaskFilter> filters = new ArrayList<>();
+
+    private final List<MutableLiveData<PagedList<Task>>> sources = new ArrayList<>();
+
+    // Base lente : chaque écriture prend bien plus qu'une image
+    private final FakeTaskDao taskDao = new FakeTaskDao(200);
+
+    private final AppExecutors executors = new AppExecutors(1);
+
+    private TaskViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        final TaskDataRepository repository = new TaskDataRepository(taskDao, null, executors) {
+            @Override
+            public LiveData<PagedList<Task>> getPagedTasks(SortMethod sortMethod, TaskFilter filter) {
+                queries.add(sortMethod);
+                filters.add(filter);
+                final MutableLiveData<PagedList<Task>> source = new MutableLiveData<>();
+                sources.add(source);
+                return source;
+            }
+        };
+        viewModel = new TaskViewModel(null, repository, executors.read());
+    }
+
+    // ce test vérifie qu'une seule requête est lancée par changement de tri, que les listes d'une requête remplacée
+    // sont ignorées, et qu'un nouvel observateur (changement de configuration) ne relance pas de requête.
+    @Test
+    public void test_single_query_per_sort_change() {
+        final CountingObserver observer = new CountingObserver();
+        viewModel.getTasks().observeForever(observer);
+        assertEquals(1, queries.size());
+
+        viewModel.setSortMethod(SortMethod.ALPHABETICAL);
+        viewModel.setSortMethod(SortMethod.ALPHABETICAL);
+        assertEquals(2, queries.size());
+        assertEquals(SortMethod.ALPHABETICAL, queries.get(1));
+
+        sources.get(0).setValue(null);
+        assertEquals(0, observer.count);
+        sources.get(1).setValue(null);
+        assertEquals(1, observer.count);
+
+        // Changement de configuration : l'activité recréée observe à nouveau le même ViewModel
+        viewModel.getTasks().removeObserver(observer);
+        final CountingObserver recreated = new CountingObserver();
+        viewModel.getTasks().observeForever(recreated);
+        assertEquals(2, queries.size());
+        assertEquals(1, recreated.count);
+    }
+
+    // ce test vérifie qu'un changement de filtre relance une seule requête, limitée aux projets sélectionnés
+    // et triée selon la méthode de tri courante, et que revenir à tous les projets relance la requête complète.
+    @Test
+    public void test_single_query_per_filter_change() {
+        viewModel.getTasks().observeForever(new CountingObserver());
+        viewModel.setSortMethod(SortMethod.RECENT_FIRST);
+        assertEquals(2, queries.size());
+        assertEquals(TaskFilter.ALL, filters.get(1));
+
+        viewModel.setTaskFilter(TaskFilter.of(3, 1));
+        viewModel.setTaskFilter(TaskFilter.of(1, 3));
+        assertEquals(3, queries.size());
+        assertEquals(SortMethod.RECENT_FIRST, queries.get(2));
+        assertEquals(TaskFilter.of(1, 3), filters.get(2));
+        assertEquals(TaskFilter.of(1, 3), viewModel.getTaskFilter().getValue());
+
+        viewModel.setTaskFilter(TaskFilter.ALL);
+        assertEquals(4, queries.size());
+        assertTrue(filters.get(3).isAll());
+    }
+
+    // ce test vérifie que les créations et suppressions apparaissent dans la liste affichée en moins d'une image
+    // malgré une base lente, sans attendre l'écriture, et restent superposées jusqu'à ce qu'une liste relue
+    // après leur écriture arrive.
+    @Test
+    public void test_pending_writes_are_shown_before_they_are_written() throws InterruptedException {
+        final Task existing = new Task(7, 1, "existing", 1);
+        final Task kept = new Task(8, 1, "kept", 3);
+        taskDao.tasks.put(existing.getId(), existing);
+        taskDao.tasks.put(kept.getId(), kept);
+        viewModel.getTasks().observeForever(new CountingObserver());
+        final long[] publishedNanos = new long[2];
+        viewModel.getPendingTasks().observeForever(pending -> publishedNanos[pending.hasNoDeletions() ? 0 : 1] =
+                System.nanoTime());
+
+        final long createNanos = System.nanoTime();
+        viewModel.createTask(new Task(1, "new", 2));
+        final long deleteNanos = System.nanoTime();
+        viewModel.deleteTask(existing);
+        // chaque écriture a publié sa propre liste d'attente, pas seulement la valeur initiale
+        assertTrue(publishedNanos[0] >= createNanos && publishedNanos[1] >= deleteNanos);
+        final long createMillis = TimeUnit.NANOSECONDS.toMillis(publishedNanos[0] - createNanos);
+        final long deleteMillis = TimeUnit.NANOSECONDS.toMillis(publishedNanos[1] - deleteNanos);
+        assertTrue("creation published after " + createMillis + " ms", createMillis <= FRAME_MILLIS);
+        assertTrue("deletion published after " + deleteMillis + " ms", deleteMillis <= FRAME_MILLIS);
+
+        // sans tri, la liste suit l'ordre de création : la nouvelle tâche se place entre les deux autres
+        final List<Task> displayed = viewModel.getPendingTasks().getValue().applyTo(Arrays.asList(existing, kept));
+        assertEquals(2, displayed.size());
+        assertEquals("new", displayed.get(0).getName());
+        assertTrue(displayed.get(0).getId() < 0);
+        assertEquals(kept, displayed.get(1));
+        // rien n'est encore écrit
+        assertEquals(2, taskDao.snapshot().size());
+
+        awaitWrites();
+        assertEquals("new", taskDao.snapshot().get(0).getName());
+        // écritures validées, mais la liste affichée n'a pas encore été relue
+        assertFalse(viewModel.getPendingTasks().getValue().isEmpty());
+
+        sources.get(0).setValue(null);
+        assertTrue(viewModel.getPendingTasks().getValue().isEmpty());
+    }
+
+    // ce test vérifie que les tâches créées en attente sont placées à leur position selon le tri courant,
+    // comme la base les renverra, et que celles d'un projet exclu par le filtre ne sont pas affichées.
+    @Test
+    public void test_pending_creations_follow_sort_and_filter() {
+        final List<Task> loaded = Arrays.asList(new Task(1, 1, "b", 10), new Task(2, 2, "d", 30));
+        viewModel.getTasks().observeForever(new CountingObserver());
+        viewModel.setSortMethod(SortMethod.ALPHABETICAL);
+        viewModel.createTask(new Task(1, "c", 20));
+        viewModel.createTask(new Task(2, "a", 40));
+        viewModel.createTask(new Task(1, "e", 5));
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), names(viewModel.getPendingTasks().getValue().applyTo(loaded)));
+
+        viewModel.setSortMethod(SortMethod.RECENT_FIRST);
+        final List<Task> recentFirst = Arrays.asList(loaded.get(1), loaded.get(0));
+        assertEquals(Arrays.asList("a", "d", "c", "b", "e"),
+                names(viewModel.getPendingTasks().getValue().applyTo(recentFirst)));
+
+        // le projet 2 est exclu : la tâche "a" créée dans ce projet n'apparaît pas
+        viewModel.setTaskFilter(TaskFilter.of(1));
+        assertEquals(Arrays.asList("c", "b", "e"),
+                names(viewModel.getPendingTasks().getValue().applyTo(Collections.singletonList(loaded.get(0)))));
+        assertEquals(2, viewModel.getPendingTasks().getValue().getCreatedTasks().size());
+    }
+
+    // ce test vérifie qu'une écriture en échec est retirée de la liste affichée.
+    @Test
+    public void test_failed_writes_are_rolled_back() throws InterruptedException {
+        taskDao.failWrites = true;
+        viewModel.createTask(new Task(2, "new", 2));
+        assertEquals(1, viewModel.getPendingTasks().getValue().getCreatedTasks().size());
+
+        awaitWrites();
+        assertTrue(viewModel.getPendingTasks().getValue().isEmpty());
+        assertTrue(taskDao.snapshot().isEmpty());
+    }
+
+    private void awaitWrites() throws InterruptedException {
+        executors.write().shutdown();
+        assertTrue(executors.write().awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static List<String> names(List<Task> tasks) {
+        final List<String> names = new ArrayList<>();
+        for (Task task : tasks) {
+            names.add(task.getName());
+        }
+        return names;
+    }
+
+    private static class CountingObserver implements Observer<PagedList<Task>> {
+        int count;
+
+        @Override
+        public void onChanged(@NonNull PagedList<Task> tasks) {
+            count++;
+        }
+    }
+}
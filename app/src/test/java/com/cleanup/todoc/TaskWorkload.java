@@ -0,0 +1,239 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Cette classe génère un jeu de données synthétique et reproductible pour les bancs d'essai : un nombre de projets,
+ * un nombre de tâches par projet, une distribution de la longueur des noms et un étalement des dates de création.
+ * Les noms sont faits de mots d'un vocabulaire, pour que la recherche plein texte trouve des correspondances.
+ * Les tâches sont produites une par une, sans être toutes gardées en mémoire.
+ */
+final class TaskWorkload {
+
+    /**
+     * Distribution de la longueur des noms des tâches, entre une longueur minimale et maximale
+     */
+    enum NameLength {
+        /**
+         * Tous les noms ont la longueur minimale.
+         */
+        FIXED,
+
+        /**
+         * Les longueurs sont réparties uniformément.
+         */
+        UNIFORM,
+
+        /**
+         * La plupart des noms sont courts, quelques-uns sont longs (distribution exponentielle tronquée).
+         */
+        SKEWED
+    }
+
+    /**
+     * Vocabulaire des noms des tâches
+     */
+    private static final String[] WORDS = {
+            "réunion", "appel", "rapport", "courses", "rendez-vous", "facture", "relire", "envoyer", "préparer",
+            "budget", "client", "livraison", "planning", "revue", "contrat", "devis", "maquette", "recette",
+            "déploiement", "formation", "inventaire", "archiver", "valider", "corriger", "tester", "écrire"
+    };
+
+    private final int mProjectCount;
+
+    private final int mTasksPerProject;
+
+    private final NameLength mNameLength;
+
+    private final int mMinNameLength;
+
+    private final int mMaxNameLength;
+
+    private final long mEndTimestamp;
+
+    private final long mTimestampSpread;
+
+    private final long mSeed;
+
+    private TaskWorkload(Builder builder) {
+        mProjectCount = builder.mProjectCount;
+        mTasksPerProject = builder.mTasksPerProject;
+        mNameLength = builder.mNameLength;
+        mMinNameLength = builder.mMinNameLength;
+        mMaxNameLength = builder.mMaxNameLength;
+        mEndTimestamp = builder.mEndTimestamp;
+        mTimestampSpread = builder.mTimestampSpread;
+        mSeed = builder.mSeed;
+    }
+
+    /**
+     * Renvoie les projets du jeu de données, d'identifiants 1 à getProjectCount().
+     */
+    List<Project> getProjects() {
+        final List<Project> projects = new ArrayList<>(mProjectCount);
+        for (int i = 1; i <= mProjectCount; i++) {
+            projects.add(new Project(i, "Projet " + i, 0xFF000000 | (i * 0x9E3779) & 0xFFFFFF));
+        }
+        return Collections.unmodifiableList(projects);
+    }
+
+    int getProjectCount() {
+        return mProjectCount;
+    }
+
+    /**
+     * Renvoie le nombre total de tâches du jeu de données.
+     */
+    int getTaskCount() {
+        return mProjectCount * mTasksPerProject;
+    }
+
+    /**
+     * Renvoie un générateur des tâches, sans identifiant (0, attribué à l'insertion), réparties à tour de rôle
+     * entre les projets. Deux générateurs produisent les mêmes tâches.
+     */
+    Tasks tasks() {
+        return new Tasks(new Random(mSeed));
+    }
+
+    /**
+     * Renvoie un préfixe de mot du vocabulaire, comme en saisit l'utilisateur dans la recherche.
+     */
+    static String searchText(Random random) {
+        final String word = WORDS[random.nextInt(WORDS.length)];
+        return word.substring(0, Math.min(word.length(), 3 + random.nextInt(3)));
+    }
+
+    /**
+     * Génère les tâches du jeu de données, une par une
+     */
+    final class Tasks {
+
+        private final Random mRandom;
+
+        private final StringBuilder mName = new StringBuilder();
+
+        private int mCount;
+
+        Tasks(Random random) {
+            mRandom = random;
+        }
+
+        boolean hasNext() {
+            return mCount < getTaskCount();
+        }
+
+        Task next() {
+            final long projectId = 1 + mCount++ % mProjectCount;
+            final long timestamp = mEndTimestamp - (long) (mRandom.nextDouble() * mTimestampSpread);
+            return new Task(projectId, name(nameLength()), timestamp);
+        }
+
+        private int nameLength() {
+            final int range = mMaxNameLength - mMinNameLength;
+            switch (mNameLength) {
+                case UNIFORM:
+                    return mMinNameLength + mRandom.nextInt(range + 1);
+                case SKEWED:
+                    // moyenne au quart de l'intervalle
+                    final double length = -Math.log(1 - mRandom.nextDouble()) * range / 4;
+                    return mMinNameLength + (int) Math.min(range, length);
+                default:
+                    return mMinNameLength;
+            }
+        }
+
+        private String name(int length) {
+            mName.setLength(0);
+            while (mName.length() < length) {
+                if (mName.length() > 0) {
+                    mName.append(' ');
+                }
+                mName.append(WORDS[mRandom.nextInt(WORDS.length)]);
+            }
+            mName.setLength(length);
+            if (mName.charAt(length - 1) == ' ') {
+                // le nom garde sa longueur sans finir par une espace
+                mName.setCharAt(length - 1, 'x');
+            }
+            return mName.toString();
+        }
+    }
+
+    /**
+     * Construit un jeu de données ; les valeurs par défaut donnent 3 projets de 1000 tâches, aux noms de 10 à 60
+     * caractères (SKEWED), créées pendant les 90 jours précédant le 14 novembre 2023.
+     */
+    static final class Builder {
+
+        private int mProjectCount = 3;
+
+        private int mTasksPerProject = 1000;
+
+        private NameLength mNameLength = NameLength.SKEWED;
+
+        private int mMinNameLength = 10;
+
+        private int mMaxNameLength = 60;
+
+        private long mEndTimestamp = 1_700_000_000_000L;
+
+        private long mTimestampSpread = 90L * 86_400_000L;
+
+        private long mSeed = 42;
+
+        Builder projects(int count) {
+            if (count < 1) {
+                throw new IllegalArgumentException("at least one project is needed");
+            }
+            mProjectCount = count;
+            return this;
+        }
+
+        Builder tasksPerProject(int count) {
+            if (count < 0) {
+                throw new IllegalArgumentException("negative task count");
+            }
+            mTasksPerProject = count;
+            return this;
+        }
+
+        Builder nameLength(NameLength distribution, int min, int max) {
+            if (min < 1 || max < min) {
+                throw new IllegalArgumentException("invalid name length range " + min + ".." + max);
+            }
+            mNameLength = distribution;
+            mMinNameLength = min;
+            mMaxNameLength = max;
+            return this;
+        }
+
+        /**
+         * @param endTimestamp la date de création la plus récente
+         * @param spreadMillis la durée, avant endTimestamp, sur laquelle les dates sont réparties uniformément
+         */
+        Builder timestamps(long endTimestamp, long spreadMillis) {
+            if (spreadMillis < 0) {
+                throw new IllegalArgumentException("negative spread");
+            }
+            mEndTimestamp = endTimestamp;
+            mTimestampSpread = spreadMillis;
+            return this;
+        }
+
+        Builder seed(long seed) {
+            mSeed = seed;
+            return this;
+        }
+
+        TaskWorkload build() {
+            return new TaskWorkload(this);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.Task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires du générateur de jeux de données des bancs d'essai
+ */
+public class TaskWorkloadTest {
+
+    // ce test vérifie que le jeu de données respecte le nombre de projets et de tâches, les longueurs de noms
+    // et l'étalement des dates demandés.
+    @Test
+    public void test_workload_respects_options() {
+        final TaskWorkload workload = new TaskWorkload.Builder()
+                .projects(4)
+                .tasksPerProject(250)
+                .nameLength(TaskWorkload.NameLength.UNIFORM, 5, 40)
+                .timestamps(1_000_000L, 1000L)
+                .build();
+        assertEquals(4, workload.getProjects().size());
+
+        final int[] tasksPerProject = new int[5];
+        int count = 0;
+        final TaskWorkload.Tasks tasks = workload.tasks();
+        while (tasks.hasNext()) {
+            final Task task = tasks.next();
+            count++;
+            tasksPerProject[(int) task.getProjectId()]++;
+            assertTrue(task.getName().length() >= 5 && task.getName().length() <= 40);
+            assertTrue(task.getCreationTimestamp() > 999_000L && task.getCreationTimestamp() <= 1_000_000L);
+        }
+        assertEquals(1000, count);
+        for (int projectId = 1; projectId <= 4; projectId++) {
+            assertEquals(250, tasksPerProject[projectId]);
+        }
+    }
+
+    // ce test vérifie que deux générations du même jeu de données produisent les mêmes tâches,
+    // et qu'une longueur fixe est respectée exactement.
+    @Test
+    public void test_workload_is_reproducible() {
+        final TaskWorkload workload = new TaskWorkload.Builder()
+                .nameLength(TaskWorkload.NameLength.FIXED, 12, 12)
+                .build();
+        final List<String> first = names(workload);
+        assertEquals(first, names(workload));
+        for (String name : first) {
+            assertEquals(12, name.length());
+        }
+    }
+
+    private static List<String> names(TaskWorkload workload) {
+        final List<String> names = new ArrayList<>();
+        final TaskWorkload.Tasks tasks = workload.tasks();
+        while (tasks.hasNext()) {
+            names.add(tasks.next().getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cleanup.todoc.benchmark;
+
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Génère les tâches des bancs d'essai, toujours les mêmes pour une taille donnée.
+ */
+final class BenchmarkTasks {
+
+    /**
+     * Nombre de projets auxquels les tâches sont réparties
+     */
+    static final int PROJECT_COUNT = 16;
+
+    private BenchmarkTasks() {
+    }
+
+    /**
+     * Renvoie des tâches aux noms et horodatages aléatoires, avec beaucoup d'égalités, réparties sur PROJECT_COUNT projets.
+     * @param size le nombre de tâches
+     */
+    static List<Task> tasks(int size) {
+        final Random random = new Random(size);
+        final List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final String name = "task " + (char) ('a' + random.nextInt(26)) + random.nextInt(50);
+            tasks.add(new Task(i + 1, 1 + random.nextInt(PROJECT_COUNT), name,
+                    1_600_000_000_000L + random.nextInt(10_000_000)));
+        }
+        return tasks;
+    }
+
+    /**
+     * Renvoie les mêmes tâches sous forme de colonnes primitives.
+     */
+    static TaskSnapshot snapshot(List<Task> tasks) {
+        final TaskSnapshot.Builder builder = new TaskSnapshot.Builder(tasks.size());
+        for (Task task : tasks) {
+            builder.add(task.getId(), task.getProjectId(), task.getName(), task.getCreationTimestamp());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.cleanup.todoc.benchmark;
+
+import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectRegistry;
+import com.cleanup.todoc.model.Task;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche du projet de chaque tâche, comme lors de l'affichage de la liste :
+ * parcours de Project.getAllProjects() contre la table de hachage du registre des projets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProjectLookupBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private long[] projectIds;
+
+    // avant la première émission de la base, le registre contient les projets par défaut
+    private final ProjectRegistry registry = ProjectRegistry.getInstance();
+
+    @Setup
+    public void setUp() {
+        final List<Task> tasks = BenchmarkTasks.tasks(size);
+        projectIds = new long[size];
+        for (int i = 0; i < size; i++) {
+            // Project.getProjectById ne connaît que les projets par défaut
+            projectIds[i] = 1 + tasks.get(i).getProjectId() % Project.getAllProjects().length;
+        }
+    }
+
+    @Benchmark
+    public void getProjectById(Blackhole blackhole) {
+        for (long projectId : projectIds) {
+            blackhole.consume(Project.getProjectById(projectId));
+        }
+    }
+
+    @Benchmark
+    public void registry(Blackhole blackhole) {
+        for (long projectId : projectIds) {
+            blackhole.consume(registry.get(projectId));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cleanup.todoc.benchmark;
+
+import com.cleanup.todoc.filter.TaskFilter;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtrage des tâches par un ou plusieurs projets, sur une liste de tâches et sur une liste à colonnes primitives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TaskFilterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    /**
+     * Nombre de projets sélectionnés, parmi BenchmarkTasks.PROJECT_COUNT
+     */
+    @Param({"1", "4"})
+    public int selected;
+
+    private List<Task> tasks;
+
+    private TaskSnapshot snapshot;
+
+    private TaskFilter filter;
+
+    @Setup
+    public void setUp() {
+        tasks = BenchmarkTasks.tasks(size);
+        snapshot = BenchmarkTasks.snapshot(tasks);
+        final long[] projectIds = new long[selected];
+        for (int i = 0; i < selected; i++) {
+            projectIds[i] = 1 + i * (BenchmarkTasks.PROJECT_COUNT / selected);
+        }
+        filter = TaskFilter.of(projectIds);
+    }
+
+    @Benchmark
+    public List<Task> list() {
+        return filter.filter(tasks);
+    }
+
+    @Benchmark
+    public TaskSnapshot snapshot() {
+        return filter.filter(snapshot);
+    }
+}
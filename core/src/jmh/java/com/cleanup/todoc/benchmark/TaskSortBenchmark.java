@@ -0,0 +1,94 @@
+package com.cleanup.todoc.benchmark;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.sort.TaskSortEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tri des tâches pour chaque méthode de tri : comparateurs de Task, moteur à clés primitives sur une liste de tâches
+ * (séquentiel et parallèle) et sur une liste à colonnes primitives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TaskSortBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"ALPHABETICAL", "ALPHABETICAL_INVERTED", "RECENT_FIRST", "OLD_FIRST"})
+    public SortMethod sortMethod;
+
+    private List<Task> tasks;
+
+    private TaskSnapshot snapshot;
+
+    private Comparator<Task> comparator;
+
+    private final TaskSortEngine sequential = new TaskSortEngine(null, false);
+
+    private final TaskSortEngine parallel = new TaskSortEngine(null, true);
+
+    @Setup
+    public void setUp() {
+        tasks = BenchmarkTasks.tasks(size);
+        snapshot = BenchmarkTasks.snapshot(tasks);
+        switch (sortMethod) {
+            case ALPHABETICAL:
+                comparator = new Task.TaskAZComparator();
+                break;
+            case ALPHABETICAL_INVERTED:
+                comparator = new Task.TaskZAComparator();
+                break;
+            case RECENT_FIRST:
+                comparator = new Task.TaskRecentComparator();
+                break;
+            default:
+                comparator = new Task.TaskOldComparator();
+                break;
+        }
+    }
+
+    @Benchmark
+    public List<Task> comparator() {
+        final List<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(comparator);
+        return sorted;
+    }
+
+    @Benchmark
+    public List<Task> engineSequential() {
+        return sequential.sort(tasks, sortMethod);
+    }
+
+    @Benchmark
+    public List<Task> engineParallel() {
+        return parallel.sort(tasks, sortMethod);
+    }
+
+    @Benchmark
+    public TaskSnapshot snapshot() {
+        return snapshot.sortedBy(parallel, sortMethod);
+    }
+}
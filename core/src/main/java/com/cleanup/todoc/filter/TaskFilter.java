@@ -0,0 +1,150 @@
+package com.cleanup.todoc.filter;
+
+import androidx.annotation.NonNull;
+
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cette classe représente le filtre des tâches par projet : soit tous les projets ({@link #ALL}),
+ * soit un ensemble de projets désignés par leur identifiant.
+ * Les identifiants sont rangés dans un tableau trié de long primitifs, ce qui évite toute allocation au filtrage.
+ * Une instance est immuable.
+ */
+public final class TaskFilter {
+
+    /**
+     * Le filtre qui accepte les tâches de tous les projets
+     */
+    @NonNull
+    public static final TaskFilter ALL = new TaskFilter(null);
+
+    /**
+     * Les identifiants des projets acceptés, triés et sans doublon, ou null pour tous les projets
+     */
+    private final long[] projectIds;
+
+    private TaskFilter(long[] projectIds) {
+        this.projectIds = projectIds;
+    }
+
+    /**
+     * Renvoie le filtre qui n'accepte que les tâches des projets donnés.
+     * @param projectIds les identifiants des projets acceptés, au moins un
+     */
+    @NonNull
+    public static TaskFilter of(@NonNull long... projectIds) {
+        if (projectIds.length == 0) {
+            throw new IllegalArgumentException("a filter needs at least one project");
+        }
+        final long[] sorted = projectIds.clone();
+        Arrays.sort(sorted);
+        int count = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[count - 1]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return new TaskFilter(Arrays.copyOf(sorted, count));
+    }
+
+    /**
+     * Renvoie true si ce filtre accepte les tâches de tous les projets.
+     */
+    public boolean isAll() {
+        return projectIds == null;
+    }
+
+    /**
+     * Renvoie les identifiants triés des projets acceptés, ou un tableau vide si ce filtre les accepte tous.
+     */
+    @NonNull
+    public long[] getProjectIds() {
+        return projectIds == null ? new long[0] : projectIds.clone();
+    }
+
+    /**
+     * Renvoie true si les tâches du projet donné sont acceptées.
+     * @param projectId l'identifiant du projet
+     */
+    public boolean matches(long projectId) {
+        if (projectIds == null) {
+            return true;
+        }
+        // un seul projet est le cas le plus courant : pas de recherche dichotomique
+        if (projectIds.length == 1) {
+            return projectIds[0] == projectId;
+        }
+        return Arrays.binarySearch(projectIds, projectId) >= 0;
+    }
+
+    /**
+     * Renvoie true si la tâche donnée est acceptée.
+     */
+    public boolean matches(@NonNull Task task) {
+        return matches(task.getProjectId());
+    }
+
+    /**
+     * Renvoie une nouvelle liste contenant les tâches acceptées, dans leur ordre d'origine,
+     * ou la liste donnée elle-même si ce filtre accepte tous les projets.
+     */
+    @NonNull
+    public List<Task> filter(@NonNull List<Task> tasks) {
+        if (projectIds == null) {
+            return tasks;
+        }
+        final List<Task> filtered = new ArrayList<>();
+        for (Task task : tasks) {
+            if (matches(task.getProjectId())) {
+                filtered.add(task);
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Renvoie une nouvelle liste contenant les tâches acceptées, dans leur ordre d'origine,
+     * ou la liste donnée elle-même si ce filtre accepte tous les projets.
+     */
+    @NonNull
+    public TaskSnapshot filter(@NonNull TaskSnapshot tasks) {
+        if (projectIds == null) {
+            return tasks;
+        }
+        final int[] positions = new int[tasks.size()];
+        int count = 0;
+        for (int position = 0; position < tasks.size(); position++) {
+            if (matches(tasks.getProjectId(position))) {
+                positions[count++] = position;
+            }
+        }
+        return count == tasks.size() ? tasks : tasks.permute(Arrays.copyOf(positions, count));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof TaskFilter)) {
+            return false;
+        }
+        return Arrays.equals(projectIds, ((TaskFilter) other).projectIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(projectIds);
+    }
+
+    @Override
+    @NonNull
+    public String toString() {
+        return projectIds == null ? "TaskFilter[all]" : "TaskFilter" + Arrays.toString(projectIds);
+    }
+}
@@ -0,0 +1,73 @@
+package com.cleanup.todoc.model;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * Cette classe représente une tâche archivée (table "task_archive") : les tâches anciennes y sont déplacées
+ * par la maintenance de la base (TaskMaintenance), pour que la table "task", lue par la liste, reste petite.
+ * Les colonnes sont celles de la table "task" ; une tâche garde son identifiant, jamais réutilisé (AUTOINCREMENT).
+ * Les tâches archivées ne sont lues que par les requêtes d'historique du TaskDao, qui les renvoient comme des {@link Task}.
+ */
+@Entity(tableName = "task_archive",
+        foreignKeys = @ForeignKey(entity = Project.class,
+                parentColumns = "id",
+                childColumns = "project_id",
+                onDelete = CASCADE),
+        // Mêmes clés de tri que la table "task" pour l'historique
+        indices = {@Index("project_id"), @Index("creationTimestamp")})
+public class ArchivedTask {
+
+    /**
+     * L'identifiant de la tâche, repris de la table "task"
+     */
+    @PrimaryKey
+    private final long id;
+
+    /**
+     * L'identifiant du projet associé à la tâche
+     */
+    @ColumnInfo(name = "project_id")
+    private final long projectId;
+
+    /**
+     * Le nom de la tâche
+     */
+    @NonNull
+    private final String name;
+
+    /**
+     * L'horodatage de la création de la tâche
+     */
+    private final long creationTimestamp;
+
+    public ArchivedTask(long id, long projectId, @NonNull String name, long creationTimestamp) {
+        this.id = id;
+        this.projectId = projectId;
+        this.name = name;
+        this.creationTimestamp = creationTimestamp;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getProjectId() {
+        return projectId;
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    public long getCreationTimestamp() {
+        return creationTimestamp;
+    }
+}
@@ -0,0 +1,115 @@
+package com.cleanup.todoc.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cette classe donne accès aux projets par leur identifiant en temps constant et sans allocation.
+ * Les projets sont rangés dans une table de hachage à adressage ouvert indexée par des long primitifs,
+ * reconstruite à chaque émission de ProjectDao.getProjects() (voir ProjectDataRepository).
+ * Une table publiée n'est jamais modifiée : la lecture est possible depuis n'importe quel thread.
+ * Avant la première émission, la table contient les projets par défaut de {@link Project#getAllProjects()}.
+ */
+public final class ProjectRegistry {
+
+    private static final ProjectRegistry INSTANCE = new ProjectRegistry(Arrays.asList(Project.getAllProjects()));
+
+    /**
+     * La table courante, remplacée en une seule écriture à chaque mise à jour
+     */
+    @NonNull
+    private volatile Table table;
+
+    ProjectRegistry(@NonNull List<Project> projects) {
+        table = new Table(projects);
+    }
+
+    /**
+     * Renvoie le registre des projets de l'application.
+     */
+    @NonNull
+    public static ProjectRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Remplace le contenu du registre par la liste de projets donnée.
+     * @param projects tous les projets de la base de données
+     */
+    public void update(@NonNull List<Project> projects) {
+        table = new Table(projects);
+    }
+
+    /**
+     * Renvoie le projet avec l'identifiant unique donné, ou null s'il n'est pas connu.
+     * @param id l'identifiant unique du projet
+     */
+    @Nullable
+    public Project get(long id) {
+        return table.get(id);
+    }
+
+    /**
+     * Renvoie le nombre de projets connus.
+     */
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * Table de hachage à sondage linéaire : une case est libre lorsque sa valeur est null,
+     * ce qui permet d'utiliser n'importe quel identifiant comme clé, y compris 0.
+     */
+    private static final class Table {
+
+        private final long[] keys;
+
+        private final Project[] values;
+
+        private final int mask;
+
+        private final int size;
+
+        Table(@NonNull List<Project> projects) {
+            // capacité : puissance de 2 au moins deux fois plus grande que le nombre de projets
+            final int capacity = Integer.highestOneBit(Math.max(4, projects.size() * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new Project[capacity];
+            mask = capacity - 1;
+            int count = 0;
+            for (Project project : projects) {
+                int slot = slot(project.getId());
+                while (values[slot] != null && keys[slot] != project.getId()) {
+                    slot = (slot + 1) & mask;
+                }
+                if (values[slot] == null) {
+                    count++;
+                }
+                keys[slot] = project.getId();
+                values[slot] = project;
+            }
+            size = count;
+        }
+
+        @Nullable
+        Project get(long id) {
+            int slot = slot(id);
+            Project project;
+            while ((project = values[slot]) != null) {
+                if (keys[slot] == id) {
+                    return project;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        private int slot(long id) {
+            // mélange de Fibonacci : des identifiants consécutifs sont répartis sur toute la table
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.cleanup.todoc.model;
+
+import static androidx.room.ForeignKey.CASCADE;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Cette classe représente les statistiques d'un projet (table "project_stats") : le nombre de ses tâches
+ * et l'horodatage de création de sa tâche la plus récente. Seules les tâches de la table "task" sont comptées,
+ * pas les tâches archivées.
+ * Les lignes sont tenues à jour par des déclencheurs SQLite à chaque création de projet et à chaque insertion,
+ * suppression ou déplacement d'une tâche, dans la même transaction que l'écriture : leur lecture coûte une ligne
+ * par projet, quel que soit le nombre de tâches.
+ */
+@Entity(tableName = "project_stats",
+        foreignKeys = @ForeignKey(entity = Project.class,
+                parentColumns = "id",
+                childColumns = "project_id",
+                onDelete = CASCADE))
+public class ProjectStats {
+
+    /**
+     * L'identifiant du projet
+     */
+    @PrimaryKey
+    @ColumnInfo(name = "project_id")
+    private final long projectId;
+
+    /**
+     * Le nombre de tâches du projet
+     */
+    @ColumnInfo(name = "task_count")
+    private final int taskCount;
+
+    /**
+     * L'horodatage de création de la tâche la plus récente du projet, 0 si le projet n'a pas de tâche
+     */
+    @ColumnInfo(name = "last_task_timestamp")
+    private final long lastTaskTimestamp;
+
+    public ProjectStats(long projectId, int taskCount, long lastTaskTimestamp) {
+        this.projectId = projectId;
+        this.taskCount = taskCount;
+        this.lastTaskTimestamp = lastTaskTimestamp;
+    }
+
+    /**
+     * Renvoie l'identifiant du projet.
+     */
+    public long getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * Renvoie le nombre de tâches du projet.
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Renvoie l'horodatage de création de la tâche la plus récente du projet, 0 si le projet n'a pas de tâche.
+     */
+    public long getLastTaskTimestamp() {
+        return lastTaskTimestamp;
+    }
+}
@@ -0,0 +1,31 @@
+package com.cleanup.todoc.model;
+
+/**
+ * Ces valeurs de tri sont utilisées pour déterminer l'ordre dans lequel les éléments doivent être affichés.
+ */
+public enum SortMethod {
+    /**
+     * Trie les éléments par ordre alphabétique selon leur nom.
+     */
+    ALPHABETICAL,
+
+    /**
+     * Trie les éléments par ordre alphabétique inverse selon leur nom.
+     */
+    ALPHABETICAL_INVERTED,
+
+    /**
+     * Trie les éléments en plaçant les plus récents en premier.
+     */
+    RECENT_FIRST,
+
+    /**
+     * Trie les éléments en plaçant les plus anciens en premier.
+     */
+    OLD_FIRST,
+
+    /**
+     * Indique qu'aucun tri n'est appliqué.
+     */
+    NONE
+}
@@ -9,6 +9,7 @@ import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.util.Comparator;
@@ -16,13 +17,20 @@ import java.util.Comparator;
 /**
  * Cette classe représente un modèle de tâche dans l'application et fournit des méthodes pour accéder et manipuler
  * les informations de la tâche, telles que son identifiant, son nom, son projet associé et son horodatage de création.
- * Elle offre également des comparateurs pour trier les tâches selon différents critères.
+ * Elle offre également des comparateurs pour trier les tâches selon différents critères ;
+ * pour les grandes listes, {@link com.cleanup.todoc.sort.TaskSortEngine} trie à partir de clés primitives.
  */
 @Entity(tableName = "task", // Marque cette classe en tant qu'entité.
         foreignKeys = @ForeignKey(entity = Project.class,
         parentColumns = "id",
         childColumns = "project_id",
-        onDelete = CASCADE))
+        onDelete = CASCADE),
+        // Index utilisés par les requêtes triées : chaque entrée contient aussi le rowid (id),
+        // ce qui couvre les clés (name, id) et (creationTimestamp, id) sans tri temporaire.
+        // L'index (project_id, creationTimestamp) sert la clé étrangère et la tâche la plus récente d'un projet ;
+        // avec l'index (project_id, name), il sert aussi les listes filtrées par projet.
+        indices = {@Index("name"), @Index("creationTimestamp"), @Index({"project_id", "creationTimestamp"}),
+                @Index({"project_id", "name"})})
 public class Task {
     /**
      * L'identifiant unique de la tâche
@@ -33,7 +41,7 @@ public class Task {
     /**
      * L'identifiant unique du projet associé à la tâche
      */
-    @ColumnInfo(name = "project_id", index = true) // personnalise la colonne associée à la propriété.
+    @ColumnInfo(name = "project_id") // personnalise la colonne associée à la propriété.
     private long projectId;
 
     /**
@@ -107,11 +115,11 @@ public class Task {
     }
 
     /**
-     * Renvoie le projet associé à la tâche.
+     * Renvoie le projet associé à la tâche, à partir du {@link ProjectRegistry}.
      */
     @Nullable
     public Project getProject() {
-        return Project.getProjectById(projectId);
+        return ProjectRegistry.getInstance().get(projectId);
     }
 
     /**
@@ -162,7 +170,8 @@ public class Task {
     public static class TaskRecentComparator implements Comparator<Task> {
         @Override
         public int compare(Task left, Task right) {
-            return (int) (right.creationTimestamp - left.creationTimestamp);
+            // Long.compare évite le débordement du cast en int lorsque les horodatages sont éloignés de plus de 24 jours
+            return Long.compare(right.creationTimestamp, left.creationTimestamp);
         }
     }
 
@@ -172,7 +181,7 @@ public class Task {
     public static class TaskOldComparator implements Comparator<Task> {
         @Override
         public int compare(Task left, Task right) {
-            return (int) (left.creationTimestamp - right.creationTimestamp);
+            return Long.compare(left.creationTimestamp, right.creationTimestamp);
         }
     }
 }
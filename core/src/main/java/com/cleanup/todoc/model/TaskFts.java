@@ -0,0 +1,52 @@
+package com.cleanup.todoc.model;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Cette classe représente l'index plein texte des noms de tâches (table virtuelle FTS4 "task_fts").
+ * Le contenu n'est pas dupliqué : la table lit les noms dans la table "task" (content=task),
+ * et Room crée les déclencheurs qui tiennent l'index à jour à chaque insertion, modification ou suppression d'une tâche.
+ * Le rowid d'une entrée est l'identifiant de la tâche correspondante.
+ * Le tokenizer unicode61 ignore la casse des lettres accentuées (« Écrire » est trouvé par « écr »).
+ */
+@Fts4(contentEntity = Task.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "task_fts")
+public class TaskFts {
+    /**
+     * L'identifiant de la tâche indexée
+     */
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private final long rowid;
+
+    /**
+     * Le nom de la tâche indexée
+     */
+    @NonNull
+    private final String name;
+
+    public TaskFts(long rowid, @NonNull String name) {
+        this.rowid = rowid;
+        this.name = name;
+    }
+
+    /**
+     * Renvoie l'identifiant de la tâche indexée.
+     */
+    public long getRowid() {
+        return rowid;
+    }
+
+    /**
+     * Renvoie le nom de la tâche indexée.
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,178 @@
+package com.cleanup.todoc.model;
+
+import androidx.annotation.NonNull;
+
+import com.cleanup.todoc.sort.TaskSortEngine;
+
+import java.util.Arrays;
+
+/**
+ * Cette classe représente une liste de tâches figée, stockée par colonnes : un tableau par attribut
+ * plutôt qu'un objet Task par ligne. Pour 100 000 tâches, cela évite 100 000 en-têtes d'objets et
+ * les références associées, et les colonnes primitives peuvent être triées directement par le {@link TaskSortEngine}.
+ * Une instance est immuable : les tableaux ne sont jamais exposés ni modifiés après construction.
+ */
+public final class TaskSnapshot {
+
+    /**
+     * Liste vide partagée
+     */
+    public static final TaskSnapshot EMPTY = new Builder(0).build();
+
+    private final long[] ids;
+
+    private final long[] projectIds;
+
+    private final long[] creationTimestamps;
+
+    private final String[] names;
+
+    private TaskSnapshot(long[] ids, long[] projectIds, long[] creationTimestamps, String[] names) {
+        this.ids = ids;
+        this.projectIds = projectIds;
+        this.creationTimestamps = creationTimestamps;
+        this.names = names;
+    }
+
+    /**
+     * Renvoie le nombre de tâches.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Renvoie l'identifiant unique de la tâche à la position donnée.
+     */
+    public long getId(int position) {
+        return ids[position];
+    }
+
+    /**
+     * Renvoie l'identifiant du projet de la tâche à la position donnée.
+     */
+    public long getProjectId(int position) {
+        return projectIds[position];
+    }
+
+    /**
+     * Renvoie le nom de la tâche à la position donnée.
+     */
+    @NonNull
+    public String getName(int position) {
+        return names[position];
+    }
+
+    /**
+     * Renvoie l'horodatage de création de la tâche à la position donnée.
+     */
+    public long getCreationTimestamp(int position) {
+        return creationTimestamps[position];
+    }
+
+    /**
+     * Crée un objet Task pour la tâche à la position donnée.
+     */
+    @NonNull
+    public Task getTask(int position) {
+        return new Task(ids[position], projectIds[position], names[position], creationTimestamps[position]);
+    }
+
+    /**
+     * Renvoie une nouvelle liste contenant les tâches dans l'ordre des positions données.
+     *
+     * @param order les positions des tâches, dans l'ordre voulu
+     */
+    @NonNull
+    public TaskSnapshot permute(@NonNull int[] order) {
+        final Builder builder = new Builder(order.length);
+        for (int position : order) {
+            builder.add(ids[position], projectIds[position], names[position], creationTimestamps[position]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Renvoie une nouvelle liste triée selon la méthode de tri donnée, à partir des colonnes primitives.
+     */
+    @NonNull
+    public TaskSnapshot sortedBy(@NonNull TaskSortEngine engine, @NonNull SortMethod sortMethod) {
+        switch (sortMethod) {
+            case ALPHABETICAL:
+            case ALPHABETICAL_INVERTED:
+                return permute(engine.orderByName(names, sortMethod == SortMethod.ALPHABETICAL_INVERTED));
+            case RECENT_FIRST:
+            case OLD_FIRST:
+                return permute(engine.orderByTimestamp(creationTimestamps, sortMethod == SortMethod.RECENT_FIRST));
+            default:
+                return this;
+        }
+    }
+
+    /**
+     * Construit une liste ligne par ligne, par exemple en parcourant un Cursor.
+     */
+    public static final class Builder {
+
+        private long[] ids;
+
+        private long[] projectIds;
+
+        private long[] creationTimestamps;
+
+        private String[] names;
+
+        private int size;
+
+        /**
+         * @param capacity le nombre de lignes attendu (la capacité augmente si nécessaire)
+         */
+        public Builder(int capacity) {
+            ids = new long[capacity];
+            projectIds = new long[capacity];
+            creationTimestamps = new long[capacity];
+            names = new String[capacity];
+        }
+
+        /**
+         * Ajoute une tâche à la fin de la liste.
+         */
+        @NonNull
+        public Builder add(long id, long projectId, @NonNull String name, long creationTimestamp) {
+            if (size == ids.length) {
+                final int capacity = Math.max(16, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                projectIds = Arrays.copyOf(projectIds, capacity);
+                creationTimestamps = Arrays.copyOf(creationTimestamps, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            ids[size] = id;
+            projectIds[size] = projectId;
+            creationTimestamps[size] = creationTimestamp;
+            names[size] = name;
+            size++;
+            return this;
+        }
+
+        /**
+         * Construit la liste ; les tableaux sont ajustés à la taille exacte.
+         */
+        @NonNull
+        public TaskSnapshot build() {
+            if (size != ids.length) {
+                ids = Arrays.copyOf(ids, size);
+                projectIds = Arrays.copyOf(projectIds, size);
+                creationTimestamps = Arrays.copyOf(creationTimestamps, size);
+                names = Arrays.copyOf(names, size);
+            }
+            final TaskSnapshot snapshot = new TaskSnapshot(ids, projectIds, creationTimestamps, names);
+            // Le builder ne doit plus modifier des tableaux désormais partagés
+            ids = new long[0];
+            projectIds = new long[0];
+            creationTimestamps = new long[0];
+            names = new String[0];
+            size = 0;
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cleanup.todoc.search;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Cette classe construit les expressions de recherche plein texte sur le nom des tâches (table task_fts).
+ */
+public final class TaskSearchQuery {
+
+    private TaskSearchQuery() {
+    }
+
+    /**
+     * Convertit un texte libre en expression MATCH de FTS4 : chaque mot devient une recherche par préfixe
+     * entre guillemets, ce qui neutralise les opérateurs (OR, NEAR, -, ...) que le texte pourrait contenir.
+     * Les mots sont combinés par un ET implicite.
+     * @param text le texte saisi par l'utilisateur
+     * @return l'expression MATCH, vide si le texte ne contient aucun mot
+     */
+    @NonNull
+    public static String toMatchQuery(@NonNull String text) {
+        final StringBuilder query = new StringBuilder();
+        // Mêmes séparateurs que le tokenizer unicode61 : tout ce qui n'est ni une lettre ni un chiffre
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append('"').append(word).append("*\"");
+            }
+        }
+        return query.toString();
+    }
+}
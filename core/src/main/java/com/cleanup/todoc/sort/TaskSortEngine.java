@@ -0,0 +1,343 @@
+package com.cleanup.todoc.sort;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cette classe trie des tâches à partir de clés primitives plutôt qu'avec des comparateurs d'objets.
+ * Les horodatages sont combinés avec l'indice de la tâche dans un long et triés comme un simple tableau de long ;
+ * les noms sont remplacés par des clés de collation calculées une seule fois. Le résultat est une permutation d'indices.
+ * Le tri est stable, comme Collections.sort : deux tâches de même clé gardent leur ordre d'origine.
+ * Au-delà de PARALLEL_THRESHOLD éléments, le tri est parallélisé (Arrays.parallelSort, fork/join) si la plateforme le permet.
+ */
+public final class TaskSortEngine {
+
+    /**
+     * Nombre d'éléments à partir duquel le tri parallèle devient rentable
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * Le collateur utilisé pour les noms, ou null pour l'ordre binaire de String.compareTo (celui de SQLite)
+     */
+    @Nullable
+    private final Collator mCollator;
+
+    /**
+     * Indique si Arrays.parallelSort est disponible (API 24 sur Android)
+     */
+    private final boolean mParallelAllowed;
+
+    /**
+     * Instancie un moteur de tri.
+     *
+     * @param collator        le collateur utilisé pour comparer les noms, ou null pour l'ordre binaire
+     * @param parallelAllowed true si Arrays.parallelSort peut être utilisé sur cette plateforme
+     */
+    public TaskSortEngine(@Nullable Collator collator, boolean parallelAllowed) {
+        mCollator = collator == null ? null : (Collator) collator.clone();
+        mParallelAllowed = parallelAllowed;
+    }
+
+    /**
+     * Renvoie une nouvelle liste contenant les tâches triées selon la méthode de tri donnée.
+     */
+    @NonNull
+    public List<Task> sort(@NonNull List<Task> tasks, @NonNull SortMethod sortMethod) {
+        final int[] order = order(tasks, sortMethod);
+        final List<Task> sorted = new ArrayList<>(order.length);
+        for (int index : order) {
+            sorted.add(tasks.get(index));
+        }
+        return sorted;
+    }
+
+    /**
+     * Renvoie la permutation d'indices qui trie les tâches selon la méthode de tri donnée.
+     */
+    @NonNull
+    public int[] order(@NonNull List<Task> tasks, @NonNull SortMethod sortMethod) {
+        final int size = tasks.size();
+        switch (sortMethod) {
+            case ALPHABETICAL:
+            case ALPHABETICAL_INVERTED: {
+                final String[] names = new String[size];
+                for (int i = 0; i < size; i++) {
+                    names[i] = tasks.get(i).getName();
+                }
+                return orderByName(names, sortMethod == SortMethod.ALPHABETICAL_INVERTED);
+            }
+            case RECENT_FIRST:
+            case OLD_FIRST: {
+                final long[] timestamps = new long[size];
+                for (int i = 0; i < size; i++) {
+                    timestamps[i] = tasks.get(i).getCreationTimestamp();
+                }
+                return orderByTimestamp(timestamps, sortMethod == SortMethod.RECENT_FIRST);
+            }
+            default:
+                return identity(size);
+        }
+    }
+
+    /**
+     * Renvoie la permutation d'indices qui trie les horodatages.
+     *
+     * @param timestamps les horodatages de création
+     * @param descending true pour placer les plus récents en premier
+     */
+    @NonNull
+    public int[] orderByTimestamp(@NonNull long[] timestamps, boolean descending) {
+        final int size = timestamps.length;
+        if (size < 2) {
+            return identity(size);
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long timestamp : timestamps) {
+            min = Math.min(min, timestamp);
+            max = Math.max(max, timestamp);
+        }
+        final int indexBits = indexBits(size);
+        // L'écart (max - min) peut dépasser Long.MAX_VALUE : on le compare en non signé.
+        if (Long.compareUnsigned(max - min, (1L << (63 - indexBits)) - 1) > 0) {
+            return orderByTimestampRanks(timestamps, descending);
+        }
+        // L'écart tient dans les bits de poids fort : on trie directement (écart, indice).
+        final long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            final long offset = descending ? max - timestamps[i] : timestamps[i] - min;
+            packed[i] = (offset << indexBits) | i;
+        }
+        return unpack(packed, indexBits);
+    }
+
+    /**
+     * Renvoie la permutation d'indices qui trie les noms.
+     * Les clés de collation sont calculées une seule fois par nom, puis triées avec leurs indices
+     * par un tri fusion stable, découpé en sous-tâches fork/join pour les grandes listes.
+     *
+     * @param names      les noms des tâches
+     * @param descending true pour trier de Z à A
+     */
+    @NonNull
+    public int[] orderByName(@NonNull String[] names, boolean descending) {
+        final int size = names.length;
+        final int[] order = identity(size);
+        if (size < 2) {
+            return order;
+        }
+        final Comparable<Object>[] keys = comparableKeys(names);
+        final NameMergeSort sort = new NameMergeSort(keys, order, new Object[size], new int[size], descending, 0, size);
+        if (mParallelAllowed && size >= PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(sort);
+        } else {
+            sort.compute();
+        }
+        return order;
+    }
+
+    /**
+     * Renvoie les clés de comparaison des noms : clés de collation, ou les noms eux-mêmes pour l'ordre binaire.
+     */
+    @NonNull
+    @SuppressWarnings("unchecked")
+    private Comparable<Object>[] comparableKeys(@NonNull String[] names) {
+        final Comparable<?>[] keys = new Comparable<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = mCollator == null ? names[i] : mCollator.getCollationKey(names[i]);
+        }
+        return (Comparable<Object>[]) keys;
+    }
+
+    /**
+     * Variante utilisée lorsque l'écart entre les horodatages est trop grand pour être combiné avec l'indice.
+     */
+    @NonNull
+    private int[] orderByTimestampRanks(@NonNull long[] timestamps, boolean descending) {
+        final long[] sorted = timestamps.clone();
+        sortLongs(sorted);
+        final long[] packed = new long[timestamps.length];
+        final int maxRank = timestamps.length - 1;
+        for (int i = 0; i < timestamps.length; i++) {
+            final int rank = lowerBound(sorted, timestamps[i]);
+            packed[i] = ((long) (descending ? maxRank - rank : rank) << 32) | i;
+        }
+        return unpack(packed, 32);
+    }
+
+    /**
+     * Trie les clés combinées et en extrait les indices.
+     */
+    @NonNull
+    private int[] unpack(@NonNull long[] packed, int indexBits) {
+        sortLongs(packed);
+        final long mask = (1L << indexBits) - 1;
+        final int[] order = new int[packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            order[i] = (int) (packed[i] & mask);
+        }
+        return order;
+    }
+
+    private void sortLongs(@NonNull long[] values) {
+        if (mParallelAllowed && values.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(values);
+        } else {
+            Arrays.sort(values);
+        }
+    }
+
+    /**
+     * Renvoie le nombre de bits nécessaires pour représenter un indice inférieur à size.
+     */
+    private static int indexBits(int size) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    @NonNull
+    private static int[] identity(int size) {
+        final int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Renvoie l'indice de la première valeur supérieure ou égale à key dans un tableau trié.
+     */
+    private static int lowerBound(@NonNull long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sorted[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Tri fusion stable des clés de noms et de leurs indices (tableaux parallèles, sans objet intermédiaire).
+     * Les deux moitiés sont triées en parallèle lorsque la tâche est exécutée dans un ForkJoinPool.
+     */
+    private static final class NameMergeSort extends RecursiveAction {
+
+        /**
+         * En dessous de cette taille, un tri par insertion est plus rapide qu'une fusion
+         */
+        private static final int INSERTION_THRESHOLD = 32;
+
+        private final Comparable<Object>[] mKeys;
+
+        private final int[] mOrder;
+
+        /**
+         * Tampons de fusion partagés : chaque sous-tâche n'utilise que sa propre plage [mFrom, mTo)
+         */
+        private final Object[] mBufferKeys;
+
+        private final int[] mBufferOrder;
+
+        private final boolean mDescending;
+
+        private final int mFrom;
+
+        private final int mTo;
+
+        NameMergeSort(Comparable<Object>[] keys, int[] order, Object[] bufferKeys, int[] bufferOrder,
+                      boolean descending, int from, int to) {
+            mKeys = keys;
+            mOrder = order;
+            mBufferKeys = bufferKeys;
+            mBufferOrder = bufferOrder;
+            mDescending = descending;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= INSERTION_THRESHOLD) {
+                insertionSort();
+                return;
+            }
+            final int middle = (mFrom + mTo) >>> 1;
+            final NameMergeSort left = new NameMergeSort(mKeys, mOrder, mBufferKeys, mBufferOrder, mDescending, mFrom, middle);
+            final NameMergeSort right = new NameMergeSort(mKeys, mOrder, mBufferKeys, mBufferOrder, mDescending, middle, mTo);
+            if (inForkJoinPool() && mTo - mFrom >= PARALLEL_THRESHOLD) {
+                invokeAll(left, right);
+            } else {
+                left.compute();
+                right.compute();
+            }
+            // Les deux moitiés sont déjà dans l'ordre : rien à fusionner
+            if (compare(middle - 1, middle) <= 0) {
+                return;
+            }
+            merge(middle);
+        }
+
+        private void insertionSort() {
+            for (int i = mFrom + 1; i < mTo; i++) {
+                final Comparable<Object> key = mKeys[i];
+                final int index = mOrder[i];
+                int j = i - 1;
+                while (j >= mFrom && compare(mKeys[j], key) > 0) {
+                    mKeys[j + 1] = mKeys[j];
+                    mOrder[j + 1] = mOrder[j];
+                    j--;
+                }
+                mKeys[j + 1] = key;
+                mOrder[j + 1] = index;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void merge(int middle) {
+            // On copie la moitié gauche dans le tampon, puis on fusionne vers le tableau d'origine
+            System.arraycopy(mKeys, mFrom, mBufferKeys, mFrom, middle - mFrom);
+            System.arraycopy(mOrder, mFrom, mBufferOrder, mFrom, middle - mFrom);
+            int left = mFrom;
+            int right = middle;
+            int target = mFrom;
+            while (left < middle && right < mTo) {
+                // À clés égales, l'élément de gauche passe en premier : le tri reste stable
+                final Comparable<Object> leftKey = (Comparable<Object>) mBufferKeys[left];
+                if (compare(leftKey, mKeys[right]) <= 0) {
+                    mKeys[target] = leftKey;
+                    mOrder[target++] = mBufferOrder[left++];
+                } else {
+                    mKeys[target] = mKeys[right];
+                    mOrder[target++] = mOrder[right++];
+                }
+            }
+            while (left < middle) {
+                mKeys[target] = (Comparable<Object>) mBufferKeys[left];
+                mOrder[target++] = mBufferOrder[left++];
+            }
+        }
+
+        private int compare(int left, int right) {
+            return compare(mKeys[left], mKeys[right]);
+        }
+
+        private int compare(Comparable<Object> left, Comparable<Object> right) {
+            return mDescending ? right.compareTo(left) : left.compareTo(right);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.Project;
+import com.cleanup.todoc.model.ProjectRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests unitaires du registre des projets
+ */
+public class ProjectRegistryTest {
+
+    private final ProjectRegistry registry = ProjectRegistry.getInstance();
+
+    // le registre est partagé : on remet les projets par défaut pour les autres tests
+    @After
+    public void tearDown() {
+        registry.update(Arrays.asList(Project.getAllProjects()));
+    }
+
+    // ce test vérifie que chaque projet est retrouvé par son identifiant, y compris 0 et les identifiants négatifs,
+    // parmi des milliers de projets, et que les identifiants inconnus renvoient null.
+    @Test
+    public void test_get() {
+        final List<Project> projects = new ArrayList<>();
+        for (long id = -10; id < 5000; id++) {
+            projects.add(new Project(id * 7, "project " + id, 0xFF000000));
+        }
+        registry.update(projects);
+
+        assertEquals(projects.size(), registry.size());
+        for (Project project : projects) {
+            assertSame(project, registry.get(project.getId()));
+        }
+        assertNull(registry.get(1));
+        assertNull(registry.get(Long.MAX_VALUE));
+    }
+
+    // ce test vérifie qu'une mise à jour remplace entièrement le contenu du registre.
+    @Test
+    public void test_update() {
+        final Project project = new Project(42, "Projet 42", 0xFF000000);
+        registry.update(Arrays.asList(project));
+
+        assertEquals(1, registry.size());
+        assertSame(project, registry.get(42));
+        assertNull(registry.get(1));
+    }
+}
@@ -0,0 +1,76 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.filter.TaskFilter;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests unitaires du filtre des tâches par projet
+ */
+public class TaskFilterTest {
+
+    private final Task task1 = new Task(1, 1, "aaa", 123);
+    private final Task task2 = new Task(2, 2, "zzz", 124);
+    private final Task task3 = new Task(3, 3, "hhh", 125);
+    private final Task task4 = new Task(4, 1, "bbb", 126);
+
+    // ce test vérifie que le filtre de tous les projets accepte toutes les tâches sans copier la liste.
+    @Test
+    public void test_all() {
+        final List<Task> tasks = Arrays.asList(task1, task2, task3);
+        assertTrue(TaskFilter.ALL.isAll());
+        assertTrue(TaskFilter.ALL.matches(task3));
+        assertSame(tasks, TaskFilter.ALL.filter(tasks));
+        assertEquals(0, TaskFilter.ALL.getProjectIds().length);
+    }
+
+    // ce test vérifie qu'un filtre sur un ou plusieurs projets garde les tâches acceptées dans leur ordre d'origine,
+    // et que ses identifiants sont triés et sans doublon.
+    @Test
+    public void test_projects() {
+        final List<Task> tasks = Arrays.asList(task1, task2, task3, task4);
+
+        final TaskFilter single = TaskFilter.of(1);
+        assertFalse(single.isAll());
+        assertEquals(Arrays.asList(task1, task4), single.filter(tasks));
+
+        final TaskFilter multiple = TaskFilter.of(3, 1, 3);
+        assertArrayEquals(new long[]{1, 3}, multiple.getProjectIds());
+        assertEquals(Arrays.asList(task1, task3, task4), multiple.filter(tasks));
+        assertFalse(multiple.matches(task2));
+        assertEquals(TaskFilter.of(1, 3), multiple);
+    }
+
+    // ce test vérifie le filtrage d'une liste à colonnes primitives.
+    @Test
+    public void test_filter_snapshot() {
+        final TaskSnapshot tasks = new TaskSnapshot.Builder(4)
+                .add(1, 1, "aaa", 123)
+                .add(2, 2, "zzz", 124)
+                .add(3, 3, "hhh", 125)
+                .add(4, 1, "bbb", 126)
+                .build();
+
+        final TaskSnapshot filtered = TaskFilter.of(1).filter(tasks);
+        assertEquals(2, filtered.size());
+        assertEquals(1, filtered.getId(0));
+        assertEquals(4, filtered.getId(1));
+        assertSame(tasks, TaskFilter.of(1, 2, 3).filter(tasks));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_empty_filter() {
+        TaskFilter.of();
+    }
+}
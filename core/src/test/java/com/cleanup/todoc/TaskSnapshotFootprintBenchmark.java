@@ -0,0 +1,65 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Mesure de la mémoire retenue par 100 000 tâches, en List&lt;Task&gt; puis en TaskSnapshot.
+ * Les deux représentations partagent les mêmes chaînes de noms, seule la structure est mesurée.
+ * Il n'est exécuté que si la propriété todoc.benchmark est activée :
+ * ./gradlew :core:test -Ptodoc.benchmark=true --tests '*Benchmark'
+ */
+public class TaskSnapshotFootprintBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    private String[] names;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Boolean.getBoolean("todoc.benchmark"));
+        names = new String[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            names[i] = "task " + i;
+        }
+    }
+
+    @Test
+    public void benchmark_footprint_100k_tasks() {
+        long before = usedMemory();
+        final List<Task> tasks = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            tasks.add(new Task(i + 1, 1 + i % 3, names[i], 1_600_000_000_000L + i));
+        }
+        final long listBytes = usedMemory() - before;
+
+        before = usedMemory();
+        final TaskSnapshot.Builder builder = new TaskSnapshot.Builder(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            builder.add(i + 1, 1 + i % 3, names[i], 1_600_000_000_000L + i);
+        }
+        final TaskSnapshot snapshot = builder.build();
+        final long snapshotBytes = usedMemory() - before;
+
+        assertEquals(tasks.size(), snapshot.size());
+        System.out.printf("List<Task>   %,12d bytes (%5.1f bytes/row)%n", listBytes, (double) listBytes / SIZE);
+        System.out.printf("TaskSnapshot %,12d bytes (%5.1f bytes/row)%n", snapshotBytes, (double) snapshotBytes / SIZE);
+    }
+
+    private static long usedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
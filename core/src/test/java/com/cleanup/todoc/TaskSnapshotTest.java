@@ -0,0 +1,80 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.model.TaskSnapshot;
+import com.cleanup.todoc.sort.TaskSortEngine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests unitaires de la liste de tâches par colonnes
+ */
+public class TaskSnapshotTest {
+
+    private final TaskSortEngine engine = new TaskSortEngine(null, false);
+
+    // ce test vérifie que le builder conserve les tâches dans l'ordre d'ajout, au-delà de sa capacité initiale,
+    // et qu'il repart d'une liste vide après build().
+    @Test
+    public void test_builder() {
+        final List<Task> tasks = TaskSortEngineTest.randomTasks(100, new Random(7));
+        final TaskSnapshot.Builder builder = new TaskSnapshot.Builder(1);
+        final TaskSnapshot snapshot = fill(builder, tasks);
+
+        assertEquals(describe(tasks), describe(snapshot));
+        assertEquals(0, builder.build().size());
+        assertEquals(0, TaskSnapshot.EMPTY.size());
+    }
+
+    // ce test vérifie que le tri par colonnes donne le même ordre que les comparateurs de Task.
+    @Test
+    public void test_sortedBy() {
+        final List<Task> tasks = TaskSortEngineTest.randomTasks(1000, new Random(3));
+        final TaskSnapshot snapshot = fill(new TaskSnapshot.Builder(tasks.size()), tasks);
+
+        final List<Task> expected = new ArrayList<>(tasks);
+        Collections.sort(expected, new Task.TaskAZComparator());
+        assertEquals(describe(expected), describe(snapshot.sortedBy(engine, SortMethod.ALPHABETICAL)));
+
+        // les deux tris sont stables : on repart de l'ordre d'origine
+        expected.clear();
+        expected.addAll(tasks);
+        Collections.sort(expected, new Task.TaskRecentComparator());
+        assertEquals(describe(expected), describe(snapshot.sortedBy(engine, SortMethod.RECENT_FIRST)));
+
+        assertSame(snapshot, snapshot.sortedBy(engine, SortMethod.NONE));
+    }
+
+    private static TaskSnapshot fill(TaskSnapshot.Builder builder, List<Task> tasks) {
+        for (Task task : tasks) {
+            builder.add(task.getId(), task.getProjectId(), task.getName(), task.getCreationTimestamp());
+        }
+        return builder.build();
+    }
+
+    // Task ne redéfinit pas equals() : on compare une description de chaque tâche
+    private static List<String> describe(List<Task> tasks) {
+        final List<String> descriptions = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            descriptions.add(task.getId() + "/" + task.getProjectId() + "/" + task.getName() + "/" + task.getCreationTimestamp());
+        }
+        return descriptions;
+    }
+
+    private static List<String> describe(TaskSnapshot snapshot) {
+        final List<Task> tasks = new ArrayList<>(snapshot.size());
+        for (int position = 0; position < snapshot.size(); position++) {
+            tasks.add(snapshot.getTask(position));
+        }
+        return describe(tasks);
+    }
+}
@@ -0,0 +1,80 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.sort.TaskSortEngine;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Banc d'essai comparant le moteur de tri à clés primitives avec les comparateurs de Task sur 1M de tâches.
+ * Il n'est exécuté que si la propriété todoc.benchmark est activée :
+ * ./gradlew :core:test -Ptodoc.benchmark=true --tests '*Benchmark'
+ */
+public class TaskSortEngineBenchmark {
+
+    private static final int SIZE = 1_000_000;
+
+    private static final int ROUNDS = 3;
+
+    private List<Task> tasks;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(Boolean.getBoolean("todoc.benchmark"));
+        tasks = TaskSortEngineTest.randomTasks(SIZE, new Random(42));
+    }
+
+    @Test
+    public void benchmark_sort_1m_tasks() {
+        run(SortMethod.ALPHABETICAL, new Task.TaskAZComparator(), null);
+        run(SortMethod.ALPHABETICAL_INVERTED, new Task.TaskZAComparator(), null);
+        run(SortMethod.RECENT_FIRST, new Task.TaskRecentComparator(), null);
+        run(SortMethod.OLD_FIRST, new Task.TaskOldComparator(), null);
+
+        // Tri selon la langue : le comparateur appelle Collator.compare à chaque comparaison,
+        // le moteur calcule une seule clé de collation par nom.
+        final Collator collator = Collator.getInstance(Locale.FRENCH);
+        run(SortMethod.ALPHABETICAL, (left, right) -> collator.compare(left.getName(), right.getName()), collator);
+    }
+
+    private void run(SortMethod sortMethod, Comparator<Task> comparator, Collator collator) {
+        final TaskSortEngine sequential = new TaskSortEngine(collator, false);
+        final TaskSortEngine parallel = new TaskSortEngine(collator, true);
+        long comparatorNanos = Long.MAX_VALUE;
+        long sequentialNanos = Long.MAX_VALUE;
+        long parallelNanos = Long.MAX_VALUE;
+        List<Task> expected = null;
+        List<Task> actual = null;
+        // On garde le meilleur temps de chaque variante, les premiers tours servant de préchauffage.
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            expected = new ArrayList<>(tasks);
+            Collections.sort(expected, comparator);
+            comparatorNanos = Math.min(comparatorNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            sequential.sort(tasks, sortMethod);
+            sequentialNanos = Math.min(sequentialNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            actual = parallel.sort(tasks, sortMethod);
+            parallelNanos = Math.min(parallelNanos, System.nanoTime() - start);
+        }
+        assertEquals(expected, actual);
+        System.out.printf("%-22s %-9s comparator %6d ms | engine %6d ms | engine (parallel) %6d ms%n",
+                sortMethod, collator == null ? "binary" : "collated", comparatorNanos / 1_000_000, sequentialNanos / 1_000_000, parallelNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,86 @@
+package com.cleanup.todoc;
+
+import com.cleanup.todoc.model.SortMethod;
+import com.cleanup.todoc.model.Task;
+import com.cleanup.todoc.sort.TaskSortEngine;
+
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests unitaires pour le moteur de tri à clés primitives
+ */
+public class TaskSortEngineTest {
+
+    private final TaskSortEngine engine = new TaskSortEngine(null, true);
+
+    // ce test vérifie que le moteur produit exactement le même ordre que les comparateurs (tri stable compris)
+    // pour chaque méthode de tri, au-dessus et en dessous du seuil de tri parallèle.
+    @Test
+    public void test_same_order_as_comparators() {
+        for (int size : new int[]{0, 1, 17, TaskSortEngine.PARALLEL_THRESHOLD * 2}) {
+            final List<Task> tasks = randomTasks(size, new Random(size));
+            assertSameOrder(tasks, SortMethod.ALPHABETICAL, new Task.TaskAZComparator());
+            assertSameOrder(tasks, SortMethod.ALPHABETICAL_INVERTED, new Task.TaskZAComparator());
+            assertSameOrder(tasks, SortMethod.RECENT_FIRST, new Task.TaskRecentComparator());
+            assertSameOrder(tasks, SortMethod.OLD_FIRST, new Task.TaskOldComparator());
+        }
+    }
+
+    // ce test vérifie que des horodatages éloignés de plus de 24 jours, ou couvrant toute la plage des long,
+    // sont triés correctement.
+    @Test
+    public void test_distant_timestamps() {
+        final long[] timestamps = {Long.MAX_VALUE, 0L, 30L * 24 * 3600 * 1000, Long.MIN_VALUE, 0L};
+        assertArrayEquals(new int[]{3, 1, 4, 2, 0}, engine.orderByTimestamp(timestamps, false));
+        assertArrayEquals(new int[]{0, 2, 1, 4, 3}, engine.orderByTimestamp(timestamps, true));
+
+        final Task task1 = new Task(1, 1, "aaa", 0L);
+        final Task task2 = new Task(2, 2, "zzz", 30L * 24 * 3600 * 1000);
+        final List<Task> sorted = engine.sort(Arrays.asList(task1, task2), SortMethod.RECENT_FIRST);
+        assertSame(task2, sorted.get(0));
+        assertSame(task1, sorted.get(1));
+    }
+
+    // ce test vérifie que les noms sont comparés avec les clés de collation lorsqu'un collateur est fourni.
+    @Test
+    public void test_collation_keys() {
+        final Collator collator = Collator.getInstance(Locale.FRENCH);
+        collator.setStrength(Collator.SECONDARY);
+        final TaskSortEngine collated = new TaskSortEngine(collator, false);
+        final String[] names = {"Zèbre", "école", "Abricot", "etude"};
+        assertArrayEquals(new int[]{2, 1, 3, 0}, collated.orderByName(names, false));
+        assertArrayEquals(new int[]{0, 3, 1, 2}, collated.orderByName(names, true));
+    }
+
+    private void assertSameOrder(List<Task> tasks, SortMethod sortMethod, java.util.Comparator<Task> comparator) {
+        final List<Task> expected = new ArrayList<>(tasks);
+        Collections.sort(expected, comparator);
+        final List<Task> actual = engine.sort(tasks, sortMethod);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    static List<Task> randomTasks(int size, Random random) {
+        final List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // peu de noms et d'horodatages distincts, pour avoir beaucoup d'égalités
+            final String name = "task " + (char) ('a' + random.nextInt(26)) + random.nextInt(50);
+            tasks.add(new Task(i + 1, 1 + random.nextInt(3), name, 1_600_000_000_000L + random.nextInt(10_000)));
+        }
+        return tasks;
+    }
+}